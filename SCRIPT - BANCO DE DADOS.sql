@@ -2,10 +2,13 @@
 -- 1. Criação das Tabelas (DDL)
 -- ==============================
 
+-- Toda tabela tem nr_versao, incrementada a cada UPDATE. As atualizações informam a versão lida
+-- e não são aplicadas se outra escrita tiver chegado antes (controle de concorrência otimista).
 
 -- Criação da tabela CLIENTE
 CREATE TABLE T_CLIENTE (
                            id_cliente NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                           nr_versao NUMBER DEFAULT 0 NOT NULL,
                            nr_cpf VARCHAR2(15) NOT NULL UNIQUE,
                            nm_cliente VARCHAR2(100) NOT NULL,
                            ds_email VARCHAR2(100),
@@ -15,6 +18,7 @@ CREATE TABLE T_CLIENTE (
 -- Criação da tabela TELEFONE_CLIENTE associada a CLIENTE
 CREATE TABLE T_TELEFONE_CLIENTE (
                                     id_telefone_cliente NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     nr_telefone VARCHAR2(15) NOT NULL,
                                     tp_telefone VARCHAR2(11) CHECK (tp_telefone IN ('Residencial', 'Comercial', 'Celular')),
                                     id_cliente NUMBER NOT NULL,  -- Chave estrangeira referenciando CLIENTE
@@ -24,6 +28,7 @@ CREATE TABLE T_TELEFONE_CLIENTE (
 -- Criação da tabela ENDERECO_CLIENTE
 CREATE TABLE T_ENDERECO_CLIENTE (
                                     id_endereco_cliente NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     ds_logradouro VARCHAR2(100) NOT NULL,
                                     nr_numero NUMBER NOT NULL CHECK (nr_numero > 0),
                                     nr_cep VARCHAR2(10) NOT NULL,
@@ -37,6 +42,7 @@ CREATE TABLE T_ENDERECO_CLIENTE (
 -- Criação da tabela VEICULO
 CREATE TABLE T_VEICULO (
                            id_veiculo NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                           nr_versao NUMBER DEFAULT 0 NOT NULL,
                            id_placa VARCHAR2(10) NOT NULL UNIQUE,
                            nm_marca VARCHAR2(50) NOT NULL,
                            nm_modelo VARCHAR2(50) NOT NULL,
@@ -50,6 +56,7 @@ CREATE TABLE T_VEICULO (
 -- Criação da tabela OFICINA com id_oficina como chave primária
 CREATE TABLE T_OFICINA (
                            id_oficina NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                           nr_versao NUMBER DEFAULT 0 NOT NULL,
                            nr_cnpj VARCHAR2(18) NOT NULL UNIQUE,
                            nm_oficina VARCHAR2(100) NOT NULL,
                            ds_email VARCHAR2(100) NOT NULL
@@ -58,6 +65,7 @@ CREATE TABLE T_OFICINA (
 -- Criação da tabela TELEFONE_OFICINA associada a OFICINA
 CREATE TABLE T_TELEFONE_OFICINA (
                                     id_telefone_oficina NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     nr_telefone VARCHAR2(15) NOT NULL,
                                     tp_telefone VARCHAR2(11) CHECK (tp_telefone IN ('Residencial', 'Comercial', 'Celular')),
                                     id_oficina NUMBER NOT NULL,
@@ -67,6 +75,7 @@ CREATE TABLE T_TELEFONE_OFICINA (
 -- Criação da tabela ENDERECO_OFICINA referenciando id_oficina
 CREATE TABLE T_ENDERECO_OFICINA (
                                     id_endereco_oficina NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     ds_logradouro VARCHAR2(100) NOT NULL,
                                     nr_numero NUMBER NOT NULL CHECK (nr_numero > 0),
                                     nr_cep VARCHAR2(10) NOT NULL,
@@ -80,6 +89,7 @@ CREATE TABLE T_ENDERECO_OFICINA (
 -- Criação da tabela FUNCIONARIO com referência a OFICINA
 CREATE TABLE T_FUNCIONARIO (
                                id_funcionario NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                               nr_versao NUMBER DEFAULT 0 NOT NULL,
                                nr_cpf VARCHAR2(15) NOT NULL UNIQUE,
                                nm_funcionario VARCHAR2(100) NOT NULL,
                                sx_sexo CHAR(1) NOT NULL CHECK (sx_sexo IN ('M', 'F')),
@@ -91,6 +101,7 @@ CREATE TABLE T_FUNCIONARIO (
 -- Criação da tabela AGENDAMENTO com referência a CLIENTE e OFICINA
 CREATE TABLE T_AGENDAMENTO (
                                id_agendamento NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                               nr_versao NUMBER DEFAULT 0 NOT NULL,
                                dt_agendamento DATE NOT NULL,
                                hr_agendamento TIMESTAMP NOT NULL,
                                id_cliente NUMBER NOT NULL,
@@ -102,6 +113,7 @@ CREATE TABLE T_AGENDAMENTO (
 -- Criação da tabela ORCAMENTO com referência a VEICULO e OFICINA
 CREATE TABLE T_ORCAMENTO (
                              id_orcamento NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                             nr_versao NUMBER DEFAULT 0 NOT NULL,
                              vl_orcamento NUMBER(10, 2) NOT NULL CHECK (vl_orcamento > 0),
                              st_situacao VARCHAR2(20) NOT NULL,
                              id_veiculo NUMBER NOT NULL,
@@ -113,6 +125,7 @@ CREATE TABLE T_ORCAMENTO (
 -- Criação da tabela SERVICOS com referência a ORCAMENTO e VEICULO
 CREATE TABLE T_SERVICOS (
                             id_servico NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                            nr_versao NUMBER DEFAULT 0 NOT NULL,
                             st_tipo_servico VARCHAR2(50) NOT NULL,
                             ds_servico VARCHAR2(200) NOT NULL,
                             hr_tempo_estimado TIMESTAMP,
@@ -124,6 +137,7 @@ CREATE TABLE T_SERVICOS (
 -- Criação da tabela FALHAS com gravidade categorizada, id_orcamento e id_veiculo
 CREATE TABLE T_FALHAS (
                           id_falha NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                          nr_versao NUMBER DEFAULT 0 NOT NULL,
                           ds_falha VARCHAR2(200) NOT NULL,
                           ds_solucao VARCHAR2(200),
                           id_orcamento NUMBER NOT NULL,
@@ -136,19 +150,24 @@ CREATE TABLE T_FALHAS (
 -- Criação da tabela PECAS com referência a ORCAMENTO e SERVICO
 CREATE TABLE T_PECAS (
                          id_peca NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                         nr_versao NUMBER DEFAULT 0 NOT NULL,
                          nm_marca VARCHAR2(50) NOT NULL,
-                         qt_quantidade NUMBER NOT NULL CHECK (qt_quantidade > 0),
+                         qt_quantidade NUMBER NOT NULL CHECK (qt_quantidade >= 0),
+                         qt_reservada NUMBER DEFAULT 0 NOT NULL,
                          vl_valor NUMBER(10, 2) NOT NULL CHECK (vl_valor > 0),
                          ds_descricao VARCHAR2(200),
                          id_orcamento NUMBER NOT NULL,
                          id_servico NUMBER NOT NULL,
                          FOREIGN KEY (id_orcamento) REFERENCES T_ORCAMENTO(id_orcamento),
-                         FOREIGN KEY (id_servico) REFERENCES T_SERVICOS(id_servico)
+                         FOREIGN KEY (id_servico) REFERENCES T_SERVICOS(id_servico),
+                         -- A reserva nunca passa do estoque: as operações de estoque contam com esta restrição
+                         CHECK (qt_reservada >= 0 AND qt_reservada <= qt_quantidade)
 );
 
 -- Criação da tabela ORDEM_DE_SERVICO com referência a ORCAMENTO, FUNCIONARIO e VEICULO
 CREATE TABLE T_ORDEM_DE_SERVICO (
                                     id_os NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     dt_inicio DATE NOT NULL,
                                     dt_fim DATE,
                                     hr_inicio TIMESTAMP NOT NULL,
@@ -165,6 +184,7 @@ CREATE TABLE T_ORDEM_DE_SERVICO (
 -- Criação da tabela METODO_PAGAMENTO com referência a ORDEM_DE_SERVICO
 CREATE TABLE T_METODO_PAGAMENTO (
                                     id_pagamento NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                                    nr_versao NUMBER DEFAULT 0 NOT NULL,
                                     st_forma_pagamento VARCHAR2(50) NOT NULL,
                                     st_tipo_pagamento VARCHAR2(20) NOT NULL,
                                     vl_desconto NUMBER(5, 2) CHECK (vl_desconto >= 0 AND vl_desconto <= 100),
@@ -174,6 +194,27 @@ CREATE TABLE T_METODO_PAGAMENTO (
 
 
 
+-- Índices das chaves estrangeiras usadas nas buscas por cliente e por oficina
+-- (o Oracle não cria índices para FOREIGN KEY automaticamente)
+CREATE INDEX IX_TELEFONE_CLIENTE_CLIENTE ON T_TELEFONE_CLIENTE (id_cliente);
+CREATE INDEX IX_ENDERECO_CLIENTE_CLIENTE ON T_ENDERECO_CLIENTE (id_cliente);
+CREATE INDEX IX_VEICULO_CLIENTE ON T_VEICULO (id_cliente);
+CREATE INDEX IX_TELEFONE_OFICINA_OFICINA ON T_TELEFONE_OFICINA (id_oficina);
+CREATE INDEX IX_ENDERECO_OFICINA_OFICINA ON T_ENDERECO_OFICINA (id_oficina);
+CREATE INDEX IX_FUNCIONARIO_OFICINA ON T_FUNCIONARIO (id_oficina);
+
+-- Índices usados no cálculo dos totais do orçamento
+CREATE INDEX IX_SERVICOS_ORCAMENTO ON T_SERVICOS (id_orcamento);
+CREATE INDEX IX_PECAS_SERVICO ON T_PECAS (id_servico);
+
+-- Índice usado na carga da agenda de uma oficina por intervalo de horários
+CREATE INDEX IX_AGENDAMENTO_OFICINA_HORA ON T_AGENDAMENTO (id_oficina, hr_agendamento);
+
+-- Índice usado nos relatórios de tempo de execução por período de conclusão
+CREATE INDEX IX_ORDEM_SERVICO_DT_FIM ON T_ORDEM_DE_SERVICO (dt_fim);
+
+
+
 -- ====================================
 -- 2. Inserção de Dados (DML) - Exemplo
 -- ====================================
@@ -0,0 +1,19 @@
+package br.com.fiap.config;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um endpoint GET cujo corpo JSON já serializado deve ser guardado em cache.
+ *
+ * <p>O método também precisa de {@link Versioned}: as versões das tabelas fazem parte da chave, então
+ * qualquer escrita confirmada nessas tabelas torna as entradas anteriores inalcançáveis.</p>
+ */
+@NameBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedResponse {
+}
@@ -0,0 +1,260 @@
+package br.com.fiap.config;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Comprime as respostas JSON com {@code gzip} ou {@code deflate}, conforme o {@code Accept-Encoding}.
+ *
+ * <p>Os primeiros bytes do corpo ficam em memória até passar de {@code -Dhttp.compression.minBytes}
+ * (padrão 1024): corpos menores seguem sem compressão, pois o cabeçalho e o custo de CPU não compensam.
+ * O nível é definido por {@code -Dhttp.compression.level} (0 a 9, padrão 6). Se o corpo for descarregado
+ * antes do limite, como no primeiro item de uma exportação, a compressão começa nesse ponto e cada
+ * {@code flush} seguinte envia o que já foi comprimido. Respostas que já têm {@code Content-Encoding},
+ * como os acertos do {@link ResponseCacheFilter}, não são alteradas.</p>
+ *
+ * <p>Os bytes de cada resposta comprimida, antes e depois da compressão, são somados em {@link #stats()}.</p>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int MIN_BYTES = Integer.getInteger("http.compression.minBytes", 1024);
+    private static final int LEVEL = Integer.getInteger("http.compression.level", 6);
+
+    private static final AtomicLong RESPONSES = new AtomicLong();
+    private static final AtomicLong SKIPPED = new AtomicLong();
+    private static final AtomicLong RAW_BYTES = new AtomicLong();
+    private static final AtomicLong COMPRESSED_BYTES = new AtomicLong();
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        MediaType type = context.getMediaType();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || type == null || !type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String coding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream body = new ThresholdOutputStream(context.getOutputStream(), coding, headers);
+        context.setOutputStream(body);
+        context.proceed();
+        body.finish();
+    }
+
+    /**
+     * Retorna as métricas de compressão acumuladas desde a inicialização.
+     *
+     * @return Um snapshot dos totais de bytes e respostas.
+     */
+    public static CompressionStats stats() {
+        return new CompressionStats(RESPONSES.get(), SKIPPED.get(), RAW_BYTES.get(), COMPRESSED_BYTES.get());
+    }
+
+    /**
+     * Escolhe a codificação a usar a partir do {@code Accept-Encoding}.
+     *
+     * <p>Entre {@code gzip} e {@code deflate}, vence a de maior {@code q}; no empate, {@code gzip}.
+     * O curinga {@code *} vale para as codificações não listadas.</p>
+     *
+     * @param acceptEncoding O valor do cabeçalho, ou {@code null}.
+     * @return {@link #GZIP}, {@link #DEFLATE} ou {@code null} se nenhuma for aceita.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            String name = parts[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                gzip = Math.max(gzip, q);
+            } else if (DEFLATE.equalsIgnoreCase(name)) {
+                deflate = q;
+            } else if ("*".equals(name)) {
+                any = q;
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Guarda o início do corpo e só passa a comprimir quando ele passa do tamanho mínimo ou é descarregado.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final String coding;
+        private final MultivaluedMap<String, Object> headers;
+        private ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private DeflaterOutputStream compressed;
+        private CountingOutputStream counted;
+        private Deflater deflater;
+        private long raw;
+        private boolean finished;
+
+        private ThresholdOutputStream(OutputStream out, String coding, MultivaluedMap<String, Object> headers) {
+            this.out = out;
+            this.coding = coding;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            raw += len;
+            if (compressed != null) {
+                compressed.write(b, off, len);
+                return;
+            }
+            head.write(b, off, len);
+            if (head.size() > MIN_BYTES) {
+                startCompression();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (compressed == null && head.size() > 0) {
+                startCompression();
+            }
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+
+        // Encerra o corpo: envia o início sem compressão se não passou do limite, ou finaliza o fluxo comprimido.
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (compressed == null) {
+                head.writeTo(out);
+                head = null;
+                SKIPPED.incrementAndGet();
+                return;
+            }
+            try {
+                compressed.finish();
+            } finally {
+                deflater.end();
+            }
+            RESPONSES.incrementAndGet();
+            RAW_BYTES.addAndGet(raw);
+            COMPRESSED_BYTES.addAndGet(counted.count);
+        }
+
+        // Os cabeçalhos ainda não foram enviados, pois nada foi escrito no fluxo original até aqui.
+        private void startCompression() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            counted = new CountingOutputStream(out);
+            if (GZIP.equals(coding)) {
+                LeveledGzipOutputStream gzip = new LeveledGzipOutputStream(counted);
+                deflater = gzip.deflater();
+                compressed = gzip;
+            } else {
+                deflater = new Deflater(LEVEL);
+                compressed = new DeflaterOutputStream(counted, deflater, true);
+            }
+            head.writeTo(compressed);
+            head = null;
+        }
+    }
+
+    /**
+     * Conta os bytes comprimidos enviados ao fluxo original.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * {@link GZIPOutputStream} com o nível configurado e {@code flush} que envia o que já foi comprimido.
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        private LeveledGzipOutputStream(OutputStream out) throws IOException {
+            super(out, true);
+            def.setLevel(LEVEL);
+        }
+
+        private Deflater deflater() {
+            return def;
+        }
+    }
+}
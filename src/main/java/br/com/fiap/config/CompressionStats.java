@@ -0,0 +1,43 @@
+package br.com.fiap.config;
+
+/**
+ * Snapshot imutável das métricas de compressão das respostas.
+ *
+ * <p>{@code rawBytes} e {@code compressedBytes} somam apenas as respostas comprimidas, antes e depois da
+ * compressão; {@code ratio} é a fração do tamanho original que foi enviada. {@code skipped} conta as respostas
+ * que aceitavam compressão mas ficaram abaixo do tamanho mínimo.</p>
+ */
+public final class CompressionStats {
+
+    private final long responses;
+    private final long skipped;
+    private final long rawBytes;
+    private final long compressedBytes;
+
+    CompressionStats(long responses, long skipped, long rawBytes, long compressedBytes) {
+        this.responses = responses;
+        this.skipped = skipped;
+        this.rawBytes = rawBytes;
+        this.compressedBytes = compressedBytes;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public double getRatio() {
+        return rawBytes == 0 ? 0 : (double) compressedBytes / rawBytes;
+    }
+}
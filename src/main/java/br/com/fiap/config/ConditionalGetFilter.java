@@ -0,0 +1,76 @@
+package br.com.fiap.config;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * GET condicional para os endpoints marcados com {@link Versioned}.
+ *
+ * <p>O ETag é calculado a partir das versões das tabelas lidas <em>antes</em> da consulta: se uma escrita for
+ * confirmada durante a requisição, o ETag devolvido fica desatualizado e o cliente busca de novo na próxima vez,
+ * nunca o contrário. Quando o {@code If-None-Match} corresponde, a requisição é encerrada com {@code 304}
+ * antes de chegar ao controlador, sem consulta ao banco e sem serialização.</p>
+ *
+ * <p>Se o controlador definir o próprio ETag, ele é mantido e também vale para o {@code If-None-Match}.</p>
+ */
+@Provider
+@Versioned
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String ETAG_PROPERTY = ConditionalGetFilter.class.getName() + ".etag";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        EntityTag etag = currentTag();
+        Response.ResponseBuilder notModified = requestContext.getRequest().evaluatePreconditions(etag);
+        if (notModified != null) {
+            requestContext.abortWith(notModified.tag(etag).build());
+            return;
+        }
+        requestContext.setProperty(ETAG_PROPERTY, etag);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object etag = requestContext.getProperty(ETAG_PROPERTY);
+        if (etag == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        Object proprio = responseContext.getHeaders().getFirst(HttpHeaders.ETAG);
+        if (proprio == null) {
+            responseContext.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+            return;
+        }
+        // ETag definido pelo próprio recurso, como a versão de um registro (RowVersions): a consulta já foi feita,
+        // mas um If-None-Match correspondente ainda dispensa a serialização e o envio do corpo.
+        EntityTag tag = proprio instanceof EntityTag ? (EntityTag) proprio : EntityTag.valueOf(proprio.toString());
+        if (requestContext.getRequest().evaluatePreconditions(tag) != null) {
+            responseContext.setStatus(Response.Status.NOT_MODIFIED.getStatusCode());
+            responseContext.setEntity(null);
+        }
+    }
+
+    // Monta o ETag com as versões das tabelas declaradas no método (ou, na falta, na classe) do recurso.
+    private EntityTag currentTag() {
+        Versioned versioned = resourceInfo.getResourceMethod().getAnnotation(Versioned.class);
+        if (versioned == null) {
+            versioned = resourceInfo.getResourceClass().getAnnotation(Versioned.class);
+        }
+        return new EntityTag(TableVersions.tag(versioned.value()));
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.fiap.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Empréstimo de uma conexão do pool, para uso com try-with-resources.
+ *
+ * <p>{@link #close()} devolve a sessão ao pool, descartando qualquer transação não confirmada;
+ * a conexão física nunca é fechada pelo chamador. A {@link Connection} obtida em {@link #get()}
+ * ignora {@code close()} e deixa de funcionar depois que o empréstimo é devolvido.</p>
+ */
+public final class ConnectionLease implements AutoCloseable {
+
+    private final Connection view;
+    private final Runnable onRelease;
+    private volatile boolean released;
+
+    ConnectionLease(Connection physical, Runnable onRelease) {
+        this.onRelease = onRelease;
+        this.view = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            // Conexões emprestadas só voltam ao pool pelo próprio empréstimo.
+                            return null;
+                        case "isClosed":
+                            return released || physical.isClosed();
+                        default:
+                            if (released) {
+                                throw new SQLException("Conexão já devolvida ao pool");
+                            }
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Retorna a conexão emprestada.
+     *
+     * @return A conexão, válida até o fechamento deste empréstimo.
+     */
+    public Connection get() {
+        return view;
+    }
+
+    /**
+     * Devolve a conexão ao pool. Chamadas repetidas não têm efeito.
+     */
+    @Override
+    public void close() {
+        if (!released) {
+            released = true;
+            onRelease.run();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.fiap.config;
+
+/**
+ * Snapshot imutável das métricas do pool de conexões.
+ *
+ * <p>{@code waiting} e {@code timeouts} indicam saturação: requisições aguardando uma conexão
+ * livre e requisições que desistiram após o tempo máximo de espera.</p>
+ */
+public final class ConnectionPoolStats {
+
+    private final int minSize;
+    private final int maxSize;
+    private final int total;
+    private final int idle;
+    private final int active;
+    private final int waiting;
+    private final long acquired;
+    private final long timeouts;
+    private final long created;
+    private final long destroyed;
+    private final long totalWaitMillis;
+
+    ConnectionPoolStats(int minSize, int maxSize, int total, int idle, int active, int waiting,
+                        long acquired, long timeouts, long created, long destroyed, long totalWaitMillis) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.total = total;
+        this.idle = idle;
+        this.active = active;
+        this.waiting = waiting;
+        this.acquired = acquired;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.totalWaitMillis = totalWaitMillis;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getAcquired() {
+        return acquired;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+}
@@ -18,4 +18,39 @@ final class DatabaseConfig {
         return "181088";
     }
 
+    // Configurações do pool de conexões. Podem ser sobrescritas via propriedades de sistema (-Ddb.pool.*).
+
+    static int getPoolMinSize(){
+        return Integer.getInteger("db.pool.minSize", 2);
+    }
+
+    static int getPoolMaxSize(){
+        return Integer.getInteger("db.pool.maxSize", 10);
+    }
+
+    static long getPoolAcquireTimeoutMillis(){
+        return Long.getLong("db.pool.acquireTimeoutMillis", 2_000L);
+    }
+
+    static long getPoolIdleTimeoutMillis(){
+        return Long.getLong("db.pool.idleTimeoutMillis", 300_000L);
+    }
+
+    static long getPoolMaxLifetimeMillis(){
+        return Long.getLong("db.pool.maxLifetimeMillis", 1_800_000L);
+    }
+
+    static int getPoolValidationTimeoutSeconds(){
+        return Integer.getInteger("db.pool.validationTimeoutSeconds", 2);
+    }
+
+    static long getPoolHousekeepingIntervalMillis(){
+        return Long.getLong("db.pool.housekeepingIntervalMillis", 30_000L);
+    }
+
+    // Tamanho do cache implícito de statements do driver, por conexão. Zero desabilita o cache.
+    static int getStatementCacheSize(){
+        return Integer.getInteger("db.statementCacheSize", 50);
+    }
+
 }
@@ -1,9 +1,8 @@
 package br.com.fiap.config;
 
-import java.sql.Connection;
 import java.sql.SQLException;
 
 public interface DatabaseConnection {
 
-    Connection get() throws SQLException;
+    ConnectionLease lease() throws SQLException;
 }
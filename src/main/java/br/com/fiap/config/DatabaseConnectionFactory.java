@@ -9,6 +9,14 @@ public final class DatabaseConnectionFactory {
     }
 
     public static DatabaseConnection create() throws SQLException {
-         return DatabaseConnectionImpl.getInstance();
+         return DatabaseConnectionPool.getInstance();
      }
+
+    public static ConnectionPoolStats poolStats() {
+        return DatabaseConnectionPool.getInstance().stats();
+    }
+
+    public static void close() {
+        DatabaseConnectionPool.shutdown();
+    }
 }
@@ -0,0 +1,315 @@
+package br.com.fiap.config;
+
+import oracle.jdbc.OracleConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool limitado de conexões com o Oracle.
+ *
+ * <p>Cada requisição recebe uma sessão independente. O número de sessões abertas é limitado por
+ * {@code maxSize}; quando o pool está esgotado, {@link #lease()} espera no máximo {@code acquireTimeout}
+ * e falha com {@link SQLTransientConnectionException}, sem bloqueio global.</p>
+ *
+ * <p>As conexões são entregues como {@link ConnectionLease}, que as devolve ao pool ao ser fechado.
+ * Conexões ociosas além de {@code idleTimeout}, ou com mais de {@code maxLifetime}, são descartadas,
+ * e toda conexão é validada antes de ser entregue. Cada sessão mantém um cache implícito de statements
+ * com {@code db.statementCacheSize} entradas.</p>
+ *
+ * <p>{@link #close()} encerra a manutenção e fecha as conexões ociosas; as que estiverem emprestadas são fechadas
+ * ao serem devolvidas, e novos empréstimos falham.</p>
+ */
+final class DatabaseConnectionPool implements DatabaseConnection {
+
+    private static volatile DatabaseConnectionPool instance;
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // Limita o número de conexões em uso ao mesmo tempo.
+    private final Semaphore permits;
+
+    // Conexões ociosas; as mais recentes ficam no início (LIFO) para manter sessões "quentes".
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    private DatabaseConnectionPool() {
+        this.minSize = DatabaseConfig.getPoolMinSize();
+        this.maxSize = DatabaseConfig.getPoolMaxSize();
+        this.acquireTimeoutMillis = DatabaseConfig.getPoolAcquireTimeoutMillis();
+        this.idleTimeoutMillis = DatabaseConfig.getPoolIdleTimeoutMillis();
+        this.maxLifetimeMillis = DatabaseConfig.getPoolMaxLifetimeMillis();
+        this.validationTimeoutSeconds = DatabaseConfig.getPoolValidationTimeoutSeconds();
+        this.statementCacheSize = DatabaseConfig.getStatementCacheSize();
+        this.permits = new Semaphore(maxSize, true);
+
+        try {
+            Class.forName("oracle.jdbc.driver.OracleDriver");
+        } catch (ClassNotFoundException e) {
+            logger.severe("não foi localizada a classe Driver do Oracle");
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = DatabaseConfig.getPoolHousekeepingIntervalMillis();
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encerra o pool, se ele tiver sido criado.
+     */
+    static void shutdown() {
+        DatabaseConnectionPool pool = instance;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    static DatabaseConnectionPool getInstance() {
+        DatabaseConnectionPool pool = instance;
+        if (pool == null) {
+            synchronized (DatabaseConnectionPool.class) {
+                pool = instance;
+                if (pool == null) {
+                    pool = new DatabaseConnectionPool();
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    @Override
+    public ConnectionLease lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTransientConnectionException(
+                        "Pool de conexões esgotado: nenhuma conexão livre após " + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido aguardando conexão do pool", e);
+        } finally {
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        try {
+            PooledConnection pooled = borrow();
+            pooled.physical.setAutoCommit(false);
+            acquired.incrementAndGet();
+            return new ConnectionLease(pooled.physical, () -> release(pooled));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Encerra a thread de manutenção e fecha as conexões ociosas. Chamadas seguintes não têm efeito.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        housekeeper.shutdownNow();
+        try {
+            if (!housekeeper.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("A manutenção do pool de conexões não terminou a tempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        logger.info("Pool de conexões encerrado");
+    }
+
+    /**
+     * Retorna um snapshot das métricas do pool.
+     *
+     * @return As métricas atuais.
+     */
+    ConnectionPoolStats stats() {
+        int idleCount = idle.size();
+        int total = totalConnections.get();
+        return new ConnectionPoolStats(
+                minSize,
+                maxSize,
+                total,
+                idleCount,
+                maxSize - permits.availablePermits(),
+                permits.getQueueLength(),
+                acquired.get(),
+                timeouts.get(),
+                created.get(),
+                destroyed.get(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.get())
+        );
+    }
+
+    // Retira uma conexão válida do pool ou cria uma nova. O chamador já possui uma permissão.
+    private PooledConnection borrow() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (!pooled.isExpired() && pooled.isValid()) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return open();
+    }
+
+    // Devolve a conexão ao pool, descartando a transação pendente que o chamador não confirmou.
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.physical.isClosed() || pooled.isExpired()) {
+                destroy(pooled);
+            } else {
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+                // Se o pool foi encerrado entre a verificação e a devolução, a conexão não pode ficar ociosa.
+                if (closed && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+        } catch (SQLException e) {
+            logger.warning("Conexão descartada ao retornar ao pool: " + e.getMessage());
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(
+                DatabaseConfig.getUrl(),
+                DatabaseConfig.getUser(),
+                DatabaseConfig.getPassword()
+        );
+        enableStatementCache(physical);
+        totalConnections.incrementAndGet();
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    // Liga o cache implícito do driver: statements fechados voltam ao cache da sessão e o mesmo SQL
+    // não precisa ser analisado de novo a cada execução.
+    private void enableStatementCache(Connection physical) {
+        if (statementCacheSize <= 0) {
+            return;
+        }
+        try {
+            OracleConnection oracle = physical.unwrap(OracleConnection.class);
+            oracle.setImplicitCachingEnabled(true);
+            oracle.setStatementCacheSize(statementCacheSize);
+        } catch (SQLException e) {
+            logger.warning("Cache de statements indisponível para a conexão: " + e.getMessage());
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyed.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.fine("Falha ao fechar conexão descartada: " + e.getMessage());
+        }
+    }
+
+    // Remove conexões ociosas/expiradas e mantém o mínimo de conexões abertas.
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                boolean idleTooLong = now - pooled.lastUsed > idleTimeoutMillis
+                        && totalConnections.get() > minSize;
+                if ((idleTooLong || pooled.isExpired()) && idle.removeLastOccurrence(pooled)) {
+                    destroy(pooled);
+                }
+            }
+            while (totalConnections.get() < minSize && permits.tryAcquire()) {
+                try {
+                    idle.offerLast(open());
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warning("Erro na manutenção do pool de conexões: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Conexão física mantida pelo pool, com os instantes usados para expiração.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > maxLifetimeMillis;
+        }
+
+        private boolean isValid() {
+            try {
+                return physical.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+}
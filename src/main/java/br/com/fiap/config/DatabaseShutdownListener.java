@@ -0,0 +1,31 @@
+package br.com.fiap.config;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Encerra o pool de conexões quando a aplicação é desligada.
+ *
+ * <p>Sem isso, a thread de manutenção do pool e as sessões ociosas com o Oracle sobrevivem a um undeploy ou
+ * redeploy, prendendo o class loader antigo e as sessões do banco até o servidor ser reiniciado.</p>
+ */
+@Provider
+public class DatabaseShutdownListener implements ContainerLifecycleListener {
+
+    @Override
+    public void onStartup(Container container) {
+        // O pool é criado no primeiro uso.
+    }
+
+    @Override
+    public void onReload(Container container) {
+        // Um reload mantém a aplicação no ar; o pool continua em uso.
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        DatabaseConnectionFactory.close();
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.fiap.config;
+
+import br.com.fiap.services.ClienteServiceFactory;
+import br.com.fiap.services.FalhasServiceFactory;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+import javax.ws.rs.ext.Provider;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * Carrega os índices de busca em memória quando a aplicação sobe.
+ *
+ * <p>A carga roda em uma thread própria para não atrasar a inicialização; buscas feitas antes do fim aguardam
+ * a mesma carga. Se ela falhar, a primeira busca tenta de novo.</p>
+ */
+@Provider
+public class IndicesStartupListener implements ContainerLifecycleListener {
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+
+    @Override
+    public void onStartup(Container container) {
+        Thread carga = new Thread(() -> {
+            try {
+                FalhasServiceFactory.create().prepararBusca();
+            } catch (SQLException | RuntimeException e) {
+                logger.warning("Erro ao carregar o índice de busca de falhas: " + e.getMessage());
+            }
+            try {
+                ClienteServiceFactory.create().prepararSugestoes();
+            } catch (SQLException | RuntimeException e) {
+                logger.warning("Erro ao carregar os índices de sugestão de clientes: " + e.getMessage());
+            }
+        }, "carga-indices-busca");
+        carga.setDaemon(true);
+        carga.start();
+    }
+
+    @Override
+    public void onReload(Container container) {
+        // Os índices são mantidos pelas escritas; nada a recarregar.
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        // A thread de carga é daemon e não impede o encerramento.
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.fiap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * Corpo dos endpoints {@code PATCH /{id}}, no formato JSON Merge Patch (RFC 7396).
+ *
+ * <p>O corpo é um objeto JSON com os nomes dos campos do DTO: um campo presente é gravado, um campo {@code null}
+ * é apagado e um campo ausente não é alterado. O campo {@code versao} não é alterável: como no PUT, é a versão
+ * esperada do registro.</p>
+ */
+public final class MergePatch {
+
+    /**
+     * Tipo de mídia do JSON Merge Patch; {@code application/json} também é aceito.
+     */
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private MergePatch() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Retira do patch o campo {@code versao}, deixando apenas os campos a alterar.
+     *
+     * @param patch O corpo da requisição.
+     * @return A versão informada no corpo, ou {@code null}.
+     * @throws IllegalArgumentException Se o corpo estiver vazio ou a versão não for um número.
+     */
+    public static Long retirarVersao(Map<String, Object> patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("O corpo do PATCH deve ser um objeto JSON");
+        }
+        Object versao = patch.remove("versao");
+        if (versao != null && !(versao instanceof Number)) {
+            throw new IllegalArgumentException("O campo versao deve ser um número");
+        }
+        return versao == null ? null : ((Number) versao).longValue();
+    }
+
+    /**
+     * Converte o valor de um campo do patch para o tipo do campo no DTO, como o Jackson faria no corpo de um PUT.
+     *
+     * @param patch O corpo da requisição.
+     * @param campo O nome do campo.
+     * @param tipo  O tipo do campo no DTO.
+     * @param <T>   O tipo do campo.
+     * @return O valor convertido, ou {@code null} se o campo for {@code null} ou estiver ausente.
+     * @throws IllegalArgumentException Se o valor não puder ser convertido.
+     */
+    public static <T> T valor(Map<String, Object> patch, String campo, Class<T> tipo) {
+        Object valor = patch.get(campo);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return JSON.convertValue(valor, tipo);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para o campo " + campo + ": " + valor);
+        }
+    }
+}
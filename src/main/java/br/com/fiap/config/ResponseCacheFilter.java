@@ -0,0 +1,182 @@
+package br.com.fiap.config;
+
+import br.com.fiap.services.Cache;
+import br.com.fiap.services.CacheFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache do corpo já serializado das respostas marcadas com {@link CachedResponse}.
+ *
+ * <p>A chave é formada pelas versões das tabelas do {@link Versioned}, pelo caminho e pela query string.
+ * Em um acerto, os bytes guardados são devolvidos diretamente, sem chamar o controlador nem o Jackson; se o
+ * cliente preferir {@code gzip}, a versão comprimida é gerada uma única vez e reaproveitada, e nas demais
+ * codificações o {@link CompressionInterceptor} comprime os bytes guardados. Em uma falta, o
+ * corpo escrito pelo Jackson é copiado, antes da compressão, enquanto segue para o cliente e guardado ao final, desde que a
+ * resposta seja {@code 200} e não passe de {@link #MAX_BODY_BYTES}.</p>
+ *
+ * <p>Roda depois do {@link ConditionalGetFilter}, para que um {@code 304} continue sem corpo algum.</p>
+ */
+@Provider
+@CachedResponse
+@Priority(Priorities.USER + 100)
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    /**
+     * Tamanho máximo de um corpo guardado no cache. Configurável via {@code -Dcache.respostas.maxBodyBytes}.
+     */
+    static final int MAX_BODY_BYTES = Integer.getInteger("cache.respostas.maxBodyBytes", 1024 * 1024);
+
+    private static final Cache<String, CachedBody> CACHE = CacheFactory.create("respostas", 64, 600);
+
+    private static final String KEY_PROPERTY = ResponseCacheFilter.class.getName() + ".key";
+    private static final String CAPTURE_PROPERTY = ResponseCacheFilter.class.getName() + ".capture";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        Versioned versioned = resourceInfo.getResourceMethod().getAnnotation(Versioned.class);
+        if (versioned == null) {
+            return;
+        }
+        String query = requestContext.getUriInfo().getRequestUri().getRawQuery();
+        String key = TableVersions.tag(versioned.value()) + " " + requestContext.getUriInfo().getPath()
+                + (query == null ? "" : "?" + query);
+
+        CachedBody body = CACHE.getIfPresent(key);
+        if (body == null) {
+            requestContext.setProperty(KEY_PROPERTY, key);
+            return;
+        }
+        Response.ResponseBuilder response = Response.ok().type(MediaType.APPLICATION_JSON_TYPE);
+        String coding = CompressionInterceptor.negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (CompressionInterceptor.GZIP.equals(coding)) {
+            // Já comprimido: o CompressionInterceptor não altera respostas com Content-Encoding.
+            response.entity(body.gzip())
+                    .header(HttpHeaders.CONTENT_ENCODING, coding)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        } else {
+            response.entity(body.json);
+        }
+        requestContext.abortWith(response.build());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object key = requestContext.getProperty(KEY_PROPERTY);
+        if (key != null && responseContext.getStatus() == Response.Status.OK.getStatusCode()) {
+            requestContext.setProperty(CAPTURE_PROPERTY, key);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object key = context.getProperty(CAPTURE_PROPERTY);
+        if (key == null) {
+            context.proceed();
+            return;
+        }
+        CapturingOutputStream capture = new CapturingOutputStream(context.getOutputStream());
+        context.setOutputStream(capture);
+        context.proceed();
+        byte[] json = capture.captured();
+        if (json != null) {
+            CACHE.put((String) key, new CachedBody(json));
+        }
+    }
+
+    /**
+     * Corpo JSON guardado no cache, com a versão comprimida gerada sob demanda.
+     */
+    private static final class CachedBody {
+
+        private final byte[] json;
+        private volatile byte[] gzip;
+
+        private CachedBody(byte[] json) {
+            this.json = json;
+        }
+
+        // Várias threads podem comprimir ao mesmo tempo no primeiro acesso; o resultado é o mesmo.
+        private byte[] gzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+                    zip.write(json);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                compressed = out.toByteArray();
+                gzip = compressed;
+            }
+            return compressed;
+        }
+    }
+
+    /**
+     * Repassa os bytes ao cliente e guarda uma cópia, abandonando a cópia se passar do limite.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private CapturingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        private void checkLimit() {
+            if (copy.size() > MAX_BODY_BYTES) {
+                copy = null;
+            }
+        }
+
+        // Os bytes escritos, ou null se o corpo passou do limite.
+        private byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+}
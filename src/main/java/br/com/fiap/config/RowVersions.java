@@ -0,0 +1,58 @@
+package br.com.fiap.config;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * ETags dos endpoints de um único registro, derivados da coluna {@code nr_versao}.
+ *
+ * <p>O {@code GET /{id}} devolve o ETag {@code "v<versão>"}, e o {@code PUT /{id}} aceita o mesmo valor no
+ * {@code If-Match} (ou a versão no campo {@code versao} do corpo) como a versão esperada. Se o registro tiver sido
+ * alterado depois dessa versão, a atualização não é aplicada e a resposta é {@code 409 Conflict}; o cliente relê o
+ * registro e tenta de novo, sem que nenhuma transação precise manter locks entre a leitura e a escrita.</p>
+ */
+public final class RowVersions {
+
+    private RowVersions() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Monta o ETag de uma versão de registro.
+     *
+     * @param versao A versão do registro.
+     * @return O ETag correspondente.
+     */
+    public static EntityTag etag(Long versao) {
+        return new EntityTag("v" + versao);
+    }
+
+    /**
+     * Determina a versão esperada de uma atualização a partir do corpo e do cabeçalho {@code If-Match}.
+     *
+     * @param versaoCorpo A versão informada no corpo, ou {@code null}.
+     * @param ifMatch     O valor do cabeçalho {@code If-Match}, ou {@code null}.
+     * @return A versão esperada, ou {@code null} se nenhuma foi informada (ou se o {@code If-Match} for {@code *}).
+     * @throws IllegalArgumentException Se o {@code If-Match} não for o ETag de um registro ou divergir do corpo.
+     */
+    public static Long esperada(Long versaoCorpo, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return versaoCorpo;
+        }
+        String tag = ifMatch.trim();
+        Long versao = null;
+        if (tag.length() > 3 && tag.startsWith("\"v") && tag.endsWith("\"")) {
+            try {
+                versao = Long.parseLong(tag.substring(2, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Tratado abaixo, como qualquer outro valor inválido.
+            }
+        }
+        if (versao == null) {
+            throw new IllegalArgumentException("O cabeçalho If-Match deve conter o ETag de um registro, como \"v3\"");
+        }
+        if (versaoCorpo != null && !versaoCorpo.equals(versao)) {
+            throw new IllegalArgumentException("A versão informada no corpo difere da versão do cabeçalho If-Match");
+        }
+        return versao;
+    }
+}
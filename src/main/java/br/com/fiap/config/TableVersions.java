@@ -0,0 +1,61 @@
+package br.com.fiap.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contador de versão por tabela, incrementado a cada escrita confirmada.
+ *
+ * <p>Os serviços registram o incremento com {@link #bumpAfterCommit(String)} antes de escrever; o contador só
+ * avança se a transação da requisição for confirmada. O {@link ConditionalGetFilter} usa as versões para montar
+ * o ETag das consultas. Os contadores vivem na memória da aplicação, por isso o ETag também carrega um
+ * identificador da inicialização: após um reinício, nenhum ETag antigo volta a ser considerado válido.</p>
+ */
+public final class TableVersions {
+
+    // Identifica esta inicialização da aplicação.
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final ConcurrentMap<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    private TableVersions() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Retorna a versão atual de uma tabela.
+     *
+     * @param table O nome da tabela, por exemplo {@code T_CLIENTE}.
+     * @return A versão atual; zero se a tabela ainda não foi alterada desde a inicialização.
+     */
+    public static long current(String table) {
+        AtomicLong version = VERSIONS.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Monta um identificador do estado atual de um conjunto de tabelas.
+     *
+     * <p>O identificador muda sempre que qualquer uma das tabelas for alterada ou a aplicação for reiniciada.</p>
+     *
+     * @param tables Os nomes das tabelas.
+     * @return O identificador, a ser usado como ETag ou como parte de uma chave de cache.
+     */
+    public static String tag(String... tables) {
+        StringBuilder tag = new StringBuilder(EPOCH);
+        for (String table : tables) {
+            tag.append('-').append(current(table));
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Incrementa a versão de uma tabela quando a transação atual for confirmada.
+     *
+     * @param table O nome da tabela alterada.
+     */
+    public static void bumpAfterCommit(String table) {
+        TransactionManager.afterCommit(() -> VERSIONS.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet());
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.fiap.config;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Abre uma transação por requisição e a encerra uma única vez ao final.
+ *
+ * <p>Respostas com status abaixo de 400 confirmam a transação; as demais a revertem. Se a confirmação
+ * falhar, a resposta é trocada por um erro 500. Para requisições interrompidas por exceções não
+ * tratadas, em que os filtros de resposta não são executados, o evento {@code FINISHED} do Jersey
+ * reverte a transação que tiver ficado aberta.</p>
+ */
+@Provider
+public class TransactionFilter implements ContainerRequestFilter, ContainerResponseFilter, ApplicationEventListener {
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        TransactionManager.begin();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!TransactionManager.isActive()) {
+            return;
+        }
+        if (responseContext.getStatus() >= 400) {
+            TransactionManager.rollback();
+            return;
+        }
+        try {
+            TransactionManager.commit();
+        } catch (SQLException e) {
+            logger.severe("Erro ao confirmar transação: " + e.getMessage());
+            responseContext.setStatus(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            responseContext.setEntity(
+                    Map.of("mensagem", "Erro inesperado ao confirmar a transação"),
+                    null,
+                    MediaType.APPLICATION_JSON_TYPE
+            );
+        }
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        // Nenhum tratamento necessário para eventos da aplicação.
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED && TransactionManager.isActive()) {
+                TransactionManager.rollback();
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.fiap.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Gerencia a transação associada à thread (requisição) atual.
+ *
+ * <p>O escopo é aberto e encerrado pelo {@link TransactionFilter}: a conexão só é emprestada do pool
+ * na primeira chamada a {@link #current()} e a transação é confirmada ou revertida uma única vez,
+ * ao final da requisição. Assim as escritas de requisições diferentes nunca compartilham a mesma
+ * sessão e os locks são mantidos apenas durante a requisição.</p>
+ */
+public final class TransactionManager {
+
+    private static final Logger logger = Logger.getLogger(TransactionManager.class.getName());
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Abre um escopo de transação na thread atual. Um escopo anterior não finalizado é revertido.
+     */
+    public static void begin() {
+        Transaction stale = CURRENT.get();
+        if (stale != null) {
+            logger.warning("Transação anterior não finalizada na thread; revertendo.");
+            rollback();
+        }
+        CURRENT.set(new Transaction());
+    }
+
+    /**
+     * Indica se existe um escopo de transação aberto na thread atual.
+     *
+     * @return {@code true} se houver transação ativa.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Retorna a conexão da transação atual, emprestando-a do pool no primeiro uso.
+     *
+     * @return A conexão vinculada à requisição.
+     * @throws SQLException Se não for possível obter uma conexão do pool.
+     * @throws IllegalStateException Se não houver escopo de transação aberto.
+     */
+    public static Connection current() throws SQLException {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            throw new IllegalStateException("Nenhuma transação ativa na thread atual");
+        }
+        if (tx.lease == null) {
+            tx.lease = DatabaseConnectionFactory.create().lease();
+        }
+        return tx.lease.get();
+    }
+
+    /**
+     * Empresta uma conexão para leitura.
+     *
+     * <p>Se a transação atual já tiver tomado a sua conexão, a leitura usa essa mesma conexão e enxerga as escritas
+     * ainda não confirmadas da requisição; fechar o empréstimo não devolve nada ao pool. Assim uma requisição nunca
+     * segura duas conexões ao mesmo tempo, o que, com o pool tomado por escritas, faria cada uma esperar pela
+     * segunda até o tempo limite. Caso contrário, a leitura empresta uma conexão própria, devolvida ao fechar.</p>
+     *
+     * @return O empréstimo da conexão de leitura.
+     * @throws SQLException Se não for possível obter uma conexão do pool.
+     */
+    public static ConnectionLease lease() throws SQLException {
+        Transaction tx = CURRENT.get();
+        if (tx != null && tx.lease != null) {
+            return new ConnectionLease(tx.lease.get(), () -> { });
+        }
+        return DatabaseConnectionFactory.create().lease();
+    }
+
+    /**
+     * Registra uma ação a executar depois que a transação atual for confirmada.
+     * Sem transação ativa, a ação é executada imediatamente.
+     *
+     * @param action A ação a executar.
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Registra uma ação a executar se a transação atual for revertida.
+     * Sem transação ativa, a ação é ignorada.
+     *
+     * @param action A ação a executar.
+     */
+    public static void afterRollback(Runnable action) {
+        Transaction tx = CURRENT.get();
+        if (tx != null) {
+            tx.afterRollback.add(action);
+        }
+    }
+
+    /**
+     * Confirma a transação atual, devolve a conexão ao pool e encerra o escopo.
+     *
+     * @throws SQLException Se a confirmação falhar; nesse caso a transação é revertida.
+     */
+    public static void commit() throws SQLException {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            return;
+        }
+        CURRENT.remove();
+        try {
+            if (tx.lease != null) {
+                tx.lease.get().commit();
+            }
+        } catch (SQLException e) {
+            finish(tx, false);
+            throw e;
+        }
+        finish(tx, true);
+    }
+
+    /**
+     * Reverte a transação atual, devolve a conexão ao pool e encerra o escopo.
+     */
+    public static void rollback() {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            return;
+        }
+        CURRENT.remove();
+        if (tx.lease != null) {
+            try {
+                tx.lease.get().rollback();
+            } catch (SQLException e) {
+                logger.warning("Erro ao reverter transação: " + e.getMessage());
+            }
+        }
+        finish(tx, false);
+    }
+
+    // Devolve a conexão e executa as ações registradas para o desfecho da transação.
+    private static void finish(Transaction tx, boolean committed) {
+        if (tx.lease != null) {
+            tx.lease.close();
+        }
+        for (Runnable action : committed ? tx.afterCommit : tx.afterRollback) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warning("Erro em ação pós-transação: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Estado da transação vinculada a uma thread.
+     */
+    private static final class Transaction {
+
+        private ConnectionLease lease;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<Runnable> afterRollback = new ArrayList<>();
+    }
+}
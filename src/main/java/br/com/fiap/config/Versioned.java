@@ -0,0 +1,26 @@
+package br.com.fiap.config;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um endpoint GET cuja resposta depende apenas das tabelas informadas.
+ *
+ * <p>Esses endpoints recebem um ETag derivado das versões das tabelas ({@link TableVersions}) e respondem
+ * {@code 304 Not Modified} a requisições com {@code If-None-Match} correspondente, sem consultar o banco.</p>
+ */
+@NameBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Versioned {
+
+    /**
+     * As tabelas lidas pelo endpoint.
+     *
+     * @return Os nomes das tabelas.
+     */
+    String[] value() default {};
+}
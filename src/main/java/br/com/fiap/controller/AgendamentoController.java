@@ -1,17 +1,25 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.AgendamentoDto;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.exceptions.AgendamentoConflitoException;
 import br.com.fiap.exceptions.AgendamentoNotFoundException;
 import br.com.fiap.exceptions.AgendamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Agendamento;
 import br.com.fiap.services.interfaces.AgendamentoService;
 import br.com.fiap.services.AgendamentoServiceFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/agendamento")
@@ -41,6 +49,10 @@ public class AgendamentoController {
                         .status(Response.Status.CREATED)
                         .entity(agendamento)
                         .build();
+            } catch (AgendamentoConflitoException e) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(Map.of("mensagem", e.getMessage()))
+                        .build();
             } catch (SQLException | AgendamentoNotSavedException e) {
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(Map.of("mensagem", "Erro inesperado ao tentar inserir agendamento"))
@@ -54,32 +66,134 @@ public class AgendamentoController {
     }
 
     @GET
+    @Versioned("T_AGENDAMENTO")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.agendamentoService.findAll()).build();
+                .entity(this.agendamentoService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_AGENDAMENTO")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.agendamentoService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar agendamento"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.agendamentoService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar agendamento"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_AGENDAMENTO")
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response export() {
+        try {
+            // As linhas são escritas conforme são lidas do banco; o stream é fechado ao fim da resposta.
+            return Response.status(Response.Status.OK)
+                    .entity(new JsonArrayStreamingOutput(this.agendamentoService.streamAll()))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar exportar agendamentos"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, AgendamentoDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, AgendamentoDto input) {
         try {
-            // Atualização do objeto Agendamento com base no DTO e ID recebidos
-            Agendamento updated = this.agendamentoService.update(
-                    new Agendamento(
-                            id,
-                            input.getDataAgendamento(),
-                            input.getHoraAgendamento(),
-                            input.getIdCliente(),
-                            input.getIdOficina()
-                    )
+            // Atualização do objeto Agendamento com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Agendamento agendamento = new Agendamento(
+                    id,
+                    input.getDataAgendamento(),
+                    input.getHoraAgendamento(),
+                    input.getIdCliente(),
+                    input.getIdOficina()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            agendamento.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Agendamento updated = this.agendamentoService.update(agendamento);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (AgendamentoNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (AgendamentoConflitoException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar agendamento"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Agendamento updated = this.agendamentoService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (AgendamentoNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (AgendamentoConflitoException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar agendamento"))
@@ -1,17 +1,30 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.ClienteDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.ClienteNotFoundException;
 import br.com.fiap.exceptions.ClienteNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Cliente;
 import br.com.fiap.services.interfaces.ClienteService;
 import br.com.fiap.services.ClienteServiceFactory;
+import br.com.fiap.services.EnderecoClienteServiceFactory;
+import br.com.fiap.services.TelefoneClienteServiceFactory;
+import br.com.fiap.services.VeiculoServiceFactory;
+import br.com.fiap.services.interfaces.EnderecoService;
+import br.com.fiap.services.interfaces.TelefoneService;
+import br.com.fiap.services.interfaces.VeiculoService;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/cliente")
@@ -20,6 +33,15 @@ public class ClienteController {
     // Instância de ClienteService obtida da factory
     private final ClienteService clienteService = ClienteServiceFactory.create();
 
+    // Serviços dos registros que pertencem a um cliente
+    private final VeiculoService veiculoService = VeiculoServiceFactory.create();
+    private final TelefoneService telefoneService = TelefoneClienteServiceFactory.create();
+    private final EnderecoService enderecoService = EnderecoClienteServiceFactory.create();
+
+    // Quantidade de sugestões devolvidas quando o parâmetro limit não é informado, e o máximo permitido.
+    private static final int SUGESTOES_PADRAO = 10;
+    private static final int MAX_SUGESTOES = 50;
+
     @POST
     @Path("/cadastre")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -54,32 +76,216 @@ public class ClienteController {
     }
 
     @GET
+    @Versioned("T_CLIENTE")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.clienteService.findAll()).build();
+                .entity(this.clienteService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned({"T_CLIENTE", "T_TELEFONE_CLIENTE", "T_ENDERECO_CLIENTE", "T_VEICULO"})
+    @Path("/full")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllCompletos(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.clienteService.pageCompleto(after, PageDto.limitOf(limit))).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar clientes"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned({"T_CLIENTE", "T_VEICULO"})
+    @Path("/suggest")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response suggest(@QueryParam("q") String q, @QueryParam("limit") Integer limit) {
+        if (q == null || q.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe o texto da busca no parâmetro q"))
+                    .build();
+        }
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.clienteService.suggest(q, limit == null ? SUGESTOES_PADRAO : Math.min(limit, MAX_SUGESTOES)))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar sugestões"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_CLIENTE")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.clienteService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar cliente"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned({"T_CLIENTE", "T_TELEFONE_CLIENTE", "T_ENDERECO_CLIENTE", "T_VEICULO"})
+    @Path("/{id}/full")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findCompletoById(@PathParam("id") Long id) {
+        try {
+            return this.clienteService.findCompletoById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar cliente"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_VEICULO")
+    @Path("/{id}/veiculos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findVeiculos(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.veiculoService.findByClienteId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar veículos do cliente"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_TELEFONE_CLIENTE")
+    @Path("/{id}/telefones")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findTelefones(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.telefoneService.findByReferenciaId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar telefones do cliente"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_ENDERECO_CLIENTE")
+    @Path("/{id}/enderecos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findEnderecos(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.enderecoService.findByReferenciaId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar endereços do cliente"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.clienteService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar cliente"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, ClienteDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, ClienteDto input) {
         try {
-            // Atualização do objeto Cliente com base no DTO e ID recebidos
-            Cliente updated = this.clienteService.update(
-                    new Cliente(
-                            id,
-                            input.getCpf(),
-                            input.getNome(),
-                            input.getEmail(),
-                            input.getSexo()
-                    )
+            // Atualização do objeto Cliente com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Cliente cliente = new Cliente(
+                    id,
+                    input.getCpf(),
+                    input.getNome(),
+                    input.getEmail(),
+                    input.getSexo()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            cliente.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Cliente updated = this.clienteService.update(cliente);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (ClienteNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar cliente"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Cliente updated = this.clienteService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (ClienteNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar cliente"))
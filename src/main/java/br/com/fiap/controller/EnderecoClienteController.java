@@ -1,16 +1,23 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.EnderecoDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.EnderecoNotFoundException;
 import br.com.fiap.exceptions.EnderecoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Endereco;
 import br.com.fiap.services.interfaces.EnderecoService;
 import br.com.fiap.services.EnderecoClienteServiceFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/endereco-cliente")
@@ -56,35 +63,112 @@ public class EnderecoClienteController {
     }
 
     @GET
+    @Versioned("T_ENDERECO_CLIENTE")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.enderecoService.findAll()).build();
+                .entity(this.enderecoService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_ENDERECO_CLIENTE")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.enderecoService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar endereço"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.enderecoService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar endereço"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, EnderecoDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, EnderecoDto input) {
         try {
-            // Atualização do objeto Endereco com base no DTO e ID recebidos
-            Endereco updated = this.enderecoService.update(
-                    new Endereco(
-                            id,
-                            input.getLogradouro(),
-                            input.getNumero(),
-                            input.getCep(),
-                            input.getBairro(),
-                            input.getCidade(),
-                            input.getUf(),
-                            input.getIdReferencia()
-                    )
+            // Atualização do objeto Endereco com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Endereco endereco = new Endereco(
+                    id,
+                    input.getLogradouro(),
+                    input.getNumero(),
+                    input.getCep(),
+                    input.getBairro(),
+                    input.getCidade(),
+                    input.getUf(),
+                    input.getIdReferencia()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            endereco.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Endereco updated = this.enderecoService.update(endereco);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (EnderecoNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar endereço"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Endereco updated = this.enderecoService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (EnderecoNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar endereço"))
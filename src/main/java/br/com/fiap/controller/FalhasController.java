@@ -1,17 +1,25 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.FalhasDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.FalhasNotFoundException;
 import br.com.fiap.exceptions.FalhasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Falhas;
 import br.com.fiap.services.interfaces.FalhasService;
 import br.com.fiap.services.FalhasServiceFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/Falhas")
@@ -54,34 +62,182 @@ public class FalhasController {
         }
     }
 
+    @POST
+    @Path("/cadastre/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response addAll(List<FalhasDto> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com 1 a " + PageDto.MAX_LIMIT + " falhas"))
+                    .build();
+        }
+        // Criação dos objetos Falhas com base nos DTOs recebidos; todos são gravados em um único lote
+        List<Falhas> falhas = new ArrayList<>(inputs.size());
+        for (FalhasDto input : inputs) {
+            falhas.add(new Falhas(
+                    input.getIdFalha(),
+                    input.getDescricaoFalha(),
+                    input.getDescricaoSolucao(),
+                    input.getIdOrcamento(),
+                    input.getIdVeiculo(),
+                    input.getGravidade()
+            ));
+        }
+        try {
+            return Response.status(Response.Status.CREATED)
+                    .entity(this.FalhasService.createAll(falhas))
+                    .build();
+        } catch (UnsupportedServiceOperationException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Esse método só permite a criação de novas falhas"))
+                    .build();
+        } catch (SQLException | FalhasNotSavedException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar inserir falhas"))
+                    .build();
+        }
+    }
+
     @GET
+    @Versioned("T_FALHAS")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.FalhasService.findAll()).build();
+                .entity(this.FalhasService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_FALHAS")
+    @Path("/search")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response search(@QueryParam("q") String q,
+                           @QueryParam("gravidade") String gravidade,
+                           @QueryParam("idVeiculo") Long idVeiculo,
+                           @QueryParam("offset") Integer offset,
+                           @QueryParam("limit") Integer limit) {
+        if (q == null || q.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe o texto da busca no parâmetro q"))
+                    .build();
+        }
+        if ((offset != null && offset < 0) || (limit != null && limit < 1)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro offset não pode ser negativo e limit deve ser maior que zero"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.FalhasService.search(q, gravidade, idVeiculo, offset == null ? 0 : offset, PageDto.limitOf(limit)))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar falhas"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_FALHAS")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.FalhasService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar falha"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.FalhasService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar falha"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, FalhasDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, FalhasDto input) {
         try {
-            // Atualização do objeto Falhass com base no DTO e ID recebidos
-            Falhas updated = this.FalhasService.update(
-                    new Falhas(
-                            id,
-                            input.getDescricaoFalha(),
-                            input.getDescricaoSolucao(),
-                            input.getIdOrcamento(),
-                            input.getIdVeiculo(),
-                            input.getGravidade()
-                    )
+            // Atualização do objeto Falhass com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Falhas falhas = new Falhas(
+                    id,
+                    input.getDescricaoFalha(),
+                    input.getDescricaoSolucao(),
+                    input.getIdOrcamento(),
+                    input.getIdVeiculo(),
+                    input.getGravidade()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            falhas.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Falhas updated = this.FalhasService.update(falhas);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (FalhasNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar Falhas"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Falhas updated = this.FalhasService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (FalhasNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar Falhas"))
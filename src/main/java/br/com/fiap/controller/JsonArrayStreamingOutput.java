@@ -0,0 +1,53 @@
+package br.com.fiap.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Escreve um {@link Stream} como um array JSON, um item por vez.
+ *
+ * <p>Cada linha é serializada direto no corpo da resposta assim que é lida do banco, então o uso de
+ * memória não depende do tamanho da tabela. O primeiro item é enviado imediatamente para reduzir o
+ * tempo até o primeiro byte; os demais seguem pelo buffer do gerador. O {@link Stream} é fechado ao
+ * final da escrita, inclusive em caso de erro ou de desconexão do cliente.</p>
+ */
+final class JsonArrayStreamingOutput implements StreamingOutput {
+
+    // Mesma configuração padrão usada pelo provider Jackson do Jersey, sem flush a cada item.
+    private static final ObjectWriter WRITER = new ObjectMapper()
+            .writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final Stream<?> rows;
+
+    JsonArrayStreamingOutput(Stream<?> rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (Stream<?> source = rows;
+             JsonGenerator generator = WRITER.getFactory().createGenerator(output)) {
+            // Em caso de erro o array fica sem fechamento, para o cliente não confundir uma resposta truncada com completa.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            Iterator<?> it = source.iterator();
+            if (it.hasNext()) {
+                WRITER.writeValue(generator, it.next());
+                generator.flush();
+            }
+            while (it.hasNext()) {
+                WRITER.writeValue(generator, it.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+}
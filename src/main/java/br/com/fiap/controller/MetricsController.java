@@ -0,0 +1,62 @@
+package br.com.fiap.controller;
+
+import br.com.fiap.config.CompressionInterceptor;
+import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.services.CacheFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Controlador REST com métricas operacionais da aplicação.
+ *
+ * @since 1.0
+ */
+@Path("/rest/metrics")
+public class MetricsController {
+
+    /**
+     * Endpoint com as métricas do pool de conexões (conexões ativas, em espera, timeouts, etc.).
+     *
+     * @return Resposta HTTP com o snapshot das métricas do pool.
+     */
+    @GET
+    @Path("/pool")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response pool() {
+        return Response.status(Response.Status.OK)
+                .entity(DatabaseConnectionFactory.poolStats())
+                .build();
+    }
+
+    /**
+     * Endpoint com as métricas dos caches de leitura (acertos, faltas, descartes por LRU e por expiração).
+     *
+     * @return Resposta HTTP com o snapshot das métricas de cada cache.
+     */
+    @GET
+    @Path("/caches")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response caches() {
+        return Response.status(Response.Status.OK)
+                .entity(CacheFactory.stats())
+                .build();
+    }
+
+    /**
+     * Endpoint com as métricas de compressão das respostas (bytes antes e depois da compressão).
+     *
+     * @return Resposta HTTP com o snapshot das métricas de compressão.
+     */
+    @GET
+    @Path("/compression")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response compression() {
+        return Response.status(Response.Status.OK)
+                .entity(CompressionInterceptor.stats())
+                .build();
+    }
+}
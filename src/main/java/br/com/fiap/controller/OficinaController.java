@@ -1,17 +1,35 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.OficinaDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.OficinaNotFoundException;
 import br.com.fiap.exceptions.OficinaNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Oficina;
 import br.com.fiap.services.interfaces.OficinaService;
 import br.com.fiap.services.OficinaServiceFactory;
+import br.com.fiap.services.AgendamentoServiceFactory;
+import br.com.fiap.services.EnderecoOficinaServiceFactory;
+import br.com.fiap.services.FuncionarioServiceFactory;
+import br.com.fiap.services.TelefoneOficinaServiceFactory;
+import br.com.fiap.services.interfaces.AgendamentoService;
+import br.com.fiap.services.interfaces.EnderecoService;
+import br.com.fiap.services.interfaces.FuncionarioService;
+import br.com.fiap.services.interfaces.TelefoneService;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/oficina")
@@ -20,6 +38,15 @@ public class OficinaController {
     // Instância de OficinaService obtida da factory
     private final OficinaService oficinaService = OficinaServiceFactory.create();
 
+    // Serviços dos registros que pertencem a uma oficina
+    private final FuncionarioService funcionarioService = FuncionarioServiceFactory.create();
+    private final TelefoneService telefoneService = TelefoneOficinaServiceFactory.create();
+    private final EnderecoService enderecoService = EnderecoOficinaServiceFactory.create();
+    private final AgendamentoService agendamentoService = AgendamentoServiceFactory.create();
+
+    // Maior intervalo aceito na consulta de horários livres
+    private static final int MAX_DIAS_SLOTS = 31;
+
     @POST
     @Path("/cadastre")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -53,32 +80,189 @@ public class OficinaController {
     }
 
     @GET
+    @Versioned("T_OFICINA")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.oficinaService.findAll()).build();
+                .entity(this.oficinaService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_OFICINA")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.oficinaService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar oficina"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_FUNCIONARIO")
+    @Path("/{id}/funcionarios")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findFuncionarios(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.funcionarioService.findByOficinaId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar funcionários da oficina"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_TELEFONE_OFICINA")
+    @Path("/{id}/telefones")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findTelefones(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.telefoneService.findByReferenciaId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar telefones da oficina"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_ENDERECO_OFICINA")
+    @Path("/{id}/enderecos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findEnderecos(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.enderecoService.findByReferenciaId(id)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar endereços da oficina"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_AGENDAMENTO")
+    @Path("/{id}/slots")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findSlots(@PathParam("id") Long id, @QueryParam("from") String from, @QueryParam("to") String to) {
+        if (from == null || to == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe os parâmetros from e to"))
+                    .build();
+        }
+        final LocalDateTime de;
+        final LocalDateTime ate;
+        try {
+            de = parseDataHora(from, false);
+            ate = parseDataHora(to, true);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe from e to no formato AAAA-MM-DD ou AAAA-MM-DDTHH:MM"))
+                    .build();
+        }
+        if (!ate.isAfter(de) || ate.isAfter(de.plusDays(MAX_DIAS_SLOTS))) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O intervalo deve ter to depois de from e no máximo " + MAX_DIAS_SLOTS + " dias"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.agendamentoService.findSlotsLivres(id, de, ate)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar horários livres da oficina"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.oficinaService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar oficina"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, OficinaDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, OficinaDto input) {
         try {
-            // Atualização do objeto Oficina com base no DTO e ID recebidos
-            Oficina updated = this.oficinaService.update(
-                    new Oficina(
-                            id,
-                            input.getCnpj(),
-                            input.getNome(),
-                            input.getEmail()
-
-                    )
+            // Atualização do objeto Oficina com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Oficina oficina = new Oficina(
+                    id,
+                    input.getCnpj(),
+                    input.getNome(),
+                    input.getEmail()
+
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            oficina.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Oficina updated = this.oficinaService.update(oficina);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (OficinaNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar oficina"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Oficina updated = this.oficinaService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (OficinaNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar oficina"))
@@ -100,4 +284,13 @@ public class OficinaController {
                     .build();
         }
     }
+
+    // Aceita data e hora ou apenas a data; uma data sozinha em "to" inclui o dia inteiro.
+    private static LocalDateTime parseDataHora(String valor, boolean fimDoIntervalo) {
+        if (valor.contains("T")) {
+            return LocalDateTime.parse(valor);
+        }
+        LocalDate data = LocalDate.parse(valor);
+        return fimDoIntervalo ? data.plusDays(1).atStartOfDay() : data.atStartOfDay();
+    }
 }
@@ -1,17 +1,35 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
 import br.com.fiap.dtos.OrdemDeServicoDto;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.QuadroDto;
 import br.com.fiap.exceptions.OrdemDeServicoNotFoundException;
 import br.com.fiap.exceptions.OrdemDeServicoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.OrdemDeServico;
 import br.com.fiap.services.interfaces.OrdemDeServicoService;
 import br.com.fiap.services.OrdemDeServicoServiceFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/ordemdeservico")
@@ -20,6 +38,15 @@ public class OrdemDeServicoController {
     // Instância de OrdemDeServicoService obtida da factory
     private final OrdemDeServicoService ordemDeServicoService = OrdemDeServicoServiceFactory.create();
 
+    // Os eventos do feed vão como texto JSON já serializado, sem passar pelos interceptors de corpo da resposta.
+    private static final ObjectWriter JSON = new ObjectMapper().writer();
+
+    // Maior período aceito no relatório de tempos de execução.
+    private static final int MAX_DIAS_TEMPOS = 366;
+
+    // Feed do quadro compartilhado por todas as conexões; criado na primeira inscrição.
+    private static SseBroadcaster feedQuadro;
+
     @POST
     @Path("/cadastre")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -58,36 +85,203 @@ public class OrdemDeServicoController {
     }
 
     @GET
+    @Versioned("T_ORDEM_DE_SERVICO")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.ordemDeServicoService.findAll()).build();
+                .entity(this.ordemDeServicoService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_ORDEM_DE_SERVICO")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.ordemDeServicoService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar ordem de serviço"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned({"T_ORDEM_DE_SERVICO", "T_FUNCIONARIO"})
+    @Path("/quadro")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findQuadro() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.ordemDeServicoService.findQuadro()).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar montar o quadro de ordens de serviço"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned({"T_ORDEM_DE_SERVICO", "T_FUNCIONARIO"})
+    @Path("/quadro/ordens")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findIdsNoQuadro(@QueryParam("status") String status,
+                                    @QueryParam("idOficina") Long idOficina,
+                                    @QueryParam("idFuncionario") Long idFuncionario,
+                                    @QueryParam("after") Long after,
+                                    @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.ordemDeServicoService.findIdsNoQuadro(status, idOficina, idFuncionario,
+                            after, PageDto.limitOf(limit))).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar montar o quadro de ordens de serviço"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/quadro/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamQuadro(@Context SseEventSink sink, @Context Sse sse) {
+        try {
+            // A conexão entra no feed antes de o resumo ser lido, para que nenhuma mudança confirmada entre os dois
+            // se perca. Os eventos "ordem" podem então chegar antes ou depois do resumo "quadro"; o id de cada
+            // evento é a sua sequência, e o cliente descarta os eventos com sequência até a do resumo.
+            feedQuadro(sse).register(sink);
+            QuadroDto quadro = this.ordemDeServicoService.findQuadro();
+            sink.send(sse.newEventBuilder()
+                    .name("quadro")
+                    .id(Long.toString(quadro.getSequencia()))
+                    .data(String.class, JSON.writeValueAsString(quadro))
+                    .build());
+        } catch (SQLException | JsonProcessingException e) {
+            sink.close();
+        }
+    }
+
+    @GET
+    @Versioned({"T_ORDEM_DE_SERVICO", "T_ORCAMENTO", "T_SERVICOS"})
+    @Path("/tempos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findPercentisTempoExecucao(@QueryParam("from") String from, @QueryParam("to") String to,
+                                               @QueryParam("por") String por) {
+        if (from == null || to == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe os parâmetros from e to"))
+                    .build();
+        }
+        LocalDate de;
+        LocalDate ate;
+        try {
+            de = LocalDate.parse(from);
+            ate = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe from e to no formato AAAA-MM-DD"))
+                    .build();
+        }
+        if (ate.isBefore(de) || !ate.isBefore(de.plusDays(MAX_DIAS_TEMPOS))) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O período deve ter to a partir de from e no máximo " + MAX_DIAS_TEMPOS + " dias"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.ordemDeServicoService.findPercentisTempoExecucao(de, ate, por)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro por deve ser oficina, funcionario ou servico"))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar calcular os tempos de execução"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.ordemDeServicoService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar ordem de serviço"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_ORDEM_DE_SERVICO")
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response export() {
+        try {
+            // As linhas são escritas conforme são lidas do banco; o stream é fechado ao fim da resposta.
+            return Response.status(Response.Status.OK)
+                    .entity(new JsonArrayStreamingOutput(this.ordemDeServicoService.streamAll()))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar exportar ordens de serviço"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, OrdemDeServicoDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, OrdemDeServicoDto input) {
         try {
-            // Atualização do objeto OrdemDeServico com base no DTO e ID recebidos
-            OrdemDeServico updated = this.ordemDeServicoService.update(
-                    new OrdemDeServico(
-                            id,
-                            input.getStatus(),
-                            input.getIdOrcamento(),
-                            input.getIdFuncionario(),
-                            input.getIdVeiculo(),
-                            input.getDataInicio(),
-                            input.getDataFim(),
-                            input.getHoraInicio(),
-                            input.getHoraFim()
-                    )
+            // Atualização do objeto OrdemDeServico com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            OrdemDeServico ordemDeServico = new OrdemDeServico(
+                    id,
+                    input.getStatus(),
+                    input.getIdOrcamento(),
+                    input.getIdFuncionario(),
+                    input.getIdVeiculo(),
+                    input.getDataInicio(),
+                    input.getDataFim(),
+                    input.getHoraInicio(),
+                    input.getHoraFim()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            ordemDeServico.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            OrdemDeServico updated = this.ordemDeServicoService.update(ordemDeServico);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (OrdemDeServicoNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar ordem de serviço"))
@@ -95,6 +289,58 @@ public class OrdemDeServicoController {
         }
     }
 
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            OrdemDeServico updated = this.ordemDeServicoService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (OrdemDeServicoNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar ordem de serviço"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/{id}/finalizar")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response finalizar(@PathParam("id") Long id) {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.ordemDeServicoService.finalizar(id)).build();
+        } catch (OrdemDeServicoNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", "Somente ordens de serviço abertas podem ser finalizadas"))
+                    .build();
+        } catch (VersaoConflitanteException e) {
+            // A ordem foi alterada entre a leitura e a finalização
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar finalizar ordem de serviço"))
+                    .build();
+        }
+    }
+
     @DELETE
     @Path("/{id}")
     public Response delete(@PathParam("id") Long id) {
@@ -109,4 +355,26 @@ public class OrdemDeServicoController {
                     .build();
         }
     }
+
+    // Cria o feed do quadro e o inscreve uma única vez nas mudanças do serviço.
+    private SseBroadcaster feedQuadro(Sse sse) {
+        synchronized (OrdemDeServicoController.class) {
+            if (feedQuadro == null) {
+                SseBroadcaster feed = sse.newBroadcaster();
+                this.ordemDeServicoService.observarQuadro(evento -> {
+                    try {
+                        feed.broadcast(sse.newEventBuilder()
+                                .name("ordem")
+                                .id(Long.toString(evento.getSequencia()))
+                                .data(String.class, JSON.writeValueAsString(evento))
+                                .build());
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                feedQuadro = feed;
+            }
+            return feedQuadro;
+        }
+    }
 }
@@ -1,17 +1,27 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.CachedResponse;
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.dtos.PecasDto;
+import br.com.fiap.exceptions.EstoqueInsuficienteException;
 import br.com.fiap.exceptions.PecasNotFoundException;
 import br.com.fiap.exceptions.PecasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pecas;
 import br.com.fiap.services.interfaces.PecasService;
 import br.com.fiap.services.PecasServiceFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Path("/rest/pecas")
@@ -55,35 +65,145 @@ public class PecasController {
         }
     }
 
+    @POST
+    @Path("/cadastre/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response addAll(List<PecasDto> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com 1 a " + PageDto.MAX_LIMIT + " peças"))
+                    .build();
+        }
+        // Criação dos objetos Pecas com base nos DTOs recebidos; todos são gravados em um único lote
+        List<Pecas> pecas = new ArrayList<>(inputs.size());
+        for (PecasDto input : inputs) {
+            pecas.add(new Pecas(
+                    input.getIdPeca(),
+                    input.getMarca(),
+                    input.getQuantidade(),
+                    input.getValor(),
+                    input.getDescricao(),
+                    input.getIdOrcamento(),
+                    input.getIdServico()
+            ));
+        }
+        try {
+            return Response.status(Response.Status.CREATED)
+                    .entity(this.pecasService.createAll(pecas))
+                    .build();
+        } catch (UnsupportedServiceOperationException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Esse método só permite a criação de novas peças"))
+                    .build();
+        } catch (SQLException | PecasNotSavedException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar inserir peças"))
+                    .build();
+        }
+    }
+
     @GET
+    @CachedResponse
+    @Versioned("T_PECAS")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.pecasService.findAll()).build();
+                .entity(this.pecasService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_PECAS")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.pecasService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar peça"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.pecasService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar peça"))
+                    .build();
+        }
+    }
+
+    @GET
+    @Versioned("T_PECAS")
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response export() {
+        try {
+            // As linhas são escritas conforme são lidas do banco; o stream é fechado ao fim da resposta.
+            return Response.status(Response.Status.OK)
+                    .entity(new JsonArrayStreamingOutput(this.pecasService.streamAll()))
+                    .build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar exportar peças"))
+                    .build();
+        }
     }
 
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, PecasDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, PecasDto input) {
         try {
-            // Atualização do objeto Pecas com base no DTO e ID recebidos
-            Pecas updated = this.pecasService.update(
-                    new Pecas(
-                            id,
-                            input.getMarca(),
-                            input.getQuantidade(),
-                            input.getValor(),
-                            input.getDescricao(),
-                            input.getIdOrcamento(),
-                            input.getIdServico()
-                    )
+            // Atualização do objeto Pecas com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Pecas pecas = new Pecas(
+                    id,
+                    input.getMarca(),
+                    input.getQuantidade(),
+                    input.getValor(),
+                    input.getDescricao(),
+                    input.getIdOrcamento(),
+                    input.getIdServico()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            pecas.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Pecas updated = this.pecasService.update(pecas);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (PecasNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (EstoqueInsuficienteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar peça"))
@@ -91,6 +211,58 @@ public class PecasController {
         }
     }
 
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Pecas updated = this.pecasService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (PecasNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (EstoqueInsuficienteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar peça"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/{id}/reserve")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response reserve(@PathParam("id") Long id, @QueryParam("quantidade") Integer quantidade) {
+        return alterarEstoque(quantidade, () -> this.pecasService.reserve(id, quantidade), "reservar");
+    }
+
+    @POST
+    @Path("/{id}/release")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response release(@PathParam("id") Long id, @QueryParam("quantidade") Integer quantidade) {
+        return alterarEstoque(quantidade, () -> this.pecasService.release(id, quantidade), "liberar");
+    }
+
+    @POST
+    @Path("/{id}/consume")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response consume(@PathParam("id") Long id, @QueryParam("quantidade") Integer quantidade) {
+        return alterarEstoque(quantidade, () -> this.pecasService.consume(id, quantidade), "consumir");
+    }
+
     @DELETE
     @Path("/{id}")
     public Response delete(@PathParam("id") Long id) {
@@ -105,4 +277,36 @@ public class PecasController {
                     .build();
         }
     }
+
+    // Respostas comuns às operações de estoque: 204 em caso de sucesso, 409 se a quantidade não estiver disponível.
+    private Response alterarEstoque(Integer quantidade, OperacaoEstoque operacao, String acao) {
+        if (quantidade == null || quantidade < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe no parâmetro quantidade um valor maior que zero"))
+                    .build();
+        }
+        try {
+            operacao.executar();
+            return Response.status(Response.Status.NO_CONTENT).build();
+        } catch (PecasNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (EstoqueInsuficienteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar " + acao + " peça"))
+                    .build();
+        }
+    }
+
+    /**
+     * Operação de estoque executada por {@link #alterarEstoque}.
+     */
+    @FunctionalInterface
+    private interface OperacaoEstoque {
+
+        void executar() throws SQLException;
+    }
 }
@@ -1,17 +1,26 @@
 package br.com.fiap.controller;
 
+import br.com.fiap.config.CachedResponse;
+import br.com.fiap.config.Versioned;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.RowVersions;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.dtos.ServicosDto;
 import br.com.fiap.exceptions.ServicosNotFoundException;
 import br.com.fiap.exceptions.ServicosNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Servicos;
 import br.com.fiap.services.interfaces.ServicosService;
 import br.com.fiap.services.ServicosServiceFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -65,18 +74,97 @@ public class ServicosController {
         }
     }
 
+    @POST
+    @Path("/cadastre/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response addAll(List<ServicosDto> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com 1 a " + PageDto.MAX_LIMIT + " serviços"))
+                    .build();
+        }
+        // Criação dos objetos Servicos com base nos DTOs recebidos; todos são gravados em um único lote
+        List<Servicos> servicos = new ArrayList<>(inputs.size());
+        for (ServicosDto input : inputs) {
+            servicos.add(new Servicos(
+                    input.getIdServico(),
+                    input.getTipoServico(),
+                    input.getDescricao(),
+                    input.getValorServico(),
+                    input.getTempoEstimado(),
+                    Long.valueOf(input.getIdOrcamento())
+            ));
+        }
+        try {
+            return Response.status(Response.Status.CREATED)
+                    .entity(this.servicosService.createAll(servicos))
+                    .build();
+        } catch (UnsupportedServiceOperationException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Esse método só permite a criação de novos serviços"))
+                    .build();
+        } catch (SQLException | ServicosNotSavedException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar inserir serviços"))
+                    .build();
+        }
+    }
+
     /**
      * Endpoint para listar todos os serviços.
      *
      * @return Resposta HTTP com a lista de todos os serviços.
      */
     @GET
+    @CachedResponse
+    @Versioned("T_SERVICOS")
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
+    public Response findAll(@QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        if (limit != null && limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "O parâmetro limit deve ser maior que zero"))
+                    .build();
+        }
         return Response.status(Response.Status.OK)
-                .entity(this.servicosService.findAll())
-                .build();
+                .entity(this.servicosService.page(after, PageDto.limitOf(limit))).build();
+    }
+
+    @GET
+    @Versioned("T_SERVICOS")
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findById(@PathParam("id") Long id) {
+        try {
+            return this.servicosService.findById(id)
+                    .map(found -> Response.status(Response.Status.OK).entity(found).tag(RowVersions.etag(found.getVersao())).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar serviço"))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/batch-get")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findAllByIds(List<Long> ids) {
+        if (ids == null || ids.size() > PageDto.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", "Informe uma lista com até " + PageDto.MAX_LIMIT + " IDs"))
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(this.servicosService.findAllByIds(ids)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar buscar serviço"))
+                    .build();
+        }
     }
 
     /**
@@ -90,21 +178,56 @@ public class ServicosController {
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, ServicosDto input) {
+    public Response update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, ServicosDto input) {
         try {
-            // Atualização do objeto Servicos com base no DTO e ID recebidos
-            Servicos updated = this.servicosService.update(
-                    new Servicos(
-                            id,
-                            input.getTipoServico(),
-                            input.getDescricao(),
-                            input.getValorServico(),
-                            input.getTempoEstimado()
-                    )
+            // Atualização do objeto Servicos com base no DTO e ID recebidos, condicionada à versão que o cliente leu
+            Servicos servicos = new Servicos(
+                    id,
+                    input.getTipoServico(),
+                    input.getDescricao(),
+                    input.getValorServico(),
+                    input.getTempoEstimado()
             );
-            return Response.status(Response.Status.OK).entity(updated).build();
+            servicos.setVersao(RowVersions.esperada(input.getVersao(), ifMatch));
+            Servicos updated = this.servicosService.update(servicos);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
         } catch (ServicosNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (SQLException s) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar serviço"))
+                    .build();
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Map<String, Object> input) {
+        try {
+            // Alteração só dos campos presentes no corpo, condicionada à versão que o cliente leu
+            Long versao = RowVersions.esperada(MergePatch.retirarVersao(input), ifMatch);
+            Servicos updated = this.servicosService.patch(id, input, versao);
+            return Response.status(Response.Status.OK).entity(updated).tag(RowVersions.etag(updated.getVersao())).build();
+        } catch (ServicosNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } catch (VersaoConflitanteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("mensagem", e.getMessage()))
+                    .build();
         } catch (SQLException s) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("mensagem", "Erro inesperado ao tentar atualizar serviço"))
@@ -1,15 +1,22 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.AgendamentoDao;
 import br.com.fiap.exceptions.AgendamentoNotFoundException;
 import br.com.fiap.exceptions.AgendamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Agendamento;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade Agendamento, gerenciando operações de CRUD.
@@ -19,6 +26,13 @@ class AgendamentoDaoImpl implements AgendamentoDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do AgendamentoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_AGENDAMENTO", "id_agendamento")
+            .data("dataAgendamento", "dt_agendamento").obrigatoria()
+            .dataHora("horaAgendamento", "hr_agendamento").obrigatoria()
+            .longo("idCliente", "id_cliente").obrigatoria()
+            .longo("idOficina", "id_oficina").obrigatoria();
+
     /**
      * Busca todas as instâncias de Agendamento no banco de dados.
      *
@@ -26,27 +40,100 @@ class AgendamentoDaoImpl implements AgendamentoDao {
      */
     @Override
     public List<Agendamento> findAll() {
-        final List<Agendamento> agendamentos = new ArrayList<>();
         final String sql = "SELECT * FROM T_AGENDAMENTO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Agendamento.
-            while (rs.next()) {
-                Agendamento agendamento = new Agendamento(
-                        rs.getLong("id_agendamento"),
-                        rs.getDate("dt_agendamento"),
-                        rs.getTimestamp("hr_agendamento"),
-                        rs.getLong("id_cliente"),
-                        rs.getLong("id_oficina")
-                );
-                agendamentos.add(agendamento);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar agendamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de agendamentos com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Agendamento} da página.
+     */
+    @Override
+    public List<Agendamento> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_AGENDAMENTO WHERE id_agendamento > ? ORDER BY id_agendamento FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de agendamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Agendamento pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Agendamento.
+     * @return O {@link Agendamento} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Agendamento> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_AGENDAMENTO WHERE id_agendamento = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Agendamento} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Agendamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_AGENDAMENTO WHERE id_agendamento IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os agendamentos de uma oficina em um intervalo, pelo índice de {@code (id_oficina, hr_agendamento)}.
+     *
+     * @param idOficina O ID da oficina.
+     * @param inicio    O início do intervalo.
+     * @param fim       O fim do intervalo (exclusivo).
+     * @return As instâncias de {@link Agendamento} encontradas, em ordem de horário.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Agendamento> findByOficinaIdBetween(Long idOficina, Timestamp inicio, Timestamp fim) throws SQLException {
+        final String sql = "SELECT * FROM T_AGENDAMENTO WHERE id_oficina = ? AND hr_agendamento >= ? AND hr_agendamento < ? ORDER BY hr_agendamento";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, idOficina);
+                stmt.setTimestamp(2, inicio);
+                stmt.setTimestamp(3, fim);
+            }, this::mapRow);
         }
-        return agendamentos;
+    }
+
+    /**
+     * Percorre todos os agendamentos em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link Agendamento}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<Agendamento> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_AGENDAMENTO ORDER BY id_agendamento";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
     }
 
     /**
@@ -60,9 +147,7 @@ class AgendamentoDaoImpl implements AgendamentoDao {
     @Override
     public void deleteById(Long id, Connection connection) throws AgendamentoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_AGENDAMENTO WHERE id_agendamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Agendamento não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -81,23 +166,21 @@ class AgendamentoDaoImpl implements AgendamentoDao {
      */
     @Override
     public Agendamento save(Agendamento agendamento, Connection connection) throws SQLException, AgendamentoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_AGENDAMENTO(dt_agendamento, hr_agendamento, id_cliente, id_oficina) VALUES (?, ?, ?, ?) RETURNING id_agendamento INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setDate(1, new java.sql.Date(agendamento.getDataAgendamento().getTime()));
-        call.setTimestamp(2, agendamento.getHoraAgendamento());
-        call.setLong(3, agendamento.getIdCliente());
-        call.setLong(4, agendamento.getIdOficina());
-        call.registerOutParameter(5, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(5);
+        final String sql = "INSERT INTO T_AGENDAMENTO(dt_agendamento, hr_agendamento, id_cliente, id_oficina) VALUES (?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_agendamento", stmt -> {
+            stmt.setDate(1, new java.sql.Date(agendamento.getDataAgendamento().getTime()));
+            stmt.setTimestamp(2, agendamento.getHoraAgendamento());
+            stmt.setLong(3, agendamento.getIdCliente());
+            stmt.setLong(4, agendamento.getIdOficina());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new AgendamentoNotSavedException("Erro ao salvar o agendamento: verifique os dados fornecidos ou tente novamente.");
         }
 
         agendamento.setIdAgendamento(id);
+        agendamento.setVersao(0L);
         return agendamento;
     }
 
@@ -108,24 +191,65 @@ class AgendamentoDaoImpl implements AgendamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return O Agendamento atualizado.
      * @throws AgendamentoNotFoundException Se o Agendamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Agendamento update(Agendamento agendamento, Connection connection) throws AgendamentoNotFoundException, SQLException {
-        final String sql = "UPDATE T_AGENDAMENTO SET dt_agendamento = ?, hr_agendamento = ?, id_cliente = ?, id_oficina = ? WHERE id_agendamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setDate(1, new java.sql.Date(agendamento.getDataAgendamento().getTime()));
-        stmt.setTimestamp(2, agendamento.getHoraAgendamento());
-        stmt.setLong(3, agendamento.getIdCliente());
-        stmt.setLong(4, agendamento.getIdOficina());
-        stmt.setLong(5, agendamento.getIdAgendamento());
+        final String sql = "UPDATE T_AGENDAMENTO SET dt_agendamento = ?, hr_agendamento = ?, id_cliente = ?, id_oficina = ?, nr_versao = nr_versao + 1 WHERE id_agendamento = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_AGENDAMENTO", "id_agendamento", agendamento.getIdAgendamento(), agendamento.getVersao(), sql, stmt -> {
+            stmt.setDate(1, new java.sql.Date(agendamento.getDataAgendamento().getTime()));
+            stmt.setTimestamp(2, agendamento.getHoraAgendamento());
+            stmt.setLong(3, agendamento.getIdCliente());
+            stmt.setLong(4, agendamento.getIdOficina());
+            stmt.setLong(5, agendamento.getIdAgendamento());
+            JdbcTemplate.setVersao(stmt, 6, agendamento.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Agendamento não foi encontrado.
+        agendamento.setVersao(versao.orElseThrow(() -> new AgendamentoNotFoundException("Agendamento não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return agendamento;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Agendamento não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new AgendamentoNotFoundException("Agendamento não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de um Agendamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Agendamento.
+     * @param campos Os campos alterados, com os nomes do {@code AgendamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Agendamento com todos os campos, depois da alteração.
+     * @throws AgendamentoNotFoundException Se o Agendamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Agendamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws AgendamentoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_AGENDAMENTO WHERE id_agendamento = ?";
+        Optional<Agendamento> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Agendamento não foi encontrado.
+        return alterado.orElseThrow(() -> new AgendamentoNotFoundException("Agendamento não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Agendamento.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Agendamento mapRow(ResultSet rs) throws SQLException {
+        Agendamento agendamento = new Agendamento(
+                rs.getLong("id_agendamento"),
+                rs.getDate("dt_agendamento"),
+                rs.getTimestamp("hr_agendamento"),
+                rs.getLong("id_cliente"),
+                rs.getLong("id_oficina")
+        );
+        agendamento.setVersao(rs.getLong("nr_versao"));
         return agendamento;
     }
 }
@@ -1,15 +1,22 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.ClienteDao;
 import br.com.fiap.exceptions.ClienteNotFoundException;
 import br.com.fiap.exceptions.ClienteNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Cliente;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade Cliente, gerenciando operações de CRUD.
@@ -19,6 +26,13 @@ class ClienteDaoImpl implements ClienteDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do ClienteDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_CLIENTE", "id_cliente")
+            .texto("cpf", "nr_cpf").obrigatoria()
+            .texto("nome", "nm_cliente").obrigatoria()
+            .texto("email", "ds_email")
+            .caractere("sexo", "sx_sexo").obrigatoria();
+
     /**
      * Busca todas as instâncias de Cliente no banco de dados.
      *
@@ -26,27 +40,79 @@ class ClienteDaoImpl implements ClienteDao {
      */
     @Override
     public List<Cliente> findAll() {
-        final List<Cliente> clientes = new ArrayList<>();
         final String sql = "SELECT * FROM T_CLIENTE";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Cliente.
-            while (rs.next()) {
-                Cliente cliente = new Cliente(
-                        rs.getLong("id_cliente"),
-                        rs.getString("nr_cpf"),
-                        rs.getString("nm_cliente"),
-                        rs.getString("ds_email"),
-                        rs.getString("sx_sexo").charAt(0)
-                );
-                clientes.add(cliente);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar clientes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de clientes com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Cliente} da página.
+     */
+    @Override
+    public List<Cliente> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_CLIENTE WHERE id_cliente > ? ORDER BY id_cliente FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de clientes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Cliente pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Cliente.
+     * @return O {@link Cliente} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Cliente> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_CLIENTE WHERE id_cliente = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Cliente} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Cliente> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_CLIENTE WHERE id_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
         }
-        return clientes;
+    }
+
+    /**
+     * Percorre todos os clientes em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link Cliente}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<Cliente> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_CLIENTE ORDER BY id_cliente";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
     }
 
     /**
@@ -60,9 +126,7 @@ class ClienteDaoImpl implements ClienteDao {
     @Override
     public void deleteById(Long id, Connection connection) throws ClienteNotFoundException, SQLException {
         final String sql = "DELETE FROM T_CLIENTE WHERE id_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Cliente não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -81,23 +145,21 @@ class ClienteDaoImpl implements ClienteDao {
      */
     @Override
     public Cliente save(Cliente cliente, Connection connection) throws SQLException, ClienteNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_CLIENTE(nr_cpf, nm_cliente, ds_email, sx_sexo) VALUES (?, ?, ?, ?) RETURNING id_cliente INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, cliente.getCpf());
-        call.setString(2, cliente.getNome());
-        call.setString(3, cliente.getEmail());
-        call.setString(4, String.valueOf(cliente.getSexo()));
-        call.registerOutParameter(5, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(5);
+        final String sql = "INSERT INTO T_CLIENTE(nr_cpf, nm_cliente, ds_email, sx_sexo) VALUES (?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_cliente", stmt -> {
+            stmt.setString(1, cliente.getCpf());
+            stmt.setString(2, cliente.getNome());
+            stmt.setString(3, cliente.getEmail());
+            stmt.setString(4, String.valueOf(cliente.getSexo()));
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new ClienteNotSavedException("Erro ao salvar o cliente: verifique os dados fornecidos ou tente novamente.");
         }
 
         cliente.setIdCliente(id);
+        cliente.setVersao(0L);
         return cliente;
     }
 
@@ -108,24 +170,65 @@ class ClienteDaoImpl implements ClienteDao {
      * @param connection Conexão com o banco de dados.
      * @return O Cliente atualizado.
      * @throws ClienteNotFoundException Se o Cliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Cliente update(Cliente cliente, Connection connection) throws ClienteNotFoundException, SQLException {
-        final String sql = "UPDATE T_CLIENTE SET nr_cpf = ?, nm_cliente = ?, ds_email = ?, sx_sexo = ? WHERE id_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, cliente.getCpf());
-        stmt.setString(2, cliente.getNome());
-        stmt.setString(3, cliente.getEmail());
-        stmt.setString(4, String.valueOf(cliente.getSexo()));
-        stmt.setLong(5, cliente.getIdCliente());
+        final String sql = "UPDATE T_CLIENTE SET nr_cpf = ?, nm_cliente = ?, ds_email = ?, sx_sexo = ?, nr_versao = nr_versao + 1 WHERE id_cliente = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_CLIENTE", "id_cliente", cliente.getIdCliente(), cliente.getVersao(), sql, stmt -> {
+            stmt.setString(1, cliente.getCpf());
+            stmt.setString(2, cliente.getNome());
+            stmt.setString(3, cliente.getEmail());
+            stmt.setString(4, String.valueOf(cliente.getSexo()));
+            stmt.setLong(5, cliente.getIdCliente());
+            JdbcTemplate.setVersao(stmt, 6, cliente.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Cliente não foi encontrado.
+        cliente.setVersao(versao.orElseThrow(() -> new ClienteNotFoundException("Cliente não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return cliente;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Cliente não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new ClienteNotFoundException("Cliente não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de um Cliente existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Cliente.
+     * @param campos Os campos alterados, com os nomes do {@code ClienteDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Cliente com todos os campos, depois da alteração.
+     * @throws ClienteNotFoundException Se o Cliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Cliente patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws ClienteNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_CLIENTE WHERE id_cliente = ?";
+        Optional<Cliente> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Cliente não foi encontrado.
+        return alterado.orElseThrow(() -> new ClienteNotFoundException("Cliente não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Cliente.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Cliente mapRow(ResultSet rs) throws SQLException {
+        Cliente cliente = new Cliente(
+                rs.getLong("id_cliente"),
+                rs.getString("nr_cpf"),
+                rs.getString("nm_cliente"),
+                rs.getString("ds_email"),
+                rs.getString("sx_sexo").charAt(0)
+        );
+        cliente.setVersao(rs.getLong("nr_versao"));
         return cliente;
     }
 }
@@ -0,0 +1,206 @@
+package br.com.fiap.dao;
+
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.exceptions.VersaoConflitanteException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Colunas de uma tabela que podem ser alteradas por um PATCH (JSON Merge Patch), com o UPDATE de cada combinação.
+ *
+ * <p>Os campos do patch têm os mesmos nomes e tipos dos DTOs, e cada valor é convertido por {@link MergePatch#valor}.
+ * O UPDATE escreve só as colunas presentes no patch; um campo {@code null} grava {@code NULL}, exceto nas colunas
+ * declaradas {@link #obrigatoria()}, que o recusam antes de chegar ao banco. As colunas entram no
+ * SQL sempre na ordem em que foram declaradas, qualquer que seja a ordem dos campos no JSON, então o mesmo conjunto
+ * de campos gera sempre o mesmo SQL e reaproveita o cursor do cache de statements do driver.</p>
+ *
+ * <p>O SQL de cada combinação é montado uma vez e guardado em um cache limitado a {@link #MAX_FORMATOS} entradas,
+ * compartilhado entre as tabelas, com descarte da combinação usada há mais tempo.</p>
+ */
+final class ColunasPatch {
+
+    // Combinações de colunas guardadas; na prática, poucas por tabela (as alterações de status e afins).
+    private static final int MAX_FORMATOS = 256;
+
+    private static final Map<String, String> FORMATOS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_FORMATOS;
+        }
+    };
+
+    private final String tabela;
+    private final String colunaId;
+    private final Map<String, Coluna> colunas = new LinkedHashMap<>();
+    private Coluna ultima;
+
+    private ColunasPatch(String tabela, String colunaId) {
+        this.tabela = tabela;
+        this.colunaId = colunaId;
+    }
+
+    /**
+     * Inicia a declaração das colunas alteráveis de uma tabela.
+     *
+     * @param tabela   A tabela.
+     * @param colunaId A coluna da chave primária.
+     * @return A declaração, sem colunas.
+     */
+    static ColunasPatch tabela(String tabela, String colunaId) {
+        return new ColunasPatch(tabela, colunaId);
+    }
+
+    ColunasPatch texto(String campo, String coluna) {
+        return coluna(campo, coluna, String.class, Types.VARCHAR);
+    }
+
+    ColunasPatch caractere(String campo, String coluna) {
+        return coluna(campo, coluna, Character.class, Types.CHAR);
+    }
+
+    ColunasPatch inteiro(String campo, String coluna) {
+        return coluna(campo, coluna, Integer.class, Types.INTEGER);
+    }
+
+    ColunasPatch longo(String campo, String coluna) {
+        return coluna(campo, coluna, Long.class, Types.BIGINT);
+    }
+
+    ColunasPatch decimal(String campo, String coluna) {
+        return coluna(campo, coluna, Double.class, Types.DOUBLE);
+    }
+
+    ColunasPatch data(String campo, String coluna) {
+        return coluna(campo, coluna, Date.class, Types.DATE);
+    }
+
+    ColunasPatch dataHora(String campo, String coluna) {
+        return coluna(campo, coluna, Timestamp.class, Types.TIMESTAMP);
+    }
+
+    /**
+     * Marca a última coluna declarada como {@code NOT NULL}: o patch não pode apagá-la.
+     *
+     * @return A declaração.
+     */
+    ColunasPatch obrigatoria() {
+        ultima.obrigatoria = true;
+        return this;
+    }
+
+    private ColunasPatch coluna(String campo, String coluna, Class<?> tipo, int tipoSql) {
+        ultima = new Coluna(colunas.size(), coluna, tipo, tipoSql);
+        colunas.put(campo, ultima);
+        return this;
+    }
+
+    /**
+     * Aplica um patch a um registro, alterando só as colunas dos campos presentes e incrementando a versão.
+     *
+     * <p>Um patch vazio não altera o registro: apenas confere se ele existe e se está na versão esperada.</p>
+     *
+     * @param connection     A conexão a ser utilizada.
+     * @param id             O ID do registro.
+     * @param campos         Os campos do patch, com os nomes dos campos do DTO.
+     * @param versaoEsperada A versão lida pelo cliente, ou {@code null} para não verificar.
+     * @return A versão do registro depois do patch, ou vazio se o registro não existir.
+     * @throws IllegalArgumentException   Se um campo não puder ser alterado, tiver um valor do tipo errado ou for
+     *                                    {@code null} em uma coluna obrigatória.
+     * @throws VersaoConflitanteException Se o registro existir com outra versão.
+     * @throws SQLException               Se ocorrer um erro ao acessar o banco de dados.
+     */
+    OptionalLong aplicar(Connection connection, long id, Map<String, Object> campos, Long versaoEsperada) throws SQLException {
+        Object[] valores = new Object[colunas.size()];
+        boolean[] presentes = new boolean[colunas.size()];
+        for (Map.Entry<String, Object> campo : campos.entrySet()) {
+            Coluna coluna = colunas.get(campo.getKey());
+            if (coluna == null) {
+                throw new IllegalArgumentException("O campo " + campo.getKey() + " não existe ou não pode ser alterado");
+            }
+            if (campo.getValue() == null && coluna.obrigatoria) {
+                throw new IllegalArgumentException("O campo " + campo.getKey() + " é obrigatório e não pode ser apagado");
+            }
+            presentes[coluna.indice] = true;
+            valores[coluna.indice] = MergePatch.valor(campos, campo.getKey(), coluna.tipo);
+        }
+        if (campos.isEmpty()) {
+            return JdbcTemplate.checkVersion(connection, tabela, colunaId, id, versaoEsperada);
+        }
+
+        List<Coluna> alteradas = new ArrayList<>(campos.size());
+        for (Coluna coluna : colunas.values()) {
+            if (presentes[coluna.indice]) {
+                alteradas.add(coluna);
+            }
+        }
+        String sql = sql(alteradas);
+        return JdbcTemplate.updateVersioned(connection, tabela, colunaId, id, versaoEsperada, sql, stmt -> {
+            int i = 1;
+            for (Coluna coluna : alteradas) {
+                definir(stmt, i++, coluna, valores[coluna.indice]);
+            }
+            stmt.setLong(i++, id);
+            JdbcTemplate.setVersao(stmt, i, versaoEsperada);
+        });
+    }
+
+    private String sql(List<Coluna> alteradas) {
+        StringBuilder chave = new StringBuilder(tabela);
+        for (Coluna coluna : alteradas) {
+            chave.append(',').append(coluna.indice);
+        }
+        synchronized (FORMATOS) {
+            return FORMATOS.computeIfAbsent(chave.toString(), k -> {
+                StringBuilder sql = new StringBuilder("UPDATE ").append(tabela).append(" SET ");
+                for (Coluna coluna : alteradas) {
+                    sql.append(coluna.nome).append(" = ?, ");
+                }
+                return sql.append("nr_versao = nr_versao + 1 WHERE ").append(colunaId)
+                        .append(" = ? AND nr_versao = NVL(?, nr_versao)").toString();
+            });
+        }
+    }
+
+    private static void definir(PreparedStatement stmt, int index, Coluna coluna, Object valor) throws SQLException {
+        if (valor == null) {
+            stmt.setNull(index, coluna.tipoSql);
+        } else if (valor instanceof Timestamp) {
+            stmt.setTimestamp(index, (Timestamp) valor);
+        } else if (valor instanceof Date) {
+            stmt.setDate(index, new java.sql.Date(((Date) valor).getTime()));
+        } else if (valor instanceof Character) {
+            stmt.setString(index, valor.toString());
+        } else {
+            stmt.setObject(index, valor, coluna.tipoSql);
+        }
+    }
+
+    /**
+     * Coluna alterável: posição na declaração, nome no banco, tipo do campo no DTO e se aceita {@code NULL}.
+     */
+    private static final class Coluna {
+
+        private final int indice;
+        private final String nome;
+        private final Class<?> tipo;
+        private final int tipoSql;
+        private boolean obrigatoria;
+
+        private Coluna(int indice, String nome, Class<?> tipo, int tipoSql) {
+            this.indice = indice;
+            this.nome = nome;
+            this.tipo = tipo;
+            this.tipoSql = tipoSql;
+        }
+    }
+}
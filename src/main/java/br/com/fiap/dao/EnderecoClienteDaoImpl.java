@@ -1,14 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.EnderecoDao;
 import br.com.fiap.exceptions.EnderecoNotFoundException;
 import br.com.fiap.exceptions.EnderecoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Endereco;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +25,16 @@ class EnderecoClienteDaoImpl implements EnderecoDao<Endereco, Long> {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do EnderecoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_ENDERECO_CLIENTE", "id_endereco_cliente")
+            .texto("logradouro", "ds_logradouro").obrigatoria()
+            .inteiro("numero", "nr_numero").obrigatoria()
+            .texto("cep", "nr_cep").obrigatoria()
+            .texto("bairro", "nm_bairro").obrigatoria()
+            .texto("cidade", "nm_cidade").obrigatoria()
+            .texto("uf", "sg_uf").obrigatoria()
+            .inteiro("idReferencia", "id_cliente").obrigatoria();
+
     /**
      * Busca todas as instâncias de EnderecoCliente no banco de dados.
      *
@@ -26,30 +42,97 @@ class EnderecoClienteDaoImpl implements EnderecoDao<Endereco, Long> {
      */
     @Override
     public List<Endereco> findAll() {
-        final List<Endereco> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_ENDERECO_CLIENTE";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Endereco.
-            while (rs.next()) {
-                Endereco endereco = new Endereco(
-                        rs.getLong("id_endereco_cliente"),
-                        rs.getString("ds_logradouro"),
-                        rs.getInt("nr_numero"),
-                        rs.getString("nr_cep"),
-                        rs.getString("nm_bairro"),
-                        rs.getString("nm_cidade"),
-                        rs.getString("sg_uf"),
-                        rs.getInt("id_cliente")
-                );
-                all.add(endereco);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar endereços: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de endereços de clientes com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Endereco} da página.
+     */
+    @Override
+    public List<Endereco> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_endereco_cliente > ? ORDER BY id_endereco_cliente FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de endereços: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um EnderecoCliente pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do EnderecoCliente.
+     * @return O {@link Endereco} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Endereco> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_endereco_cliente = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Endereco} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Endereco> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_endereco_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os endereços de um cliente pelo índice de {@code id_cliente}.
+     *
+     * @param clienteId O ID do cliente.
+     * @return As instâncias de {@link Endereco} encontradas, em ordem crescente de ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Endereco> findByReferenciaId(Long clienteId) throws SQLException {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_cliente = ? ORDER BY id_endereco_cliente";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, clienteId), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os endereços de vários clientes, em lotes de {@code IN} sobre o índice de {@code id_cliente}.
+     *
+     * @param clienteIds Os IDs dos clientes.
+     * @return As instâncias de {@link Endereco} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Endereco> findByReferenciaIds(Collection<Long> clienteIds) throws SQLException {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, clienteIds, this::mapRow);
         }
-        return all;
     }
 
     /**
@@ -63,9 +146,7 @@ class EnderecoClienteDaoImpl implements EnderecoDao<Endereco, Long> {
     @Override
     public void deleteById(Long id, Connection connection) throws EnderecoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_ENDERECO_CLIENTE WHERE id_endereco_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Endereço não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -84,26 +165,24 @@ class EnderecoClienteDaoImpl implements EnderecoDao<Endereco, Long> {
      */
     @Override
     public Endereco save(Endereco endereco, Connection connection) throws SQLException, EnderecoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_ENDERECO_CLIENTE(ds_logradouro, nr_numero, nr_cep, nm_bairro, nm_cidade, sg_uf, id_cliente) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id_endereco_cliente INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, endereco.getLogradouro());
-        call.setInt(2, endereco.getNumero());
-        call.setString(3, endereco.getCep());
-        call.setString(4, endereco.getBairro());
-        call.setString(5, endereco.getCidade());
-        call.setString(6, endereco.getUf());
-        call.setInt(7, endereco.getIdReferencia());
-        call.registerOutParameter(8, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(8);
+        final String sql = "INSERT INTO T_ENDERECO_CLIENTE(ds_logradouro, nr_numero, nr_cep, nm_bairro, nm_cidade, sg_uf, id_cliente) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_endereco_cliente", stmt -> {
+            stmt.setString(1, endereco.getLogradouro());
+            stmt.setInt(2, endereco.getNumero());
+            stmt.setString(3, endereco.getCep());
+            stmt.setString(4, endereco.getBairro());
+            stmt.setString(5, endereco.getCidade());
+            stmt.setString(6, endereco.getUf());
+            stmt.setInt(7, endereco.getIdReferencia());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new EnderecoNotSavedException("Erro ao salvar o endereço: verifique os dados fornecidos ou tente novamente.");
         }
 
         endereco.setIdEndereco(id);
+        endereco.setVersao(0L);
         return endereco;
     }
 
@@ -114,27 +193,71 @@ class EnderecoClienteDaoImpl implements EnderecoDao<Endereco, Long> {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Endereco} atualizada.
      * @throws EnderecoNotFoundException Se o EnderecoCliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Endereco update(Endereco endereco, Connection connection) throws EnderecoNotFoundException, SQLException {
-        final String sql = "UPDATE T_ENDERECO_CLIENTE SET ds_logradouro = ?, nr_numero = ?, nr_cep = ?, nm_bairro = ?, nm_cidade = ?, sg_uf = ?, id_cliente = ? WHERE id_endereco_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, endereco.getLogradouro());
-        stmt.setInt(2, endereco.getNumero());
-        stmt.setString(3, endereco.getCep());
-        stmt.setString(4, endereco.getBairro());
-        stmt.setString(5, endereco.getCidade());
-        stmt.setString(6, endereco.getUf());
-        stmt.setInt(7, endereco.getIdReferencia());
-        stmt.setLong(8, endereco.getIdEndereco());
-
-        int linhasAlteradas = stmt.executeUpdate();
+        final String sql = "UPDATE T_ENDERECO_CLIENTE SET ds_logradouro = ?, nr_numero = ?, nr_cep = ?, nm_bairro = ?, nm_cidade = ?, sg_uf = ?, id_cliente = ?, nr_versao = nr_versao + 1 WHERE id_endereco_cliente = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_ENDERECO_CLIENTE", "id_endereco_cliente", endereco.getIdEndereco(), endereco.getVersao(), sql, stmt -> {
+            stmt.setString(1, endereco.getLogradouro());
+            stmt.setInt(2, endereco.getNumero());
+            stmt.setString(3, endereco.getCep());
+            stmt.setString(4, endereco.getBairro());
+            stmt.setString(5, endereco.getCidade());
+            stmt.setString(6, endereco.getUf());
+            stmt.setInt(7, endereco.getIdReferencia());
+            stmt.setLong(8, endereco.getIdEndereco());
+            JdbcTemplate.setVersao(stmt, 9, endereco.getVersao());
+        });
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Endereço não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new EnderecoNotFoundException("Endereço não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Endereço não foi encontrado.
+        endereco.setVersao(versao.orElseThrow(() -> new EnderecoNotFoundException("Endereço não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return endereco;
+    }
+
+    /**
+     * Altera apenas os campos informados de um EnderecoCliente existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do EnderecoCliente.
+     * @param campos Os campos alterados, com os nomes do {@code EnderecoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O EnderecoCliente com todos os campos, depois da alteração.
+     * @throws EnderecoNotFoundException Se o EnderecoCliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Endereco patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws EnderecoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_ENDERECO_CLIENTE WHERE id_endereco_cliente = ?";
+        Optional<Endereco> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o EnderecoCliente não foi encontrado.
+        return alterado.orElseThrow(() -> new EnderecoNotFoundException("Endereço não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Endereco.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Endereco mapRow(ResultSet rs) throws SQLException {
+        Endereco endereco = new Endereco(
+                rs.getLong("id_endereco_cliente"),
+                rs.getString("ds_logradouro"),
+                rs.getInt("nr_numero"),
+                rs.getString("nr_cep"),
+                rs.getString("nm_bairro"),
+                rs.getString("nm_cidade"),
+                rs.getString("sg_uf"),
+                rs.getInt("id_cliente")
+        );
+        endereco.setVersao(rs.getLong("nr_versao"));
         return endereco;
     }
 }
@@ -1,15 +1,22 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.FalhasDao;
 import br.com.fiap.exceptions.FalhasNotFoundException;
 import br.com.fiap.exceptions.FalhasNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Falhas;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade Falhas, gerenciando operações de CRUD.
@@ -19,6 +26,14 @@ class FalhasDaoImpl implements FalhasDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(FalhasDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do FalhasDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_FALHAS", "id_falha")
+            .texto("descricaoFalha", "ds_falha").obrigatoria()
+            .texto("descricaoSolucao", "ds_solucao")
+            .longo("idOrcamento", "id_orcamento").obrigatoria()
+            .longo("idVeiculo", "id_veiculo").obrigatoria()
+            .texto("gravidade", "st_gravidade").obrigatoria();
+
     /**
      * Busca todas as instâncias de Falhas no banco de dados.
      *
@@ -26,28 +41,79 @@ class FalhasDaoImpl implements FalhasDao {
      */
     @Override
     public List<Falhas> findAll() {
-        final List<Falhas> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_FALHAS";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Falhas.
-            while (rs.next()) {
-                Falhas falha = new Falhas(
-                        rs.getLong("id_falha"),
-                        rs.getString("ds_falha"),
-                        rs.getString("ds_solucao"),
-                        rs.getLong("id_orcamento"),
-                        rs.getLong("id_veiculo"),
-                        rs.getString("st_gravidade")
-                );
-                all.add(falha);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar falhas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de falhas com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Falhas} da página.
+     */
+    @Override
+    public List<Falhas> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_FALHAS WHERE id_falha > ? ORDER BY id_falha FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de falhas: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return all;
+    }
+
+    /**
+     * Busca uma Falha pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID da Falha.
+     * @return O {@link Falhas} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Falhas> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_FALHAS WHERE id_falha = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Falhas} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Falhas> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_FALHAS WHERE id_falha IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Percorre todas as falhas em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link Falhas}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<Falhas> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_FALHAS ORDER BY id_falha";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
     }
 
     /**
@@ -61,9 +127,7 @@ class FalhasDaoImpl implements FalhasDao {
     @Override
     public void deleteById(Long id, Connection connection) throws FalhasNotFoundException, SQLException {
         final String sql = "DELETE FROM T_FALHAS WHERE id_falha = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Falha não foi encontrada.
         if (linhasAlteradas == 0) {
@@ -82,27 +146,56 @@ class FalhasDaoImpl implements FalhasDao {
      */
     @Override
     public Falhas save(Falhas falha, Connection connection) throws SQLException, FalhasNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_FALHAS(ds_falha, ds_solucao, id_orcamento, id_veiculo, st_gravidade) VALUES(?, ?, ?, ?, ?) RETURNING id_falha INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, falha.getDescricaoFalha());
-        call.setString(2, falha.getDescricaoSolucao());
-        call.setLong(3, falha.getIdOrcamento());
-        call.setLong(4, falha.getIdVeiculo());
-        call.setString(5, falha.getGravidade());
-        call.registerOutParameter(6, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(6);
+        final String sql = "INSERT INTO T_FALHAS(ds_falha, ds_solucao, id_orcamento, id_veiculo, st_gravidade) VALUES(?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_falha", stmt -> {
+            stmt.setString(1, falha.getDescricaoFalha());
+            stmt.setString(2, falha.getDescricaoSolucao());
+            stmt.setLong(3, falha.getIdOrcamento());
+            stmt.setLong(4, falha.getIdVeiculo());
+            stmt.setString(5, falha.getGravidade());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new FalhasNotSavedException("Erro ao salvar a Falha: verifique os dados fornecidos ou tente novamente.");
         }
 
         falha.setIdFalha(id);
+        falha.setVersao(0L);
         return falha;
     }
 
+    /**
+     * Salva vários registros de falhas em lote, com uma única ida ao banco.
+     *
+     * @param falhas As instâncias a serem salvas, sem ID.
+     * @param connection A conexão com o banco de dados a ser utilizada para a operação.
+     * @return As mesmas instâncias, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws FalhasNotSavedException Se o banco não retornar o ID de algum registro.
+     */
+    @Override
+    public List<Falhas> saveAll(List<Falhas> falhas, Connection connection) throws SQLException, FalhasNotSavedException {
+        final String sql = "INSERT INTO T_FALHAS(ds_falha, ds_solucao, id_orcamento, id_veiculo, st_gravidade) VALUES(?, ?, ?, ?, ?)";
+        long[] ids = JdbcTemplate.insertBatchReturningIds(connection, sql, "id_falha", falhas, (stmt, item) -> {
+            stmt.setString(1, item.getDescricaoFalha());
+            stmt.setString(2, item.getDescricaoSolucao());
+            stmt.setLong(3, item.getIdOrcamento());
+            stmt.setLong(4, item.getIdVeiculo());
+            stmt.setString(5, item.getGravidade());
+        });
+
+        // Verifica se todos os registros receberam ID. Se não, lança exceção para reverter a transação inteira.
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == 0) {
+                throw new FalhasNotSavedException("Erro ao salvar as falhas: o banco não retornou o ID de todas as linhas.");
+            }
+            falhas.get(i).setIdFalha(ids[i]);
+            falhas.get(i).setVersao(0L);
+        }
+        return falhas;
+    }
+
     /**
      * Atualiza uma Falha existente no banco de dados.
      *
@@ -110,25 +203,67 @@ class FalhasDaoImpl implements FalhasDao {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Falhas} atualizada.
      * @throws FalhasNotFoundException Se a Falha com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Falhas update(Falhas falha, Connection connection) throws FalhasNotFoundException, SQLException {
-        final String sql = "UPDATE T_FALHAS SET ds_falha = ?, ds_solucao = ?, id_orcamento = ?, id_veiculo = ?, st_gravidade = ? WHERE id_falha = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, falha.getDescricaoFalha());
-        stmt.setString(2, falha.getDescricaoSolucao());
-        stmt.setLong(3, falha.getIdOrcamento());
-        stmt.setLong(4, falha.getIdVeiculo());
-        stmt.setString(5, falha.getGravidade());
-        stmt.setLong(6, falha.getIdFalha());
+        final String sql = "UPDATE T_FALHAS SET ds_falha = ?, ds_solucao = ?, id_orcamento = ?, id_veiculo = ?, st_gravidade = ?, nr_versao = nr_versao + 1 WHERE id_falha = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_FALHAS", "id_falha", falha.getIdFalha(), falha.getVersao(), sql, stmt -> {
+            stmt.setString(1, falha.getDescricaoFalha());
+            stmt.setString(2, falha.getDescricaoSolucao());
+            stmt.setLong(3, falha.getIdOrcamento());
+            stmt.setLong(4, falha.getIdVeiculo());
+            stmt.setString(5, falha.getGravidade());
+            stmt.setLong(6, falha.getIdFalha());
+            JdbcTemplate.setVersao(stmt, 7, falha.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Falha não foi encontrada.
+        falha.setVersao(versao.orElseThrow(() -> new FalhasNotFoundException("Falha não encontrada: verifique o ID fornecido ou se o registro existe.")));
+        return falha;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Falha não foi encontrada.
-        if (linhasAlteradas == 0) {
-            throw new FalhasNotFoundException("Falha não encontrada: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de uma Falha existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID da Falha.
+     * @param campos Os campos alterados, com os nomes do {@code FalhasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A Falha com todos os campos, depois da alteração.
+     * @throws FalhasNotFoundException Se a Falha com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Falhas patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws FalhasNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_FALHAS WHERE id_falha = ?";
+        Optional<Falhas> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Falha não foi encontrada.
+        return alterado.orElseThrow(() -> new FalhasNotFoundException("Falha não encontrada: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Falhas.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Falhas mapRow(ResultSet rs) throws SQLException {
+        Falhas falha = new Falhas(
+                rs.getLong("id_falha"),
+                rs.getString("ds_falha"),
+                rs.getString("ds_solucao"),
+                rs.getLong("id_orcamento"),
+                rs.getLong("id_veiculo"),
+                rs.getString("st_gravidade")
+        );
+        falha.setVersao(rs.getLong("nr_versao"));
         return falha;
     }
 }
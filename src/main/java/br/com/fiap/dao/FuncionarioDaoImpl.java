@@ -1,16 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.FuncionarioDao;
 import br.com.fiap.exceptions.FuncionarioNotFoundException;
 import br.com.fiap.exceptions.FuncionarioNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Funcionario;
 
-import oracle.jdbc.OracleType;
-
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -21,6 +25,14 @@ class FuncionarioDaoImpl implements FuncionarioDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do FuncionarioDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_FUNCIONARIO", "id_funcionario")
+            .texto("cpf", "nr_cpf").obrigatoria()
+            .texto("nome", "nm_funcionario").obrigatoria()
+            .caractere("sexo", "sx_sexo").obrigatoria()
+            .texto("funcao", "ds_funcao").obrigatoria()
+            .inteiro("idOficina", "id_oficina").obrigatoria();
+
     /**
      * Busca todas as instâncias de Funcionario no banco de dados.
      *
@@ -28,28 +40,82 @@ class FuncionarioDaoImpl implements FuncionarioDao {
      */
     @Override
     public List<Funcionario> findAll() {
-        final List<Funcionario> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_FUNCIONARIO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Funcionario.
-            while (rs.next()) {
-                Funcionario funcionario = new Funcionario(
-                        rs.getLong("id_funcionario"),
-                        rs.getString("nr_cpf"),
-                        rs.getString("nm_funcionario"),
-                        rs.getString("sx_sexo").charAt(0),
-                        rs.getString("ds_funcao"),
-                        rs.getInt("id_oficina")
-                );
-                all.add(funcionario);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar funcionários: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de funcionários com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Funcionario} da página.
+     */
+    @Override
+    public List<Funcionario> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_FUNCIONARIO WHERE id_funcionario > ? ORDER BY id_funcionario FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de funcionários: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Funcionario pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Funcionario.
+     * @return O {@link Funcionario} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Funcionario> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_FUNCIONARIO WHERE id_funcionario = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Funcionario} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Funcionario> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_FUNCIONARIO WHERE id_funcionario IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os funcionários de uma oficina pelo índice de {@code id_oficina}.
+     *
+     * @param oficinaId O ID da oficina.
+     * @return As instâncias de {@link Funcionario} encontradas, em ordem crescente de ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Funcionario> findByOficinaId(Long oficinaId) throws SQLException {
+        final String sql = "SELECT * FROM T_FUNCIONARIO WHERE id_oficina = ? ORDER BY id_funcionario";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, oficinaId), this::mapRow);
         }
-        return all;
     }
 
     /**
@@ -63,9 +129,7 @@ class FuncionarioDaoImpl implements FuncionarioDao {
     @Override
     public void deleteById(Long id, Connection connection) throws FuncionarioNotFoundException, SQLException {
         final String sql = "DELETE FROM T_FUNCIONARIO WHERE id_funcionario = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Funcionario não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -84,24 +148,22 @@ class FuncionarioDaoImpl implements FuncionarioDao {
      */
     @Override
     public Funcionario save(Funcionario funcionario, Connection connection) throws SQLException, FuncionarioNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_FUNCIONARIO(nr_cpf, nm_funcionario, sx_sexo, ds_funcao, id_oficina) VALUES (?, ?, ?, ?, ?) RETURNING id_funcionario INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, funcionario.getCpf());
-        call.setString(2, funcionario.getNome());
-        call.setString(3, String.valueOf(funcionario.getSexo()));
-        call.setString(4, funcionario.getFuncao());
-        call.setInt(5, funcionario.getIdOficina());
-        call.registerOutParameter(6, OracleType.NUMBER);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(6);
+        final String sql = "INSERT INTO T_FUNCIONARIO(nr_cpf, nm_funcionario, sx_sexo, ds_funcao, id_oficina) VALUES (?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_funcionario", stmt -> {
+            stmt.setString(1, funcionario.getCpf());
+            stmt.setString(2, funcionario.getNome());
+            stmt.setString(3, String.valueOf(funcionario.getSexo()));
+            stmt.setString(4, funcionario.getFuncao());
+            stmt.setInt(5, funcionario.getIdOficina());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new FuncionarioNotSavedException();
         }
 
         funcionario.setIdFuncionario(id);
+        funcionario.setVersao(0L);
         return funcionario;
     }
 
@@ -112,26 +174,67 @@ class FuncionarioDaoImpl implements FuncionarioDao {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Funcionario} atualizada.
      * @throws FuncionarioNotFoundException Se o Funcionario com o ‘ID’ fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Funcionario update(Funcionario funcionario, Connection connection) throws FuncionarioNotFoundException, SQLException {
-        final String sql = "UPDATE T_FUNCIONARIO SET nr_cpf = ?, nm_funcionario = ?, sx_sexo = ?, ds_funcao = ?, id_oficina = ? WHERE id_funcionario = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, funcionario.getCpf());
-        stmt.setString(2, funcionario.getNome());
-        stmt.setString(3, String.valueOf(funcionario.getSexo()));
-        stmt.setString(4, funcionario.getFuncao());
-        stmt.setInt(5, funcionario.getIdOficina());
-        stmt.setLong(6, funcionario.getIdFuncionario());
+        final String sql = "UPDATE T_FUNCIONARIO SET nr_cpf = ?, nm_funcionario = ?, sx_sexo = ?, ds_funcao = ?, id_oficina = ?, nr_versao = nr_versao + 1 WHERE id_funcionario = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_FUNCIONARIO", "id_funcionario", funcionario.getIdFuncionario(), funcionario.getVersao(), sql, stmt -> {
+            stmt.setString(1, funcionario.getCpf());
+            stmt.setString(2, funcionario.getNome());
+            stmt.setString(3, String.valueOf(funcionario.getSexo()));
+            stmt.setString(4, funcionario.getFuncao());
+            stmt.setInt(5, funcionario.getIdOficina());
+            stmt.setLong(6, funcionario.getIdFuncionario());
+            JdbcTemplate.setVersao(stmt, 7, funcionario.getVersao());
+        });
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Funcionario não foi encontrado.
+        funcionario.setVersao(versao.orElseThrow(() -> new FuncionarioNotFoundException("Funcionário não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return funcionario;
+    }
 
-        int linhasAlteradas = stmt.executeUpdate();
+    /**
+     * Altera apenas os campos informados de um Funcionario existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Funcionario.
+     * @param campos Os campos alterados, com os nomes do {@code FuncionarioDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Funcionario com todos os campos, depois da alteração.
+     * @throws FuncionarioNotFoundException Se o Funcionario com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Funcionario patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws FuncionarioNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_FUNCIONARIO WHERE id_funcionario = ?";
+        Optional<Funcionario> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Funcionario não foi encontrado.
+        return alterado.orElseThrow(() -> new FuncionarioNotFoundException("Funcionário não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Funcionario não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new FuncionarioNotFoundException("Funcionário não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Funcionario.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Funcionario mapRow(ResultSet rs) throws SQLException {
+        Funcionario funcionario = new Funcionario(
+                rs.getLong("id_funcionario"),
+                rs.getString("nr_cpf"),
+                rs.getString("nm_funcionario"),
+                rs.getString("sx_sexo").charAt(0),
+                rs.getString("ds_funcao"),
+                rs.getInt("id_oficina")
+        );
+        funcionario.setVersao(rs.getLong("nr_versao"));
         return funcionario;
     }
-
 }
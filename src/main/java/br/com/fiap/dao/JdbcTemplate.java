@@ -0,0 +1,384 @@
+package br.com.fiap.dao;
+
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.exceptions.VersaoConflitanteException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Operações JDBC comuns aos DAOs.
+ *
+ * <p>Todo {@link PreparedStatement} e {@link ResultSet} aberto aqui é fechado
+ * ao final da chamada, inclusive em caso de erro. Com o cache implícito de statements do driver
+ * habilitado no pool, fechar o statement o devolve ao cache da sessão, e a próxima execução do mesmo
+ * SQL reaproveita o cursor já analisado pelo banco.</p>
+ */
+final class JdbcTemplate {
+
+    /**
+     * Binder para consultas sem parâmetros.
+     */
+    static final StatementBinder NO_PARAMS = stmt -> { };
+
+    /**
+     * Linhas trazidas do banco a cada ida e volta em {@link #stream}. Configurável via {@code -Ddb.streamFetchSize}.
+     */
+    static final int STREAM_FETCH_SIZE = Integer.getInteger("db.streamFetchSize", 500);
+
+    // Tamanhos possíveis de uma lista IN. Cada lote é completado até o tamanho seguinte repetindo o último ID,
+    // assim só existem estas poucas formas de SQL e todas ficam no cache de statements. O último é o limite do Oracle.
+    private static final int[] IN_LIST_SIZES = {1, 8, 32, 128, 512, 1000};
+
+    private JdbcTemplate() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Executa uma consulta e converte cada linha do resultado.
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sql O SQL da consulta.
+     * @param binder Define os parâmetros do statement.
+     * @param mapper Converte a linha atual do resultado.
+     * @return As linhas convertidas, na ordem retornada pelo banco.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static <T> List<T> query(Connection connection, String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                final List<T> rows = new ArrayList<>();
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Busca as linhas cujos IDs estão na coleção informada, em lotes de {@code IN (...)}.
+     *
+     * <p>IDs repetidos são consultados uma única vez. Até 1000 IDs são resolvidos em uma única ida ao banco.</p>
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sqlPrefix O SQL até a palavra {@code IN}, por exemplo {@code "SELECT * FROM T_CLIENTE WHERE id_cliente IN "}.
+     * @param ids Os IDs a buscar.
+     * @param mapper Converte a linha atual do resultado.
+     * @return As linhas encontradas; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static <T> List<T> queryByIds(Connection connection, String sqlPrefix, Collection<Long> ids, RowMapper<T> mapper) throws SQLException {
+        final List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final int maxChunk = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+        final List<T> rows = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxChunk) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + maxChunk, distinct.size()));
+            int size = inListSize(chunk.size());
+            String sql = sqlPrefix + "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+            rows.addAll(query(connection, sql, stmt -> {
+                for (int i = 0; i < size; i++) {
+                    stmt.setLong(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+            }, mapper));
+        }
+        return rows;
+    }
+
+    /**
+     * Executa uma consulta que retorna no máximo uma linha, como a busca pela chave primária.
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sql O SQL da consulta.
+     * @param binder Define os parâmetros do statement.
+     * @param mapper Converte a linha do resultado.
+     * @return A linha convertida, ou vazio se a consulta não retornar linhas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static <T> Optional<T> queryForOptional(Connection connection, String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? Optional.of(mapper.map(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Executa uma consulta e devolve as linhas sob demanda, sem carregá-las todas em memória.
+     *
+     * <p>O cursor é lido em lotes de {@link #STREAM_FETCH_SIZE} linhas conforme o {@link Stream} é
+     * consumido. Fechar o {@link Stream} fecha o resultado, o statement e devolve o empréstimo ao pool;
+     * se a abertura falhar, o empréstimo é devolvido antes de lançar a exceção. Erros de leitura durante
+     * o consumo são lançados como {@link UncheckedSQLException}.</p>
+     *
+     * @param lease O empréstimo de conexão, que passa a pertencer ao {@link Stream} devolvido.
+     * @param sql O SQL da consulta.
+     * @param binder Define os parâmetros do statement.
+     * @param mapper Converte a linha atual do resultado.
+     * @return As linhas convertidas, a ser fechado pelo chamador.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    static <T> Stream<T> stream(ConnectionLease lease, String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = lease.get().prepareStatement(sql);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(rs, stmt, lease);
+            throw e;
+        }
+
+        final ResultSet cursor = rs;
+        final PreparedStatement statement = stmt;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(cursor, statement, lease));
+    }
+
+    /**
+     * Executa um INSERT, UPDATE ou DELETE.
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sql O SQL do comando.
+     * @param binder Define os parâmetros do statement.
+     * @return O número de linhas alteradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static int update(Connection connection, String sql, StatementBinder binder) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            binder.bind(stmt);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Executa um UPDATE com controle de concorrência otimista sobre a coluna {@code nr_versao}.
+     *
+     * <p>O SQL deve incrementar a versão e terminar com {@code WHERE <colunaId> = ? AND nr_versao = NVL(?, nr_versao)},
+     * com a versão esperada ligada por {@link #setVersao}; sem versão esperada, qualquer versão é atualizada.
+     * A verificação e a escrita acontecem na mesma instrução, sem {@code SELECT ... FOR UPDATE}. A versão atual só é
+     * consultada quando nenhuma linha é alterada ou quando não havia versão esperada.</p>
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param tabela A tabela atualizada.
+     * @param colunaId A coluna da chave primária.
+     * @param id O ID do registro.
+     * @param versaoEsperada A versão lida pelo cliente, ou {@code null} para não verificar.
+     * @param sql O SQL do comando.
+     * @param binder Define os parâmetros do statement, inclusive o ID e a versão esperada.
+     * @return A nova versão do registro, ou vazio se o registro não existir.
+     * @throws VersaoConflitanteException Se o registro existir com outra versão.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static OptionalLong updateVersioned(Connection connection, String tabela, String colunaId, long id, Long versaoEsperada,
+                                        String sql, StatementBinder binder) throws SQLException {
+        int linhasAlteradas = update(connection, sql, binder);
+        if (linhasAlteradas > 0 && versaoEsperada != null) {
+            return OptionalLong.of(versaoEsperada + 1);
+        }
+        // Sem linha alterada, o registro não existe ou está em outra versão; com linha alterada, a versão é lida.
+        return checkVersion(connection, tabela, colunaId, id, linhasAlteradas == 0 ? versaoEsperada : null);
+    }
+
+    /**
+     * Lê a versão atual de um registro e a compara com a versão esperada, sem alterá-lo.
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param tabela A tabela do registro.
+     * @param colunaId A coluna da chave primária.
+     * @param id O ID do registro.
+     * @param versaoEsperada A versão lida pelo cliente, ou {@code null} para não verificar.
+     * @return A versão atual do registro, ou vazio se o registro não existir.
+     * @throws VersaoConflitanteException Se o registro existir com outra versão.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static OptionalLong checkVersion(Connection connection, String tabela, String colunaId, long id, Long versaoEsperada) throws SQLException {
+        final String sql = "SELECT nr_versao FROM " + tabela + " WHERE " + colunaId + " = ?";
+        Optional<Long> atual = queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), rs -> rs.getLong(1));
+        if (atual.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        if (versaoEsperada != null && !versaoEsperada.equals(atual.get())) {
+            throw new VersaoConflitanteException("O registro " + id + " foi alterado por outra requisição: versão esperada "
+                    + versaoEsperada + ", versão atual " + atual.get());
+        }
+        return OptionalLong.of(atual.get());
+    }
+
+    /**
+     * Define o parâmetro da versão esperada de um UPDATE feito por {@link #updateVersioned}.
+     *
+     * @param stmt O statement.
+     * @param index A posição do parâmetro.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @throws SQLException Se ocorrer um erro ao definir o parâmetro.
+     */
+    static void setVersao(PreparedStatement stmt, int index, Long versao) throws SQLException {
+        if (versao == null) {
+            stmt.setNull(index, Types.NUMERIC);
+        } else {
+            stmt.setLong(index, versao);
+        }
+    }
+
+    /**
+     * Insere vários itens com um único {@code executeBatch} e lê os IDs gerados pelo banco.
+     *
+     * <p>Todo o lote vai ao banco em uma ida, em vez de uma execução por item.</p>
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sql O INSERT com um parâmetro por coluna.
+     * @param idColumn A coluna identity cujo valor gerado deve ser retornado.
+     * @param items Os itens a inserir.
+     * @param binder Define os parâmetros de cada item.
+     * @return Os IDs gerados, na ordem dos itens; {@code 0} nas posições para as quais o driver não devolveu ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static <T> long[] insertBatchReturningIds(Connection connection, String sql, String idColumn, List<T> items, BatchBinder<T> binder) throws SQLException {
+        final long[] ids = new long[items.size()];
+        if (items.isEmpty()) {
+            return ids;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(sql, new String[]{idColumn})) {
+            for (T item : items) {
+                binder.bind(stmt, item);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (int i = 0; i < ids.length && keys.next(); i++) {
+                    ids[i] = keys.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Executa um INSERT e retorna o valor gerado pelo banco para a coluna identity.
+     *
+     * <p>Usa um {@link PreparedStatement} comum com {@code getGeneratedKeys()}, sem bloco PL/SQL, então
+     * o mesmo SQL pode ser reaproveitado pelo cache de statements e enviado em lote.</p>
+     *
+     * @param connection A conexão a ser utilizada.
+     * @param sql O INSERT com um parâmetro por coluna.
+     * @param idColumn A coluna identity cujo valor gerado deve ser retornado.
+     * @param binder Define os parâmetros do statement.
+     * @return O ID gerado, ou {@code 0} se nenhuma linha foi inserida.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    static long insertReturningId(Connection connection, String sql, String idColumn, StatementBinder binder) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql, new String[]{idColumn})) {
+            binder.bind(stmt);
+            if (stmt.executeUpdate() == 0) {
+                return 0;
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Menor tamanho de lista IN que comporta a quantidade de IDs.
+    private static int inListSize(int count) {
+        for (int size : IN_LIST_SIZES) {
+            if (count <= size) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Lote maior que o limite de uma lista IN: " + count);
+    }
+
+    // Fecha os recursos de um stream na ordem inversa da abertura, sem interromper em caso de erro.
+    private static void closeQuietly(ResultSet rs, PreparedStatement stmt, ConnectionLease lease) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException ignored) {
+            // O statement e o empréstimo ainda precisam ser fechados.
+        }
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException ignored) {
+            // O empréstimo ainda precisa ser devolvido.
+        }
+        lease.close();
+    }
+
+    /**
+     * Erro de acesso ao banco ocorrido durante o consumo de um {@link Stream} devolvido por {@link #stream}.
+     */
+    static final class UncheckedSQLException extends RuntimeException {
+
+        UncheckedSQLException(SQLException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Define os parâmetros de um statement para um item de um lote.
+     */
+    @FunctionalInterface
+    interface BatchBinder<T> {
+
+        void bind(PreparedStatement stmt, T item) throws SQLException;
+    }
+
+    /**
+     * Define os parâmetros de um statement antes da execução.
+     */
+    @FunctionalInterface
+    interface StatementBinder {
+
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Converte a linha atual de um {@link ResultSet} em um objeto.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+
+        T map(ResultSet rs) throws SQLException;
+    }
+}
@@ -1,14 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.OficinaDao;
 import br.com.fiap.exceptions.OficinaNotFoundException;
 import br.com.fiap.exceptions.OficinaNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Oficina;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +25,12 @@ class OficinaDaoImpl implements OficinaDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do OficinaDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_OFICINA", "id_oficina")
+            .texto("cnpj", "nr_cnpj").obrigatoria()
+            .texto("nome", "nm_oficina").obrigatoria()
+            .texto("email", "ds_email").obrigatoria();
+
     /**
      * Busca todas as instâncias de Oficina no banco de dados.
      *
@@ -26,26 +38,67 @@ class OficinaDaoImpl implements OficinaDao {
      */
     @Override
     public List<Oficina> findAll() {
-        final List<Oficina> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_OFICINA";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Oficina.
-            while (rs.next()) {
-                Oficina oficina = new Oficina(
-                        rs.getLong("id_oficina"),
-                        rs.getString("nr_cnpj"),
-                        rs.getString("nm_oficina"),
-                        rs.getString("ds_email")
-                );
-                all.add(oficina);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar oficinas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de oficinas com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Oficina} da página.
+     */
+    @Override
+    public List<Oficina> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_OFICINA WHERE id_oficina > ? ORDER BY id_oficina FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de oficinas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma Oficina pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID da Oficina.
+     * @return O {@link Oficina} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Oficina> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_OFICINA WHERE id_oficina = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Oficina} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Oficina> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_OFICINA WHERE id_oficina IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
         }
-        return all;
     }
 
     /**
@@ -59,9 +112,7 @@ class OficinaDaoImpl implements OficinaDao {
     @Override
     public void deleteById(Long id, Connection connection) throws OficinaNotFoundException, SQLException {
         final String sql = "DELETE FROM T_OFICINA WHERE id_oficina = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Oficina não foi encontrada.
         if (linhasAlteradas == 0) {
@@ -80,22 +131,20 @@ class OficinaDaoImpl implements OficinaDao {
      */
     @Override
     public Oficina save(Oficina oficina, Connection connection) throws SQLException, OficinaNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_OFICINA (nr_cnpj, nm_oficina, ds_email) VALUES (?, ?, ?) RETURNING id_oficina INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, oficina.getCnpj());
-        call.setString(2, oficina.getNome());
-        call.setString(3, oficina.getEmail());
-        call.registerOutParameter(4, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(4);
+        final String sql = "INSERT INTO T_OFICINA (nr_cnpj, nm_oficina, ds_email) VALUES (?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_oficina", stmt -> {
+            stmt.setString(1, oficina.getCnpj());
+            stmt.setString(2, oficina.getNome());
+            stmt.setString(3, oficina.getEmail());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new OficinaNotSavedException("Erro ao salvar a oficina: verifique os dados fornecidos ou tente novamente.");
         }
 
         oficina.setIdOficina(id);
+        oficina.setVersao(0L);
         return oficina;
     }
 
@@ -106,23 +155,63 @@ class OficinaDaoImpl implements OficinaDao {
      * @param connection A conexão com o banco de dados.
      * @return A instância de {@link Oficina} atualizada.
      * @throws OficinaNotFoundException Se a Oficina com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Oficina update(Oficina oficina, Connection connection) throws OficinaNotFoundException, SQLException {
-        final String sql = "UPDATE T_OFICINA SET nr_cnpj = ?, nm_oficina = ?, ds_email = ? WHERE id_oficina = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, oficina.getCnpj());
-        stmt.setString(2, oficina.getNome());
-        stmt.setString(3, oficina.getEmail());
-        stmt.setLong(4, oficina.getIdOficina());
+        final String sql = "UPDATE T_OFICINA SET nr_cnpj = ?, nm_oficina = ?, ds_email = ?, nr_versao = nr_versao + 1 WHERE id_oficina = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_OFICINA", "id_oficina", oficina.getIdOficina(), oficina.getVersao(), sql, stmt -> {
+            stmt.setString(1, oficina.getCnpj());
+            stmt.setString(2, oficina.getNome());
+            stmt.setString(3, oficina.getEmail());
+            stmt.setLong(4, oficina.getIdOficina());
+            JdbcTemplate.setVersao(stmt, 5, oficina.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Oficina não foi encontrada.
+        oficina.setVersao(versao.orElseThrow(() -> new OficinaNotFoundException("Oficina não encontrada: verifique o ID fornecido ou se o registro existe.")));
+        return oficina;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Oficina não foi encontrada.
-        if (linhasAlteradas == 0) {
-            throw new OficinaNotFoundException("Oficina não encontrada: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de uma Oficina existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID da Oficina.
+     * @param campos Os campos alterados, com os nomes do {@code OficinaDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A Oficina com todos os campos, depois da alteração.
+     * @throws OficinaNotFoundException Se a Oficina com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Oficina patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OficinaNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_OFICINA WHERE id_oficina = ?";
+        Optional<Oficina> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Oficina não foi encontrada.
+        return alterado.orElseThrow(() -> new OficinaNotFoundException("Oficina não encontrada: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Oficina.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Oficina mapRow(ResultSet rs) throws SQLException {
+        Oficina oficina = new Oficina(
+                rs.getLong("id_oficina"),
+                rs.getString("nr_cnpj"),
+                rs.getString("nm_oficina"),
+                rs.getString("ds_email")
+        );
+        oficina.setVersao(rs.getLong("nr_versao"));
         return oficina;
     }
 }
@@ -1,14 +1,22 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.OrcamentoDao;
+import br.com.fiap.dtos.TotalServicoDto;
 import br.com.fiap.exceptions.OrcamentoNotFoundException;
 import br.com.fiap.exceptions.OrcamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Orcamento;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +27,15 @@ class OrcamentoDaoImpl implements OrcamentoDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(OrcamentoDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do OrcamentoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_ORCAMENTO", "id_orcamento")
+            .decimal("valorOrcamento", "vl_orcamento").obrigatoria()
+            .texto("situacao", "st_situacao").obrigatoria()
+            .inteiro("idVeiculo", "id_veiculo").obrigatoria()
+            .inteiro("idOficina", "id_oficina").obrigatoria()
+            .inteiro("idServico", "id_servico")
+            .inteiro("idPeca", "id_peca");
+
     /**
      * Busca todas as instâncias de Orcamento no banco de dados.
      *
@@ -26,29 +43,111 @@ class OrcamentoDaoImpl implements OrcamentoDao {
      */
     @Override
     public List<Orcamento> findAll() {
-        final List<Orcamento> orcamentos = new ArrayList<>();
         final String sql = "SELECT * FROM T_ORCAMENTO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Orcamento.
-            while (rs.next()) {
-                Orcamento orcamento = new Orcamento(
-                        rs.getLong("id_orcamento"),
-                        rs.getDouble("vl_orcamento"),
-                        rs.getString("st_situacao"),
-                        rs.getInt("id_veiculo"),
-                        rs.getInt("id_oficina"),
-                        rs.getInt("id_servico"),
-                        rs.getInt("id_peca")
-                );
-                orcamentos.add(orcamento);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar orçamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de orçamentos com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Orcamento} da página.
+     */
+    @Override
+    public List<Orcamento> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_ORCAMENTO WHERE id_orcamento > ? ORDER BY id_orcamento FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de orçamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Orcamento pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Orcamento.
+     * @return O {@link Orcamento} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Orcamento> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_ORCAMENTO WHERE id_orcamento = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Orcamento} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Orcamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_ORCAMENTO WHERE id_orcamento IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Calcula os subtotais por serviço com uma única consulta agregada sobre T_SERVICOS e T_PECAS.
+     *
+     * <p>A junção parte de T_ORCAMENTO para distinguir um orçamento sem serviços (uma linha com serviço nulo)
+     * de um orçamento inexistente (nenhuma linha). Os valores são lidos como {@link java.math.BigDecimal}.</p>
+     *
+     * @param idOrcamento O ID do orçamento.
+     * @return Os subtotais por serviço, ou vazio se o orçamento não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<List<TotalServicoDto>> findTotaisPorServico(Long idOrcamento) throws SQLException {
+        final String sql = "SELECT s.id_servico, s.st_tipo_servico, s.ds_servico, s.vl_custo,"
+                + " NVL(SUM(p.qt_quantidade), 0) AS qt_pecas, NVL(SUM(p.qt_quantidade * p.vl_valor), 0) AS vl_pecas"
+                + " FROM T_ORCAMENTO o"
+                + " LEFT JOIN T_SERVICOS s ON s.id_orcamento = o.id_orcamento"
+                + " LEFT JOIN T_PECAS p ON p.id_servico = s.id_servico AND p.id_orcamento = o.id_orcamento"
+                + " WHERE o.id_orcamento = ?"
+                + " GROUP BY s.id_servico, s.st_tipo_servico, s.ds_servico, s.vl_custo"
+                + " ORDER BY s.id_servico";
+        final List<TotalServicoDto> rows;
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            rows = JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, idOrcamento), rs -> {
+                long idServico = rs.getLong("id_servico");
+                if (rs.wasNull()) {
+                    return null;
+                }
+                return new TotalServicoDto(
+                        idServico,
+                        rs.getString("st_tipo_servico"),
+                        rs.getString("ds_servico"),
+                        rs.getBigDecimal("vl_custo"),
+                        rs.getLong("qt_pecas"),
+                        rs.getBigDecimal("vl_pecas")
+                );
+            });
         }
-        return orcamentos;
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        rows.removeIf(Objects::isNull);
+        return Optional.of(rows);
     }
 
     /**
@@ -62,9 +161,7 @@ class OrcamentoDaoImpl implements OrcamentoDao {
     @Override
     public void deleteById(Long id, Connection connection) throws OrcamentoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_ORCAMENTO WHERE id_orcamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Orçamento não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -83,25 +180,23 @@ class OrcamentoDaoImpl implements OrcamentoDao {
      */
     @Override
     public Orcamento save(Orcamento orcamento, Connection connection) throws SQLException, OrcamentoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_ORCAMENTO(vl_orcamento, st_situacao, id_veiculo, id_oficina, id_servico, id_peca) VALUES(?, ?, ?, ?, ?, ?) RETURNING id_orcamento INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setDouble(1, orcamento.getValorOrcamento());
-        call.setString(2, orcamento.getSituacao());
-        call.setInt(3, orcamento.getIdVeiculo());
-        call.setInt(4, orcamento.getIdOficina());
-        call.setInt(5, orcamento.getIdServico());
-        call.setInt(6, orcamento.getIdPeca());
-        call.registerOutParameter(7, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(7);
+        final String sql = "INSERT INTO T_ORCAMENTO(vl_orcamento, st_situacao, id_veiculo, id_oficina, id_servico, id_peca) VALUES(?, ?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_orcamento", stmt -> {
+            stmt.setDouble(1, orcamento.getValorOrcamento());
+            stmt.setString(2, orcamento.getSituacao());
+            stmt.setInt(3, orcamento.getIdVeiculo());
+            stmt.setInt(4, orcamento.getIdOficina());
+            stmt.setInt(5, orcamento.getIdServico());
+            stmt.setInt(6, orcamento.getIdPeca());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new OrcamentoNotSavedException("Erro ao salvar o orçamento: verifique os dados fornecidos ou tente novamente.");
         }
 
         orcamento.setIdOrcamento(id);
+        orcamento.setVersao(0L);
         return orcamento;
     }
 
@@ -112,26 +207,69 @@ class OrcamentoDaoImpl implements OrcamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Orcamento} atualizada.
      * @throws OrcamentoNotFoundException Se o Orcamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Orcamento update(Orcamento orcamento, Connection connection) throws OrcamentoNotFoundException, SQLException {
-        final String sql = "UPDATE T_ORCAMENTO SET vl_orcamento = ?, st_situacao = ?, id_veiculo = ?, id_oficina = ?, id_servico = ?, id_peca = ? WHERE id_orcamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setDouble(1, orcamento.getValorOrcamento());
-        stmt.setString(2, orcamento.getSituacao());
-        stmt.setInt(3, orcamento.getIdVeiculo());
-        stmt.setInt(4, orcamento.getIdOficina());
-        stmt.setInt(5, orcamento.getIdServico());
-        stmt.setInt(6, orcamento.getIdPeca());
-        stmt.setLong(7, orcamento.getIdOrcamento());
-
-        int linhasAlteradas = stmt.executeUpdate();
+        final String sql = "UPDATE T_ORCAMENTO SET vl_orcamento = ?, st_situacao = ?, id_veiculo = ?, id_oficina = ?, id_servico = ?, id_peca = ?, nr_versao = nr_versao + 1 WHERE id_orcamento = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_ORCAMENTO", "id_orcamento", orcamento.getIdOrcamento(), orcamento.getVersao(), sql, stmt -> {
+            stmt.setDouble(1, orcamento.getValorOrcamento());
+            stmt.setString(2, orcamento.getSituacao());
+            stmt.setInt(3, orcamento.getIdVeiculo());
+            stmt.setInt(4, orcamento.getIdOficina());
+            stmt.setInt(5, orcamento.getIdServico());
+            stmt.setInt(6, orcamento.getIdPeca());
+            stmt.setLong(7, orcamento.getIdOrcamento());
+            JdbcTemplate.setVersao(stmt, 8, orcamento.getVersao());
+        });
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Orçamento não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new OrcamentoNotFoundException("Orçamento não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Orçamento não foi encontrado.
+        orcamento.setVersao(versao.orElseThrow(() -> new OrcamentoNotFoundException("Orçamento não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return orcamento;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Orcamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Orcamento.
+     * @param campos Os campos alterados, com os nomes do {@code OrcamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Orcamento com todos os campos, depois da alteração.
+     * @throws OrcamentoNotFoundException Se o Orcamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Orcamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OrcamentoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_ORCAMENTO WHERE id_orcamento = ?";
+        Optional<Orcamento> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Orcamento não foi encontrado.
+        return alterado.orElseThrow(() -> new OrcamentoNotFoundException("Orçamento não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Orcamento.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Orcamento mapRow(ResultSet rs) throws SQLException {
+        Orcamento orcamento = new Orcamento(
+                rs.getLong("id_orcamento"),
+                rs.getDouble("vl_orcamento"),
+                rs.getString("st_situacao"),
+                rs.getInt("id_veiculo"),
+                rs.getInt("id_oficina"),
+                rs.getInt("id_servico"),
+                rs.getInt("id_peca")
+        );
+        orcamento.setVersao(rs.getLong("nr_versao"));
         return orcamento;
     }
 }
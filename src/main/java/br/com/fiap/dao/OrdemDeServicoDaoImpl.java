@@ -1,15 +1,23 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.OrdemDeServicoDao;
+import br.com.fiap.dtos.TempoExecucaoDto;
 import br.com.fiap.models.OrdemDeServico;
 import br.com.fiap.exceptions.OrdemDeServicoNotFoundException;
 import br.com.fiap.exceptions.OrdemDeServicoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade OrdemDeServico, gerenciando operações de CRUD.
@@ -19,6 +27,17 @@ class OrdemDeServicoDaoImpl implements OrdemDeServicoDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(OrdemDeServicoDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do OrdemDeServicoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_ORDEM_DE_SERVICO", "id_os")
+            .texto("status", "st_status").obrigatoria()
+            .longo("idOrcamento", "id_orcamento").obrigatoria()
+            .longo("idFuncionario", "id_funcionario").obrigatoria()
+            .longo("idVeiculo", "id_veiculo").obrigatoria()
+            .data("dataInicio", "dt_inicio").obrigatoria()
+            .data("dataFim", "dt_fim")
+            .dataHora("horaInicio", "hr_inicio").obrigatoria()
+            .dataHora("horaFim", "hr_fim");
+
     /**
      * Busca todas as instâncias de OrdemDeServico no banco de dados.
      *
@@ -26,31 +45,111 @@ class OrdemDeServicoDaoImpl implements OrdemDeServicoDao {
      */
     @Override
     public List<OrdemDeServico> findAll() {
-        final List<OrdemDeServico> ordens = new ArrayList<>();
         final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de OrdemDeServico.
-            while (rs.next()) {
-                OrdemDeServico ordem = new OrdemDeServico(
-                        rs.getLong("id_os"),
-                        rs.getString("st_status"),
-                        rs.getLong("id_orcamento"),
-                        rs.getLong("id_funcionario"),
-                        rs.getLong("id_veiculo"),
-                        rs.getDate("dt_inicio"),
-                        rs.getDate("dt_fim"),
-                        rs.getTimestamp("hr_inicio"),
-                        rs.getTimestamp("hr_fim")
-                );
-                ordens.add(ordem);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar ordens de serviço: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de ordens de serviço com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link OrdemDeServico} da página.
+     */
+    @Override
+    public List<OrdemDeServico> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO WHERE id_os > ? ORDER BY id_os FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de ordens de serviço: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma OrdemDeServico pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID da OrdemDeServico.
+     * @return O {@link OrdemDeServico} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<OrdemDeServico> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO WHERE id_os = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
         }
-        return ordens;
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link OrdemDeServico} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<OrdemDeServico> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO WHERE id_os IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Percorre todas as ordens de serviço em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link OrdemDeServico}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<OrdemDeServico> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO ORDER BY id_os";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
+    }
+
+    /**
+     * Percorre os tempos de execução das ordens concluídas no intervalo, em uma única consulta.
+     *
+     * <p>A oficina vem do orçamento da ordem e o tipo de serviço de cada serviço do orçamento. O tempo é
+     * calculado como em {@link OrdemDeServico#calcularTempoTotalExecucao()}.</p>
+     *
+     * @param de  A primeira data de conclusão.
+     * @param ate A data de conclusão final (exclusiva).
+     * @return Uma linha por ordem e serviço; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<TempoExecucaoDto> streamTemposExecucao(Date de, Date ate) throws SQLException {
+        final String sql = "SELECT os.id_os, os.dt_fim, os.hr_inicio, os.hr_fim, os.id_funcionario, o.id_oficina, s.st_tipo_servico"
+                + " FROM T_ORDEM_DE_SERVICO os"
+                + " JOIN T_ORCAMENTO o ON o.id_orcamento = os.id_orcamento"
+                + " LEFT JOIN T_SERVICOS s ON s.id_orcamento = os.id_orcamento"
+                + " WHERE os.dt_fim >= ? AND os.dt_fim < ? AND os.hr_fim IS NOT NULL"
+                + " ORDER BY os.dt_fim, os.id_os";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, stmt -> {
+            stmt.setDate(1, de);
+            stmt.setDate(2, ate);
+        }, rs -> new TempoExecucaoDto(
+                rs.getLong("id_os"),
+                rs.getDate("dt_fim"),
+                rs.getLong("id_oficina"),
+                rs.getLong("id_funcionario"),
+                rs.getString("st_tipo_servico"),
+                (rs.getTimestamp("hr_fim").getTime() - rs.getTimestamp("hr_inicio").getTime()) / (1000 * 60)
+        ));
     }
 
     /**
@@ -64,9 +163,7 @@ class OrdemDeServicoDaoImpl implements OrdemDeServicoDao {
     @Override
     public void deleteById(Long id, Connection connection) throws OrdemDeServicoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_ORDEM_DE_SERVICO WHERE id_os = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Ordem de Serviço não foi encontrada.
         if (linhasAlteradas == 0) {
@@ -85,27 +182,25 @@ class OrdemDeServicoDaoImpl implements OrdemDeServicoDao {
      */
     @Override
     public OrdemDeServico save(OrdemDeServico ordem, Connection connection) throws SQLException, OrdemDeServicoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_ORDEM_DE_SERVICO(st_status, id_orcamento, id_funcionario, id_veiculo, dt_inicio, dt_fim, hr_inicio, hr_fim) VALUES(?, ?, ?, ?, ?, ?, ?, ?) RETURNING id_os INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, ordem.getStatus());
-        call.setLong(2, ordem.getIdOrcamento());
-        call.setLong(3, ordem.getIdFuncionario());
-        call.setLong(4, ordem.getIdVeiculo());
-        call.setDate(5, ordem.getDataInicio());
-        call.setDate(6, ordem.getDataFim());
-        call.setTimestamp(7, ordem.getHoraInicio());
-        call.setTimestamp(8, ordem.getHoraFim());
-        call.registerOutParameter(9, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(9);
+        final String sql = "INSERT INTO T_ORDEM_DE_SERVICO(st_status, id_orcamento, id_funcionario, id_veiculo, dt_inicio, dt_fim, hr_inicio, hr_fim) VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_os", stmt -> {
+            stmt.setString(1, ordem.getStatus());
+            stmt.setLong(2, ordem.getIdOrcamento());
+            stmt.setLong(3, ordem.getIdFuncionario());
+            stmt.setLong(4, ordem.getIdVeiculo());
+            stmt.setDate(5, ordem.getDataInicio());
+            stmt.setDate(6, ordem.getDataFim());
+            stmt.setTimestamp(7, ordem.getHoraInicio());
+            stmt.setTimestamp(8, ordem.getHoraFim());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new OrdemDeServicoNotSavedException("Erro ao salvar a ordem de serviço: verifique os dados fornecidos ou tente novamente.");
         }
 
         ordem.setIdOs(id);
+        ordem.setVersao(0L);
         return ordem;
     }
 
@@ -116,28 +211,73 @@ class OrdemDeServicoDaoImpl implements OrdemDeServicoDao {
      * @param connection Conexão com o banco de dados.
      * @return A Ordem de Serviço atualizada.
      * @throws OrdemDeServicoNotFoundException Se a Ordem de Serviço com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public OrdemDeServico update(OrdemDeServico ordem, Connection connection) throws OrdemDeServicoNotFoundException, SQLException {
-        final String sql = "UPDATE T_ORDEM_DE_SERVICO SET st_status = ?, id_orcamento = ?, id_funcionario = ?, id_veiculo = ?, dt_inicio = ?, dt_fim = ?, hr_inicio = ?, hr_fim = ? WHERE id_os = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, ordem.getStatus());
-        stmt.setLong(2, ordem.getIdOrcamento());
-        stmt.setLong(3, ordem.getIdFuncionario());
-        stmt.setLong(4, ordem.getIdVeiculo());
-        stmt.setDate(5, ordem.getDataInicio());
-        stmt.setDate(6, ordem.getDataFim());
-        stmt.setTimestamp(7, ordem.getHoraInicio());
-        stmt.setTimestamp(8, ordem.getHoraFim());
-        stmt.setLong(9, ordem.getIdOs());
-
-        int linhasAlteradas = stmt.executeUpdate();
+        final String sql = "UPDATE T_ORDEM_DE_SERVICO SET st_status = ?, id_orcamento = ?, id_funcionario = ?, id_veiculo = ?, dt_inicio = ?, dt_fim = ?, hr_inicio = ?, hr_fim = ?, nr_versao = nr_versao + 1 WHERE id_os = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_ORDEM_DE_SERVICO", "id_os", ordem.getIdOs(), ordem.getVersao(), sql, stmt -> {
+            stmt.setString(1, ordem.getStatus());
+            stmt.setLong(2, ordem.getIdOrcamento());
+            stmt.setLong(3, ordem.getIdFuncionario());
+            stmt.setLong(4, ordem.getIdVeiculo());
+            stmt.setDate(5, ordem.getDataInicio());
+            stmt.setDate(6, ordem.getDataFim());
+            stmt.setTimestamp(7, ordem.getHoraInicio());
+            stmt.setTimestamp(8, ordem.getHoraFim());
+            stmt.setLong(9, ordem.getIdOs());
+            JdbcTemplate.setVersao(stmt, 10, ordem.getVersao());
+        });
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Ordem de Serviço não foi encontrada.
-        if (linhasAlteradas == 0) {
-            throw new OrdemDeServicoNotFoundException("Ordem de Serviço não encontrada: verifique o ID fornecido ou se o registro existe.");
-        }
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Ordem de Serviço não foi encontrada.
+        ordem.setVersao(versao.orElseThrow(() -> new OrdemDeServicoNotFoundException("Ordem de Serviço não encontrada: verifique o ID fornecido ou se o registro existe.")));
+        return ordem;
+    }
+
+    /**
+     * Altera apenas os campos informados de uma Ordem de Serviço existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID da Ordem de Serviço.
+     * @param campos Os campos alterados, com os nomes do {@code OrdemDeServicoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A Ordem de Serviço com todos os campos, depois da alteração.
+     * @throws OrdemDeServicoNotFoundException Se a Ordem de Serviço com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public OrdemDeServico patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OrdemDeServicoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_ORDEM_DE_SERVICO WHERE id_os = ?";
+        Optional<OrdemDeServico> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Ordem de Serviço não foi encontrada.
+        return alterado.orElseThrow(() -> new OrdemDeServicoNotFoundException("Ordem de Serviço não encontrada: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de OrdemDeServico.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private OrdemDeServico mapRow(ResultSet rs) throws SQLException {
+        OrdemDeServico ordem = new OrdemDeServico(
+                rs.getLong("id_os"),
+                rs.getString("st_status"),
+                rs.getLong("id_orcamento"),
+                rs.getLong("id_funcionario"),
+                rs.getLong("id_veiculo"),
+                rs.getDate("dt_inicio"),
+                rs.getDate("dt_fim"),
+                rs.getTimestamp("hr_inicio"),
+                rs.getTimestamp("hr_fim")
+        );
+        ordem.setVersao(rs.getLong("nr_versao"));
         return ordem;
     }
 }
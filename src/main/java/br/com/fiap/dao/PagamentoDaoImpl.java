@@ -1,14 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.PagamentoDao;
 import br.com.fiap.exceptions.PagamentoNotFoundException;
 import br.com.fiap.exceptions.PagamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pagamento;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +25,13 @@ public class PagamentoDaoImpl implements PagamentoDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(PagamentoDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do PagamentoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_METODO_PAGAMENTO", "id_pagamento")
+            .texto("formaPagamento", "st_forma_pagamento").obrigatoria()
+            .texto("tipoPagamento", "st_tipo_pagamento").obrigatoria()
+            .decimal("desconto", "vl_desconto")
+            .longo("idOrdemDeServico", "id_os").obrigatoria();
+
     /**
      * Busca todas as instâncias de Pagamento no banco de dados.
      *
@@ -26,27 +39,67 @@ public class PagamentoDaoImpl implements PagamentoDao {
      */
     @Override
     public List<Pagamento> findAll() {
-        final List<Pagamento> pagamentos = new ArrayList<>();
         final String sql = "SELECT * FROM T_METODO_PAGAMENTO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Pagamento.
-            while (rs.next()) {
-                Pagamento pagamento = new Pagamento(
-                        rs.getLong("id_pagamento"),
-                        rs.getString("st_forma_pagamento"),
-                        rs.getString("st_tipo_pagamento"),
-                        rs.getDouble("vl_desconto"),
-                        rs.getLong("id_os")
-                );
-                pagamentos.add(pagamento);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar pagamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de pagamentos com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Pagamento} da página.
+     */
+    @Override
+    public List<Pagamento> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_METODO_PAGAMENTO WHERE id_pagamento > ? ORDER BY id_pagamento FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de pagamentos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Pagamento pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Pagamento.
+     * @return O {@link Pagamento} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Pagamento> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_METODO_PAGAMENTO WHERE id_pagamento = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Pagamento} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Pagamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_METODO_PAGAMENTO WHERE id_pagamento IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
         }
-        return pagamentos;
     }
 
     /**
@@ -60,9 +113,7 @@ public class PagamentoDaoImpl implements PagamentoDao {
     @Override
     public void deleteById(Long id, Connection connection) throws PagamentoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_METODO_PAGAMENTO WHERE id_pagamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Pagamento não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -81,23 +132,21 @@ public class PagamentoDaoImpl implements PagamentoDao {
      */
     @Override
     public Pagamento save(Pagamento pagamento, Connection connection) throws SQLException, PagamentoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_METODO_PAGAMENTO(st_forma_pagamento, st_tipo_pagamento, vl_desconto, id_os) VALUES(?, ?, ?, ?) RETURNING id_pagamento INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, pagamento.getFormaPagamento());
-        call.setString(2, pagamento.getTipoPagamento());
-        call.setDouble(3, pagamento.getDesconto());
-        call.setLong(4, pagamento.getIdOrdemDeServico());
-        call.registerOutParameter(5, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(5);
+        final String sql = "INSERT INTO T_METODO_PAGAMENTO(st_forma_pagamento, st_tipo_pagamento, vl_desconto, id_os) VALUES(?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_pagamento", stmt -> {
+            stmt.setString(1, pagamento.getFormaPagamento());
+            stmt.setString(2, pagamento.getTipoPagamento());
+            stmt.setDouble(3, pagamento.getDesconto());
+            stmt.setLong(4, pagamento.getIdOrdemDeServico());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new PagamentoNotSavedException("Erro ao salvar o pagamento: verifique os dados fornecidos ou tente novamente.");
         }
 
         pagamento.setIdPagamento(id);
+        pagamento.setVersao(0L);
         return pagamento;
     }
 
@@ -108,24 +157,65 @@ public class PagamentoDaoImpl implements PagamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Pagamento} atualizada.
      * @throws PagamentoNotFoundException Se o Pagamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Pagamento update(Pagamento pagamento, Connection connection) throws PagamentoNotFoundException, SQLException {
-        final String sql = "UPDATE T_METODO_PAGAMENTO SET st_forma_pagamento = ?, st_tipo_pagamento = ?, vl_desconto = ?, id_os = ? WHERE id_pagamento = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, pagamento.getFormaPagamento());
-        stmt.setString(2, pagamento.getTipoPagamento());
-        stmt.setDouble(3, pagamento.getDesconto());
-        stmt.setLong(4, pagamento.getIdOrdemDeServico());
-        stmt.setLong(5, pagamento.getIdPagamento());
+        final String sql = "UPDATE T_METODO_PAGAMENTO SET st_forma_pagamento = ?, st_tipo_pagamento = ?, vl_desconto = ?, id_os = ?, nr_versao = nr_versao + 1 WHERE id_pagamento = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_METODO_PAGAMENTO", "id_pagamento", pagamento.getIdPagamento(), pagamento.getVersao(), sql, stmt -> {
+            stmt.setString(1, pagamento.getFormaPagamento());
+            stmt.setString(2, pagamento.getTipoPagamento());
+            stmt.setDouble(3, pagamento.getDesconto());
+            stmt.setLong(4, pagamento.getIdOrdemDeServico());
+            stmt.setLong(5, pagamento.getIdPagamento());
+            JdbcTemplate.setVersao(stmt, 6, pagamento.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Pagamento não foi encontrado.
+        pagamento.setVersao(versao.orElseThrow(() -> new PagamentoNotFoundException("Pagamento não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return pagamento;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Pagamento não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new PagamentoNotFoundException("Pagamento não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de um Pagamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Pagamento.
+     * @param campos Os campos alterados, com os nomes do {@code PagamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Pagamento com todos os campos, depois da alteração.
+     * @throws PagamentoNotFoundException Se o Pagamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Pagamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws PagamentoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_METODO_PAGAMENTO WHERE id_pagamento = ?";
+        Optional<Pagamento> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Pagamento não foi encontrado.
+        return alterado.orElseThrow(() -> new PagamentoNotFoundException("Pagamento não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Pagamento.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Pagamento mapRow(ResultSet rs) throws SQLException {
+        Pagamento pagamento = new Pagamento(
+                rs.getLong("id_pagamento"),
+                rs.getString("st_forma_pagamento"),
+                rs.getString("st_tipo_pagamento"),
+                rs.getDouble("vl_desconto"),
+                rs.getLong("id_os")
+        );
+        pagamento.setVersao(rs.getLong("nr_versao"));
         return pagamento;
     }
 }
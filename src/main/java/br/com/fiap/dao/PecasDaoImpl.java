@@ -1,15 +1,23 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.PecasDao;
 import br.com.fiap.exceptions.PecasNotFoundException;
 import br.com.fiap.exceptions.PecasNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pecas;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade Pecas, gerenciando operações de CRUD.
@@ -19,6 +27,15 @@ class PecasDaoImpl implements PecasDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(PecasDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do PecasDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_PECAS", "id_peca")
+            .texto("marca", "nm_marca").obrigatoria()
+            .inteiro("quantidade", "qt_quantidade").obrigatoria()
+            .decimal("valor", "vl_valor").obrigatoria()
+            .texto("descricao", "ds_descricao")
+            .longo("idOrcamento", "id_orcamento").obrigatoria()
+            .longo("idServico", "id_servico").obrigatoria();
+
     /**
      * Busca todas as instâncias de Pecas no banco de dados.
      *
@@ -26,29 +43,79 @@ class PecasDaoImpl implements PecasDao {
      */
     @Override
     public List<Pecas> findAll() {
-        final List<Pecas> pecasList = new ArrayList<>();
         final String sql = "SELECT * FROM T_PECAS";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Pecas.
-            while (rs.next()) {
-                Pecas peca = new Pecas(
-                        rs.getLong("id_peca"),
-                        rs.getString("nm_marca"),
-                        rs.getInt("qt_quantidade"),
-                        rs.getDouble("vl_valor"),
-                        rs.getString("ds_descricao"),
-                        rs.getLong("id_orcamento"),
-                        rs.getLong("id_servico")
-                );
-                pecasList.add(peca);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar peças: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de peças com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Pecas} da página.
+     */
+    @Override
+    public List<Pecas> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_PECAS WHERE id_peca > ? ORDER BY id_peca FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de peças: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma Peça pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID da Peça.
+     * @return O {@link Pecas} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Pecas> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_PECAS WHERE id_peca = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Pecas} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Pecas> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_PECAS WHERE id_peca IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
         }
-        return pecasList;
+    }
+
+    /**
+     * Percorre todas as peças em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link Pecas}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<Pecas> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_PECAS ORDER BY id_peca";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
     }
 
     /**
@@ -62,9 +129,7 @@ class PecasDaoImpl implements PecasDao {
     @Override
     public void deleteById(Long id, Connection connection) throws PecasNotFoundException, SQLException {
         final String sql = "DELETE FROM T_PECAS WHERE id_peca = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Peça não foi encontrada.
         if (linhasAlteradas == 0) {
@@ -83,28 +148,58 @@ class PecasDaoImpl implements PecasDao {
      */
     @Override
     public Pecas save(Pecas peca, Connection connection) throws SQLException, PecasNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_PECAS(nm_marca, qt_quantidade, vl_valor, ds_descricao, id_orcamento, id_servico) VALUES(?, ?, ?, ?, ?, ?) RETURNING id_peca INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, peca.getMarca());
-        call.setInt(2, peca.getQuantidade());
-        call.setDouble(3, peca.getValor());
-        call.setString(4, peca.getDescricao());
-        call.setLong(5, peca.getIdOrcamento());
-        call.setLong(6, peca.getIdServico());
-        call.registerOutParameter(7, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(7);
+        final String sql = "INSERT INTO T_PECAS(nm_marca, qt_quantidade, vl_valor, ds_descricao, id_orcamento, id_servico) VALUES(?, ?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_peca", stmt -> {
+            stmt.setString(1, peca.getMarca());
+            stmt.setInt(2, peca.getQuantidade());
+            stmt.setDouble(3, peca.getValor());
+            stmt.setString(4, peca.getDescricao());
+            stmt.setLong(5, peca.getIdOrcamento());
+            stmt.setLong(6, peca.getIdServico());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new PecasNotSavedException("Erro ao salvar a peça: verifique os dados fornecidos ou tente novamente.");
         }
 
         peca.setIdPeca(id);
+        peca.setVersao(0L);
         return peca;
     }
 
+    /**
+     * Salva vários registros de peças em lote, com uma única ida ao banco.
+     *
+     * @param pecas As instâncias a serem salvas, sem ID.
+     * @param connection A conexão com o banco de dados a ser utilizada para a operação.
+     * @return As mesmas instâncias, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws PecasNotSavedException Se o banco não retornar o ID de algum registro.
+     */
+    @Override
+    public List<Pecas> saveAll(List<Pecas> pecas, Connection connection) throws SQLException, PecasNotSavedException {
+        final String sql = "INSERT INTO T_PECAS(nm_marca, qt_quantidade, vl_valor, ds_descricao, id_orcamento, id_servico) VALUES(?, ?, ?, ?, ?, ?)";
+        long[] ids = JdbcTemplate.insertBatchReturningIds(connection, sql, "id_peca", pecas, (stmt, item) -> {
+            stmt.setString(1, item.getMarca());
+            stmt.setInt(2, item.getQuantidade());
+            stmt.setDouble(3, item.getValor());
+            stmt.setString(4, item.getDescricao());
+            stmt.setLong(5, item.getIdOrcamento());
+            stmt.setLong(6, item.getIdServico());
+        });
+
+        // Verifica se todos os registros receberam ID. Se não, lança exceção para reverter a transação inteira.
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == 0) {
+                throw new PecasNotSavedException("Erro ao salvar as peças: o banco não retornou o ID de todas as linhas.");
+            }
+            pecas.get(i).setIdPeca(ids[i]);
+            pecas.get(i).setVersao(0L);
+        }
+        return pecas;
+    }
+
     /**
      * Atualiza uma Peça existente no banco de dados.
      *
@@ -112,26 +207,160 @@ class PecasDaoImpl implements PecasDao {
      * @param connection Conexão com o banco de dados.
      * @return A Peça atualizada.
      * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Pecas update(Pecas peca, Connection connection) throws PecasNotFoundException, SQLException {
-        final String sql = "UPDATE T_PECAS SET nm_marca = ?, qt_quantidade = ?, vl_valor = ?, ds_descricao = ?, id_orcamento = ?, id_servico = ? WHERE id_peca = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, peca.getMarca());
-        stmt.setInt(2, peca.getQuantidade());
-        stmt.setDouble(3, peca.getValor());
-        stmt.setString(4, peca.getDescricao());
-        stmt.setLong(5, peca.getIdOrcamento());
-        stmt.setLong(6, peca.getIdServico());
-        stmt.setLong(7, peca.getIdPeca());
-
-        int linhasAlteradas = stmt.executeUpdate();
+        final String sql = "UPDATE T_PECAS SET nm_marca = ?, qt_quantidade = ?, vl_valor = ?, ds_descricao = ?, id_orcamento = ?, id_servico = ?, nr_versao = nr_versao + 1 WHERE id_peca = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_PECAS", "id_peca", peca.getIdPeca(), peca.getVersao(), sql, stmt -> {
+            stmt.setString(1, peca.getMarca());
+            stmt.setInt(2, peca.getQuantidade());
+            stmt.setDouble(3, peca.getValor());
+            stmt.setString(4, peca.getDescricao());
+            stmt.setLong(5, peca.getIdOrcamento());
+            stmt.setLong(6, peca.getIdServico());
+            stmt.setLong(7, peca.getIdPeca());
+            JdbcTemplate.setVersao(stmt, 8, peca.getVersao());
+        });
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que a Peça não foi encontrada.
-        if (linhasAlteradas == 0) {
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Peça não foi encontrada.
+        peca.setVersao(versao.orElseThrow(() -> new PecasNotFoundException("Peça não encontrada: verifique o ID fornecido ou se o registro existe.")));
+        return peca;
+    }
+
+    /**
+     * Altera apenas os campos informados de uma Peça existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID da Peça.
+     * @param campos Os campos alterados, com os nomes do {@code PecasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A Peça com todos os campos, depois da alteração.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Pecas patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws PecasNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_PECAS WHERE id_peca = ?";
+        Optional<Pecas> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que a Peça não foi encontrada.
+        return alterado.orElseThrow(() -> new PecasNotFoundException("Peça não encontrada: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Lê a quantidade reservada de uma Peça com {@code SELECT ... FOR UPDATE}.
+     *
+     * @param id         O ID da Peça.
+     * @param connection Conexão com o banco de dados.
+     * @return A quantidade reservada, ou vazio se a peça não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public OptionalInt travarReservada(Long id, Connection connection) throws SQLException {
+        final String sql = "SELECT qt_reservada FROM T_PECAS WHERE id_peca = ? FOR UPDATE";
+        return JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), rs -> rs.getInt(1))
+                .map(OptionalInt::of)
+                .orElseGet(OptionalInt::empty);
+    }
+
+    /**
+     * Reserva unidades livres de uma Peça, com um único UPDATE condicional.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a reservar.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se a reserva foi feita; {@code false} se não há unidades livres suficientes.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public boolean reservar(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException {
+        final String sql = "UPDATE T_PECAS SET qt_reservada = qt_reservada + ?, nr_versao = nr_versao + 1 WHERE id_peca = ? AND qt_quantidade - qt_reservada >= ?";
+        return alterarEstoque(connection, id, sql, stmt -> {
+            stmt.setInt(1, quantidade);
+            stmt.setLong(2, id);
+            stmt.setInt(3, quantidade);
+        });
+    }
+
+    /**
+     * Devolve ao estoque livre unidades reservadas de uma Peça, com um único UPDATE condicional.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a liberar.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se a reserva foi liberada; {@code false} se a quantidade reservada é menor.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public boolean liberar(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException {
+        final String sql = "UPDATE T_PECAS SET qt_reservada = qt_reservada - ?, nr_versao = nr_versao + 1 WHERE id_peca = ? AND qt_reservada >= ?";
+        return alterarEstoque(connection, id, sql, stmt -> {
+            stmt.setInt(1, quantidade);
+            stmt.setLong(2, id);
+            stmt.setInt(3, quantidade);
+        });
+    }
+
+    /**
+     * Baixa do estoque unidades reservadas de uma Peça, com um único UPDATE condicional.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a consumir.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se as unidades foram consumidas; {@code false} se a quantidade reservada é menor.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public boolean consumir(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException {
+        final String sql = "UPDATE T_PECAS SET qt_quantidade = qt_quantidade - ?, qt_reservada = qt_reservada - ?, nr_versao = nr_versao + 1 WHERE id_peca = ? AND qt_reservada >= ?";
+        return alterarEstoque(connection, id, sql, stmt -> {
+            stmt.setInt(1, quantidade);
+            stmt.setInt(2, quantidade);
+            stmt.setLong(3, id);
+            stmt.setInt(4, quantidade);
+        });
+    }
+
+    // Executa um UPDATE condicional de estoque. Se nenhuma linha for alterada, consulta a peça para distinguir
+    // a peça inexistente da quantidade insuficiente; a consulta só acontece no caso de falha.
+    private boolean alterarEstoque(Connection connection, Long id, String sql, JdbcTemplate.StatementBinder binder) throws SQLException {
+        if (JdbcTemplate.update(connection, sql, binder) > 0) {
+            return true;
+        }
+        final String existe = "SELECT id_peca FROM T_PECAS WHERE id_peca = ?";
+        if (JdbcTemplate.queryForOptional(connection, existe, stmt -> stmt.setLong(1, id), rs -> rs.getLong(1)).isEmpty()) {
             throw new PecasNotFoundException("Peça não encontrada: verifique o ID fornecido ou se o registro existe.");
         }
+        return false;
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Pecas.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Pecas mapRow(ResultSet rs) throws SQLException {
+        Pecas peca = new Pecas(
+                rs.getLong("id_peca"),
+                rs.getString("nm_marca"),
+                rs.getInt("qt_quantidade"),
+                rs.getDouble("vl_valor"),
+                rs.getString("ds_descricao"),
+                rs.getLong("id_orcamento"),
+                rs.getLong("id_servico")
+        );
+        peca.setReservada(rs.getInt("qt_reservada"));
+        peca.setVersao(rs.getLong("nr_versao"));
         return peca;
     }
 }
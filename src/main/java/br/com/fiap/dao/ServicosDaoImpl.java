@@ -1,14 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.ServicosDao;
 import br.com.fiap.exceptions.ServicosNotFoundException;
 import br.com.fiap.exceptions.ServicosNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Servicos;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +25,14 @@ class ServicosDaoImpl implements ServicosDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private static final Logger logger = Logger.getLogger(ServicosDaoImpl.class.getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do ServicosDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_SERVICOS", "id_servico")
+            .texto("tipoServico", "st_tipo_servico").obrigatoria()
+            .texto("descricao", "ds_servico").obrigatoria()
+            .dataHora("tempoEstimado", "hr_tempo_estimado")
+            .decimal("valorServico", "vl_custo").obrigatoria()
+            .inteiro("idOrcamento", "id_orcamento").obrigatoria();
+
     /**
      * Busca todas as instâncias de Servicos no banco de dados.
      *
@@ -26,28 +40,67 @@ class ServicosDaoImpl implements ServicosDao {
      */
     @Override
     public List<Servicos> findAll() {
-        final List<Servicos> servicosList = new ArrayList<>();
         final String sql = "SELECT * FROM T_SERVICOS";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Servicos.
-            while (rs.next()) {
-                Servicos servico = new Servicos(
-                        rs.getLong("id_servico"),
-                        rs.getString("st_tipo_servico"),
-                        rs.getString("ds_servico"),
-                        rs.getDouble("vl_custo"),
-                        rs.getTimestamp("hr_tempo_estimado"),
-                        rs.getLong("id_orcamento")
-                );
-                servicosList.add(servico);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar serviços: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de serviços com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Servicos} da página.
+     */
+    @Override
+    public List<Servicos> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_SERVICOS WHERE id_servico > ? ORDER BY id_servico FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de serviços: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Servicos pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Servicos.
+     * @return O {@link Servicos} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Servicos> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_SERVICOS WHERE id_servico = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Servicos} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Servicos> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_SERVICOS WHERE id_servico IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
         }
-        return servicosList;
     }
 
     /**
@@ -61,9 +114,7 @@ class ServicosDaoImpl implements ServicosDao {
     @Override
     public void deleteById(Long id, Connection connection) throws ServicosNotFoundException, SQLException {
         final String sql = "DELETE FROM T_SERVICOS WHERE id_servico = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Serviço não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -82,27 +133,56 @@ class ServicosDaoImpl implements ServicosDao {
      */
     @Override
     public Servicos save(Servicos servico, Connection connection) throws SQLException, ServicosNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_SERVICOS(st_tipo_servico, ds_servico, hr_tempo_estimado, vl_custo, id_orcamento) VALUES(?, ?, ?, ?, ?) RETURNING id_servico INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, servico.getTipoServico());
-        call.setString(2, servico.getDescricao());
-        call.setTimestamp(3, servico.getTempoEstimado());
-        call.setDouble(4, servico.getValorServico());
-        call.setLong(5, servico.getIdOrcamento());
-        call.registerOutParameter(6, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(6);
+        final String sql = "INSERT INTO T_SERVICOS(st_tipo_servico, ds_servico, hr_tempo_estimado, vl_custo, id_orcamento) VALUES(?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_servico", stmt -> {
+            stmt.setString(1, servico.getTipoServico());
+            stmt.setString(2, servico.getDescricao());
+            stmt.setTimestamp(3, servico.getTempoEstimado());
+            stmt.setDouble(4, servico.getValorServico());
+            stmt.setLong(5, servico.getIdOrcamento());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new ServicosNotSavedException("Erro ao salvar o serviço: verifique os dados fornecidos ou tente novamente.");
         }
 
         servico.setIdServico(id);
+        servico.setVersao(0L);
         return servico;
     }
 
+    /**
+     * Salva vários registros de serviços em lote, com uma única ida ao banco.
+     *
+     * @param servicos As instâncias a serem salvas, sem ID.
+     * @param connection A conexão com o banco de dados a ser utilizada para a operação.
+     * @return As mesmas instâncias, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws ServicosNotSavedException Se o banco não retornar o ID de algum registro.
+     */
+    @Override
+    public List<Servicos> saveAll(List<Servicos> servicos, Connection connection) throws SQLException, ServicosNotSavedException {
+        final String sql = "INSERT INTO T_SERVICOS(st_tipo_servico, ds_servico, hr_tempo_estimado, vl_custo, id_orcamento) VALUES(?, ?, ?, ?, ?)";
+        long[] ids = JdbcTemplate.insertBatchReturningIds(connection, sql, "id_servico", servicos, (stmt, item) -> {
+            stmt.setString(1, item.getTipoServico());
+            stmt.setString(2, item.getDescricao());
+            stmt.setTimestamp(3, item.getTempoEstimado());
+            stmt.setDouble(4, item.getValorServico());
+            stmt.setLong(5, item.getIdOrcamento());
+        });
+
+        // Verifica se todos os registros receberam ID. Se não, lança exceção para reverter a transação inteira.
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == 0) {
+                throw new ServicosNotSavedException("Erro ao salvar os serviços: o banco não retornou o ID de todas as linhas.");
+            }
+            servicos.get(i).setIdServico(ids[i]);
+            servicos.get(i).setVersao(0L);
+        }
+        return servicos;
+    }
+
     /**
      * Atualiza um Serviço existente no banco de dados.
      *
@@ -110,25 +190,67 @@ class ServicosDaoImpl implements ServicosDao {
      * @param connection Conexão com o banco de dados.
      * @return O Serviço atualizado.
      * @throws ServicosNotFoundException Se o Serviço com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Servicos update(Servicos servico, Connection connection) throws ServicosNotFoundException, SQLException {
-        final String sql = "UPDATE T_SERVICOS SET st_tipo_servico = ?, ds_servico = ?, hr_tempo_estimado = ?, vl_custo = ?, id_orcamento = ? WHERE id_servico = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, servico.getTipoServico());
-        stmt.setString(2, servico.getDescricao());
-        stmt.setTimestamp(3, servico.getTempoEstimado());
-        stmt.setDouble(4, servico.getValorServico());
-        stmt.setLong(5, servico.getIdOrcamento());
-        stmt.setLong(6, servico.getIdServico());
+        final String sql = "UPDATE T_SERVICOS SET st_tipo_servico = ?, ds_servico = ?, hr_tempo_estimado = ?, vl_custo = ?, id_orcamento = ?, nr_versao = nr_versao + 1 WHERE id_servico = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_SERVICOS", "id_servico", servico.getIdServico(), servico.getVersao(), sql, stmt -> {
+            stmt.setString(1, servico.getTipoServico());
+            stmt.setString(2, servico.getDescricao());
+            stmt.setTimestamp(3, servico.getTempoEstimado());
+            stmt.setDouble(4, servico.getValorServico());
+            stmt.setLong(5, servico.getIdOrcamento());
+            stmt.setLong(6, servico.getIdServico());
+            JdbcTemplate.setVersao(stmt, 7, servico.getVersao());
+        });
 
-        int linhasAlteradas = stmt.executeUpdate();
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Serviço não foi encontrado.
+        servico.setVersao(versao.orElseThrow(() -> new ServicosNotFoundException("Serviço não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return servico;
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Serviço não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new ServicosNotFoundException("Serviço não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Altera apenas os campos informados de um Serviço existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Serviço.
+     * @param campos Os campos alterados, com os nomes do {@code ServicosDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Serviço com todos os campos, depois da alteração.
+     * @throws ServicosNotFoundException Se o Serviço com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Servicos patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws ServicosNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_SERVICOS WHERE id_servico = ?";
+        Optional<Servicos> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Serviço não foi encontrado.
+        return alterado.orElseThrow(() -> new ServicosNotFoundException("Serviço não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Servicos.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Servicos mapRow(ResultSet rs) throws SQLException {
+        Servicos servico = new Servicos(
+                rs.getLong("id_servico"),
+                rs.getString("st_tipo_servico"),
+                rs.getString("ds_servico"),
+                rs.getDouble("vl_custo"),
+                rs.getTimestamp("hr_tempo_estimado"),
+                rs.getLong("id_orcamento")
+        );
+        servico.setVersao(rs.getLong("nr_versao"));
         return servico;
     }
 }
@@ -1,16 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.TelefoneDao;
 import br.com.fiap.exceptions.TelefoneNotFoundException;
 import br.com.fiap.exceptions.TelefoneNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Telefone;
 
-import oracle.jdbc.OracleType;
-
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -21,6 +25,12 @@ class TelefoneClienteDaoImpl implements TelefoneDao<Telefone, Long> {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do TelefoneDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_TELEFONE_CLIENTE", "id_telefone_cliente")
+            .texto("numero", "nr_telefone").obrigatoria()
+            .texto("tipo", "tp_telefone")
+            .inteiro("idReferencia", "id_cliente").obrigatoria();
+
     /**
      * Busca todas as instâncias de TelefoneCliente no banco de dados.
      *
@@ -28,26 +38,97 @@ class TelefoneClienteDaoImpl implements TelefoneDao<Telefone, Long> {
      */
     @Override
     public List<Telefone> findAll() {
-        final List<Telefone> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_TELEFONE_CLIENTE";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Telefone.
-            while (rs.next()) {
-                Telefone telefone = new Telefone(
-                        rs.getLong("id_telefone_cliente"),
-                        rs.getString("nr_telefone"),
-                        rs.getString("tp_telefone"),
-                        rs.getInt("id_cliente")
-                );
-                all.add(telefone);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar telefones de clientes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de telefones de clientes com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Telefone} da página.
+     */
+    @Override
+    public List<Telefone> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_telefone_cliente > ? ORDER BY id_telefone_cliente FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de telefones de clientes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um TelefoneCliente pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do TelefoneCliente.
+     * @return O {@link Telefone} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Telefone> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_telefone_cliente = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_telefone_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os telefones de um cliente pelo índice de {@code id_cliente}.
+     *
+     * @param clienteId O ID do cliente.
+     * @return As instâncias de {@link Telefone} encontradas, em ordem crescente de ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findByReferenciaId(Long clienteId) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_cliente = ? ORDER BY id_telefone_cliente";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, clienteId), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os telefones de vários clientes, em lotes de {@code IN} sobre o índice de {@code id_cliente}.
+     *
+     * @param clienteIds Os IDs dos clientes.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findByReferenciaIds(Collection<Long> clienteIds) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, clienteIds, this::mapRow);
         }
-        return all;
     }
 
     /**
@@ -61,9 +142,7 @@ class TelefoneClienteDaoImpl implements TelefoneDao<Telefone, Long> {
     @Override
     public void deleteById(Long id, Connection connection) throws TelefoneNotFoundException, SQLException {
         final String sql = "DELETE FROM T_TELEFONE_CLIENTE WHERE id_telefone_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Telefone não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -82,22 +161,20 @@ class TelefoneClienteDaoImpl implements TelefoneDao<Telefone, Long> {
      */
     @Override
     public Telefone save(Telefone telefone, Connection connection) throws SQLException, TelefoneNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_TELEFONE_CLIENTE(nr_telefone, tp_telefone, id_cliente) VALUES (?, ?, ?) RETURNING id_telefone_cliente INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, telefone.getNumero());
-        call.setString(2, telefone.getTipo());
-        call.setInt(3, telefone.getIdReferencia());
-        call.registerOutParameter(4, OracleType.NUMBER);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(4);
+        final String sql = "INSERT INTO T_TELEFONE_CLIENTE(nr_telefone, tp_telefone, id_cliente) VALUES (?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_telefone_cliente", stmt -> {
+            stmt.setString(1, telefone.getNumero());
+            stmt.setString(2, telefone.getTipo());
+            stmt.setInt(3, telefone.getIdReferencia());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new TelefoneNotSavedException("Erro ao salvar o telefone do cliente.");
         }
 
         telefone.setIdTelefone(id);
+        telefone.setVersao(0L);
         return telefone;
     }
 
@@ -108,23 +185,63 @@ class TelefoneClienteDaoImpl implements TelefoneDao<Telefone, Long> {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Telefone} atualizada.
      * @throws TelefoneNotFoundException Se o Telefone com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Telefone update(Telefone telefone, Connection connection) throws TelefoneNotFoundException, SQLException {
-        final String sql = "UPDATE T_TELEFONE_CLIENTE SET nr_telefone = ?, tp_telefone = ?, id_cliente = ? WHERE id_telefone_cliente = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, telefone.getNumero());
-        stmt.setString(2, telefone.getTipo());
-        stmt.setInt(3, telefone.getIdReferencia());
-        stmt.setLong(4, telefone.getIdTelefone());
+        final String sql = "UPDATE T_TELEFONE_CLIENTE SET nr_telefone = ?, tp_telefone = ?, id_cliente = ?, nr_versao = nr_versao + 1 WHERE id_telefone_cliente = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_TELEFONE_CLIENTE", "id_telefone_cliente", telefone.getIdTelefone(), telefone.getVersao(), sql, stmt -> {
+            stmt.setString(1, telefone.getNumero());
+            stmt.setString(2, telefone.getTipo());
+            stmt.setInt(3, telefone.getIdReferencia());
+            stmt.setLong(4, telefone.getIdTelefone());
+            JdbcTemplate.setVersao(stmt, 5, telefone.getVersao());
+        });
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Telefone não foi encontrado.
+        telefone.setVersao(versao.orElseThrow(() -> new TelefoneNotFoundException("Telefone não encontrado: verifique o ID fornecido ou se o registro existe.")));
+        return telefone;
+    }
 
-        int linhasAlteradas = stmt.executeUpdate();
+    /**
+     * Altera apenas os campos informados de um Telefone existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Telefone.
+     * @param campos Os campos alterados, com os nomes do {@code TelefoneDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Telefone com todos os campos, depois da alteração.
+     * @throws TelefoneNotFoundException Se o Telefone com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Telefone patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws TelefoneNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_CLIENTE WHERE id_telefone_cliente = ?";
+        Optional<Telefone> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Telefone não foi encontrado.
+        return alterado.orElseThrow(() -> new TelefoneNotFoundException("Telefone não encontrado: verifique o ID fornecido ou se o registro existe."));
+    }
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Telefone não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new TelefoneNotFoundException("Telefone não encontrado: verifique o ID fornecido ou se o registro existe.");
-        }
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Telefone.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Telefone mapRow(ResultSet rs) throws SQLException {
+        Telefone telefone = new Telefone(
+                rs.getLong("id_telefone_cliente"),
+                rs.getString("nr_telefone"),
+                rs.getString("tp_telefone"),
+                rs.getInt("id_cliente")
+        );
+        telefone.setVersao(rs.getLong("nr_versao"));
         return telefone;
     }
 }
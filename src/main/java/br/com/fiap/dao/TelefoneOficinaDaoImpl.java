@@ -1,14 +1,20 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.TelefoneDao;
 import br.com.fiap.exceptions.TelefoneNotFoundException;
 import br.com.fiap.exceptions.TelefoneNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Telefone;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +25,12 @@ class TelefoneOficinaDaoImpl implements TelefoneDao<Telefone, Long> {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do TelefoneDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_TELEFONE_OFICINA", "id_telefone_oficina")
+            .texto("numero", "nr_telefone").obrigatoria()
+            .texto("tipo", "tp_telefone")
+            .inteiro("idReferencia", "id_oficina").obrigatoria();
+
     /**
      * Busca todas as instâncias de TelefoneOficina no banco de dados.
      *
@@ -26,26 +38,97 @@ class TelefoneOficinaDaoImpl implements TelefoneDao<Telefone, Long> {
      */
     @Override
     public List<Telefone> findAll() {
-        final List<Telefone> telefones = new ArrayList<>();
         final String sql = "SELECT * FROM T_TELEFONE_OFICINA";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Telefone.
-            while (rs.next()) {
-                Telefone telefone = new Telefone(
-                        rs.getLong("id_telefone_oficina"),
-                        rs.getString("nr_telefone"),
-                        rs.getString("tp_telefone"),
-                        rs.getInt("id_oficina")
-                );
-                telefones.add(telefone);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar telefones de oficinas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de telefones de oficinas com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Telefone} da página.
+     */
+    @Override
+    public List<Telefone> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_telefone_oficina > ? ORDER BY id_telefone_oficina FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de telefones de oficinas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um TelefoneOficina pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do TelefoneOficina.
+     * @return O {@link Telefone} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Telefone> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_telefone_oficina = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_telefone_oficina IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os telefones de uma oficina pelo índice de {@code id_oficina}.
+     *
+     * @param oficinaId O ID da oficina.
+     * @return As instâncias de {@link Telefone} encontradas, em ordem crescente de ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findByReferenciaId(Long oficinaId) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_oficina = ? ORDER BY id_telefone_oficina";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, oficinaId), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os telefones de várias oficinas, em lotes de {@code IN} sobre o índice de {@code id_oficina}.
+     *
+     * @param oficinaIds Os IDs das oficinas.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Telefone> findByReferenciaIds(Collection<Long> oficinaIds) throws SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_oficina IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, oficinaIds, this::mapRow);
         }
-        return telefones;
     }
 
     /**
@@ -59,9 +142,7 @@ class TelefoneOficinaDaoImpl implements TelefoneDao<Telefone, Long> {
     @Override
     public void deleteById(Long id, Connection connection) throws TelefoneNotFoundException, SQLException {
         final String sql = "DELETE FROM T_TELEFONE_OFICINA WHERE id_telefone_oficina = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Telefone não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -80,22 +161,20 @@ class TelefoneOficinaDaoImpl implements TelefoneDao<Telefone, Long> {
      */
     @Override
     public Telefone save(Telefone telefone, Connection connection) throws SQLException, TelefoneNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_TELEFONE_OFICINA(nr_telefone, tp_telefone, id_oficina) VALUES (?, ?, ?) RETURNING id_telefone_oficina INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, telefone.getNumero());
-        call.setString(2, telefone.getTipo());
-        call.setInt(3, telefone.getIdReferencia()); // ID de referência para oficina
-        call.registerOutParameter(4, Types.NUMERIC);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(4);
+        final String sql = "INSERT INTO T_TELEFONE_OFICINA(nr_telefone, tp_telefone, id_oficina) VALUES (?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_telefone_oficina", stmt -> {
+            stmt.setString(1, telefone.getNumero());
+            stmt.setString(2, telefone.getTipo());
+            stmt.setInt(3, telefone.getIdReferencia()); // ID de referência para oficina
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new TelefoneNotSavedException("Erro ao salvar o telefone de oficina.");
         }
 
         telefone.setIdTelefone(id);
+        telefone.setVersao(0L);
         return telefone;
     }
 
@@ -106,23 +185,63 @@ class TelefoneOficinaDaoImpl implements TelefoneDao<Telefone, Long> {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Telefone} atualizada.
      * @throws TelefoneNotFoundException Se o TelefoneOficina com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Telefone update(Telefone telefone, Connection connection) throws TelefoneNotFoundException, SQLException {
-        final String sql = "UPDATE T_TELEFONE_OFICINA SET nr_telefone = ?, tp_telefone = ?, id_oficina = ? WHERE id_telefone_oficina = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, telefone.getNumero());
-        stmt.setString(2, telefone.getTipo());
-        stmt.setInt(3, telefone.getIdReferencia()); // ID de referência para oficina
-        stmt.setLong(4, telefone.getIdTelefone());
+        final String sql = "UPDATE T_TELEFONE_OFICINA SET nr_telefone = ?, tp_telefone = ?, id_oficina = ?, nr_versao = nr_versao + 1 WHERE id_telefone_oficina = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_TELEFONE_OFICINA", "id_telefone_oficina", telefone.getIdTelefone(), telefone.getVersao(), sql, stmt -> {
+            stmt.setString(1, telefone.getNumero());
+            stmt.setString(2, telefone.getTipo());
+            stmt.setInt(3, telefone.getIdReferencia()); // ID de referência para oficina
+            stmt.setLong(4, telefone.getIdTelefone());
+            JdbcTemplate.setVersao(stmt, 5, telefone.getVersao());
+        });
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Telefone não foi encontrado.
+        telefone.setVersao(versao.orElseThrow(() -> new TelefoneNotFoundException("Telefone de oficina com ID " + telefone.getIdTelefone() + " não encontrado.")));
+        return telefone;
+    }
 
-        int linhasAlteradas = stmt.executeUpdate();
+    /**
+     * Altera apenas os campos informados de um TelefoneOficina existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do TelefoneOficina.
+     * @param campos Os campos alterados, com os nomes do {@code TelefoneDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O TelefoneOficina com todos os campos, depois da alteração.
+     * @throws TelefoneNotFoundException Se o TelefoneOficina com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Telefone patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws TelefoneNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_TELEFONE_OFICINA WHERE id_telefone_oficina = ?";
+        Optional<Telefone> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Telefone não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new TelefoneNotFoundException("Telefone de oficina com ID " + telefone.getIdTelefone() + " não encontrado.");
-        }
+        // Sem nova versão, o registro não existe: lança exceção indicando que o TelefoneOficina não foi encontrado.
+        return alterado.orElseThrow(() -> new TelefoneNotFoundException("Telefone de oficina com ID " + id + " não encontrado."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Telefone.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Telefone mapRow(ResultSet rs) throws SQLException {
+        Telefone telefone = new Telefone(
+                rs.getLong("id_telefone_oficina"),
+                rs.getString("nr_telefone"),
+                rs.getString("tp_telefone"),
+                rs.getInt("id_oficina")
+        );
+        telefone.setVersao(rs.getLong("nr_versao"));
         return telefone;
     }
 }
@@ -1,17 +1,22 @@
 package br.com.fiap.dao;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.ConnectionLease;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.VeiculoDao;
 import br.com.fiap.exceptions.VeiculoNotFoundException;
 import br.com.fiap.exceptions.VeiculoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Veiculo;
 
-import oracle.jdbc.OracleType;
-
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Implementação de DAO para a entidade Veiculo, gerenciando operações de CRUD.
@@ -21,6 +26,16 @@ class VeiculoDaoImpl implements VeiculoDao {
     // Logger para registrar mensagens e eventos, utilizado para fins de depuração e monitoramento.
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+    // Colunas que um PATCH pode alterar, com os nomes dos campos do VeiculoDto.
+    private static final ColunasPatch PATCH = ColunasPatch.tabela("T_VEICULO", "id_veiculo")
+            .texto("placa", "id_placa").obrigatoria()
+            .texto("marca", "nm_marca").obrigatoria()
+            .texto("modelo", "nm_modelo").obrigatoria()
+            .inteiro("ano", "nr_ano").obrigatoria()
+            .texto("cor", "ds_cor")
+            .texto("combustivel", "st_combustivel").obrigatoria()
+            .longo("clienteId", "id_cliente").obrigatoria();
+
     /**
      * Busca todas as instâncias de Veiculo no banco de dados.
      *
@@ -28,30 +43,109 @@ class VeiculoDaoImpl implements VeiculoDao {
      */
     @Override
     public List<Veiculo> findAll() {
-        final List<Veiculo> all = new ArrayList<>();
         final String sql = "SELECT * FROM T_VEICULO";
-        try (Connection conn = DatabaseConnectionFactory.create().get()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            // Itera pelos resultados e cria instâncias de Veiculo.
-            while (rs.next()) {
-                Veiculo veiculo = new Veiculo(
-                        rs.getLong("id_veiculo"),
-                        rs.getString("placa"),
-                        rs.getString("marca"),
-                        rs.getString("modelo"),
-                        rs.getInt("ano"),
-                        rs.getString("cor"),
-                        rs.getString("combustivel"),
-                        rs.getLong("cliente_id")
-                );
-                all.add(veiculo);
-            }
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
         } catch (SQLException e) {
             logger.warning("Erro ao recuperar veículos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca uma página de veículos com ID maior que {@code afterId}, em ordem crescente de ID.
+     *
+     * <p>A consulta percorre o índice da chave primária a partir do cursor, lendo apenas as linhas da
+     * página, qualquer que seja a posição do cursor na tabela.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista de instâncias de {@link Veiculo} da página.
+     */
+    @Override
+    public List<Veiculo> page(Long afterId, int limit) {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_veiculo > ? ORDER BY id_veiculo FETCH FIRST ? ROWS ONLY";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+            }, this::mapRow);
+        } catch (SQLException e) {
+            logger.warning("Erro ao recuperar página de veículos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca um Veiculo pelo ID, com uma consulta pontual sobre o índice da chave primária.
+     *
+     * @param id O ID do Veiculo.
+     * @return O {@link Veiculo} encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Optional<Veiculo> findById(Long id) throws SQLException {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_veiculo = ?";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryForOptional(lease.get(), sql, stmt -> stmt.setLong(1, id), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os registros com os IDs informados usando listas {@code IN} sobre a chave primária.
+     *
+     * @param ids Os IDs a buscar.
+     * @return As instâncias de {@link Veiculo} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Veiculo> findAllByIds(Collection<Long> ids) throws SQLException {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_veiculo IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, ids, this::mapRow);
+        }
+    }
+
+    /**
+     * Percorre todos os veículos em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * @return As instâncias de {@link Veiculo}; fechar o {@link Stream} devolve a conexão ao pool.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    @Override
+    public Stream<Veiculo> streamAll() throws SQLException {
+        final String sql = "SELECT * FROM T_VEICULO ORDER BY id_veiculo";
+        return JdbcTemplate.stream(TransactionManager.lease(), sql, JdbcTemplate.NO_PARAMS, this::mapRow);
+    }
+
+    /**
+     * Busca os veículos de um cliente pelo índice de {@code id_cliente}.
+     *
+     * @param clienteId O ID do cliente.
+     * @return As instâncias de {@link Veiculo} encontradas, em ordem crescente de ID.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Veiculo> findByClienteId(Long clienteId) throws SQLException {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_cliente = ? ORDER BY id_veiculo";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.query(lease.get(), sql, stmt -> stmt.setLong(1, clienteId), this::mapRow);
+        }
+    }
+
+    /**
+     * Busca os veículos de vários clientes, em lotes de {@code IN} sobre o índice de {@code id_cliente}.
+     *
+     * @param clienteIds Os IDs dos clientes.
+     * @return As instâncias de {@link Veiculo} encontradas.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public List<Veiculo> findByClienteIds(Collection<Long> clienteIds) throws SQLException {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_cliente IN ";
+        try (ConnectionLease lease = TransactionManager.lease()) {
+            return JdbcTemplate.queryByIds(lease.get(), sql, clienteIds, this::mapRow);
         }
-        return all;
     }
 
     /**
@@ -65,9 +159,7 @@ class VeiculoDaoImpl implements VeiculoDao {
     @Override
     public void deleteById(Long id, Connection connection) throws VeiculoNotFoundException, SQLException {
         final String sql = "DELETE FROM T_VEICULO WHERE id_veiculo = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setLong(1, id);
-        int linhasAlteradas = stmt.executeUpdate();
+        int linhasAlteradas = JdbcTemplate.update(connection, sql, stmt -> stmt.setLong(1, id));
 
         // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Veiculo não foi encontrado.
         if (linhasAlteradas == 0) {
@@ -86,26 +178,24 @@ class VeiculoDaoImpl implements VeiculoDao {
      */
     @Override
     public Veiculo save(Veiculo veiculo, Connection connection) throws SQLException, VeiculoNotSavedException {
-        final String sql = "BEGIN INSERT INTO T_VEICULO(placa, marca, modelo, ano, cor, combustivel, cliente_id) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id_veiculo INTO ?; END;";
-        CallableStatement call = connection.prepareCall(sql);
-        call.setString(1, veiculo.getPlaca());
-        call.setString(2, veiculo.getMarca());
-        call.setString(3, veiculo.getModelo());
-        call.setInt(4, veiculo.getAno());
-        call.setString(5, veiculo.getCor());
-        call.setString(6, veiculo.getCombustivel());
-        call.setLong(7, veiculo.getClienteId());
-        call.registerOutParameter(8, OracleType.NUMBER);
-
-        int linhasAlteradas = call.executeUpdate();
-        long id = call.getLong(8);
+        final String sql = "INSERT INTO T_VEICULO(id_placa, nm_marca, nm_modelo, nr_ano, ds_cor, st_combustivel, id_cliente) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long id = JdbcTemplate.insertReturningId(connection, sql, "id_veiculo", stmt -> {
+            stmt.setString(1, veiculo.getPlaca());
+            stmt.setString(2, veiculo.getMarca());
+            stmt.setString(3, veiculo.getModelo());
+            stmt.setInt(4, veiculo.getAno());
+            stmt.setString(5, veiculo.getCor());
+            stmt.setString(6, veiculo.getCombustivel());
+            stmt.setLong(7, veiculo.getClienteId());
+        });
 
         // Verifica se a inserção foi bem-sucedida. Se não, lança exceção indicando falha ao salvar.
-        if (linhasAlteradas == 0 || id == 0) {
+        if (id == 0) {
             throw new VeiculoNotSavedException("Erro ao salvar o veículo.");
         }
 
         veiculo.setIdVeiculo(id);
+        veiculo.setVersao(0L);
         return veiculo;
     }
 
@@ -116,27 +206,71 @@ class VeiculoDaoImpl implements VeiculoDao {
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link Veiculo} atualizada.
      * @throws VeiculoNotFoundException Se o Veiculo com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     @Override
     public Veiculo update(Veiculo veiculo, Connection connection) throws VeiculoNotFoundException, SQLException {
-        final String sql = "UPDATE T_VEICULO SET placa = ?, marca = ?, modelo = ?, ano = ?, cor = ?, combustivel = ?, cliente_id = ? WHERE id_veiculo = ?";
-        PreparedStatement stmt = connection.prepareStatement(sql);
-        stmt.setString(1, veiculo.getPlaca());
-        stmt.setString(2, veiculo.getMarca());
-        stmt.setString(3, veiculo.getModelo());
-        stmt.setInt(4, veiculo.getAno());
-        stmt.setString(5, veiculo.getCor());
-        stmt.setString(6, veiculo.getCombustivel());
-        stmt.setLong(7, veiculo.getClienteId());
-        stmt.setLong(8, veiculo.getIdVeiculo());
-
-        int linhasAlteradas = stmt.executeUpdate();
+        final String sql = "UPDATE T_VEICULO SET id_placa = ?, nm_marca = ?, nm_modelo = ?, nr_ano = ?, ds_cor = ?, st_combustivel = ?, id_cliente = ?, nr_versao = nr_versao + 1 WHERE id_veiculo = ? AND nr_versao = NVL(?, nr_versao)";
+        OptionalLong versao = JdbcTemplate.updateVersioned(connection, "T_VEICULO", "id_veiculo", veiculo.getIdVeiculo(), veiculo.getVersao(), sql, stmt -> {
+            stmt.setString(1, veiculo.getPlaca());
+            stmt.setString(2, veiculo.getMarca());
+            stmt.setString(3, veiculo.getModelo());
+            stmt.setInt(4, veiculo.getAno());
+            stmt.setString(5, veiculo.getCor());
+            stmt.setString(6, veiculo.getCombustivel());
+            stmt.setLong(7, veiculo.getClienteId());
+            stmt.setLong(8, veiculo.getIdVeiculo());
+            JdbcTemplate.setVersao(stmt, 9, veiculo.getVersao());
+        });
 
-        // Verifica se alguma linha foi alterada. Se não, lança exceção indicando que o Veiculo não foi encontrado.
-        if (linhasAlteradas == 0) {
-            throw new VeiculoNotFoundException("Veiculo com ID " + veiculo.getIdVeiculo() + " não encontrado.");
-        }
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Veiculo não foi encontrado.
+        veiculo.setVersao(versao.orElseThrow(() -> new VeiculoNotFoundException("Veiculo com ID " + veiculo.getIdVeiculo() + " não encontrado.")));
+        return veiculo;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Veiculo existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do Veiculo.
+     * @param campos Os campos alterados, com os nomes do {@code VeiculoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return O Veiculo com todos os campos, depois da alteração.
+     * @throws VeiculoNotFoundException Se o Veiculo com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    @Override
+    public Veiculo patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws VeiculoNotFoundException, SQLException {
+        final String sql = "SELECT * FROM T_VEICULO WHERE id_veiculo = ?";
+        Optional<Veiculo> alterado = PATCH.aplicar(connection, id, campos, versao).isPresent()
+                ? JdbcTemplate.queryForOptional(connection, sql, stmt -> stmt.setLong(1, id), this::mapRow)
+                : Optional.empty();
+
+        // Sem nova versão, o registro não existe: lança exceção indicando que o Veiculo não foi encontrado.
+        return alterado.orElseThrow(() -> new VeiculoNotFoundException("Veiculo com ID " + id + " não encontrado."));
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em uma instância de Veiculo.
+     *
+     * @param rs O resultado posicionado na linha a converter.
+     * @return A instância correspondente à linha.
+     * @throws SQLException Se ocorrer um erro ao ler as colunas.
+     */
+    private Veiculo mapRow(ResultSet rs) throws SQLException {
+        Veiculo veiculo = new Veiculo(
+                rs.getLong("id_veiculo"),
+                rs.getString("id_placa"),
+                rs.getString("nm_marca"),
+                rs.getString("nm_modelo"),
+                rs.getInt("nr_ano"),
+                rs.getString("ds_cor"),
+                rs.getString("st_combustivel"),
+                rs.getLong("id_cliente")
+        );
+        veiculo.setVersao(rs.getLong("nr_versao"));
         return veiculo;
     }
 }
@@ -2,11 +2,17 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.AgendamentoNotFoundException;
 import br.com.fiap.exceptions.AgendamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Agendamento;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade Agendamento.
@@ -24,6 +30,56 @@ public interface AgendamentoDao {
      */
     List<Agendamento> findAll();
 
+    /**
+     * Busca uma página de agendamentos com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Agendamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Agendamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Agendamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca os agendamentos de uma oficina com horário no intervalo {@code [inicio, fim)}.
+     *
+     * @param idOficina O ID da oficina.
+     * @param inicio    O início do intervalo.
+     * @param fim       O fim do intervalo (exclusivo).
+     * @return Os agendamentos encontrados, em ordem de horário.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Agendamento> findByOficinaIdBetween(Long idOficina, Timestamp inicio, Timestamp fim) throws SQLException;
+
+    /**
+     * Percorre todos os agendamentos em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link Agendamento}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<Agendamento> streamAll() throws SQLException;
+
     /**
      * Remove um Agendamento pelo ID no banco de dados.
      *
@@ -52,7 +108,22 @@ public interface AgendamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Agendamento} atualizada.
      * @throws AgendamentoNotFoundException Se o Agendamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Agendamento update(Agendamento agendamento, Connection connection) throws AgendamentoNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Agendamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code AgendamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Agendamento} com todos os campos, depois da alteração.
+     * @throws AgendamentoNotFoundException Se o Agendamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Agendamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws AgendamentoNotFoundException, SQLException;
 }
@@ -2,11 +2,16 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.ClienteNotFoundException;
 import br.com.fiap.exceptions.ClienteNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Cliente;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade Cliente.
@@ -24,6 +29,45 @@ public interface ClienteDao {
      */
     List<Cliente> findAll();
 
+    /**
+     * Busca uma página de clientes com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Cliente> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Cliente> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Cliente> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todos os clientes em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link Cliente}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<Cliente> streamAll() throws SQLException;
+
     /**
      * Remove um Cliente pelo ID no banco de dados.
      *
@@ -52,7 +96,22 @@ public interface ClienteDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Cliente} atualizada.
      * @throws ClienteNotFoundException Se o Cliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Cliente update(Cliente cliente, Connection connection) throws ClienteNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Cliente existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code ClienteDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Cliente} com todos os campos, depois da alteração.
+     * @throws ClienteNotFoundException Se o Cliente com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Cliente patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws ClienteNotFoundException, SQLException;
 }
@@ -1,10 +1,14 @@
 package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.EnderecoNotFoundException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface genérica para operações CRUD no banco de dados para a entidade Endereco.
@@ -27,6 +31,53 @@ public interface EnderecoDao<T, ID> {
      */
     List<T> findAll();
 
+    /**
+     * Busca uma página de registros com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<T> page(ID afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<T> findById(ID id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findAllByIds(Collection<ID> ids) throws SQLException;
+
+    /**
+     * Busca os endereços de um cliente ou de uma oficina, conforme a implementação, usando o índice da
+     * chave estrangeira ({@code id_cliente} ou {@code id_oficina}).
+     *
+     * @param referenciaId O ID do cliente ou da oficina.
+     * @return Os registros encontrados, em ordem crescente de ID; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findByReferenciaId(ID referenciaId) throws SQLException;
+
+    /**
+     * Busca os endereços de vários clientes ou oficinas em listas {@code IN} sobre a chave estrangeira.
+     *
+     * @param referenciaIds Os IDs dos clientes ou das oficinas.
+     * @return Os registros de todos os IDs informados, sem ordem definida.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findByReferenciaIds(Collection<ID> referenciaIds) throws SQLException;
+
     /**
      * Remove uma entidade do tipo {@link T} do banco de dados com base no ID fornecido.
      *
@@ -53,7 +104,21 @@ public interface EnderecoDao<T, ID> {
      * @param entity A entidade com os dados atualizados.
      * @param connection Conexão com o banco de dados.
      * @return A entidade atualizada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     T update(T entity, Connection connection) throws SQLException;
+
+    /**
+     * Altera apenas os campos informados de uma entidade existente do tipo {@link T}, no formato JSON Merge Patch.
+     *
+     * @param id O ID da entidade.
+     * @param campos Os campos alterados, com os nomes do DTO; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A entidade com todos os campos, depois da alteração.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    T patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws SQLException;
 }
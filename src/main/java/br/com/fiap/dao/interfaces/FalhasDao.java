@@ -2,11 +2,16 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.FalhasNotFoundException;
 import br.com.fiap.exceptions.FalhasNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Falhas;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade Falhas.
@@ -24,6 +29,45 @@ public interface FalhasDao {
      */
     List<Falhas> findAll();
 
+    /**
+     * Busca uma página de falhas com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Falhas> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Falhas> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Falhas> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todas as falhas em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link Falhas}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<Falhas> streamAll() throws SQLException;
+
     /**
      * Remove uma Falhas pelo ID no banco de dados.
      *
@@ -45,6 +89,17 @@ public interface FalhasDao {
      */
     Falhas save(Falhas Falhas, Connection connection) throws SQLException, FalhasNotSavedException;
 
+    /**
+     * Salva vários registros de falhas em lote.
+     *
+     * @param falhas As instâncias a serem salvas.
+     * @param connection Conexão com o banco de dados.
+     * @return As instâncias salvas, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws FalhasNotSavedException Se algum registro não puder ser salvo.
+     */
+    List<Falhas> saveAll(List<Falhas> falhas, Connection connection) throws SQLException, FalhasNotSavedException;
+
     /**
      * Atualiza uma Falhas existente no banco de dados.
      *
@@ -52,7 +107,22 @@ public interface FalhasDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Falhas} atualizada.
      * @throws FalhasNotFoundException Se a Falhas com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Falhas update(Falhas Falhas, Connection connection) throws FalhasNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Falhas existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code FalhasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Falhas} com todos os campos, depois da alteração.
+     * @throws FalhasNotFoundException Se a Falhas com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Falhas patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws FalhasNotFoundException, SQLException;
 }
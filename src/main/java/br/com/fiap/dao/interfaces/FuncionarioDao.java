@@ -2,11 +2,15 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.FuncionarioNotFoundException;
 import br.com.fiap.exceptions.FuncionarioNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Funcionario;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface que define as operações CRUD para a entidade Funcionario.
@@ -23,6 +27,43 @@ public interface FuncionarioDao {
      */
     List<Funcionario> findAll();
 
+    /**
+     * Busca uma página de funcionários com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Funcionario> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Funcionario> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Funcionario> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca os funcionários de uma oficina, usando o índice da chave estrangeira {@code id_oficina}.
+     *
+     * @param oficinaId O ID da oficina.
+     * @return Os funcionários da oficina, em ordem crescente de ID; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Funcionario> findByOficinaId(Long oficinaId) throws SQLException;
+
     /**
      * Remove um Funcionario pelo ID no banco de dados.
      *
@@ -51,7 +92,22 @@ public interface FuncionarioDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Funcionario} atualizada.
      * @throws FuncionarioNotFoundException Se o Funcionario com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Funcionario update(Funcionario funcionario, Connection connection) throws FuncionarioNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Funcionario existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code FuncionarioDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Funcionario} com todos os campos, depois da alteração.
+     * @throws FuncionarioNotFoundException Se o Funcionario com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Funcionario patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws FuncionarioNotFoundException, SQLException;
 }
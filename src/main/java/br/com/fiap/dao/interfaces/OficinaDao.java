@@ -3,10 +3,14 @@ package br.com.fiap.dao.interfaces;
 import br.com.fiap.models.Oficina;
 import br.com.fiap.exceptions.OficinaNotFoundException;
 import br.com.fiap.exceptions.OficinaNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface que define as operações CRUD para a entidade Oficina.
@@ -23,6 +27,34 @@ public interface OficinaDao {
      */
     List<Oficina> findAll();
 
+    /**
+     * Busca uma página de oficinas com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Oficina> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Oficina> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Oficina> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Remove uma Oficina pelo ID no banco de dados.
      *
@@ -51,7 +83,22 @@ public interface OficinaDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Oficina} atualizada.
      * @throws OficinaNotFoundException Se a Oficina com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Oficina update(Oficina oficina, Connection connection) throws OficinaNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Oficina existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OficinaDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Oficina} com todos os campos, depois da alteração.
+     * @throws OficinaNotFoundException Se a Oficina com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Oficina patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OficinaNotFoundException, SQLException;
 }
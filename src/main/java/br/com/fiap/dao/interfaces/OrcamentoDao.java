@@ -1,12 +1,17 @@
 package br.com.fiap.dao.interfaces;
 
+import br.com.fiap.dtos.TotalServicoDto;
 import br.com.fiap.exceptions.OrcamentoNotFoundException;
 import br.com.fiap.exceptions.OrcamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Orcamento;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface que define as operações CRUD para a entidade Orcamento.
@@ -24,6 +29,44 @@ public interface OrcamentoDao {
      */
     List<Orcamento> findAll();
 
+    /**
+     * Busca uma página de orçamentos com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Orcamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Orcamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Orcamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Calcula, em uma única consulta agregada, o subtotal de cada serviço do orçamento e das peças usadas nele.
+     *
+     * @param idOrcamento O ID do orçamento.
+     * @return Os subtotais em ordem crescente de ID do serviço (vazia se o orçamento não tiver serviços),
+     *         ou vazio se o orçamento não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<List<TotalServicoDto>> findTotaisPorServico(Long idOrcamento) throws SQLException;
+
     /**
      * Remove um Orcamento pelo ID no banco de dados.
      *
@@ -52,7 +95,22 @@ public interface OrcamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Orcamento} atualizada.
      * @throws OrcamentoNotFoundException Se o Orcamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Orcamento update(Orcamento orcamento, Connection connection) throws OrcamentoNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Orcamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OrcamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Orcamento} com todos os campos, depois da alteração.
+     * @throws OrcamentoNotFoundException Se o Orcamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Orcamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OrcamentoNotFoundException, SQLException;
 }
@@ -1,12 +1,19 @@
 package br.com.fiap.dao.interfaces;
 
+import br.com.fiap.dtos.TempoExecucaoDto;
 import br.com.fiap.exceptions.OrdemDeServicoNotFoundException;
 import br.com.fiap.exceptions.OrdemDeServicoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.OrdemDeServico;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade OrdemDeServico.
@@ -24,6 +31,58 @@ public interface OrdemDeServicoDao {
      */
     List<OrdemDeServico> findAll();
 
+    /**
+     * Busca uma página de ordens de serviço com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<OrdemDeServico> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<OrdemDeServico> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<OrdemDeServico> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todas as ordens de serviço em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link OrdemDeServico}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<OrdemDeServico> streamAll() throws SQLException;
+
+    /**
+     * Percorre os tempos de execução das ordens concluídas no intervalo {@code [de, ate)}, em ordem de data
+     * de conclusão e de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador.</p>
+     *
+     * @param de  A primeira data de conclusão.
+     * @param ate A data de conclusão final (exclusiva).
+     * @return Uma linha por ordem e serviço do orçamento; ordens sem serviços aparecem com tipo nulo.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<TempoExecucaoDto> streamTemposExecucao(Date de, Date ate) throws SQLException;
+
     /**
      * Remove uma OrdemDeServico pelo ID no banco de dados.
      *
@@ -52,7 +111,22 @@ public interface OrdemDeServicoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link OrdemDeServico} atualizada.
      * @throws OrdemDeServicoNotFoundException Se a OrdemDeServico com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     OrdemDeServico update(OrdemDeServico ordemDeServico, Connection connection) throws OrdemDeServicoNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de OrdemDeServico existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OrdemDeServicoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link OrdemDeServico} com todos os campos, depois da alteração.
+     * @throws OrdemDeServicoNotFoundException Se a OrdemDeServico com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    OrdemDeServico patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws OrdemDeServicoNotFoundException, SQLException;
 }
@@ -2,11 +2,15 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.PagamentoNotFoundException;
 import br.com.fiap.exceptions.PagamentoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pagamento;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface que define as operações CRUD para a entidade Pagamento.
@@ -24,6 +28,34 @@ public interface PagamentoDao {
      */
     List<Pagamento> findAll();
 
+    /**
+     * Busca uma página de pagamentos com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Pagamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Pagamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Pagamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Remove um Pagamento pelo ID no banco de dados.
      *
@@ -52,7 +84,22 @@ public interface PagamentoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Pagamento} atualizada.
      * @throws PagamentoNotFoundException Se o Pagamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Pagamento update(Pagamento pagamento, Connection connection) throws PagamentoNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Pagamento existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code PagamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Pagamento} com todos os campos, depois da alteração.
+     * @throws PagamentoNotFoundException Se o Pagamento com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Pagamento patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws PagamentoNotFoundException, SQLException;
 }
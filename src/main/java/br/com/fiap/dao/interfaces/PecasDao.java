@@ -2,11 +2,17 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.PecasNotFoundException;
 import br.com.fiap.exceptions.PecasNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pecas;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade Pecas.
@@ -26,6 +32,45 @@ public interface PecasDao {
      */
     List<Pecas> findAll();
 
+    /**
+     * Busca uma página de peças com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Pecas> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Pecas> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Pecas> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todas as peças em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link Pecas}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<Pecas> streamAll() throws SQLException;
+
     /**
      * Remove uma Peça pelo ID no banco de dados.
      *
@@ -47,6 +92,17 @@ public interface PecasDao {
      */
     Pecas save(Pecas pecas, Connection connection) throws SQLException, PecasNotSavedException;
 
+    /**
+     * Salva vários registros de peças em lote.
+     *
+     * @param pecas As instâncias a serem salvas.
+     * @param connection Conexão com o banco de dados.
+     * @return As instâncias salvas, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws PecasNotSavedException Se algum registro não puder ser salvo.
+     */
+    List<Pecas> saveAll(List<Pecas> pecas, Connection connection) throws SQLException, PecasNotSavedException;
+
     /**
      * Atualiza uma Peça existente no banco de dados.
      *
@@ -54,9 +110,74 @@ public interface PecasDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Pecas} atualizada.
      * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Pecas update(Pecas pecas, Connection connection) throws PecasNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Pecas existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code PecasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Pecas} com todos os campos, depois da alteração.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Pecas patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws PecasNotFoundException, SQLException;
+
+    /**
+     * Lê a quantidade reservada de uma Peça, travando a linha até o fim da transação.
+     *
+     * <p>Usado antes de alterar a quantidade da peça: com a linha travada, nenhuma reserva concorrente passa entre a
+     * verificação e a escrita.</p>
+     *
+     * @param id         O ID da Peça.
+     * @param connection Conexão com o banco de dados.
+     * @return A quantidade reservada, ou vazio se a peça não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    OptionalInt travarReservada(Long id, Connection connection) throws SQLException;
 
+    /**
+     * Reserva unidades livres (quantidade menos reservada) de uma Peça.
+     *
+     * <p>As operações de estoque são UPDATEs condicionais únicos: a verificação e a alteração acontecem na mesma
+     * instrução, então escritas concorrentes sobre a mesma peça nunca se sobrescrevem.</p>
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a reservar.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se a reserva foi feita; {@code false} se não há unidades livres suficientes.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    boolean reservar(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException;
+
+    /**
+     * Libera unidades reservadas de uma Peça, sem alterar a quantidade.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a liberar.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se a reserva foi liberada; {@code false} se a quantidade reservada é menor.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    boolean liberar(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException;
+
+    /**
+     * Consome unidades reservadas de uma Peça, baixando a quantidade e a reserva.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a consumir.
+     * @param connection Conexão com o banco de dados.
+     * @return {@code true} se as unidades foram consumidas; {@code false} se a quantidade reservada é menor.
+     * @throws PecasNotFoundException Se a Peça com o ID fornecido não for encontrada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    boolean consumir(Long id, int quantidade, Connection connection) throws PecasNotFoundException, SQLException;
 }
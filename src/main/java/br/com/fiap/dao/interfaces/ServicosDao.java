@@ -2,11 +2,15 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.ServicosNotFoundException;
 import br.com.fiap.exceptions.ServicosNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Servicos;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface que define as operações CRUD para a entidade Servicos.
@@ -27,6 +31,34 @@ public interface ServicosDao {
      */
     List<Servicos> findAll() ;
 
+    /**
+     * Busca uma página de serviços com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Servicos> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Servicos> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Servicos> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Remove um Servicos pelo ID no banco de dados.
      *
@@ -48,6 +80,17 @@ public interface ServicosDao {
      */
     Servicos save(Servicos servicos, Connection connection) throws SQLException, ServicosNotSavedException;
 
+    /**
+     * Salva vários registros de serviços em lote.
+     *
+     * @param servicos As instâncias a serem salvas.
+     * @param connection Conexão com o banco de dados.
+     * @return As instâncias salvas, com os IDs gerados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     * @throws ServicosNotSavedException Se algum registro não puder ser salvo.
+     */
+    List<Servicos> saveAll(List<Servicos> servicos, Connection connection) throws SQLException, ServicosNotSavedException;
+
     /**
      * Atualiza um Servicos existente no banco de dados.
      *
@@ -55,7 +98,22 @@ public interface ServicosDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Servicos} atualizada.
      * @throws ServicosNotFoundException Se o Servicos com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Servicos update(Servicos servicos, Connection connection) throws ServicosNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Servicos existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code ServicosDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Servicos} com todos os campos, depois da alteração.
+     * @throws ServicosNotFoundException Se o Servicos com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Servicos patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws ServicosNotFoundException, SQLException;
 }
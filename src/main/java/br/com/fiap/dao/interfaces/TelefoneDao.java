@@ -1,8 +1,13 @@
 package br.com.fiap.dao.interfaces;
 
+import br.com.fiap.exceptions.VersaoConflitanteException;
+
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface genérica para operações de CRUD na entidade Telefone.
@@ -24,6 +29,53 @@ public interface TelefoneDao<T, ID> {
      */
     List<T> findAll();
 
+    /**
+     * Busca uma página de registros com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<T> page(ID afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<T> findById(ID id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findAllByIds(Collection<ID> ids) throws SQLException;
+
+    /**
+     * Busca os telefones de um cliente ou de uma oficina, conforme a implementação, usando o índice da
+     * chave estrangeira ({@code id_cliente} ou {@code id_oficina}).
+     *
+     * @param referenciaId O ID do cliente ou da oficina.
+     * @return Os registros encontrados, em ordem crescente de ID; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findByReferenciaId(ID referenciaId) throws SQLException;
+
+    /**
+     * Busca os telefones de vários clientes ou oficinas em listas {@code IN} sobre a chave estrangeira.
+     *
+     * @param referenciaIds Os IDs dos clientes ou das oficinas.
+     * @return Os registros de todos os IDs informados, sem ordem definida.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<T> findByReferenciaIds(Collection<ID> referenciaIds) throws SQLException;
+
     /**
      * Exclui um registro de telefone no banco de dados com base no identificador fornecido.
      *
@@ -49,7 +101,21 @@ public interface TelefoneDao<T, ID> {
      * @param telefone   A entidade de telefone com os dados atualizados.
      * @param connection A conexão com o banco de dados a ser utilizada para a operação.
      * @return A instância de {@link T} (Telefone) atualizada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro durante a operação de atualização.
      */
     T update(T telefone, Connection connection) throws SQLException;
+
+    /**
+     * Altera apenas os campos informados de uma entidade existente do tipo {@link T}, no formato JSON Merge Patch.
+     *
+     * @param id O ID da entidade.
+     * @param campos Os campos alterados, com os nomes do DTO; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A entidade com todos os campos, depois da alteração.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    T patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws SQLException;
 }
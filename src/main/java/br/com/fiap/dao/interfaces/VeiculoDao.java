@@ -2,11 +2,16 @@ package br.com.fiap.dao.interfaces;
 
 import br.com.fiap.exceptions.VeiculoNotFoundException;
 import br.com.fiap.exceptions.VeiculoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Veiculo;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define as operações CRUD para a entidade Veiculo.
@@ -23,6 +28,63 @@ public interface VeiculoDao {
      */
     List<Veiculo> findAll();
 
+    /**
+     * Busca uma página de veículos com ID maior que {@code afterId}, em ordem crescente de ID
+     * (paginação por cursor sobre a chave primária).
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros a retornar.
+     * @return Lista com os registros da página.
+     */
+    List<Veiculo> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pela chave primária.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Optional<Veiculo> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados em poucas idas ao banco.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Veiculo> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todos os veículos em ordem crescente de ID, lendo as linhas sob demanda.
+     *
+     * <p>O {@link Stream} mantém uma conexão do pool aberta e deve ser fechado pelo chamador,
+     * de preferência com try-with-resources.</p>
+     *
+     * @return As instâncias de {@link Veiculo}, a serem consumidas uma a uma.
+     * @throws SQLException Se ocorrer um erro ao executar a consulta.
+     */
+    Stream<Veiculo> streamAll() throws SQLException;
+
+    /**
+     * Busca os veículos de um cliente, usando o índice da chave estrangeira {@code id_cliente}.
+     *
+     * @param clienteId O ID do cliente.
+     * @return Os veículos do cliente, em ordem crescente de ID; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Veiculo> findByClienteId(Long clienteId) throws SQLException;
+
+    /**
+     * Busca os veículos de vários clientes em listas {@code IN} sobre a chave estrangeira {@code id_cliente}.
+     *
+     * @param clienteIds Os IDs dos clientes.
+     * @return Os veículos de todos os clientes informados, sem ordem definida.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    List<Veiculo> findByClienteIds(Collection<Long> clienteIds) throws SQLException;
+
     /**
      * Remove um Veiculo pelo ID no banco de dados.
      *
@@ -51,7 +113,22 @@ public interface VeiculoDao {
      * @param connection Conexão com o banco de dados.
      * @return A instância de {@link Veiculo} atualizada.
      * @throws VeiculoNotFoundException Se o Veiculo com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
      */
     Veiculo update(Veiculo veiculo, Connection connection) throws VeiculoNotFoundException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Veiculo existente, no formato JSON Merge Patch.
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code VeiculoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @param connection Conexão com o banco de dados.
+     * @return A instância de {@link Veiculo} com todos os campos, depois da alteração.
+     * @throws VeiculoNotFoundException Se o Veiculo com o ID fornecido não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro ao acessar o banco de dados.
+     */
+    Veiculo patch(Long id, Map<String, Object> campos, Long versao, Connection connection) throws VeiculoNotFoundException, SQLException;
 }
@@ -18,6 +18,9 @@ public class AgendamentoDto {
     // Identificador único do agendamento, utilizado para operações de atualização e deleção.
     private Long idAgendamento;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Data do agendamento.
     private Date dataAgendamento;
 
@@ -55,6 +58,24 @@ public class AgendamentoDto {
         this.idAgendamento = idAgendamento;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a data do agendamento.
      *
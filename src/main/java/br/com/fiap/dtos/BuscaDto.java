@@ -0,0 +1,65 @@
+package br.com.fiap.dtos;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) para uma página de resultados de busca, em ordem de relevância.
+ *
+ * <p>Como a ordem não é a do ID, a paginação é por posição: {@code nextOffset} deve ser enviado como
+ * {@code offset} na próxima requisição. Quando é {@code null}, não há mais resultados.</p>
+ *
+ * @param <T> O tipo dos itens da página.
+ * @since 1.1
+ * @version 1.0
+ */
+public class BuscaDto<T> {
+
+    private List<T> items;      // Itens da página, do mais para o menos relevante
+    private long total;         // Quantidade de resultados da busca, em todas as páginas
+    private Integer nextOffset; // Posição da próxima página, ou null se não houver
+
+    /**
+     * Construtor padrão.
+     */
+    public BuscaDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do BuscaDto.
+     *
+     * @param items      Os itens da página.
+     * @param total      A quantidade total de resultados.
+     * @param nextOffset A posição da próxima página, ou {@code null} se esta for a última.
+     */
+    public BuscaDto(List<T> items, long total, Integer nextOffset) {
+        this.items = items;
+        this.total = total;
+        this.nextOffset = nextOffset;
+    }
+
+    // Getters e Setters
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Integer getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(Integer nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+}
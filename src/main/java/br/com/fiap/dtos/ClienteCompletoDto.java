@@ -0,0 +1,120 @@
+package br.com.fiap.dtos;
+
+import br.com.fiap.models.Cliente;
+import br.com.fiap.models.Endereco;
+import br.com.fiap.models.Telefone;
+import br.com.fiap.models.Veiculo;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) com um cliente e todos os registros que pertencem a ele.
+ *
+ * <p>Reúne em uma única resposta os dados do cliente, seus telefones, endereços e veículos, que de outra
+ * forma exigiriam uma chamada para cada tabela.</p>
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class ClienteCompletoDto {
+
+    private Long idCliente;              // Identificador único do cliente
+    private String cpf;                  // CPF do cliente
+    private String nome;                 // Nome do cliente
+    private String email;                // Email do cliente
+    private char sexo;                   // Sexo do cliente ('M' ou 'F')
+    private List<Telefone> telefones;    // Telefones do cliente, em ordem crescente de ID
+    private List<Endereco> enderecos;    // Endereços do cliente, em ordem crescente de ID
+    private List<Veiculo> veiculos;      // Veículos do cliente, em ordem crescente de ID
+
+    /**
+     * Construtor padrão.
+     */
+    public ClienteCompletoDto() {
+    }
+
+    /**
+     * Construtor que copia os dados do cliente e recebe as listas de registros associados.
+     *
+     * @param cliente   O cliente.
+     * @param telefones Os telefones do cliente.
+     * @param enderecos Os endereços do cliente.
+     * @param veiculos  Os veículos do cliente.
+     */
+    public ClienteCompletoDto(Cliente cliente, List<Telefone> telefones, List<Endereco> enderecos, List<Veiculo> veiculos) {
+        this.idCliente = cliente.getIdCliente();
+        this.cpf = cliente.getCpf();
+        this.nome = cliente.getNome();
+        this.email = cliente.getEmail();
+        this.sexo = cliente.getSexo();
+        this.telefones = telefones;
+        this.enderecos = enderecos;
+        this.veiculos = veiculos;
+    }
+
+    // Getters e Setters
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public String getCpf() {
+        return cpf;
+    }
+
+    public void setCpf(String cpf) {
+        this.cpf = cpf;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public char getSexo() {
+        return sexo;
+    }
+
+    public void setSexo(char sexo) {
+        this.sexo = sexo;
+    }
+
+    public List<Telefone> getTelefones() {
+        return telefones;
+    }
+
+    public void setTelefones(List<Telefone> telefones) {
+        this.telefones = telefones;
+    }
+
+    public List<Endereco> getEnderecos() {
+        return enderecos;
+    }
+
+    public void setEnderecos(List<Endereco> enderecos) {
+        this.enderecos = enderecos;
+    }
+
+    public List<Veiculo> getVeiculos() {
+        return veiculos;
+    }
+
+    public void setVeiculos(List<Veiculo> veiculos) {
+        this.veiculos = veiculos;
+    }
+}
@@ -19,6 +19,9 @@ public class ClienteDto {
     // Identificador único do cliente, utilizado para operações de atualização e deleção.
     private Long idCliente;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // CPF do cliente, utilizado em operações de identificação.
     private String cpf;
 
@@ -56,6 +59,24 @@ public class ClienteDto {
         this.idCliente = idCliente;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o CPF do cliente.
      *
@@ -12,6 +12,7 @@ package br.com.fiap.dtos;
 public class EnderecoDto {
 
     private Long idEndereco;      // ID do endereço
+    private Long versao;          // Versão lida; na atualização, a versão esperada
     private String logradouro;    // Nome da rua ou avenida
     private int numero;           // Número do endereço
     private String cep;           // Código postal (CEP)
@@ -59,6 +60,14 @@ public class EnderecoDto {
         this.idEndereco = idEndereco;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public String getLogradouro() {
         return logradouro;
     }
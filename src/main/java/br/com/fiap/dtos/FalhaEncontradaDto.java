@@ -0,0 +1,100 @@
+package br.com.fiap.dtos;
+
+import br.com.fiap.models.Falhas;
+
+/**
+ * Data Transfer Object (DTO) para uma falha encontrada pela busca textual, com a sua relevância.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class FalhaEncontradaDto {
+
+    private Long idFalha;            // ID da falha
+    private String descricaoFalha;   // Descrição da falha
+    private String descricaoSolucao; // Descrição da solução
+    private Long idOrcamento;        // ID do orçamento
+    private Long idVeiculo;          // ID do veículo
+    private String gravidade;        // Gravidade da falha
+    private double relevancia;       // Pontuação da falha para a busca; maior é mais relevante
+
+    /**
+     * Construtor padrão.
+     */
+    public FalhaEncontradaDto() {
+    }
+
+    /**
+     * Construtor que copia os dados da falha encontrada.
+     *
+     * @param falha      A falha.
+     * @param relevancia A pontuação da falha para a busca.
+     */
+    public FalhaEncontradaDto(Falhas falha, double relevancia) {
+        this.idFalha = falha.getIdFalha();
+        this.descricaoFalha = falha.getDescricaoFalha();
+        this.descricaoSolucao = falha.getDescricaoSolucao();
+        this.idOrcamento = falha.getIdOrcamento();
+        this.idVeiculo = falha.getIdVeiculo();
+        this.gravidade = falha.getGravidade();
+        this.relevancia = relevancia;
+    }
+
+    // Getters e Setters
+
+    public Long getIdFalha() {
+        return idFalha;
+    }
+
+    public void setIdFalha(Long idFalha) {
+        this.idFalha = idFalha;
+    }
+
+    public String getDescricaoFalha() {
+        return descricaoFalha;
+    }
+
+    public void setDescricaoFalha(String descricaoFalha) {
+        this.descricaoFalha = descricaoFalha;
+    }
+
+    public String getDescricaoSolucao() {
+        return descricaoSolucao;
+    }
+
+    public void setDescricaoSolucao(String descricaoSolucao) {
+        this.descricaoSolucao = descricaoSolucao;
+    }
+
+    public Long getIdOrcamento() {
+        return idOrcamento;
+    }
+
+    public void setIdOrcamento(Long idOrcamento) {
+        this.idOrcamento = idOrcamento;
+    }
+
+    public Long getIdVeiculo() {
+        return idVeiculo;
+    }
+
+    public void setIdVeiculo(Long idVeiculo) {
+        this.idVeiculo = idVeiculo;
+    }
+
+    public String getGravidade() {
+        return gravidade;
+    }
+
+    public void setGravidade(String gravidade) {
+        this.gravidade = gravidade;
+    }
+
+    public double getRelevancia() {
+        return relevancia;
+    }
+
+    public void setRelevancia(double relevancia) {
+        this.relevancia = relevancia;
+    }
+}
@@ -15,6 +15,9 @@ public class FalhasDto {
     // Identificador único da Falha, utilizado para operações de atualização e deleção.
     private Long idFalha;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Descrição da Falha detectada.
     private String descricaoFalha;
 
@@ -52,6 +55,24 @@ public class FalhasDto {
         this.idFalha = idFalha;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a descrição da Falhas detectada.
      *
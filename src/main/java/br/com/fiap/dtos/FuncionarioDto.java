@@ -15,6 +15,9 @@ public class FuncionarioDto {
     // Identificador único do funcionário, utilizado para operações de atualização e deleção.
     private Long idFuncionario;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // CPF do funcionário, utilizado em operações de identificação.
     private String cpf;
 
@@ -52,6 +55,24 @@ public class FuncionarioDto {
         this.idFuncionario = idFuncionario;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o CPF do funcionário.
      *
@@ -15,6 +15,9 @@ public class OficinaDto {
     // Identificador único da oficina, utilizado para operações de atualização e deleção.
     private Long idOficina;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // CNPJ da oficina, utilizado em operações de identificação.
     private String cnpj;
 
@@ -52,6 +55,24 @@ public class OficinaDto {
         this.idOficina = idOficina;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o CNPJ da oficina.
      *
@@ -15,6 +15,9 @@ public class OrcamentoDto {
     // Identificador único do orçamento, utilizado para operações de atualização e deleção.
     private Long idOrcamento;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Valor total do orçamento.
     private double valorOrcamento;
 
@@ -55,6 +58,24 @@ public class OrcamentoDto {
         this.idOrcamento = idOrcamento;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o valor total do orçamento.
      *
@@ -0,0 +1,85 @@
+package br.com.fiap.dtos;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) com os totais de um orçamento, calculados a partir dos serviços e das peças.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class OrcamentoTotaisDto {
+
+    private Long idOrcamento;              // Identificador do orçamento
+    private List<TotalServicoDto> servicos; // Subtotais por serviço, em ordem crescente de ID
+    private BigDecimal valorServicos;      // Soma dos custos dos serviços
+    private BigDecimal valorPecas;         // Soma dos valores das peças
+    private BigDecimal valorTotal;         // Serviços mais peças
+
+    /**
+     * Construtor padrão.
+     */
+    public OrcamentoTotaisDto() {
+    }
+
+    /**
+     * Monta os totais do orçamento somando os subtotais de cada serviço.
+     *
+     * @param idOrcamento O ID do orçamento.
+     * @param servicos    Os subtotais por serviço.
+     */
+    public OrcamentoTotaisDto(Long idOrcamento, List<TotalServicoDto> servicos) {
+        this.idOrcamento = idOrcamento;
+        this.servicos = servicos;
+        this.valorServicos = BigDecimal.ZERO;
+        this.valorPecas = BigDecimal.ZERO;
+        for (TotalServicoDto servico : servicos) {
+            this.valorServicos = this.valorServicos.add(servico.getValorServico());
+            this.valorPecas = this.valorPecas.add(servico.getValorPecas());
+        }
+        this.valorTotal = this.valorServicos.add(this.valorPecas);
+    }
+
+    // Getters e Setters
+
+    public Long getIdOrcamento() {
+        return idOrcamento;
+    }
+
+    public void setIdOrcamento(Long idOrcamento) {
+        this.idOrcamento = idOrcamento;
+    }
+
+    public List<TotalServicoDto> getServicos() {
+        return servicos;
+    }
+
+    public void setServicos(List<TotalServicoDto> servicos) {
+        this.servicos = servicos;
+    }
+
+    public BigDecimal getValorServicos() {
+        return valorServicos;
+    }
+
+    public void setValorServicos(BigDecimal valorServicos) {
+        this.valorServicos = valorServicos;
+    }
+
+    public BigDecimal getValorPecas() {
+        return valorPecas;
+    }
+
+    public void setValorPecas(BigDecimal valorPecas) {
+        this.valorPecas = valorPecas;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    public void setValorTotal(BigDecimal valorTotal) {
+        this.valorTotal = valorTotal;
+    }
+}
@@ -18,6 +18,9 @@ public class OrdemDeServicoDto {
     // Identificador único da ordem de serviço
     private Long idOs;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Status da ordem de serviço (e.g., "Aberto", "Concluído")
     private String status;
 
@@ -64,6 +67,24 @@ public class OrdemDeServicoDto {
         this.idOs = idOs;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o status da ordem de serviço.
      *
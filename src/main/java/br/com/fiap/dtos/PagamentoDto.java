@@ -15,6 +15,9 @@ public class PagamentoDto {
     // Identificador único do pagamento, utilizado para operações de atualização e deleção.
     private Long idPagamento;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Forma de pagamento (ex: crédito, débito).
     private String formaPagamento;
 
@@ -49,6 +52,24 @@ public class PagamentoDto {
         this.idPagamento = idPagamento;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a forma de pagamento.
      *
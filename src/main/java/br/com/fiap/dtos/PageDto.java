@@ -0,0 +1,98 @@
+package br.com.fiap.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Data Transfer Object (DTO) para uma página de resultados paginados por cursor (keyset).
+ *
+ * <p>{@code nextCursor} é o ID do último item da página e deve ser enviado como {@code after}
+ * na próxima requisição. Quando é {@code null}, não há mais itens a buscar.</p>
+ *
+ * @param <T> O tipo dos itens da página.
+ * @since 1.1
+ * @version 1.0
+ */
+public class PageDto<T> {
+
+    /**
+     * Quantidade de itens por página quando o cliente não informa {@code limit}.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Quantidade máxima de itens por página.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> items;     // Itens da página, em ordem crescente de ID
+    private Long nextCursor;   // ID a partir do qual buscar a próxima página, ou null se não houver
+
+    /**
+     * Construtor padrão.
+     */
+    public PageDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do PageDto.
+     *
+     * @param items      Os itens da página.
+     * @param nextCursor O cursor da próxima página, ou {@code null} se esta for a última.
+     */
+    public PageDto(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Monta uma página a partir de uma consulta que buscou até {@code limit + 1} linhas.
+     *
+     * <p>A linha excedente só indica que existe uma próxima página; ela é descartada e o cursor
+     * passa a ser o ID do último item mantido.</p>
+     *
+     * @param rows  As linhas retornadas pelo DAO, em ordem crescente de ID.
+     * @param limit O tamanho da página.
+     * @param idOf  Função que extrai o ID de um item.
+     * @param <T>   O tipo dos itens.
+     * @return A página montada.
+     */
+    public static <T> PageDto<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new PageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageDto<>(items, idOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Normaliza o tamanho de página pedido pelo cliente.
+     *
+     * @param limit O tamanho pedido, ou {@code null}.
+     * @return {@link #DEFAULT_LIMIT} se não informado; no máximo {@link #MAX_LIMIT}.
+     */
+    public static int limitOf(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // Getters e Setters
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -15,6 +15,9 @@ public class PecasDto {
     // Identificador único da peça, utilizado para operações de atualização e deleção.
     private Long idPeca;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Marca da peça.
     private String marca;
 
@@ -55,6 +58,24 @@ public class PecasDto {
         this.idPeca = idPeca;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a marca da peça.
      *
@@ -0,0 +1,94 @@
+package br.com.fiap.dtos;
+
+/**
+ * Data Transfer Object (DTO) para os percentis do tempo de execução das ordens de serviço de um grupo.
+ *
+ * <p>Os percentis são estimados com erro relativo limitado (1% por padrão) e expressos em minutos.</p>
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class PercentisDto {
+
+    private String dimensao;  // Dimensão do agrupamento: geral, oficina, funcionario ou servico
+    private String chave;     // Valor da dimensão: ID da oficina ou do funcionário, ou tipo de serviço
+    private long quantidade;  // Quantidade de ordens no grupo
+    private double p50;       // Mediana, em minutos
+    private double p90;       // Percentil 90, em minutos
+    private double p99;       // Percentil 99, em minutos
+
+    /**
+     * Construtor padrão.
+     */
+    public PercentisDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do PercentisDto.
+     *
+     * @param dimensao   A dimensão do agrupamento.
+     * @param chave      O valor da dimensão.
+     * @param quantidade A quantidade de ordens.
+     * @param p50        A mediana.
+     * @param p90        O percentil 90.
+     * @param p99        O percentil 99.
+     */
+    public PercentisDto(String dimensao, String chave, long quantidade, double p50, double p90, double p99) {
+        this.dimensao = dimensao;
+        this.chave = chave;
+        this.quantidade = quantidade;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    // Getters e Setters
+
+    public String getDimensao() {
+        return dimensao;
+    }
+
+    public void setDimensao(String dimensao) {
+        this.dimensao = dimensao;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public void setChave(String chave) {
+        this.chave = chave;
+    }
+
+    public long getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(long quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public void setP50(double p50) {
+        this.p50 = p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public void setP90(double p90) {
+        this.p90 = p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public void setP99(double p99) {
+        this.p99 = p99;
+    }
+}
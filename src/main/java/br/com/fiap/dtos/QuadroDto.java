@@ -0,0 +1,65 @@
+package br.com.fiap.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) para o resumo do quadro de ordens de serviço.
+ *
+ * <p>{@code sequencia} é a sequência da última mudança incluída no resumo; os eventos do feed com sequência maior
+ * ainda devem ser aplicados sobre ele.</p>
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class QuadroDto {
+
+    private Map<String, Integer> totaisPorStatus; // Quantidade de ordens por status
+    private List<QuadroItemDto> itens;            // Quantidade por status, oficina e funcionário
+    private long sequencia;                       // Sequência da última mudança incluída
+
+    /**
+     * Construtor padrão.
+     */
+    public QuadroDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do QuadroDto.
+     *
+     * @param totaisPorStatus A quantidade de ordens por status.
+     * @param itens           As células não vazias do quadro.
+     * @param sequencia       A sequência da última mudança incluída.
+     */
+    public QuadroDto(Map<String, Integer> totaisPorStatus, List<QuadroItemDto> itens, long sequencia) {
+        this.totaisPorStatus = totaisPorStatus;
+        this.itens = itens;
+        this.sequencia = sequencia;
+    }
+
+    // Getters e Setters
+
+    public Map<String, Integer> getTotaisPorStatus() {
+        return totaisPorStatus;
+    }
+
+    public void setTotaisPorStatus(Map<String, Integer> totaisPorStatus) {
+        this.totaisPorStatus = totaisPorStatus;
+    }
+
+    public List<QuadroItemDto> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<QuadroItemDto> itens) {
+        this.itens = itens;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public void setSequencia(long sequencia) {
+        this.sequencia = sequencia;
+    }
+}
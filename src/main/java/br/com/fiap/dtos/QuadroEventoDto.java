@@ -0,0 +1,97 @@
+package br.com.fiap.dtos;
+
+/**
+ * Data Transfer Object (DTO) para uma mudança no quadro de ordens de serviço, enviada aos clientes do feed.
+ *
+ * <p>{@code statusAnterior} é {@code null} para uma ordem que acabou de entrar no quadro, e {@code status}
+ * é {@code null} para uma ordem excluída. {@code sequencia} cresce a cada mudança e é comparável à
+ * {@link QuadroDto#getSequencia() sequência do resumo}: um evento com sequência menor ou igual à do resumo já está
+ * contado nele.</p>
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class QuadroEventoDto {
+
+    private long sequencia;        // Posição da mudança na sequência do quadro
+    private Long idOs;             // ID da ordem de serviço
+    private String statusAnterior; // Status antes da mudança
+    private String status;         // Status depois da mudança
+    private Long idOficina;        // Oficina do funcionário responsável
+    private Long idFuncionario;    // Funcionário responsável
+
+    /**
+     * Construtor padrão.
+     */
+    public QuadroEventoDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do QuadroEventoDto.
+     *
+     * @param sequencia      A posição da mudança na sequência do quadro.
+     * @param idOs           O ID da ordem de serviço.
+     * @param statusAnterior O status antes da mudança.
+     * @param status         O status depois da mudança.
+     * @param idOficina      O ID da oficina.
+     * @param idFuncionario  O ID do funcionário.
+     */
+    public QuadroEventoDto(long sequencia, Long idOs, String statusAnterior, String status, Long idOficina, Long idFuncionario) {
+        this.sequencia = sequencia;
+        this.idOs = idOs;
+        this.statusAnterior = statusAnterior;
+        this.status = status;
+        this.idOficina = idOficina;
+        this.idFuncionario = idFuncionario;
+    }
+
+    // Getters e Setters
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public void setSequencia(long sequencia) {
+        this.sequencia = sequencia;
+    }
+
+    public Long getIdOs() {
+        return idOs;
+    }
+
+    public void setIdOs(Long idOs) {
+        this.idOs = idOs;
+    }
+
+    public String getStatusAnterior() {
+        return statusAnterior;
+    }
+
+    public void setStatusAnterior(String statusAnterior) {
+        this.statusAnterior = statusAnterior;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getIdOficina() {
+        return idOficina;
+    }
+
+    public void setIdOficina(Long idOficina) {
+        this.idOficina = idOficina;
+    }
+
+    public Long getIdFuncionario() {
+        return idFuncionario;
+    }
+
+    public void setIdFuncionario(Long idFuncionario) {
+        this.idFuncionario = idFuncionario;
+    }
+}
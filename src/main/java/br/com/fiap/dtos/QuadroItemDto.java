@@ -0,0 +1,71 @@
+package br.com.fiap.dtos;
+
+/**
+ * Data Transfer Object (DTO) para uma célula do quadro de ordens de serviço: quantas ordens de um status
+ * estão com um funcionário de uma oficina.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class QuadroItemDto {
+
+    private String status;      // Status das ordens
+    private Long idOficina;     // Oficina do funcionário, ou null se desconhecida
+    private Long idFuncionario; // Funcionário responsável, ou null se não atribuído
+    private int quantidade;     // Quantidade de ordens nesta célula
+
+    /**
+     * Construtor padrão.
+     */
+    public QuadroItemDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do QuadroItemDto.
+     *
+     * @param status        O status das ordens.
+     * @param idOficina     O ID da oficina.
+     * @param idFuncionario O ID do funcionário.
+     * @param quantidade    A quantidade de ordens.
+     */
+    public QuadroItemDto(String status, Long idOficina, Long idFuncionario, int quantidade) {
+        this.status = status;
+        this.idOficina = idOficina;
+        this.idFuncionario = idFuncionario;
+        this.quantidade = quantidade;
+    }
+
+    // Getters e Setters
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getIdOficina() {
+        return idOficina;
+    }
+
+    public void setIdOficina(Long idOficina) {
+        this.idOficina = idOficina;
+    }
+
+    public Long getIdFuncionario() {
+        return idFuncionario;
+    }
+
+    public void setIdFuncionario(Long idFuncionario) {
+        this.idFuncionario = idFuncionario;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(int quantidade) {
+        this.quantidade = quantidade;
+    }
+}
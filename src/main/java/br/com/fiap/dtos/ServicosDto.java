@@ -15,6 +15,7 @@ import java.sql.Timestamp;
 public class ServicosDto {
 
     private Long idServico;         // Identificador único do serviço
+    private Long versao;            // Versão lida; na atualização, a versão esperada
     private String tipoServico;     // Tipo do serviço (ex: Mecânico, Elétrico)
     private String descricao;       // Descrição detalhada do serviço
     private double valorServico;    // Valor do serviço
@@ -71,6 +72,24 @@ public class ServicosDto {
         this.idServico = idServico;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o tipo do serviço.
      *
@@ -0,0 +1,50 @@
+package br.com.fiap.dtos;
+
+import java.sql.Timestamp;
+
+/**
+ * Data Transfer Object (DTO) para um horário livre na agenda de uma oficina.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class SlotDto {
+
+    private Timestamp inicio; // Início do horário
+    private Timestamp fim;    // Fim do horário (exclusivo)
+
+    /**
+     * Construtor padrão.
+     */
+    public SlotDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do SlotDto.
+     *
+     * @param inicio O início do horário.
+     * @param fim    O fim do horário.
+     */
+    public SlotDto(Timestamp inicio, Timestamp fim) {
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    // Getters e Setters
+
+    public Timestamp getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(Timestamp inicio) {
+        this.inicio = inicio;
+    }
+
+    public Timestamp getFim() {
+        return fim;
+    }
+
+    public void setFim(Timestamp fim) {
+        this.fim = fim;
+    }
+}
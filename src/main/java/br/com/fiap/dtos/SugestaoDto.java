@@ -0,0 +1,105 @@
+package br.com.fiap.dtos;
+
+import br.com.fiap.models.Cliente;
+import br.com.fiap.models.Veiculo;
+
+/**
+ * Data Transfer Object (DTO) para uma sugestão da busca do balcão: um cliente encontrado pelo CPF ou pelo nome,
+ * ou um veículo encontrado pela placa, com o seu dono.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class SugestaoDto {
+
+    private String tipo;       // Campo que casou com o texto digitado: "cpf", "nome" ou "placa"
+    private Long idCliente;    // ID do cliente
+    private String nome;       // Nome do cliente, se carregado
+    private String cpf;        // CPF do cliente, se carregado
+    private Long idVeiculo;    // ID do veículo, nas sugestões por placa
+    private String placa;      // Placa do veículo, nas sugestões por placa
+
+    /**
+     * Construtor padrão.
+     */
+    public SugestaoDto() {
+    }
+
+    /**
+     * Construtor para um cliente encontrado pelo CPF ou pelo nome.
+     *
+     * @param tipo    O campo que casou com o texto digitado.
+     * @param cliente O cliente.
+     */
+    public SugestaoDto(String tipo, Cliente cliente) {
+        this.tipo = tipo;
+        this.idCliente = cliente.getIdCliente();
+        this.nome = cliente.getNome();
+        this.cpf = cliente.getCpf();
+    }
+
+    /**
+     * Construtor para um veículo encontrado pela placa.
+     *
+     * @param veiculo O veículo.
+     * @param dono    O dono do veículo, ou {@code null} se não tiver sido encontrado.
+     */
+    public SugestaoDto(Veiculo veiculo, Cliente dono) {
+        this.tipo = "placa";
+        this.idCliente = veiculo.getClienteId();
+        this.nome = dono == null ? null : dono.getNome();
+        this.cpf = dono == null ? null : dono.getCpf();
+        this.idVeiculo = veiculo.getIdVeiculo();
+        this.placa = veiculo.getPlaca();
+    }
+
+    // Getters e Setters
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getCpf() {
+        return cpf;
+    }
+
+    public void setCpf(String cpf) {
+        this.cpf = cpf;
+    }
+
+    public Long getIdVeiculo() {
+        return idVeiculo;
+    }
+
+    public void setIdVeiculo(Long idVeiculo) {
+        this.idVeiculo = idVeiculo;
+    }
+
+    public String getPlaca() {
+        return placa;
+    }
+
+    public void setPlaca(String placa) {
+        this.placa = placa;
+    }
+}
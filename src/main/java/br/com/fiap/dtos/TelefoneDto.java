@@ -12,6 +12,7 @@ package br.com.fiap.dtos;
 public class TelefoneDto {
 
     private Long idTelefone;   // ID do telefone
+    private Long versao;       // Versão lida; na atualização, a versão esperada
     private String numero;     // Número do telefone
     private String tipo;       // Tipo do telefone (Residencial, Comercial, Celular)
     private int idReferencia;  // ID da entidade associada ao telefone (Cliente, Oficina, etc.)
@@ -47,6 +48,14 @@ public class TelefoneDto {
         this.idTelefone = idTelefone;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public String getNumero() {
         return numero;
     }
@@ -0,0 +1,97 @@
+package br.com.fiap.dtos;
+
+import java.sql.Date;
+
+/**
+ * Data Transfer Object (DTO) para o tempo de execução de uma ordem de serviço concluída, com as dimensões
+ * usadas nos relatórios de percentis.
+ *
+ * <p>Uma ordem cujo orçamento tem vários serviços aparece uma vez por serviço, cada uma com o seu tipo.</p>
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class TempoExecucaoDto {
+
+    private Long idOs;          // ID da ordem de serviço
+    private Date dataFim;       // Data de conclusão da ordem
+    private Long idOficina;     // Oficina do orçamento da ordem
+    private Long idFuncionario; // Funcionário responsável
+    private String tipoServico; // Tipo de um dos serviços do orçamento, ou null se não houver serviços
+    private long minutos;       // Tempo de execução, em minutos
+
+    /**
+     * Construtor padrão.
+     */
+    public TempoExecucaoDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do TempoExecucaoDto.
+     *
+     * @param idOs          O ID da ordem de serviço.
+     * @param dataFim       A data de conclusão.
+     * @param idOficina     O ID da oficina.
+     * @param idFuncionario O ID do funcionário.
+     * @param tipoServico   O tipo do serviço.
+     * @param minutos       O tempo de execução, em minutos.
+     */
+    public TempoExecucaoDto(Long idOs, Date dataFim, Long idOficina, Long idFuncionario, String tipoServico, long minutos) {
+        this.idOs = idOs;
+        this.dataFim = dataFim;
+        this.idOficina = idOficina;
+        this.idFuncionario = idFuncionario;
+        this.tipoServico = tipoServico;
+        this.minutos = minutos;
+    }
+
+    // Getters e Setters
+
+    public Long getIdOs() {
+        return idOs;
+    }
+
+    public void setIdOs(Long idOs) {
+        this.idOs = idOs;
+    }
+
+    public Date getDataFim() {
+        return dataFim;
+    }
+
+    public void setDataFim(Date dataFim) {
+        this.dataFim = dataFim;
+    }
+
+    public Long getIdOficina() {
+        return idOficina;
+    }
+
+    public void setIdOficina(Long idOficina) {
+        this.idOficina = idOficina;
+    }
+
+    public Long getIdFuncionario() {
+        return idFuncionario;
+    }
+
+    public void setIdFuncionario(Long idFuncionario) {
+        this.idFuncionario = idFuncionario;
+    }
+
+    public String getTipoServico() {
+        return tipoServico;
+    }
+
+    public void setTipoServico(String tipoServico) {
+        this.tipoServico = tipoServico;
+    }
+
+    public long getMinutos() {
+        return minutos;
+    }
+
+    public void setMinutos(long minutos) {
+        this.minutos = minutos;
+    }
+}
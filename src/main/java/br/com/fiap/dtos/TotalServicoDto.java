@@ -0,0 +1,104 @@
+package br.com.fiap.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) com o subtotal de um serviço de um orçamento e das peças usadas nele.
+ *
+ * @since 1.1
+ * @version 1.0
+ */
+public class TotalServicoDto {
+
+    private Long idServico;          // Identificador do serviço
+    private String tipoServico;      // Tipo do serviço
+    private String descricao;        // Descrição do serviço
+    private BigDecimal valorServico; // Custo da mão de obra do serviço
+    private long quantidadePecas;    // Soma das quantidades das peças do serviço
+    private BigDecimal valorPecas;   // Soma de quantidade × valor unitário das peças do serviço
+
+    /**
+     * Construtor padrão.
+     */
+    public TotalServicoDto() {
+    }
+
+    /**
+     * Construtor completo para inicializar todos os atributos do TotalServicoDto.
+     *
+     * @param idServico       O ID do serviço.
+     * @param tipoServico     O tipo do serviço.
+     * @param descricao       A descrição do serviço.
+     * @param valorServico    O custo do serviço.
+     * @param quantidadePecas A quantidade total de peças.
+     * @param valorPecas      O valor total das peças.
+     */
+    public TotalServicoDto(Long idServico, String tipoServico, String descricao, BigDecimal valorServico,
+                           long quantidadePecas, BigDecimal valorPecas) {
+        this.idServico = idServico;
+        this.tipoServico = tipoServico;
+        this.descricao = descricao;
+        this.valorServico = valorServico;
+        this.quantidadePecas = quantidadePecas;
+        this.valorPecas = valorPecas;
+    }
+
+    /**
+     * Retorna o total do serviço: custo do serviço mais o valor das peças.
+     *
+     * @return O total do serviço.
+     */
+    public BigDecimal getValorTotal() {
+        return valorServico.add(valorPecas);
+    }
+
+    // Getters e Setters
+
+    public Long getIdServico() {
+        return idServico;
+    }
+
+    public void setIdServico(Long idServico) {
+        this.idServico = idServico;
+    }
+
+    public String getTipoServico() {
+        return tipoServico;
+    }
+
+    public void setTipoServico(String tipoServico) {
+        this.tipoServico = tipoServico;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public BigDecimal getValorServico() {
+        return valorServico;
+    }
+
+    public void setValorServico(BigDecimal valorServico) {
+        this.valorServico = valorServico;
+    }
+
+    public long getQuantidadePecas() {
+        return quantidadePecas;
+    }
+
+    public void setQuantidadePecas(long quantidadePecas) {
+        this.quantidadePecas = quantidadePecas;
+    }
+
+    public BigDecimal getValorPecas() {
+        return valorPecas;
+    }
+
+    public void setValorPecas(BigDecimal valorPecas) {
+        this.valorPecas = valorPecas;
+    }
+}
@@ -15,6 +15,9 @@ public class VeiculoDto {
     // Identificador único do veículo, utilizado para operações de atualização e deleção.
     private Long idVeiculo;
 
+    // Versão do registro lida pelo cliente; na atualização, a versão esperada (opcional).
+    private Long versao;
+
     // Placa única do veículo.
     private String placa;
 
@@ -58,6 +61,24 @@ public class VeiculoDto {
         this.idVeiculo = idVeiculo;
     }
 
+    /**
+     * Obtém a versão do registro.
+     *
+     * @return A versão, ou {@code null} se não informada.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     *
+     * @param versao A versão lida pelo cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a placa do veículo.
      *
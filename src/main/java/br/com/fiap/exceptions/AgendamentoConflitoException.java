@@ -0,0 +1,8 @@
+package br.com.fiap.exceptions;
+
+public class AgendamentoConflitoException extends RuntimeException {
+
+    public AgendamentoConflitoException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.exceptions;
+
+public class EstoqueInsuficienteException extends RuntimeException {
+
+    public EstoqueInsuficienteException(String s) {
+        super(s);
+    }
+}
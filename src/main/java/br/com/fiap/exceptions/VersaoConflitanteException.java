@@ -0,0 +1,8 @@
+package br.com.fiap.exceptions;
+
+public class VersaoConflitanteException extends RuntimeException {
+
+    public VersaoConflitanteException(String s) {
+        super(s);
+    }
+}
@@ -17,6 +17,7 @@ import java.util.Date;
  */
 public class Agendamento {
     private Long idAgendamento; // Identificador único do agendamento
+    private Long versao;        // Versão da linha, incrementada a cada atualização
     private Date dataAgendamento; // Data do agendamento
     private Timestamp horaAgendamento; // Hora do agendamento
     private Veiculo veiculo; // Veículo relacionado ao agendamento
@@ -80,6 +81,24 @@ public class Agendamento {
         this.idAgendamento = idAgendamento;
     }
 
+    /**
+     * Obtém a versão do agendamento, usada no controle de concorrência otimista.
+     *
+     * @return A versão do agendamento.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do agendamento. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do agendamento.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a data do agendamento.
      *
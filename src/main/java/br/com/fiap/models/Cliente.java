@@ -11,6 +11,7 @@ package br.com.fiap.models;
  */
 public class Cliente extends Pessoa {
     private Long idCliente; // Identificador único do cliente
+    private Long versao;    // Versão da linha, incrementada a cada atualização
     private Veiculo veiculo; // Veículo associado ao cliente
 
     /**
@@ -64,6 +65,24 @@ public class Cliente extends Pessoa {
         this.idCliente = idCliente;
     }
 
+    /**
+     * Obtém a versão do cliente, usada no controle de concorrência otimista.
+     *
+     * @return A versão do cliente.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do cliente. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do cliente.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o veículo associado ao cliente.
      *
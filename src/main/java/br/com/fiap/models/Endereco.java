@@ -9,6 +9,7 @@ package br.com.fiap.models;
  */
 public class Endereco {
     private Long idEndereco;  // Identificador único do endereço
+    private Long versao;      // Versão da linha, incrementada a cada atualização
     private String logradouro;  // Nome da rua ou avenida
     private int numero;  // Número do local
     private String cep;  // Código postal
@@ -74,6 +75,24 @@ public class Endereco {
         this.idEndereco = idEndereco;
     }
 
+    /**
+     * Obtém a versão do endereço, usada no controle de concorrência otimista.
+     *
+     * @return A versão do endereço.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do endereço. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do endereço.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o logradouro (nome da rua ou avenida).
      *
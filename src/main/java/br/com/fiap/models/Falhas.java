@@ -11,6 +11,7 @@ package br.com.fiap.models;
  */
 public class Falhas {
     private Long idFalha; // Identificador único da falha
+    private Long versao;  // Versão da linha, incrementada a cada atualização
     private String descricaoFalha; // Descrição da falha detectada
     private String descricaoSolucao; // Solução proposta para a falha
     private Long idOrcamento; // Identificador do orçamento relacionado à falha
@@ -58,6 +59,24 @@ public class Falhas {
         this.idFalha = idFalha;
     }
 
+    /**
+     * Obtém a versão da falha, usada no controle de concorrência otimista.
+     *
+     * @return A versão da falha.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão da falha. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão da falha.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a descrição da falha detectada.
      *
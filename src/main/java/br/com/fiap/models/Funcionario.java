@@ -10,6 +10,7 @@ package br.com.fiap.models;
  */
 public class Funcionario extends Pessoa {
     private Long idFuncionario;  // Identificador único do funcionário
+    private Long versao;         // Versão da linha, incrementada a cada atualização
     private String funcao;       // Função desempenhada pelo funcionário
     private int idOficina;       // Identificador da oficina associada ao funcionário
 
@@ -67,6 +68,24 @@ public class Funcionario extends Pessoa {
         this.idFuncionario = idFuncionario;
     }
 
+    /**
+     * Obtém a versão do funcionário, usada no controle de concorrência otimista.
+     *
+     * @return A versão do funcionário.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do funcionário. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do funcionário.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a função desempenhada pelo funcionário.
      *
@@ -9,6 +9,7 @@ package br.com.fiap.models;
  */
 public class Oficina {
     private Long idOficina;  // ID exclusivo da oficina
+    private Long versao;     // Versão da linha, incrementada a cada atualização
     private String cnpj;     // CNPJ da oficina
     private String nome;     // Nome da oficina
     private String email;    // Email da oficina
@@ -66,6 +67,24 @@ public class Oficina {
         this.idOficina = idOficina;
     }
 
+    /**
+     * Obtém a versão da oficina, usada no controle de concorrência otimista.
+     *
+     * @return A versão da oficina.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão da oficina. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão da oficina.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o CNPJ da oficina.
      * @return CNPJ da oficina.
@@ -9,6 +9,7 @@ package br.com.fiap.models;
  */
 public class Orcamento {
     private Long idOrcamento; // Identificador único do orçamento
+    private Long versao;      // Versão da linha, incrementada a cada atualização
     private double valorOrcamento; // Valor total do orçamento
     private String situacao; // Situação do orçamento (ex: Aprovado, Pendente, Cancelado)
     private int idVeiculo; // ID do veículo relacionado ao orçamento
@@ -72,6 +73,24 @@ public class Orcamento {
         this.idOrcamento = idOrcamento;
     }
 
+    /**
+     * Obtém a versão do orçamento, usada no controle de concorrência otimista.
+     *
+     * @return A versão do orçamento.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do orçamento. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do orçamento.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o valor total do orçamento.
      *
@@ -15,6 +15,7 @@ import java.util.Date;
  */
 public class OrdemDeServico {
     private Long idOs;             // Identificador único da ordem de serviço
+    private Long versao;           // Versão da linha, incrementada a cada atualização
     private String status;          // Status da ordem de serviço
     private Long idOrcamento;       // ID do orçamento associado à ordem de serviço
     private Long idFuncionario;     // ID do funcionário responsável
@@ -69,6 +70,24 @@ public class OrdemDeServico {
         this.idOs = idOs;
     }
 
+    /**
+     * Obtém a versão da ordem de serviço, usada no controle de concorrência otimista.
+     *
+     * @return A versão da ordem de serviço.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão da ordem de serviço. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão da ordem de serviço.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o status da ordem de serviço.
      *
@@ -10,6 +10,7 @@ package br.com.fiap.models;
  */
 public class Pagamento {
     private Long idPagamento;              // Identificador único do pagamento
+    private Long versao;                   // Versão da linha, incrementada a cada atualização
     private String formaPagamento;         // Forma de pagamento (ex: crédito, débito)
     private String tipoPagamento;          // Tipo de pagamento (ex: à vista, parcelado)
     private double desconto;               // Valor do desconto aplicado
@@ -64,6 +65,24 @@ public class Pagamento {
         this.idPagamento = idPagamento;
     }
 
+    /**
+     * Obtém a versão do pagamento, usada no controle de concorrência otimista.
+     *
+     * @return A versão do pagamento.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do pagamento. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do pagamento.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a forma de pagamento.
      *
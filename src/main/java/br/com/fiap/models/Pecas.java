@@ -11,8 +11,10 @@ package br.com.fiap.models;
  */
 public class Pecas {
     private Long idPeca;          // Identificador único da peça
+    private Long versao;          // Versão da linha, incrementada a cada atualização
     private String marca;         // Marca da peça
     private int quantidade;       // Quantidade da peça
+    private int reservada;        // Parte da quantidade reservada, ainda não consumida
     private double valor;         // Valor unitário da peça
     private String descricao;     // Descrição adicional sobre a peça
     private Long idOrcamento;     // Identificador do orçamento associado
@@ -59,6 +61,24 @@ public class Pecas {
         this.idPeca = idPeca;
     }
 
+    /**
+     * Obtém a versão da peça, usada no controle de concorrência otimista.
+     *
+     * @return A versão da peça.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão da peça. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão da peça.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém a marca da peça.
      *
@@ -95,6 +115,24 @@ public class Pecas {
         this.quantidade = quantidade;
     }
 
+    /**
+     * Obtém a quantidade reservada da peça.
+     *
+     * @return A quantidade reservada, sempre menor ou igual à quantidade.
+     */
+    public int getReservada() {
+        return reservada;
+    }
+
+    /**
+     * Define a quantidade reservada da peça.
+     *
+     * @param reservada A nova quantidade reservada.
+     */
+    public void setReservada(int reservada) {
+        this.reservada = reservada;
+    }
+
     /**
      * Obtém o valor unitário da peça.
      *
@@ -186,6 +224,7 @@ public class Pecas {
                 "idPeca=" + idPeca +
                 ", marca='" + marca + '\'' +
                 ", quantidade=" + quantidade +
+                ", reservada=" + reservada +
                 ", valor=" + valor +
                 ", descricao='" + descricao + '\'' +
                 ", idOrcamento=" + idOrcamento +
@@ -16,6 +16,7 @@ import java.util.List;
  */
 public class Servicos {
     private Long idServico;          // Identificador único do serviço
+    private Long versao;             // Versão da linha, incrementada a cada atualização
     private String tipoServico;      // Tipo do serviço (ex: Mecânico, Elétrico)
     private String descricao;        // Descrição detalhada do serviço
     private double valorServico;     // Valor do serviço
@@ -63,7 +64,7 @@ public class Servicos {
      * @param idOrcamento    O identificador do orçamento associado ao serviço.
      */
     public Servicos(Long idServico, String tipoServico, String descricao, double valorServico, Timestamp tempoEstimado, Long idOrcamento) {
-        this(idServico, tipoServico, descricao, valorServico, tempoEstimado, null, null, null, null);
+        this(idServico, tipoServico, descricao, valorServico, tempoEstimado, null, null, null, idOrcamento);
     }
 
     public Servicos(Object o, String tipoServico, String descricao, double valorServico, Timestamp tempoEstimado) {
@@ -90,6 +91,24 @@ public class Servicos {
         this.idServico = idServico;
     }
 
+    /**
+     * Obtém a versão do serviço, usada no controle de concorrência otimista.
+     *
+     * @return A versão do serviço.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do serviço. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do serviço.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o tipo do serviço.
      *
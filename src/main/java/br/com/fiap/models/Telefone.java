@@ -9,6 +9,7 @@ package br.com.fiap.models;
  */
 public class Telefone {
     private Long idTelefone;  // ID exclusivo do telefone
+    private Long versao;      // Versão da linha, incrementada a cada atualização
     private String numero;     // Número do telefone
     private String tipo;       // Tipo do telefone (Residencial, Comercial, Celular)
     private int idReferencia;  // ID de referência (cliente ou oficina)
@@ -50,6 +51,24 @@ public class Telefone {
         this.idTelefone = idTelefone;
     }
 
+    /**
+     * Obtém a versão do telefone, usada no controle de concorrência otimista.
+     *
+     * @return A versão do telefone.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do telefone. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do telefone.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Obtém o número do telefone.
      *
@@ -11,6 +11,7 @@ package br.com.fiap.models;
  */
 public class Veiculo {
     private Long idVeiculo; // ID exclusivo para o veículo
+    private Long versao;    // Versão da linha, incrementada a cada atualização
     private String placa; // Placa única do veículo
     private String marca; // Marca do veículo
     private String modelo; // Modelo do veículo
@@ -62,6 +63,24 @@ public class Veiculo {
         this.idVeiculo = idVeiculo;
     }
 
+    /**
+     * Obtém a versão do veículo, usada no controle de concorrência otimista.
+     *
+     * @return A versão do veículo.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do veículo. Em uma atualização, é a versão esperada; {@code null} atualiza qualquer versão.
+     *
+     * @param versao A versão do veículo.
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Retorna a placa única do veículo.
      *
@@ -0,0 +1,300 @@
+package br.com.fiap.services;
+
+import br.com.fiap.dtos.SlotDto;
+import br.com.fiap.exceptions.AgendamentoConflitoException;
+import br.com.fiap.models.Agendamento;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice em memória dos horários ocupados de cada oficina.
+ *
+ * <p>Cada agendamento ocupa {@link #DURACAO} a partir de {@code hr_agendamento}. Os agendamentos de uma oficina
+ * são carregados do banco por dia, na primeira consulta que precisar daquele dia, e depois mantidos pelas escritas
+ * confirmadas do {@link AgendamentoServiceImpl}. Todas as operações de uma oficina são feitas sob o monitor da
+ * sua agenda, inclusive a carga inicial de um dia; oficinas diferentes não disputam o mesmo lock.</p>
+ *
+ * <p>Uma reserva entra no índice antes do INSERT e segura o horário até a transação terminar: se for confirmada,
+ * passa a valer com o ID gerado; se for revertida, é descartada. Assim, duas requisições simultâneas para horários
+ * que se sobrepõem nunca são aceitas ao mesmo tempo. O índice pertence a esta instância da aplicação.</p>
+ *
+ * <p>Cada agenda mantém no máximo {@link #MAX_DIAS} dias carregados, descartando os usados há mais tempo, e descarta
+ * os dias já passados. Um dia descartado volta a ser carregado do banco na próxima consulta que precisar dele; um
+ * dia com reserva pendente nunca é descartado.</p>
+ */
+final class AgendaIndex {
+
+    /**
+     * Duração de um agendamento. Configurável via {@code -Dagendamento.duracaoMinutos}.
+     */
+    static final Duration DURACAO = Duration.ofMinutes(Integer.getInteger("agendamento.duracaoMinutos", 60));
+
+    /**
+     * Início do expediente, usado para montar os horários livres. Configurável via {@code -Dagendamento.abertura}.
+     */
+    static final LocalTime ABERTURA = LocalTime.parse(System.getProperty("agendamento.abertura", "08:00"));
+
+    /**
+     * Fim do expediente, usado para montar os horários livres. Configurável via {@code -Dagendamento.fechamento}.
+     */
+    static final LocalTime FECHAMENTO = LocalTime.parse(System.getProperty("agendamento.fechamento", "18:00"));
+
+    /**
+     * Quantidade máxima de dias carregados por oficina. Configurável via {@code -Dagendamento.maxDias}.
+     */
+    static final int MAX_DIAS = Integer.getInteger("agendamento.maxDias", 90);
+
+    private static final ConcurrentMap<Long, Agenda> AGENDAS = new ConcurrentHashMap<>();
+
+    // IDs provisórios das reservas ainda não confirmadas; negativos para não colidir com os do banco.
+    private static final AtomicLong PROXIMA_RESERVA = new AtomicLong();
+
+    private AgendaIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Lista os horários livres de uma oficina no intervalo informado.
+     *
+     * @param idOficina O ID da oficina.
+     * @param de        O início do intervalo.
+     * @param ate       O fim do intervalo (exclusivo).
+     * @param loader    Busca no banco os agendamentos dos dias ainda não carregados.
+     * @return Os horários do expediente, dentro do intervalo, que não se sobrepõem a nenhum agendamento.
+     * @throws SQLException Se a carga de algum dia falhar.
+     */
+    static List<SlotDto> livres(Long idOficina, LocalDateTime de, LocalDateTime ate, Loader loader) throws SQLException {
+        Agenda agenda = agenda(idOficina);
+        List<SlotDto> livres = new ArrayList<>();
+        synchronized (agenda) {
+            agenda.carregar(idOficina, de.minus(DURACAO).toLocalDate(), ate.plus(DURACAO).toLocalDate(), loader);
+            for (LocalDate dia = de.toLocalDate(); !dia.isAfter(ate.toLocalDate()); dia = dia.plusDays(1)) {
+                LocalDateTime fechamento = dia.atTime(FECHAMENTO);
+                for (LocalDateTime inicio = dia.atTime(ABERTURA); !inicio.plus(DURACAO).isAfter(fechamento); inicio = inicio.plus(DURACAO)) {
+                    LocalDateTime fim = inicio.plus(DURACAO);
+                    if (!inicio.isBefore(de) && !fim.isAfter(ate) && !agenda.ocupado(inicio, null)) {
+                        livres.add(new SlotDto(Timestamp.valueOf(inicio), Timestamp.valueOf(fim)));
+                    }
+                }
+            }
+        }
+        return livres;
+    }
+
+    /**
+     * Reserva um horário, falhando se ele se sobrepuser a outro agendamento ou reserva da oficina.
+     *
+     * @param idOficina O ID da oficina.
+     * @param inicio    O início do agendamento.
+     * @param ignorar   O ID do agendamento sendo alterado, que não conflita consigo mesmo; {@code null} na criação.
+     * @param loader    Busca no banco os agendamentos dos dias ainda não carregados.
+     * @return A reserva, a ser confirmada ou liberada ao fim da transação.
+     * @throws AgendamentoConflitoException Se o horário já estiver ocupado.
+     * @throws SQLException Se a carga de algum dia falhar.
+     */
+    static Reserva reservar(Long idOficina, LocalDateTime inicio, Long ignorar, Loader loader) throws SQLException {
+        Agenda agenda = agenda(idOficina);
+        synchronized (agenda) {
+            agenda.carregar(idOficina, inicio.minus(DURACAO).toLocalDate(), inicio.plus(DURACAO).toLocalDate(), loader);
+            if (agenda.ocupado(inicio, ignorar)) {
+                throw new AgendamentoConflitoException("Horário indisponível: já existe um agendamento da oficina "
+                        + idOficina + " que se sobrepõe a " + inicio + ".");
+            }
+            Reserva reserva = new Reserva(agenda, inicio, PROXIMA_RESERVA.decrementAndGet());
+            agenda.adicionar(reserva.provisorio, inicio);
+            return reserva;
+        }
+    }
+
+    /**
+     * Remove um agendamento do índice, em qualquer oficina em que esteja.
+     *
+     * @param idAgendamento O ID do agendamento.
+     */
+    static void remover(Long idAgendamento) {
+        for (Agenda agenda : AGENDAS.values()) {
+            synchronized (agenda) {
+                agenda.remover(idAgendamento);
+            }
+        }
+    }
+
+    private static Agenda agenda(Long idOficina) {
+        return AGENDAS.computeIfAbsent(idOficina, id -> new Agenda());
+    }
+
+    /**
+     * Busca no banco os agendamentos de uma oficina com início no intervalo {@code [de, ate)}.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        List<Agendamento> load(Long idOficina, LocalDateTime de, LocalDateTime ate) throws SQLException;
+    }
+
+    /**
+     * Horário reservado durante uma transação.
+     */
+    static final class Reserva {
+
+        private final Agenda agenda;
+        private final LocalDateTime inicio;
+        private final long provisorio;
+
+        private Reserva(Agenda agenda, LocalDateTime inicio, long provisorio) {
+            this.agenda = agenda;
+            this.inicio = inicio;
+            this.provisorio = provisorio;
+        }
+
+        /**
+         * Troca a reserva pelo agendamento confirmado, removendo a posição anterior dele, se houver.
+         *
+         * @param idAgendamento O ID do agendamento gravado.
+         */
+        void confirmar(Long idAgendamento) {
+            // A reserva continua no índice até o fim, então o horário nunca fica livre no meio da troca.
+            remover(idAgendamento);
+            synchronized (agenda) {
+                agenda.remover(provisorio);
+                agenda.adicionar(idAgendamento, inicio);
+            }
+        }
+
+        /**
+         * Descarta a reserva.
+         */
+        void liberar() {
+            synchronized (agenda) {
+                agenda.remover(provisorio);
+            }
+        }
+    }
+
+    /**
+     * Agendamentos de uma oficina nos dias já carregados. Acessada apenas sob o seu próprio monitor.
+     */
+    private static final class Agenda {
+
+        private final NavigableMap<LocalDateTime, Set<Long>> porInicio = new TreeMap<>();
+        private final Map<Long, LocalDateTime> porId = new HashMap<>();
+        // Dias carregados, em ordem de acesso; o valor não é usado.
+        private final LinkedHashMap<LocalDate, Boolean> dias = new LinkedHashMap<>(16, 0.75f, true);
+        private LocalDate ultimaLimpeza;
+
+        // Carrega, em uma consulta, os dias do intervalo [de, ate] que ainda não estão no índice.
+        private void carregar(Long idOficina, LocalDate de, LocalDate ate, Loader loader) throws SQLException {
+            LocalDate primeiro = null;
+            LocalDate ultimo = null;
+            for (LocalDate dia = de; !dia.isAfter(ate); dia = dia.plusDays(1)) {
+                // O get também marca o dia como usado agora.
+                if (dias.get(dia) == null) {
+                    primeiro = primeiro == null ? dia : primeiro;
+                    ultimo = dia;
+                }
+            }
+            if (primeiro == null) {
+                return;
+            }
+            for (Agendamento agendamento : loader.load(idOficina, primeiro.atStartOfDay(), ultimo.plusDays(1).atStartOfDay())) {
+                LocalDateTime inicio = agendamento.getHoraAgendamento().toLocalDateTime();
+                // Dias já carregados no meio do intervalo estão atualizados pelas escritas; não são sobrescritos.
+                if (!dias.containsKey(inicio.toLocalDate())) {
+                    adicionar(agendamento.getIdAgendamento(), inicio);
+                }
+            }
+            for (LocalDate dia = primeiro; !dia.isAfter(ultimo); dia = dia.plusDays(1)) {
+                dias.put(dia, Boolean.TRUE);
+            }
+            descartar(de, ate);
+        }
+
+        // Descarta os dias passados (uma vez por dia) e os usados há mais tempo além de MAX_DIAS, exceto os do
+        // intervalo em uso e os que têm reservas pendentes.
+        private void descartar(LocalDate de, LocalDate ate) {
+            LocalDate hoje = LocalDate.now();
+            boolean limparPassados = !hoje.equals(ultimaLimpeza);
+            if (!limparPassados && dias.size() <= MAX_DIAS) {
+                return;
+            }
+            ultimaLimpeza = hoje;
+            LocalDate ontem = hoje.minusDays(1);
+            Iterator<LocalDate> it = dias.keySet().iterator();
+            while (it.hasNext()) {
+                LocalDate dia = it.next();
+                boolean descartavel = dia.isBefore(ontem) || dias.size() > MAX_DIAS;
+                if (descartavel && (dia.isBefore(de) || dia.isAfter(ate)) && !temReserva(dia)) {
+                    it.remove();
+                    for (Set<Long> ids : dia(dia).values()) {
+                        ids.forEach(porId::remove);
+                    }
+                    dia(dia).clear();
+                } else if (!limparPassados && dias.size() <= MAX_DIAS) {
+                    return;
+                }
+            }
+        }
+
+        private boolean temReserva(LocalDate dia) {
+            for (Set<Long> ids : dia(dia).values()) {
+                for (Long id : ids) {
+                    if (id < 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private NavigableMap<LocalDateTime, Set<Long>> dia(LocalDate dia) {
+            return porInicio.subMap(dia.atStartOfDay(), true, dia.plusDays(1).atStartOfDay(), false);
+        }
+
+        // Indica se algum agendamento, exceto o ignorado, se sobrepõe a [inicio, inicio + DURACAO).
+        private boolean ocupado(LocalDateTime inicio, Long ignorar) {
+            for (Set<Long> ids : porInicio.subMap(inicio.minus(DURACAO), false, inicio.plus(DURACAO), false).values()) {
+                for (Long id : ids) {
+                    if (!id.equals(ignorar)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void adicionar(Long id, LocalDateTime inicio) {
+            remover(id);
+            porInicio.computeIfAbsent(inicio, k -> new HashSet<>()).add(id);
+            porId.put(id, inicio);
+        }
+
+        private void remover(Long id) {
+            LocalDateTime inicio = porId.remove(id);
+            if (inicio != null) {
+                Set<Long> ids = porInicio.get(inicio);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    porInicio.remove(inicio);
+                }
+            }
+        }
+    }
+}
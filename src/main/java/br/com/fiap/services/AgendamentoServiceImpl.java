@@ -1,17 +1,27 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.AgendamentoDao;
 import br.com.fiap.dao.AgendamentoDaoFactory;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.SlotDto;
+import br.com.fiap.exceptions.AgendamentoConflitoException;
 import br.com.fiap.exceptions.AgendamentoNotFoundException;
 import br.com.fiap.exceptions.AgendamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Agendamento;
 import br.com.fiap.services.interfaces.AgendamentoService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Implementação do serviço para a entidade Agendamento, utilizando AgendamentoDaoFactory.
@@ -28,24 +38,25 @@ public final class AgendamentoServiceImpl implements AgendamentoService {
     /**
      * Cria um novo Agendamento no banco de dados.
      *
+     * <p>O horário é reservado na agenda da oficina antes do INSERT; uma requisição simultânea para um horário
+     * sobreposto é recusada até esta transação terminar.</p>
+     *
      * @param agendamento O objeto Agendamento a ser criado.
      * @return O Agendamento criado com o ID gerado.
      * @throws AgendamentoNotSavedException Se o Agendamento não puder ser salvo.
+     * @throws AgendamentoConflitoException Se o horário já estiver ocupado.
      * @throws SQLException Em caso de erro de SQL.
      */
     @Override
-    public Agendamento create(Agendamento agendamento) throws UnsupportedServiceOperationException, SQLException, AgendamentoNotSavedException {
+    public Agendamento create(Agendamento agendamento) throws UnsupportedServiceOperationException, SQLException, AgendamentoNotSavedException, AgendamentoConflitoException {
         if (agendamento.getIdAgendamento() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                agendamento = this.dao.save(agendamento, connection);
-                connection.commit();
-                return agendamento;
-            } catch (SQLException | AgendamentoNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
+            AgendaIndex.Reserva reserva = reservar(agendamento);
+            TableVersions.bumpAfterCommit("T_AGENDAMENTO");
+            Agendamento saved = this.dao.save(agendamento, TransactionManager.current());
+            if (reserva != null) {
+                TransactionManager.afterCommit(() -> reserva.confirmar(saved.getIdAgendamento()));
             }
+            return saved;
         } else {
             // Lança exceção se o Agendamento já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Agendamento já possui um ID e não pode ser criado.");
@@ -62,25 +73,122 @@ public final class AgendamentoServiceImpl implements AgendamentoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de agendamentos a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Agendamento> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Agendamento::getIdAgendamento);
+    }
+
+    /**
+     * Busca um Agendamento pelo ID.
+     *
+     * @param id O ID do Agendamento.
+     * @return O Agendamento encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Agendamento> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Agendamento} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Agendamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Lista os horários livres de uma oficina a partir do índice em memória.
+     *
+     * @param idOficina O ID da oficina.
+     * @param de        O início do intervalo.
+     * @param ate       O fim do intervalo (exclusivo).
+     * @return Os horários livres, em ordem cronológica.
+     * @throws SQLException Em caso de erro de SQL ao carregar dias ainda não consultados.
+     */
+    @Override
+    public List<SlotDto> findSlotsLivres(Long idOficina, LocalDateTime de, LocalDateTime ate) throws SQLException {
+        return AgendaIndex.livres(idOficina, de, ate, this::carregarAgenda);
+    }
+
+    /**
+     * Percorre todos os agendamentos sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link Agendamento}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Stream<Agendamento> streamAll() throws SQLException {
+        return this.dao.streamAll();
+    }
+
     /**
      * Atualiza um Agendamento existente no banco de dados.
      *
      * @param agendamento O objeto Agendamento com os dados atualizados.
      * @return O Agendamento atualizado.
      * @throws AgendamentoNotFoundException Se o Agendamento não for encontrado.
+     * @throws AgendamentoConflitoException Se o novo horário já estiver ocupado por outro agendamento.
      * @throws SQLException Em caso de erro de SQL.
      */
     @Override
-    public Agendamento update(Agendamento agendamento) throws AgendamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            agendamento = this.dao.update(agendamento, connection);
-            connection.commit();
-            return agendamento;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
+    public Agendamento update(Agendamento agendamento) throws AgendamentoNotFoundException, AgendamentoConflitoException, SQLException {
+        AgendaIndex.Reserva reserva = reservar(agendamento);
+        TableVersions.bumpAfterCommit("T_AGENDAMENTO");
+        Agendamento updated = this.dao.update(agendamento, TransactionManager.current());
+        if (reserva != null) {
+            TransactionManager.afterCommit(() -> reserva.confirmar(updated.getIdAgendamento()));
         }
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Agendamento existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Agendamento.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Agendamento com todos os campos, depois da alteração.
+     * @throws AgendamentoNotFoundException Se o Agendamento não for encontrado.
+     * @throws AgendamentoConflitoException Se o novo horário já estiver ocupado por outro agendamento.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Agendamento patch(Long id, Map<String, Object> campos, Long versao) throws AgendamentoNotFoundException, AgendamentoConflitoException, SQLException {
+        // Como no update, o horário é reservado antes da escrita: a agenda é carregada com dados confirmados, antes
+        // de a transação tomar a sua conexão. Só o horário e a oficina do patch mudam a reserva.
+        AgendaIndex.Reserva reserva = null;
+        if (campos.containsKey("horaAgendamento") || campos.containsKey("idOficina")) {
+            Agendamento previsto = this.dao.findById(id).orElseThrow(() -> new AgendamentoNotFoundException("Agendamento não encontrado: verifique o ID fornecido ou se o registro existe."));
+            if (campos.containsKey("horaAgendamento")) {
+                previsto.setHoraAgendamento(MergePatch.valor(campos, "horaAgendamento", Timestamp.class));
+            }
+            if (campos.containsKey("idOficina")) {
+                previsto.setIdOficina(MergePatch.valor(campos, "idOficina", Long.class));
+            }
+            reserva = reservar(previsto);
+        }
+        TableVersions.bumpAfterCommit("T_AGENDAMENTO");
+        Agendamento updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        if (reserva != null) {
+            AgendaIndex.Reserva confirmada = reserva;
+            TransactionManager.afterCommit(() -> confirmada.confirmar(updated.getIdAgendamento()));
+        }
+        return updated;
     }
 
     /**
@@ -92,13 +200,24 @@ public final class AgendamentoServiceImpl implements AgendamentoService {
      */
     @Override
     public void deleteById(Long id) throws AgendamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
+        TableVersions.bumpAfterCommit("T_AGENDAMENTO");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(() -> AgendaIndex.remover(id));
+    }
+
+    // Reserva o horário do agendamento e registra a liberação para o caso de a transação ser revertida.
+    private AgendaIndex.Reserva reservar(Agendamento agendamento) throws SQLException {
+        if (agendamento.getIdOficina() == null || agendamento.getHoraAgendamento() == null) {
+            return null;
         }
+        AgendaIndex.Reserva reserva = AgendaIndex.reservar(agendamento.getIdOficina(),
+                agendamento.getHoraAgendamento().toLocalDateTime(), agendamento.getIdAgendamento(), this::carregarAgenda);
+        TransactionManager.afterRollback(reserva::liberar);
+        return reserva;
+    }
+
+    // Carrega do banco os agendamentos de uma oficina para o índice.
+    private List<Agendamento> carregarAgenda(Long idOficina, LocalDateTime de, LocalDateTime ate) throws SQLException {
+        return this.dao.findByOficinaIdBetween(idOficina, Timestamp.valueOf(de), Timestamp.valueOf(ate));
     }
 }
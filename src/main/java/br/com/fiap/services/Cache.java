@@ -0,0 +1,86 @@
+package br.com.fiap.services;
+
+/**
+ * Cache em memória para leituras de dados de referência feitas pelos serviços.
+ *
+ * <p>As implementações são obtidas por {@link CacheFactory}, que define o tamanho máximo e o tempo de vida
+ * das entradas de cada cache. Os serviços invalidam o cache quando os dados correspondentes são alterados.</p>
+ *
+ * @param <K> O tipo da chave.
+ * @param <V> O tipo do valor armazenado.
+ * @since 1.1
+ */
+public interface Cache<K, V> {
+
+    /**
+     * Retorna o valor associado à chave, carregando-o com {@code loader} se não estiver em cache ou tiver expirado.
+     *
+     * <p>Se o {@code loader} devolver {@code null}, nada é armazenado e a próxima leitura carrega de novo.</p>
+     *
+     * @param key    A chave.
+     * @param loader Carrega o valor a partir da fonte original.
+     * @param <E>    O tipo de exceção lançada pelo carregamento.
+     * @return O valor em cache ou o recém-carregado.
+     * @throws E Se o carregamento falhar; nesse caso nada é armazenado.
+     */
+    <E extends Exception> V get(K key, Loader<V, E> loader) throws E;
+
+    /**
+     * Retorna o valor associado à chave, sem carregá-lo.
+     *
+     * @param key A chave.
+     * @return O valor em cache, ou {@code null} se ausente ou expirado.
+     */
+    V getIfPresent(K key);
+
+    /**
+     * Armazena um valor, substituindo o anterior.
+     *
+     * @param key   A chave.
+     * @param value O valor.
+     */
+    void put(K key, V value);
+
+    /**
+     * Armazena um valor lido da fonte original, a menos que o cache tenha sido invalidado depois da leitura.
+     *
+     * <p>Para valores carregados fora de {@link #get(Object, Loader)}, como os de uma consulta em lote: o chamador
+     * obtém {@link #generation()} antes de consultar a fonte e a informa aqui, como {@code get} faz internamente.</p>
+     *
+     * @param key        A chave.
+     * @param value      O valor.
+     * @param generation A geração observada antes da leitura do valor.
+     */
+    void put(K key, V value, long generation);
+
+    /**
+     * Retorna a geração atual, que avança a cada {@link #invalidateAll()}.
+     *
+     * @return A geração atual.
+     */
+    long generation();
+
+    /**
+     * Remove todas as entradas. Carregamentos iniciados antes da chamada não são armazenados.
+     */
+    void invalidateAll();
+
+    /**
+     * Retorna um snapshot das métricas do cache.
+     *
+     * @return As métricas atuais.
+     */
+    CacheStats stats();
+
+    /**
+     * Carrega um valor a partir da fonte original.
+     *
+     * @param <V> O tipo do valor.
+     * @param <E> O tipo de exceção lançada pelo carregamento.
+     */
+    @FunctionalInterface
+    interface Loader<V, E extends Exception> {
+
+        V load() throws E;
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.fiap.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Factory para criar os caches usados pelos serviços.
+ *
+ * <p>Os limites de cada cache podem ser sobrescritos via propriedades de sistema
+ * {@code -Dcache.<nome>.maxSize} e {@code -Dcache.<nome>.ttlSeconds}. Todo cache criado aqui é
+ * registrado para expor suas métricas em {@link #stats()}.</p>
+ *
+ * @since 1.1
+ */
+public final class CacheFactory {
+
+    private static final List<Cache<?, ?>> CACHES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Construtor privado para evitar a criação de instâncias da classe {@link CacheFactory}.
+     */
+    private CacheFactory() {
+        // Construtor privado para impedir a criação de instâncias.
+    }
+
+    /**
+     * Cria e registra um cache LRU com tempo de vida.
+     *
+     * @param name              O nome do cache, usado nas propriedades de configuração e nas métricas.
+     * @param defaultMaxSize    A quantidade máxima de entradas, se não configurada.
+     * @param defaultTtlSeconds O tempo de vida das entradas em segundos, se não configurado.
+     * @param <K>               O tipo da chave.
+     * @param <V>               O tipo do valor.
+     * @return O cache criado.
+     */
+    public static <K, V> Cache<K, V> create(String name, int defaultMaxSize, long defaultTtlSeconds) {
+        int maxSize = Integer.getInteger("cache." + name + ".maxSize", defaultMaxSize);
+        long ttlSeconds = Long.getLong("cache." + name + ".ttlSeconds", defaultTtlSeconds);
+        Cache<K, V> cache = new LruCache<>(name, maxSize, ttlSeconds);
+        CACHES.add(cache);
+        return cache;
+    }
+
+    /**
+     * Retorna as métricas de todos os caches criados.
+     *
+     * @return Um snapshot das métricas de cada cache.
+     */
+    public static List<CacheStats> stats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (Cache<?, ?> cache : CACHES) {
+            stats.add(cache.stats());
+        }
+        return stats;
+    }
+}
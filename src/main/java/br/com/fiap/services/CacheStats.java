@@ -0,0 +1,73 @@
+package br.com.fiap.services;
+
+/**
+ * Snapshot imutável das métricas de um {@link Cache}.
+ *
+ * <p>{@code hitRatio} é a fração das leituras atendidas pela memória desde a inicialização.</p>
+ */
+public final class CacheStats {
+
+    private final String name;
+    private final int size;
+    private final int maxSize;
+    private final long ttlSeconds;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+
+    CacheStats(String name, int size, int maxSize, long ttlSeconds, long hits, long misses,
+               long evictions, long expirations, long invalidations) {
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.ttlSeconds = ttlSeconds;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
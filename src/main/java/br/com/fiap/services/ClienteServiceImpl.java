@@ -1,17 +1,38 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.ClienteDao;
 import br.com.fiap.dao.ClienteDaoFactory;
+import br.com.fiap.dao.EnderecoClienteDaoFactory;
+import br.com.fiap.dao.TelefoneClienteDaoFactory;
+import br.com.fiap.dao.VeiculoDaoFactory;
+import br.com.fiap.dao.interfaces.EnderecoDao;
+import br.com.fiap.dao.interfaces.TelefoneDao;
+import br.com.fiap.dao.interfaces.VeiculoDao;
+import br.com.fiap.dtos.ClienteCompletoDto;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.SugestaoDto;
 import br.com.fiap.exceptions.ClienteNotFoundException;
 import br.com.fiap.exceptions.ClienteNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Cliente;
+import br.com.fiap.models.Endereco;
+import br.com.fiap.models.Telefone;
+import br.com.fiap.models.Veiculo;
 import br.com.fiap.services.interfaces.ClienteService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Implementação do serviço para a entidade Cliente, utilizando ClienteDaoFactory.
@@ -24,6 +45,9 @@ import java.util.List;
 public final class ClienteServiceImpl implements ClienteService {
 
     private final ClienteDao dao = ClienteDaoFactory.create();
+    private final TelefoneDao<Telefone, Long> telefoneDao = TelefoneClienteDaoFactory.create();
+    private final EnderecoDao<Endereco, Long> enderecoDao = EnderecoClienteDaoFactory.create();
+    private final VeiculoDao veiculoDao = VeiculoDaoFactory.create();
 
     /**
      * Cria um novo Cliente no banco de dados.
@@ -36,16 +60,10 @@ public final class ClienteServiceImpl implements ClienteService {
     @Override
     public Cliente create(Cliente cliente) throws UnsupportedServiceOperationException, SQLException, ClienteNotSavedException {
         if (cliente.getIdCliente() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                cliente = this.dao.save(cliente, connection);
-                connection.commit();
-                return cliente;
-            } catch (SQLException | ClienteNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_CLIENTE");
+            Cliente saved = this.dao.save(cliente, TransactionManager.current());
+            TransactionManager.afterCommit(() -> SugestoesIndex.definirCliente(saved));
+            return saved;
         } else {
             // Lança exceção se o Cliente já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Cliente já possui um ID e não pode ser criado novamente.");
@@ -62,6 +80,77 @@ public final class ClienteServiceImpl implements ClienteService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de clientes a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Cliente> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Cliente::getIdCliente);
+    }
+
+    /**
+     * Busca um Cliente pelo ID.
+     *
+     * @param id O ID do Cliente.
+     * @return O Cliente encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Cliente> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Cliente} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Cliente> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Busca um cliente com seus telefones, endereços e veículos.
+     *
+     * @param id O ID do cliente.
+     * @return O cliente com os registros associados, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<ClienteCompletoDto> findCompletoById(Long id) throws SQLException {
+        Optional<Cliente> cliente = this.dao.findById(id);
+        if (cliente.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(completar(List.of(cliente.get())).get(0));
+    }
+
+    /**
+     * Retorna uma página de clientes com seus telefones, endereços e veículos.
+     *
+     * <p>São sempre quatro consultas: a página de clientes e uma lista {@code IN} com os IDs da página
+     * para cada tabela associada.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de clientes na página.
+     * @return A página e o cursor da próxima página.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public PageDto<ClienteCompletoDto> pageCompleto(Long afterId, int limit) throws SQLException {
+        PageDto<Cliente> page = page(afterId, limit);
+        return new PageDto<>(completar(page.getItems()), page.getNextCursor());
+    }
+
     /**
      * Atualiza um Cliente existente no banco de dados.
      *
@@ -72,15 +161,28 @@ public final class ClienteServiceImpl implements ClienteService {
      */
     @Override
     public Cliente update(Cliente cliente) throws ClienteNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            cliente = this.dao.update(cliente, connection);
-            connection.commit();
-            return cliente;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_CLIENTE");
+        Cliente updated = this.dao.update(cliente, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.definirCliente(updated));
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Cliente existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Cliente.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Cliente com todos os campos, depois da alteração.
+     * @throws ClienteNotFoundException Se o Cliente não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Cliente patch(Long id, Map<String, Object> campos, Long versao) throws ClienteNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_CLIENTE");
+        Cliente updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.definirCliente(updated));
+        return updated;
     }
 
     /**
@@ -92,13 +194,105 @@ public final class ClienteServiceImpl implements ClienteService {
      */
     @Override
     public void deleteById(Long id) throws ClienteNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
+        TableVersions.bumpAfterCommit("T_CLIENTE");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.removerCliente(id));
+    }
+
+    /**
+     * Sugere clientes e veículos para o texto digitado no balcão.
+     *
+     * <p>Os IDs vêm dos índices de prefixo em memória; os registros são lidos em uma consulta {@code IN} por tabela.
+     * As sugestões por CPF vêm primeiro, seguidas das por placa e das por nome, sem repetir clientes.</p>
+     *
+     * @param consulta O texto digitado.
+     * @param limit    A quantidade máxima de sugestões.
+     * @return As sugestões encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<SugestaoDto> suggest(String consulta, int limit) throws SQLException {
+        SugestoesIndex.Sugestoes encontrados = SugestoesIndex.buscar(consulta, limit, this.dao::streamAll, this.veiculoDao::streamAll);
+        Map<Long, Veiculo> veiculos = new HashMap<>();
+        for (Veiculo veiculo : this.veiculoDao.findAllByIds(encontrados.veiculosPorPlaca)) {
+            veiculos.put(veiculo.getIdVeiculo(), veiculo);
+        }
+        Set<Long> idsClientes = new HashSet<>(encontrados.clientesPorCpf);
+        idsClientes.addAll(encontrados.clientesPorNome);
+        veiculos.values().forEach(veiculo -> idsClientes.add(veiculo.getClienteId()));
+        Map<Long, Cliente> clientes = new HashMap<>();
+        for (Cliente cliente : this.dao.findAllByIds(idsClientes)) {
+            clientes.put(cliente.getIdCliente(), cliente);
+        }
+
+        // Registros excluídos depois da busca nos índices simplesmente não aparecem.
+        List<SugestaoDto> sugestoes = new ArrayList<>();
+        Set<Long> sugeridos = new HashSet<>();
+        for (Long id : encontrados.clientesPorCpf) {
+            Cliente cliente = clientes.get(id);
+            if (cliente != null && sugeridos.add(id)) {
+                sugestoes.add(new SugestaoDto("cpf", cliente));
+            }
+        }
+        for (Long id : encontrados.veiculosPorPlaca) {
+            Veiculo veiculo = veiculos.get(id);
+            if (veiculo != null) {
+                sugestoes.add(new SugestaoDto(veiculo, clientes.get(veiculo.getClienteId())));
+            }
+        }
+        for (Long id : encontrados.clientesPorNome) {
+            Cliente cliente = clientes.get(id);
+            if (cliente != null && sugeridos.add(id)) {
+                sugestoes.add(new SugestaoDto("nome", cliente));
+            }
+        }
+        return sugestoes.size() > limit ? new ArrayList<>(sugestoes.subList(0, limit)) : sugestoes;
+    }
+
+    /**
+     * Carrega os índices de sugestão, se ainda não estiverem carregados.
+     *
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public void prepararSugestoes() throws SQLException {
+        SugestoesIndex.carregar(this.dao::streamAll, this.veiculoDao::streamAll);
+    }
+
+    // Busca os registros associados a todos os clientes de uma vez e os distribui entre eles.
+    private List<ClienteCompletoDto> completar(List<Cliente> clientes) throws SQLException {
+        List<ClienteCompletoDto> completos = new ArrayList<>(clientes.size());
+        if (clientes.isEmpty()) {
+            return completos;
+        }
+        List<Long> ids = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            ids.add(cliente.getIdCliente());
+        }
+        Map<Long, List<Telefone>> telefones = agrupar(this.telefoneDao.findByReferenciaIds(ids),
+                telefone -> (long) telefone.getIdReferencia(), Telefone::getIdTelefone);
+        Map<Long, List<Endereco>> enderecos = agrupar(this.enderecoDao.findByReferenciaIds(ids),
+                endereco -> (long) endereco.getIdReferencia(), Endereco::getIdEndereco);
+        Map<Long, List<Veiculo>> veiculos = agrupar(this.veiculoDao.findByClienteIds(ids),
+                Veiculo::getClienteId, Veiculo::getIdVeiculo);
+        for (Cliente cliente : clientes) {
+            Long id = cliente.getIdCliente();
+            completos.add(new ClienteCompletoDto(cliente,
+                    telefones.getOrDefault(id, new ArrayList<>()),
+                    enderecos.getOrDefault(id, new ArrayList<>()),
+                    veiculos.getOrDefault(id, new ArrayList<>())));
+        }
+        return completos;
+    }
+
+    // Agrupa as linhas pelo ID do cliente, cada grupo em ordem crescente de ID.
+    private static <T> Map<Long, List<T>> agrupar(List<T> rows, Function<T, Long> clienteId, Function<T, Long> id) {
+        List<T> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(id));
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (T row : sorted) {
+            grouped.computeIfAbsent(clienteId.apply(row), k -> new ArrayList<>()).add(row);
         }
+        return grouped;
     }
 }
@@ -1,16 +1,20 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.EnderecoDao;
 import br.com.fiap.dao.EnderecoOficinaDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.EnderecoNotFoundException;
 import br.com.fiap.exceptions.EnderecoNotSavedException;
 import br.com.fiap.models.Endereco;
 import br.com.fiap.services.interfaces.EnderecoService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade EnderecoOficina, utilizando EnderecoOficinaDaoFactory.
@@ -30,13 +34,8 @@ public final class EnderecoOficinaServiceImpl implements EnderecoService {
     @Override
     public Endereco create(Endereco endereco) throws SQLException, EnderecoNotSavedException {
         if (endereco.getIdEndereco() == null) {
-            try (Connection connection = DatabaseConnectionFactory.create().get()) {
-                endereco = this.dao.save(endereco, connection);
-                connection.commit();
-                return endereco;
-            } catch (SQLException | EnderecoNotSavedException e) {
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_ENDERECO_OFICINA");
+            return this.dao.save(endereco, TransactionManager.current());
         } else {
             throw new UnsupportedOperationException("Endereço já possui um ID, operação não permitida.");
         }
@@ -52,6 +51,56 @@ public final class EnderecoOficinaServiceImpl implements EnderecoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de endereços de oficinas a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Endereco> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Endereco::getIdEndereco);
+    }
+
+    /**
+     * Busca um EnderecoOficina pelo ID.
+     *
+     * @param id O ID do EnderecoOficina.
+     * @return O EnderecoOficina encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Endereco> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Endereco} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Endereco> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Busca os endereços de uma oficina.
+     *
+     * @param oficinaId O ID da oficina.
+     * @return As instâncias de {@link Endereco} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Endereco> findByReferenciaId(Long oficinaId) throws SQLException {
+        return this.dao.findByReferenciaId(oficinaId);
+    }
+
     /**
      * Atualiza um EnderecoOficina existente no banco de dados.
      *
@@ -62,13 +111,24 @@ public final class EnderecoOficinaServiceImpl implements EnderecoService {
      */
     @Override
     public Endereco update(Endereco endereco) throws EnderecoNotFoundException, SQLException {
-        try (Connection connection = DatabaseConnectionFactory.create().get()) {
-            endereco = this.dao.update(endereco, connection);
-            connection.commit();
-            return endereco;
-        } catch (SQLException e) {
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_ENDERECO_OFICINA");
+        return this.dao.update(endereco, TransactionManager.current());
+    }
+
+    /**
+     * Altera apenas os campos informados de um EnderecoOficina existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do EnderecoOficina.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O EnderecoOficina com todos os campos, depois da alteração.
+     * @throws EnderecoNotFoundException Se o Endereco não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Endereco patch(Long id, Map<String, Object> campos, Long versao) throws EnderecoNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_ENDERECO_OFICINA");
+        return this.dao.patch(id, campos, versao, TransactionManager.current());
     }
 
     /**
@@ -80,11 +140,7 @@ public final class EnderecoOficinaServiceImpl implements EnderecoService {
      */
     @Override
     public void deleteById(Long id) throws EnderecoNotFoundException, SQLException {
-        try (Connection connection = DatabaseConnectionFactory.create().get()) {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_ENDERECO_OFICINA");
+        this.dao.deleteById(id, TransactionManager.current());
     }
 }
@@ -0,0 +1,443 @@
+package br.com.fiap.services;
+
+import br.com.fiap.models.Falhas;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido em memória sobre a descrição da falha e da solução de {@link Falhas}.
+ *
+ * <p>Cada termo normalizado por {@link Textos} aponta para a lista ordenada das falhas que o contêm, com a frequência
+ * do termo em cada uma; termos da descrição da falha pesam o dobro dos da solução. Uma busca exige todos os termos
+ * da consulta, sendo o último também tratado como prefixo, para acompanhar a digitação. A lista mais curta conduz
+ * a busca e os demais termos são conferidos por busca binária; as falhas são ordenadas por BM25.</p>
+ *
+ * <p>O índice é carregado em segundo plano na inicialização, ou pela primeira busca, e mantido pelas escritas
+ * confirmadas do {@link FalhasServiceImpl}. Escritas confirmadas durante a carga são guardadas e reaplicadas ao fim
+ * dela, já que a leitura do banco pode ou não tê-las visto. Buscas compartilham um lock de leitura; escritas usam
+ * o de escrita. Uma alteração marca a versão anterior como removida e acrescenta a nova; as removidas são
+ * descartadas quando passam a ser maioria. O índice pertence a esta instância da aplicação.</p>
+ */
+final class FalhasBuscaIndex {
+
+    /**
+     * Maior posição alcançável por paginação ({@code offset + limit}).
+     */
+    static final int MAX_RESULTADOS = 10_000;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PESO_FALHA = 2;
+    private static final int PESO_SOLUCAO = 1;
+
+    // Termos do índice considerados para o prefixo da consulta.
+    private static final int MAX_EXPANSOES = 64;
+
+    private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private static final Object CARGA = new Object();
+
+    // Acessados sob LOCK. Enquanto a carga roda, indice é null e pendentes guarda as escritas confirmadas.
+    private static Indice indice;
+    private static List<Consumer<Indice>> pendentes;
+
+    private FalhasBuscaIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Carrega o índice, se ainda não estiver carregado. Chamadas simultâneas aguardam a mesma carga.
+     *
+     * @param loader Lê todas as falhas do banco.
+     * @throws SQLException Se a leitura falhar.
+     */
+    static void carregar(Loader loader) throws SQLException {
+        if (carregado()) {
+            return;
+        }
+        synchronized (CARGA) {
+            if (carregado()) {
+                return;
+            }
+            LOCK.writeLock().lock();
+            try {
+                pendentes = new ArrayList<>();
+            } finally {
+                LOCK.writeLock().unlock();
+            }
+            Indice novo = new Indice();
+            boolean lido = false;
+            try (Stream<Falhas> falhas = loader.load()) {
+                falhas.forEach(novo::indexar);
+                lido = true;
+            } finally {
+                LOCK.writeLock().lock();
+                try {
+                    if (lido) {
+                        pendentes.forEach(escrita -> escrita.accept(novo));
+                        indice = novo;
+                    }
+                    pendentes = null;
+                } finally {
+                    LOCK.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca as falhas que contêm todos os termos da consulta.
+     *
+     * @param consulta  O texto digitado.
+     * @param gravidade Filtra pela gravidade, sem diferença de acentos ou maiúsculas; {@code null} para todas.
+     * @param idVeiculo Filtra pelo veículo; {@code null} para todos.
+     * @param offset    A posição do primeiro resultado da página.
+     * @param limit     A quantidade máxima de resultados da página.
+     * @param loader    Lê todas as falhas do banco, se o índice ainda não estiver carregado.
+     * @return Os IDs da página, do mais para o menos relevante, e o total de resultados.
+     * @throws SQLException Se a carga do índice falhar.
+     */
+    static Resultado buscar(String consulta, String gravidade, Long idVeiculo, int offset, int limit, Loader loader) throws SQLException {
+        carregar(loader);
+        List<String> termos = Textos.termos(consulta);
+        if (termos.isEmpty()) {
+            return new Resultado(0, List.of(), List.of());
+        }
+        // Sem espaço no fim, o último termo ainda pode estar sendo digitado.
+        boolean prefixo = !Character.isWhitespace(consulta.charAt(consulta.length() - 1));
+        String gravidadeDobrada = gravidade == null ? null : Textos.dobrar(gravidade);
+        LOCK.readLock().lock();
+        try {
+            return indice.buscar(termos, prefixo, gravidadeDobrada, idVeiculo, offset, limit);
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa falhas criadas ou alteradas, substituindo as versões anteriores.
+     *
+     * @param falhas As falhas gravadas.
+     */
+    static void indexar(Collection<Falhas> falhas) {
+        alterar(indice -> falhas.forEach(indice::indexar));
+    }
+
+    /**
+     * Retira uma falha do índice.
+     *
+     * @param idFalha O ID da falha.
+     */
+    static void remover(Long idFalha) {
+        alterar(indice -> indice.remover(idFalha));
+    }
+
+    private static void alterar(Consumer<Indice> alteracao) {
+        LOCK.writeLock().lock();
+        try {
+            if (indice != null) {
+                alteracao.accept(indice);
+            } else if (pendentes != null) {
+                pendentes.add(alteracao);
+            }
+            // Sem índice nem carga em andamento, a próxima carga já lê a alteração do banco.
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    private static boolean carregado() {
+        LOCK.readLock().lock();
+        try {
+            return indice != null;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lê todas as falhas do banco; o {@link Stream} é fechado pelo índice.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        Stream<Falhas> load() throws SQLException;
+    }
+
+    /**
+     * Uma página de resultados: os IDs em ordem de relevância, a pontuação de cada um e o total de resultados.
+     */
+    static final class Resultado {
+
+        final long total;
+        final List<Long> ids;
+        final List<Double> relevancias;
+
+        private Resultado(long total, List<Long> ids, List<Double> relevancias) {
+            this.total = total;
+            this.ids = ids;
+            this.relevancias = relevancias;
+        }
+    }
+
+    /**
+     * Falhas que contêm um termo, em ordem crescente de documento, com a frequência ponderada do termo em cada uma.
+     */
+    private static final class Postagens {
+
+        private int[] docs = new int[4];
+        private int[] frequencias = new int[4];
+        private int tamanho;
+
+        // Documentos são sempre acrescentados em ordem crescente.
+        private void adicionar(int doc, int frequencia) {
+            if (tamanho == docs.length) {
+                docs = Arrays.copyOf(docs, tamanho * 2);
+                frequencias = Arrays.copyOf(frequencias, tamanho * 2);
+            }
+            docs[tamanho] = doc;
+            frequencias[tamanho] = frequencia;
+            tamanho++;
+        }
+
+        private int frequencia(int doc) {
+            int i = Arrays.binarySearch(docs, 0, tamanho, doc);
+            return i >= 0 ? frequencias[i] : 0;
+        }
+
+        // Renumera os documentos após a compactação, descartando os removidos (novoNumero -1).
+        private void renumerar(int[] novoNumero) {
+            int mantidos = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int doc = novoNumero[docs[i]];
+                if (doc >= 0) {
+                    docs[mantidos] = doc;
+                    frequencias[mantidos] = frequencias[i];
+                    mantidos++;
+                }
+            }
+            tamanho = mantidos;
+        }
+    }
+
+    /**
+     * Estrutura do índice. Os documentos são numerados em ordem de indexação; cada alteração cria um número novo.
+     */
+    private static final class Indice {
+
+        // Quantidade de documentos removidos a partir da qual vale a pena compactar.
+        private static final int MIN_REMOVIDOS_COMPACTACAO = 1_024;
+
+        private long[] ids = new long[1_024];
+        private long[] veiculos = new long[1_024];
+        private String[] gravidades = new String[1_024];
+        private int[] tamanhos = new int[1_024];
+        private final BitSet removidos = new BitSet();
+        private int documentos;
+        private int quantidadeRemovidos;
+        private long termosVivos;
+
+        private final Map<Long, Integer> docPorId = new HashMap<>();
+        private final TreeMap<String, Postagens> termos = new TreeMap<>();
+
+        private void indexar(Falhas falha) {
+            remover(falha.getIdFalha());
+            Map<String, Integer> frequencias = new HashMap<>();
+            for (String termo : Textos.termos(falha.getDescricaoFalha())) {
+                frequencias.merge(termo, PESO_FALHA, Integer::sum);
+            }
+            for (String termo : Textos.termos(falha.getDescricaoSolucao())) {
+                frequencias.merge(termo, PESO_SOLUCAO, Integer::sum);
+            }
+            if (documentos == ids.length) {
+                int capacidade = documentos * 2;
+                ids = Arrays.copyOf(ids, capacidade);
+                veiculos = Arrays.copyOf(veiculos, capacidade);
+                gravidades = Arrays.copyOf(gravidades, capacidade);
+                tamanhos = Arrays.copyOf(tamanhos, capacidade);
+            }
+            int doc = documentos++;
+            ids[doc] = falha.getIdFalha();
+            veiculos[doc] = falha.getIdVeiculo() == null ? 0 : falha.getIdVeiculo();
+            gravidades[doc] = Textos.dobrar(falha.getGravidade());
+            int tamanho = 0;
+            for (Map.Entry<String, Integer> termo : frequencias.entrySet()) {
+                termos.computeIfAbsent(termo.getKey(), t -> new Postagens()).adicionar(doc, termo.getValue());
+                tamanho += termo.getValue();
+            }
+            tamanhos[doc] = tamanho;
+            termosVivos += tamanho;
+            docPorId.put(falha.getIdFalha(), doc);
+        }
+
+        private void remover(Long idFalha) {
+            Integer doc = docPorId.remove(idFalha);
+            if (doc == null) {
+                return;
+            }
+            removidos.set(doc);
+            quantidadeRemovidos++;
+            termosVivos -= tamanhos[doc];
+            if (quantidadeRemovidos >= MIN_REMOVIDOS_COMPACTACAO && quantidadeRemovidos > docPorId.size()) {
+                compactar();
+            }
+        }
+
+        // Descarta os documentos removidos e renumera os demais, mantendo a ordem, em uma passada por lista.
+        private void compactar() {
+            int[] novoNumero = new int[documentos];
+            int vivos = 0;
+            for (int doc = 0; doc < documentos; doc++) {
+                if (removidos.get(doc)) {
+                    novoNumero[doc] = -1;
+                    continue;
+                }
+                novoNumero[doc] = vivos;
+                ids[vivos] = ids[doc];
+                veiculos[vivos] = veiculos[doc];
+                gravidades[vivos] = gravidades[doc];
+                tamanhos[vivos] = tamanhos[doc];
+                vivos++;
+            }
+            Arrays.fill(gravidades, vivos, documentos, null);
+            for (Iterator<Postagens> it = termos.values().iterator(); it.hasNext(); ) {
+                Postagens postagens = it.next();
+                postagens.renumerar(novoNumero);
+                if (postagens.tamanho == 0) {
+                    it.remove();
+                }
+            }
+            docPorId.replaceAll((id, doc) -> novoNumero[doc]);
+            documentos = vivos;
+            removidos.clear();
+            quantidadeRemovidos = 0;
+        }
+
+        private Resultado buscar(List<String> consulta, boolean prefixo, String gravidade, Long idVeiculo, int offset, int limit) {
+            // Um grupo por termo da consulta; o último, como prefixo, pode reunir vários termos do índice.
+            List<List<Postagens>> grupos = new ArrayList<>();
+            for (int i = 0; i < consulta.size(); i++) {
+                String termo = consulta.get(i);
+                List<Postagens> grupo = new ArrayList<>();
+                if (prefixo && i == consulta.size() - 1) {
+                    for (Postagens postagens : termos.subMap(termo, true, termo + Character.MAX_VALUE, false).values()) {
+                        if (grupo.size() == MAX_EXPANSOES) {
+                            break;
+                        }
+                        grupo.add(postagens);
+                    }
+                } else if (termos.containsKey(termo)) {
+                    grupo.add(termos.get(termo));
+                }
+                if (grupo.isEmpty()) {
+                    return new Resultado(0, List.of(), List.of());
+                }
+                grupos.add(grupo);
+            }
+
+            int vivos = docPorId.size();
+            double mediaTamanho = vivos == 0 ? 1 : Math.max(1, (double) termosVivos / vivos);
+            Map<Postagens, Double> idfs = new HashMap<>();
+            for (List<Postagens> grupo : grupos) {
+                for (Postagens postagens : grupo) {
+                    idfs.put(postagens, Math.log(1 + (vivos - postagens.tamanho + 0.5) / (postagens.tamanho + 0.5)));
+                }
+            }
+
+            List<Postagens> condutor = grupos.get(0);
+            for (List<Postagens> grupo : grupos) {
+                if (tamanho(grupo) < tamanho(condutor)) {
+                    condutor = grupo;
+                }
+            }
+
+            // Mantém apenas os offset + limit melhores; a raiz é o pior deles.
+            int manter = offset + limit;
+            // Cada entrada é {pontuação, documento}; no empate, o maior ID é o pior.
+            Comparator<double[]> pior = (a, b) -> a[0] != b[0]
+                    ? Double.compare(a[0], b[0])
+                    : Long.compare(ids[(int) b[1]], ids[(int) a[1]]);
+            PriorityQueue<double[]> melhores = new PriorityQueue<>(Math.max(1, manter), pior);
+            long total = 0;
+            int[] candidatos = condutor.size() == 1 ? condutor.get(0).docs : uniao(condutor);
+            int quantidadeCandidatos = condutor.size() == 1 ? condutor.get(0).tamanho : candidatos.length;
+            for (int c = 0; c < quantidadeCandidatos; c++) {
+                int doc = candidatos[c];
+                if (removidos.get(doc)
+                        || (idVeiculo != null && veiculos[doc] != idVeiculo)
+                        || (gravidade != null && !gravidade.equals(gravidades[doc]))) {
+                    continue;
+                }
+                double pontuacao = 0;
+                boolean todos = true;
+                for (List<Postagens> grupo : grupos) {
+                    double doGrupo = 0;
+                    for (Postagens postagens : grupo) {
+                        int frequencia = postagens.frequencia(doc);
+                        if (frequencia > 0) {
+                            doGrupo += idfs.get(postagens) * frequencia * (K1 + 1)
+                                    / (frequencia + K1 * (1 - B + B * tamanhos[doc] / mediaTamanho));
+                        }
+                    }
+                    if (doGrupo == 0) {
+                        todos = false;
+                        break;
+                    }
+                    pontuacao += doGrupo;
+                }
+                if (!todos) {
+                    continue;
+                }
+                total++;
+                if (manter > 0) {
+                    melhores.add(new double[]{pontuacao, doc});
+                    if (melhores.size() > manter) {
+                        melhores.poll();
+                    }
+                }
+            }
+
+            List<double[]> ordenados = new ArrayList<>(melhores);
+            ordenados.sort(pior.reversed());
+            List<Long> pagina = new ArrayList<>();
+            List<Double> relevancias = new ArrayList<>();
+            for (int i = offset; i < ordenados.size(); i++) {
+                pagina.add(ids[(int) ordenados.get(i)[1]]);
+                relevancias.add(Math.round(ordenados.get(i)[0] * 1000) / 1000.0);
+            }
+            return new Resultado(total, pagina, relevancias);
+        }
+
+        private static long tamanho(List<Postagens> grupo) {
+            long tamanho = 0;
+            for (Postagens postagens : grupo) {
+                tamanho += postagens.tamanho;
+            }
+            return tamanho;
+        }
+
+        // Documentos de um grupo com vários termos, em ordem crescente e sem repetição.
+        private static int[] uniao(List<Postagens> grupo) {
+            BitSet docs = new BitSet();
+            for (Postagens postagens : grupo) {
+                for (int i = 0; i < postagens.tamanho; i++) {
+                    docs.set(postagens.docs[i]);
+                }
+            }
+            return docs.stream().toArray();
+        }
+    }
+}
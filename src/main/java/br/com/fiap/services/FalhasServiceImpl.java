@@ -1,17 +1,25 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.FalhasDao;
 import br.com.fiap.dao.FalhasDaoFactory;
+import br.com.fiap.dtos.BuscaDto;
+import br.com.fiap.dtos.FalhaEncontradaDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.FalhasNotFoundException;
 import br.com.fiap.exceptions.FalhasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Falhas;
 import br.com.fiap.services.interfaces.FalhasService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade Falhas, utilizando FalhasDaoFactory.
@@ -36,20 +44,37 @@ public final class FalhasServiceImpl implements FalhasService {
     @Override
     public Falhas create(Falhas falhas) throws UnsupportedServiceOperationException, SQLException, FalhasNotSavedException {
         if (falhas.getIdFalha() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                falhas = this.dao.save(falhas, connection);
-                connection.commit();
-                return falhas;
-            } catch (SQLException | FalhasNotSavedException e) {
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_FALHAS");
+            Falhas saved = this.dao.save(falhas, TransactionManager.current());
+            TransactionManager.afterCommit(() -> FalhasBuscaIndex.indexar(List.of(saved)));
+            return saved;
         } else {
             throw new UnsupportedServiceOperationException("Falha já possui um ID e não pode ser criada novamente.");
         }
     }
 
+    /**
+     * Cria vários registros de falhas em lote, na transação da requisição.
+     *
+     * @param falhas As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws FalhasNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Falhas> createAll(List<Falhas> falhas) throws UnsupportedServiceOperationException, SQLException, FalhasNotSavedException {
+        for (Falhas falha : falhas) {
+            if (falha.getIdFalha() != null) {
+                throw new UnsupportedServiceOperationException("Falha já possui um ID e não pode ser criada novamente.");
+            }
+        }
+        TableVersions.bumpAfterCommit("T_FALHAS");
+        List<Falhas> saved = this.dao.saveAll(falhas, TransactionManager.current());
+        TransactionManager.afterCommit(() -> FalhasBuscaIndex.indexar(saved));
+        return saved;
+    }
+
     /**
      * Retorna uma lista de todas as falhas.
      *
@@ -60,6 +85,44 @@ public final class FalhasServiceImpl implements FalhasService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de falhas a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Falhas> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Falhas::getIdFalha);
+    }
+
+    /**
+     * Busca uma Falha pelo ID.
+     *
+     * @param id O ID da Falha.
+     * @return A Falha encontrada, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Falhas> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Falhas} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Falhas> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
     /**
      * Atualiza uma Falha existente no banco de dados.
      *
@@ -70,15 +133,28 @@ public final class FalhasServiceImpl implements FalhasService {
      */
     @Override
     public Falhas update(Falhas falhas) throws FalhasNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            falhas = this.dao.update(falhas, connection);
-            connection.commit();
-            return falhas;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_FALHAS");
+        Falhas updated = this.dao.update(falhas, TransactionManager.current());
+        TransactionManager.afterCommit(() -> FalhasBuscaIndex.indexar(List.of(updated)));
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de uma Falha existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID da Falha.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return A Falha com todos os campos, depois da alteração.
+     * @throws FalhasNotFoundException Se a Falha não for encontrada.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Falhas patch(Long id, Map<String, Object> campos, Long versao) throws FalhasNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_FALHAS");
+        Falhas updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        TransactionManager.afterCommit(() -> FalhasBuscaIndex.indexar(List.of(updated)));
+        return updated;
     }
 
     /**
@@ -90,13 +166,56 @@ public final class FalhasServiceImpl implements FalhasService {
      */
     @Override
     public void deleteById(Long id) throws FalhasNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
+        TableVersions.bumpAfterCommit("T_FALHAS");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(() -> FalhasBuscaIndex.remover(id));
+    }
+
+    /**
+     * Busca falhas pelo texto da descrição e da solução, usando o índice em memória.
+     *
+     * <p>O índice devolve os IDs da página em ordem de relevância; os registros são lidos do banco em uma
+     * única consulta.</p>
+     *
+     * @param consulta  O texto digitado.
+     * @param gravidade Filtra pela gravidade; {@code null} para todas.
+     * @param idVeiculo Filtra pelo veículo; {@code null} para todos.
+     * @param offset    A posição do primeiro resultado da página.
+     * @param limit     A quantidade máxima de resultados da página.
+     * @return A página de resultados, do mais para o menos relevante.
+     * @throws IllegalArgumentException Se a página ultrapassar o limite de resultados navegáveis.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public BuscaDto<FalhaEncontradaDto> search(String consulta, String gravidade, Long idVeiculo, int offset, int limit) throws SQLException {
+        if (offset + limit > FalhasBuscaIndex.MAX_RESULTADOS) {
+            throw new IllegalArgumentException("A busca permite navegar até o resultado " + FalhasBuscaIndex.MAX_RESULTADOS);
+        }
+        FalhasBuscaIndex.Resultado resultado = FalhasBuscaIndex.buscar(consulta, gravidade, idVeiculo, offset, limit, this.dao::streamAll);
+        Map<Long, Falhas> porId = new HashMap<>();
+        for (Falhas falha : this.dao.findAllByIds(resultado.ids)) {
+            porId.put(falha.getIdFalha(), falha);
+        }
+        List<FalhaEncontradaDto> items = new ArrayList<>(resultado.ids.size());
+        for (int i = 0; i < resultado.ids.size(); i++) {
+            // Uma falha excluída depois da busca no índice simplesmente não aparece.
+            Falhas falha = porId.get(resultado.ids.get(i));
+            if (falha != null) {
+                items.add(new FalhaEncontradaDto(falha, resultado.relevancias.get(i)));
+            }
         }
+        int proxima = offset + limit;
+        Integer nextOffset = proxima < resultado.total && proxima < FalhasBuscaIndex.MAX_RESULTADOS ? proxima : null;
+        return new BuscaDto<>(items, resultado.total, nextOffset);
+    }
+
+    /**
+     * Carrega o índice de busca, se ainda não estiver carregado.
+     *
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public void prepararBusca() throws SQLException {
+        FalhasBuscaIndex.carregar(this.dao::streamAll);
     }
 }
@@ -1,17 +1,23 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.FuncionarioDao;
 import br.com.fiap.dao.FuncionarioDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.FuncionarioNotFoundException;
 import br.com.fiap.exceptions.FuncionarioNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Funcionario;
 import br.com.fiap.services.interfaces.FuncionarioService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 
 
@@ -20,6 +26,10 @@ import java.util.List;
  */
 public final class FuncionarioServiceImpl implements FuncionarioService {
 
+    // Caches compartilhados entre as instâncias do serviço; invalidados após a confirmação de qualquer escrita.
+    private static final Cache<Long, Funcionario> CACHE_POR_ID = CacheFactory.create("funcionario.porId", 1_000, 300);
+    private static final Cache<String, List<Funcionario>> CACHE_CONSULTAS = CacheFactory.create("funcionario.consultas", 100, 300);
+
     private final FuncionarioDao dao = FuncionarioDaoFactory.create();
 
 
@@ -34,16 +44,10 @@ public final class FuncionarioServiceImpl implements FuncionarioService {
     @Override
     public Funcionario create(Funcionario funcionario) throws UnsupportedServiceOperationException, SQLException, FuncionarioNotSavedException {
         if (funcionario.getIdFuncionario() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try{
-                funcionario = this.dao.save(funcionario, connection);
-                connection.commit();
-                return funcionario;
-            } catch (SQLException | FuncionarioNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_FUNCIONARIO");
+            Funcionario saved = this.dao.save(funcionario, TransactionManager.current());
+            TransactionManager.afterCommit(FuncionarioServiceImpl::invalidateCaches);
+            return saved;
         } else {
             // Lança exceção se a Pessoa já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Funcionario já possui um ID e não pode ser criado novamente.");
@@ -58,7 +62,82 @@ public final class FuncionarioServiceImpl implements FuncionarioService {
      */
     @Override
     public List<Funcionario> findAll() {
-        return this.dao.findAll();
+        List<Funcionario> all = CACHE_CONSULTAS.get("all", () -> emptyToNull(this.dao.findAll()));
+        return all != null ? all : new ArrayList<>();
+    }
+
+    /**
+     * Retorna uma página de funcionários a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Funcionario> page(Long afterId, int limit) {
+        List<Funcionario> rows = CACHE_CONSULTAS.get("page:" + afterId + ":" + limit,
+                () -> emptyToNull(this.dao.page(afterId, limit + 1)));
+        return PageDto.of(rows != null ? rows : new ArrayList<>(), limit, Funcionario::getIdFuncionario);
+    }
+
+    /**
+     * Busca um Funcionario pelo ID.
+     *
+     * @param id O ID do Funcionario.
+     * @return O Funcionario encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Funcionario> findById(Long id) throws SQLException {
+        return Optional.ofNullable(CACHE_POR_ID.get(id, () -> this.dao.findById(id).orElse(null)));
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Funcionario} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Funcionario> findAllByIds(Collection<Long> ids) throws SQLException {
+        // Atende da memória os IDs em cache e busca os demais em uma única consulta.
+        List<Funcionario> found = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Funcionario cached = id != null ? CACHE_POR_ID.getIfPresent(id) : null;
+            if (cached != null) {
+                found.add(cached);
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Como em get(id, loader): o que for lido durante uma invalidação não volta ao cache.
+            long geracao = CACHE_POR_ID.generation();
+            for (Funcionario loaded : this.dao.findAllByIds(missing)) {
+                CACHE_POR_ID.put(loaded.getIdFuncionario(), loaded, geracao);
+                found.add(loaded);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Busca os funcionários de uma oficina.
+     *
+     * <p>A lista fica no cache de consultas e é descartada, como as demais, a cada escrita em funcionários.</p>
+     *
+     * @param oficinaId O ID da oficina.
+     * @return As instâncias de {@link Funcionario} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Funcionario> findByOficinaId(Long oficinaId) throws SQLException {
+        List<Funcionario> cached = CACHE_CONSULTAS.get("oficina:" + oficinaId, () -> emptyToNull(this.dao.findByOficinaId(oficinaId)));
+        return cached != null ? cached : new ArrayList<>();
     }
 
     /**
@@ -71,10 +150,28 @@ public final class FuncionarioServiceImpl implements FuncionarioService {
      */
     @Override
     public Funcionario update(Funcionario funcionario) throws FuncionarioNotFoundException, SQLException {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            funcionario = this.dao.update(funcionario, connection);
-            connection.commit();
-            return funcionario;
+        TableVersions.bumpAfterCommit("T_FUNCIONARIO");
+        Funcionario updated = this.dao.update(funcionario, TransactionManager.current());
+        TransactionManager.afterCommit(FuncionarioServiceImpl::invalidateCaches);
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Funcionario existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Funcionario.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Funcionario com todos os campos, depois da alteração.
+     * @throws FuncionarioNotFoundException Se o Funcionario não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Funcionario patch(Long id, Map<String, Object> campos, Long versao) throws FuncionarioNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_FUNCIONARIO");
+        Funcionario updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        TransactionManager.afterCommit(FuncionarioServiceImpl::invalidateCaches);
+        return updated;
     }
 
     /**
@@ -86,9 +183,19 @@ public final class FuncionarioServiceImpl implements FuncionarioService {
      */
     @Override
     public void deleteById(Long id) throws FuncionarioNotFoundException, SQLException {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            this.dao.deleteById(id, connection);
-            connection.commit();
+        TableVersions.bumpAfterCommit("T_FUNCIONARIO");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(FuncionarioServiceImpl::invalidateCaches);
     }
 
+    // Descarta as leituras em cache; chamado somente depois que a escrita é confirmada no banco.
+    private static void invalidateCaches() {
+        CACHE_POR_ID.invalidateAll();
+        CACHE_CONSULTAS.invalidateAll();
+    }
+
+    // Listas vazias não são armazenadas: o DAO também devolve lista vazia quando a consulta falha.
+    private static <T> List<T> emptyToNull(List<T> rows) {
+        return rows.isEmpty() ? null : rows;
+    }
 }
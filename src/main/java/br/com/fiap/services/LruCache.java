@@ -0,0 +1,164 @@
+package br.com.fiap.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Cache} limitado com expiração por tempo de vida e descarte do item menos usado recentemente (LRU).
+ *
+ * <p>O mapa é mantido em ordem de acesso; ao ultrapassar {@code maxSize}, a entrada mais antiga é descartada.
+ * O carregamento de valores ausentes acontece fora do lock, para que uma consulta lenta ao banco não
+ * bloqueie as leituras já em cache. Cada {@link #invalidateAll()} avança uma geração, e um valor carregado
+ * durante uma geração anterior é devolvido ao chamador mas não é armazenado, evitando que uma leitura
+ * concorrente com uma escrita recoloque no cache um dado já desatualizado.</p>
+ *
+ * @param <K> O tipo da chave.
+ * @param <V> O tipo do valor armazenado.
+ */
+final class LruCache<K, V> implements Cache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    LruCache(String name, int maxSize, long ttlSeconds) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public <E extends Exception> V get(K key, Loader<V, E> loader) throws E {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = lookup(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        V loaded = loader.load();
+        if (loaded != null) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    entries.put(key, new Entry<>(loaded, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public synchronized V getIfPresent(K key) {
+        V cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized void put(K key, V value, long generation) {
+        if (generation == this.generation) {
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    @Override
+    public synchronized long generation() {
+        return generation;
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+        invalidations.incrementAndGet();
+    }
+
+    @Override
+    public CacheStats stats() {
+        int size;
+        synchronized (this) {
+            purgeExpired();
+            size = entries.size();
+        }
+        return new CacheStats(name, size, maxSize, TimeUnit.NANOSECONDS.toSeconds(ttlNanos),
+                hits.get(), misses.get(), evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    // Retorna o valor vigente da chave, removendo-o se tiver expirado. Deve ser chamado com o lock.
+    private V lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            expirations.incrementAndGet();
+            return null;
+        }
+        return entry.value;
+    }
+
+    // Remove todas as entradas expiradas. Deve ser chamado com o lock.
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                expirations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Valor em cache com o instante em que expira.
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
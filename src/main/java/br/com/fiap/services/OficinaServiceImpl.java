@@ -1,17 +1,23 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.OficinaDao;
 import br.com.fiap.dao.OficinaDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.OficinaNotFoundException;
 import br.com.fiap.exceptions.OficinaNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Oficina;
 import br.com.fiap.services.interfaces.OficinaService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade Oficina, utilizando OficinaDaoFactory.
@@ -23,6 +29,10 @@ import java.util.List;
  */
 public final class OficinaServiceImpl implements OficinaService {
 
+    // Caches compartilhados entre as instâncias do serviço; invalidados após a confirmação de qualquer escrita.
+    private static final Cache<Long, Oficina> CACHE_POR_ID = CacheFactory.create("oficina.porId", 1_000, 300);
+    private static final Cache<String, List<Oficina>> CACHE_CONSULTAS = CacheFactory.create("oficina.consultas", 100, 300);
+
     private final OficinaDao dao = OficinaDaoFactory.create();
 
     /**
@@ -36,16 +46,10 @@ public final class OficinaServiceImpl implements OficinaService {
     @Override
     public Oficina create(Oficina oficina) throws UnsupportedServiceOperationException, SQLException, OficinaNotSavedException {
         if (oficina.getIdOficina() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                oficina = this.dao.save(oficina, connection);
-                connection.commit();
-                return oficina;
-            } catch (SQLException | OficinaNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_OFICINA");
+            Oficina saved = this.dao.save(oficina, TransactionManager.current());
+            TransactionManager.afterCommit(OficinaServiceImpl::invalidateCaches);
+            return saved;
         } else {
             // Lança exceção se a Oficina já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Operação de serviço não suportada: verifique se o serviço solicitado está implementado ou permitido.");
@@ -59,7 +63,67 @@ public final class OficinaServiceImpl implements OficinaService {
      */
     @Override
     public List<Oficina> findAll() {
-        return this.dao.findAll();
+        List<Oficina> all = CACHE_CONSULTAS.get("all", () -> emptyToNull(this.dao.findAll()));
+        return all != null ? all : new ArrayList<>();
+    }
+
+    /**
+     * Retorna uma página de oficinas a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Oficina> page(Long afterId, int limit) {
+        List<Oficina> rows = CACHE_CONSULTAS.get("page:" + afterId + ":" + limit,
+                () -> emptyToNull(this.dao.page(afterId, limit + 1)));
+        return PageDto.of(rows != null ? rows : new ArrayList<>(), limit, Oficina::getIdOficina);
+    }
+
+    /**
+     * Busca uma Oficina pelo ID.
+     *
+     * @param id O ID da Oficina.
+     * @return A Oficina encontrada, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Oficina> findById(Long id) throws SQLException {
+        return Optional.ofNullable(CACHE_POR_ID.get(id, () -> this.dao.findById(id).orElse(null)));
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Oficina} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Oficina> findAllByIds(Collection<Long> ids) throws SQLException {
+        // Atende da memória os IDs em cache e busca os demais em uma única consulta.
+        List<Oficina> found = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Oficina cached = id != null ? CACHE_POR_ID.getIfPresent(id) : null;
+            if (cached != null) {
+                found.add(cached);
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Como em get(id, loader): o que for lido durante uma invalidação não volta ao cache.
+            long geracao = CACHE_POR_ID.generation();
+            for (Oficina loaded : this.dao.findAllByIds(missing)) {
+                CACHE_POR_ID.put(loaded.getIdOficina(), loaded, geracao);
+                found.add(loaded);
+            }
+        }
+        return found;
     }
 
     /**
@@ -72,15 +136,28 @@ public final class OficinaServiceImpl implements OficinaService {
      */
     @Override
     public Oficina update(Oficina oficina) throws OficinaNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            oficina = this.dao.update(oficina, connection);
-            connection.commit();
-            return oficina;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_OFICINA");
+        Oficina updated = this.dao.update(oficina, TransactionManager.current());
+        TransactionManager.afterCommit(OficinaServiceImpl::invalidateCaches);
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de uma Oficina existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID da Oficina.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return A Oficina com todos os campos, depois da alteração.
+     * @throws OficinaNotFoundException Se a Oficina não for encontrada.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Oficina patch(Long id, Map<String, Object> campos, Long versao) throws OficinaNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_OFICINA");
+        Oficina updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        TransactionManager.afterCommit(OficinaServiceImpl::invalidateCaches);
+        return updated;
     }
 
     /**
@@ -92,13 +169,19 @@ public final class OficinaServiceImpl implements OficinaService {
      */
     @Override
     public void deleteById(Long id) throws OficinaNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_OFICINA");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(OficinaServiceImpl::invalidateCaches);
+    }
+
+    // Descarta as leituras em cache; chamado somente depois que a escrita é confirmada no banco.
+    private static void invalidateCaches() {
+        CACHE_POR_ID.invalidateAll();
+        CACHE_CONSULTAS.invalidateAll();
+    }
+
+    // Listas vazias não são armazenadas: o DAO também devolve lista vazia quando a consulta falha.
+    private static <T> List<T> emptyToNull(List<T> rows) {
+        return rows.isEmpty() ? null : rows;
     }
 }
@@ -1,17 +1,22 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.OrcamentoDao;
 import br.com.fiap.dao.OrcamentoDaoFactory;
+import br.com.fiap.dtos.OrcamentoTotaisDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.OrcamentoNotFoundException;
 import br.com.fiap.exceptions.OrcamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Orcamento;
 import br.com.fiap.services.interfaces.OrcamentoService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade Orcamento, utilizando OrcamentoDaoFactory.
@@ -23,6 +28,11 @@ import java.util.List;
  */
 public final class OrcamentoServiceImpl implements OrcamentoService {
 
+    // Totais por orçamento. A chave inclui as versões das tabelas envolvidas, então qualquer escrita
+    // confirmada em orçamentos, serviços ou nas quantidades e valores das peças faz as entradas anteriores
+    // deixarem de ser usadas; as reservas de estoque não entram nos totais e não as descartam.
+    private static final Cache<String, OrcamentoTotaisDto> CACHE_TOTAIS = CacheFactory.create("orcamento.totais", 1_000, 300);
+
     private final OrcamentoDao dao = OrcamentoDaoFactory.create();
 
     /**
@@ -36,16 +46,8 @@ public final class OrcamentoServiceImpl implements OrcamentoService {
     @Override
     public Orcamento create(Orcamento orcamento) throws UnsupportedServiceOperationException, SQLException, OrcamentoNotSavedException {
         if (orcamento.getIdOrcamento() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                orcamento = this.dao.save(orcamento, connection);
-                connection.commit();
-                return orcamento;
-            } catch (SQLException | OrcamentoNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_ORCAMENTO");
+            return this.dao.save(orcamento, TransactionManager.current());
         } else {
             // Lança exceção se o Orcamento já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Orcamento já possui um ID e não pode ser criado novamente.");
@@ -62,6 +64,59 @@ public final class OrcamentoServiceImpl implements OrcamentoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de orçamentos a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Orcamento> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Orcamento::getIdOrcamento);
+    }
+
+    /**
+     * Busca um Orcamento pelo ID.
+     *
+     * @param id O ID do Orcamento.
+     * @return O Orcamento encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Orcamento> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Orcamento} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Orcamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Calcula os totais de um orçamento, usando o cache quando nada mudou desde o último cálculo.
+     *
+     * @param idOrcamento O ID do orçamento.
+     * @return Os totais do orçamento, ou vazio se ele não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<OrcamentoTotaisDto> findTotais(Long idOrcamento) throws SQLException {
+        String key = TableVersions.tag("T_ORCAMENTO", "T_SERVICOS", PecasServiceImpl.VALORES) + ":" + idOrcamento;
+        return Optional.ofNullable(CACHE_TOTAIS.get(key, () -> this.dao.findTotaisPorServico(idOrcamento)
+                .map(servicos -> new OrcamentoTotaisDto(idOrcamento, servicos))
+                .orElse(null)));
+    }
+
     /**
      * Atualiza um Orcamento existente no banco de dados.
      *
@@ -72,15 +127,24 @@ public final class OrcamentoServiceImpl implements OrcamentoService {
      */
     @Override
     public Orcamento update(Orcamento orcamento) throws OrcamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            orcamento = this.dao.update(orcamento, connection);
-            connection.commit();
-            return orcamento;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_ORCAMENTO");
+        return this.dao.update(orcamento, TransactionManager.current());
+    }
+
+    /**
+     * Altera apenas os campos informados de um Orcamento existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Orcamento.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Orcamento com todos os campos, depois da alteração.
+     * @throws OrcamentoNotFoundException Se o Orcamento não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Orcamento patch(Long id, Map<String, Object> campos, Long versao) throws OrcamentoNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_ORCAMENTO");
+        return this.dao.patch(id, campos, versao, TransactionManager.current());
     }
 
     /**
@@ -92,13 +156,7 @@ public final class OrcamentoServiceImpl implements OrcamentoService {
      */
     @Override
     public void deleteById(Long id) throws OrcamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_ORCAMENTO");
+        this.dao.deleteById(id, TransactionManager.current());
     }
 }
@@ -1,17 +1,33 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
+import br.com.fiap.dao.FuncionarioDaoFactory;
+import br.com.fiap.dao.interfaces.FuncionarioDao;
 import br.com.fiap.dao.interfaces.OrdemDeServicoDao;
 import br.com.fiap.dao.OrdemDeServicoDaoFactory;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.PercentisDto;
+import br.com.fiap.dtos.QuadroDto;
+import br.com.fiap.dtos.QuadroEventoDto;
 import br.com.fiap.exceptions.OrdemDeServicoNotFoundException;
 import br.com.fiap.exceptions.OrdemDeServicoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
+import br.com.fiap.models.Funcionario;
 import br.com.fiap.models.OrdemDeServico;
 import br.com.fiap.services.interfaces.OrdemDeServicoService;
 
-import java.sql.Connection;
+import java.sql.Date;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementação do serviço para a entidade OrdemDeServico, utilizando OrdemDeServicoDaoFactory.
@@ -24,6 +40,7 @@ import java.util.List;
 public final class OrdemDeServicoServiceImpl implements OrdemDeServicoService {
 
     private final OrdemDeServicoDao dao = OrdemDeServicoDaoFactory.create();
+    private final FuncionarioDao funcionarioDao = FuncionarioDaoFactory.create();
 
     /**
      * Cria uma nova OrdemDeServico no banco de dados.
@@ -36,16 +53,11 @@ public final class OrdemDeServicoServiceImpl implements OrdemDeServicoService {
     @Override
     public OrdemDeServico create(OrdemDeServico ordemDeServico) throws UnsupportedServiceOperationException, SQLException, OrdemDeServicoNotSavedException {
         if (ordemDeServico.getIdOs() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                ordemDeServico = this.dao.save(ordemDeServico, connection);
-                connection.commit();
-                return ordemDeServico;
-            } catch (SQLException | OrdemDeServicoNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_ORDEM_DE_SERVICO");
+            OrdemDeServico saved = this.dao.save(ordemDeServico, TransactionManager.current());
+            atualizarQuadro(saved);
+            TemposExecucaoIndex.invalidarAfterCommit(saved.getDataFim());
+            return saved;
         } else {
             // Lança exceção se a OrdemDeServico já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Ordem de Serviço já possui um ID e não pode ser criada novamente.");
@@ -62,6 +74,55 @@ public final class OrdemDeServicoServiceImpl implements OrdemDeServicoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de ordens de serviço a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<OrdemDeServico> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, OrdemDeServico::getIdOs);
+    }
+
+    /**
+     * Busca uma OrdemDeServico pelo ID.
+     *
+     * @param id O ID da OrdemDeServico.
+     * @return A OrdemDeServico encontrada, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<OrdemDeServico> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link OrdemDeServico} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<OrdemDeServico> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Percorre todas as ordens de serviço sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link OrdemDeServico}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Stream<OrdemDeServico> streamAll() throws SQLException {
+        return this.dao.streamAll();
+    }
+
     /**
      * Atualiza uma OrdemDeServico existente no banco de dados.
      *
@@ -72,15 +133,50 @@ public final class OrdemDeServicoServiceImpl implements OrdemDeServicoService {
      */
     @Override
     public OrdemDeServico update(OrdemDeServico ordemDeServico) throws OrdemDeServicoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            ordemDeServico = this.dao.update(ordemDeServico, connection);
-            connection.commit();
-            return ordemDeServico;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_ORDEM_DE_SERVICO");
+        Date dataFimAnterior = dataFimAtual(ordemDeServico.getIdOs());
+        OrdemDeServico updated = this.dao.update(ordemDeServico, TransactionManager.current());
+        atualizarQuadro(updated);
+        TemposExecucaoIndex.invalidarAfterCommit(dataFimAnterior, updated.getDataFim());
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de uma OrdemDeServico existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID da OrdemDeServico.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return A OrdemDeServico com todos os campos, depois da alteração.
+     * @throws OrdemDeServicoNotFoundException Se a OrdemDeServico não for encontrada.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public OrdemDeServico patch(Long id, Map<String, Object> campos, Long versao) throws OrdemDeServicoNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_ORDEM_DE_SERVICO");
+        Date dataFimAnterior = dataFimAtual(id);
+        OrdemDeServico updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        atualizarQuadro(updated);
+        TemposExecucaoIndex.invalidarAfterCommit(dataFimAnterior, updated.getDataFim());
+        return updated;
+    }
+
+    /**
+     * Finaliza uma OrdemDeServico aberta, registrando a data e a hora de término.
+     *
+     * @param id O ID da OrdemDeServico.
+     * @return A OrdemDeServico finalizada.
+     * @throws OrdemDeServicoNotFoundException Se a OrdemDeServico não for encontrada.
+     * @throws IllegalStateException Se a OrdemDeServico não estiver aberta.
+     * @throws VersaoConflitanteException Se a OrdemDeServico for alterada entre a leitura e a finalização.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public OrdemDeServico finalizar(Long id) throws OrdemDeServicoNotFoundException, SQLException {
+        OrdemDeServico ordemDeServico = this.dao.findById(id)
+                .orElseThrow(() -> new OrdemDeServicoNotFoundException("Ordem de Serviço não encontrada: " + id));
+        ordemDeServico.finalizarOrdem();
+        return update(ordemDeServico);
     }
 
     /**
@@ -92,13 +188,97 @@ public final class OrdemDeServicoServiceImpl implements OrdemDeServicoService {
      */
     @Override
     public void deleteById(Long id) throws OrdemDeServicoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
+        TableVersions.bumpAfterCommit("T_ORDEM_DE_SERVICO");
+        Date dataFimAnterior = dataFimAtual(id);
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(() -> QuadroOrdensIndex.remover(id));
+        TemposExecucaoIndex.invalidarAfterCommit(dataFimAnterior);
+    }
+
+    /**
+     * Monta o resumo do quadro de ordens de serviço a partir do índice em memória.
+     *
+     * @return A quantidade de ordens por status e por status, oficina e funcionário.
+     * @throws SQLException Se a carga inicial do índice falhar.
+     */
+    @Override
+    public QuadroDto findQuadro() throws SQLException {
+        return QuadroOrdensIndex.resumo(this::carregarQuadro);
+    }
+
+    /**
+     * Lista uma página das ordens de uma célula do quadro; filtros {@code null} não restringem.
+     *
+     * <p>Busca um ID além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param status        O status das ordens.
+     * @param idOficina     O ID da oficina.
+     * @param idFuncionario O ID do funcionário.
+     * @param afterId       O último ID da página anterior, ou {@code null} para a primeira página.
+     * @param limit         A quantidade máxima de IDs na página.
+     * @return A página de IDs, em ordem crescente, e o cursor da próxima página.
+     * @throws SQLException Se a carga inicial do índice falhar.
+     */
+    @Override
+    public PageDto<Long> findIdsNoQuadro(String status, Long idOficina, Long idFuncionario, Long afterId, int limit)
+            throws SQLException {
+        return PageDto.of(QuadroOrdensIndex.ordens(status, idOficina, idFuncionario, afterId, limit + 1,
+                this::carregarQuadro), limit, id -> id);
+    }
+
+    /**
+     * Registra um ouvinte para as mudanças confirmadas do quadro.
+     *
+     * @param ouvinte Recebe cada mudança, depois de aplicada ao índice.
+     */
+    @Override
+    public void observarQuadro(Consumer<QuadroEventoDto> ouvinte) {
+        QuadroOrdensIndex.observar(ouvinte);
+    }
+
+    /**
+     * Calcula os percentis do tempo de execução das ordens concluídas no período.
+     *
+     * @param de       O primeiro dia do período.
+     * @param ate      O último dia do período (inclusivo).
+     * @param dimensao A dimensão de agrupamento (oficina, funcionario ou servico), ou {@code null} para todas.
+     * @return p50, p90 e p99 de cada grupo, em minutos.
+     * @throws IllegalArgumentException Se a dimensão não for reconhecida.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<PercentisDto> findPercentisTempoExecucao(LocalDate de, LocalDate ate, String dimensao) throws SQLException {
+        return TemposExecucaoIndex.percentis(de, ate, dimensao, this.dao::streamTemposExecucao);
+    }
+
+    // Data de conclusão gravada antes de uma alteração, para descartar os percentis daquele dia.
+    private Date dataFimAtual(Long id) throws SQLException {
+        return this.dao.findById(id).map(OrdemDeServico::getDataFim).orElse(null);
+    }
+
+    // Agenda a atualização do quadro para depois da confirmação; a oficina é resolvida ainda dentro da transação.
+    // A versão gravada ordena as atualizações da mesma ordem, cujos ganchos podem rodar fora da ordem de confirmação.
+    private void atualizarQuadro(OrdemDeServico ordem) throws SQLException {
+        Long idOs = ordem.getIdOs();
+        long versao = ordem.getVersao();
+        String status = ordem.getStatus();
+        Long idFuncionario = ordem.getIdFuncionario();
+        Long idOficina = idFuncionario == null ? null : this.funcionarioDao.findById(idFuncionario)
+                .map(funcionario -> (long) funcionario.getIdOficina())
+                .orElse(null);
+        TransactionManager.afterCommit(() -> QuadroOrdensIndex.aplicar(idOs, versao, status, idOficina, idFuncionario));
+    }
+
+    // Carga inicial do quadro: todas as ordens, com a oficina de cada funcionário resolvida em uma única consulta.
+    private void carregarQuadro(QuadroOrdensIndex.Destino destino) throws SQLException {
+        Map<Long, Long> oficinaPorFuncionario = new HashMap<>();
+        for (Funcionario funcionario : this.funcionarioDao.findAll()) {
+            oficinaPorFuncionario.put(funcionario.getIdFuncionario(), (long) funcionario.getIdOficina());
+        }
+        try (Stream<OrdemDeServico> ordens = this.dao.streamAll()) {
+            ordens.forEach(ordem -> destino.accept(ordem.getIdOs(), new QuadroOrdensIndex.Posicao(
+                    ordem.getStatus(), oficinaPorFuncionario.get(ordem.getIdFuncionario()), ordem.getIdFuncionario(),
+                    ordem.getVersao())));
         }
     }
 }
@@ -1,17 +1,21 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.PagamentoDao;
 import br.com.fiap.dao.PagamentoDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.PagamentoNotFoundException;
 import br.com.fiap.exceptions.PagamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Pagamento;
 import br.com.fiap.services.interfaces.PagamentoService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -38,13 +42,10 @@ public final class PagamentoServiceImpl implements PagamentoService {
     @Override
     public Pagamento create(Pagamento pagamento) throws UnsupportedServiceOperationException, SQLException, PagamentoNotSavedException {
         if (pagamento.getIdPagamento() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
             try {
-                pagamento = this.dao.save(pagamento, connection);
-                connection.commit();
-                return pagamento;
+                TableVersions.bumpAfterCommit("T_METODO_PAGAMENTO");
+                return this.dao.save(pagamento, TransactionManager.current());
             } catch (SQLException | PagamentoNotSavedException e) {
-                connection.rollback();
                 logger.severe("Erro ao criar pagamento: " + e.getMessage());
                 throw e;
             }
@@ -63,6 +64,44 @@ public final class PagamentoServiceImpl implements PagamentoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de pagamentos a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Pagamento> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Pagamento::getIdPagamento);
+    }
+
+    /**
+     * Busca um Pagamento pelo ID.
+     *
+     * @param id O ID do Pagamento.
+     * @return O Pagamento encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Pagamento> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Pagamento} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Pagamento> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
     /**
      * Atualiza um Pagamento existente no banco de dados.
      *
@@ -73,13 +112,31 @@ public final class PagamentoServiceImpl implements PagamentoService {
      */
     @Override
     public Pagamento update(Pagamento pagamento) throws PagamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
         try {
-            pagamento = this.dao.update(pagamento, connection);
-            connection.commit();
-            return pagamento;
+            TableVersions.bumpAfterCommit("T_METODO_PAGAMENTO");
+            return this.dao.update(pagamento, TransactionManager.current());
+        } catch (SQLException e) {
+            logger.severe("Erro ao atualizar pagamento: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Altera apenas os campos informados de um Pagamento existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Pagamento.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Pagamento com todos os campos, depois da alteração.
+     * @throws PagamentoNotFoundException Se o Pagamento não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Pagamento patch(Long id, Map<String, Object> campos, Long versao) throws PagamentoNotFoundException, SQLException {
+        try {
+            TableVersions.bumpAfterCommit("T_METODO_PAGAMENTO");
+            return this.dao.patch(id, campos, versao, TransactionManager.current());
         } catch (SQLException e) {
-            connection.rollback();
             logger.severe("Erro ao atualizar pagamento: " + e.getMessage());
             throw e;
         }
@@ -94,12 +151,10 @@ public final class PagamentoServiceImpl implements PagamentoService {
      */
     @Override
     public void deleteById(Long id) throws PagamentoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
         try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
+            TableVersions.bumpAfterCommit("T_METODO_PAGAMENTO");
+            this.dao.deleteById(id, TransactionManager.current());
         } catch (SQLException e) {
-            connection.rollback();
             logger.severe("Erro ao deletar pagamento: " + e.getMessage());
             throw e;
         }
@@ -1,17 +1,25 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.MergePatch;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.PecasDao;
 import br.com.fiap.dao.PecasDaoFactory;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.exceptions.EstoqueInsuficienteException;
 import br.com.fiap.exceptions.PecasNotFoundException;
 import br.com.fiap.exceptions.PecasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Pecas;
 import br.com.fiap.services.interfaces.PecasService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 
 /**
@@ -25,6 +33,10 @@ import java.util.logging.Logger;
 public final class PecasServiceImpl implements PecasService {
 
     private static final Logger logger = Logger.getLogger(PecasServiceImpl.class.getName());
+
+    // Versão só das quantidades e valores das peças, que entram nos totais dos orçamentos. Reservar e liberar
+    // alteram apenas qt_reservada e avançam só a versão de T_PECAS, sem descartar os totais em cache.
+    static final String VALORES = "T_PECAS.valores";
     private final PecasDao dao = PecasDaoFactory.create();
 
     /**
@@ -38,11 +50,10 @@ public final class PecasServiceImpl implements PecasService {
     @Override
     public Pecas create(Pecas peca) throws UnsupportedServiceOperationException, SQLException, PecasNotSavedException {
         if (peca.getIdPeca() == null) {
-            try (Connection connection = DatabaseConnectionFactory.create().get()) {
-                connection.setAutoCommit(false);
-                peca = this.dao.save(peca, connection);
-                connection.commit();
-                return peca;
+            try {
+                TableVersions.bumpAfterCommit("T_PECAS");
+                TableVersions.bumpAfterCommit(VALORES);
+                return this.dao.save(peca, TransactionManager.current());
             } catch (SQLException | PecasNotSavedException e) {
                 logger.warning("Erro ao salvar peça: " + e.getMessage());
                 throw e;
@@ -52,6 +63,32 @@ public final class PecasServiceImpl implements PecasService {
         }
     }
 
+    /**
+     * Cria vários registros de peças em lote, na transação da requisição.
+     *
+     * @param pecas As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws PecasNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Pecas> createAll(List<Pecas> pecas) throws UnsupportedServiceOperationException, SQLException, PecasNotSavedException {
+        for (Pecas peca : pecas) {
+            if (peca.getIdPeca() != null) {
+                throw new UnsupportedServiceOperationException("Peça já possui um ID e não pode ser criada novamente.");
+            }
+        }
+        try {
+            TableVersions.bumpAfterCommit("T_PECAS");
+            TableVersions.bumpAfterCommit(VALORES);
+            return this.dao.saveAll(pecas, TransactionManager.current());
+        } catch (SQLException | PecasNotSavedException e) {
+            logger.warning("Erro ao salvar peças em lote: " + e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * Retorna uma lista de todas as peças.
      *
@@ -62,21 +99,98 @@ public final class PecasServiceImpl implements PecasService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de peças a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Pecas> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Pecas::getIdPeca);
+    }
+
+    /**
+     * Busca uma Peça pelo ID.
+     *
+     * @param id O ID da Peça.
+     * @return A Peça encontrada, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Pecas> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Pecas} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Pecas> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Percorre todas as peças sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link Pecas}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Stream<Pecas> streamAll() throws SQLException {
+        return this.dao.streamAll();
+    }
+
     /**
      * Atualiza uma Peça existente no banco de dados.
      *
      * @param peca O objeto Pecas com os dados atualizados.
      * @return A Peça atualizada.
      * @throws PecasNotFoundException Se a Peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a nova quantidade for menor que a quantidade reservada.
      * @throws SQLException Em caso de erro de SQL.
      */
     @Override
     public Pecas update(Pecas peca) throws PecasNotFoundException, SQLException {
-        try (Connection connection = DatabaseConnectionFactory.create().get()) {
-            connection.setAutoCommit(false);
-            Pecas updatedPeca = this.dao.update(peca, connection);
-            connection.commit();
-            return updatedPeca;
+        try {
+            validarNovaQuantidade(peca.getIdPeca(), peca.getQuantidade());
+            TableVersions.bumpAfterCommit("T_PECAS");
+            TableVersions.bumpAfterCommit(VALORES);
+            return this.dao.update(peca, TransactionManager.current());
+        } catch (SQLException e) {
+            logger.warning("Erro ao atualizar peça: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Altera apenas os campos informados de uma Peça existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID da Peça.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return A Peça com todos os campos, depois da alteração.
+     * @throws PecasNotFoundException Se a Peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a nova quantidade for menor que a quantidade reservada.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Pecas patch(Long id, Map<String, Object> campos, Long versao) throws PecasNotFoundException, SQLException {
+        try {
+            Integer quantidade = MergePatch.valor(campos, "quantidade", Integer.class);
+            if (quantidade != null) {
+                validarNovaQuantidade(id, quantidade);
+            }
+            TableVersions.bumpAfterCommit("T_PECAS");
+            TableVersions.bumpAfterCommit(VALORES);
+            return this.dao.patch(id, campos, versao, TransactionManager.current());
         } catch (SQLException e) {
             logger.warning("Erro ao atualizar peça: " + e.getMessage());
             throw e;
@@ -92,13 +206,94 @@ public final class PecasServiceImpl implements PecasService {
      */
     @Override
     public void deleteById(Long id) throws PecasNotFoundException, SQLException {
-        try (Connection connection = DatabaseConnectionFactory.create().get()) {
-            connection.setAutoCommit(false);
-            this.dao.deleteById(id, connection);
-            connection.commit();
+        try {
+            TableVersions.bumpAfterCommit("T_PECAS");
+            TableVersions.bumpAfterCommit(VALORES);
+            this.dao.deleteById(id, TransactionManager.current());
         } catch (SQLException e) {
             logger.warning("Erro ao deletar peça: " + e.getMessage());
             throw e;
         }
     }
+
+    /**
+     * Reserva unidades livres de uma Peça para a transação atual.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a reservar.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a Peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se não houver unidades livres suficientes.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public void reserve(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException {
+        validarQuantidade(quantidade);
+        TravasEstoque.travarAteFimDaTransacao(id);
+        if (!this.dao.reservar(id, quantidade, TransactionManager.current())) {
+            throw new EstoqueInsuficienteException("Estoque insuficiente: a peça " + id + " não tem " + quantidade + " unidade(s) livre(s)");
+        }
+        TableVersions.bumpAfterCommit("T_PECAS");
+    }
+
+    /**
+     * Libera unidades reservadas de uma Peça.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a liberar.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a Peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a quantidade reservada for menor.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public void release(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException {
+        validarQuantidade(quantidade);
+        TravasEstoque.travarAteFimDaTransacao(id);
+        if (!this.dao.liberar(id, quantidade, TransactionManager.current())) {
+            throw new EstoqueInsuficienteException("A peça " + id + " não tem " + quantidade + " unidade(s) reservada(s) para liberar");
+        }
+        TableVersions.bumpAfterCommit("T_PECAS");
+    }
+
+    /**
+     * Consome unidades reservadas de uma Peça, baixando-as do estoque.
+     *
+     * @param id         O ID da Peça.
+     * @param quantidade A quantidade a consumir.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a Peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a quantidade reservada for menor.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public void consume(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException {
+        validarQuantidade(quantidade);
+        TravasEstoque.travarAteFimDaTransacao(id);
+        if (!this.dao.consumir(id, quantidade, TransactionManager.current())) {
+            throw new EstoqueInsuficienteException("A peça " + id + " não tem " + quantidade + " unidade(s) reservada(s) para consumir");
+        }
+        TableVersions.bumpAfterCommit("T_PECAS");
+        TableVersions.bumpAfterCommit(VALORES);
+    }
+
+    private static void validarQuantidade(int quantidade) {
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("A quantidade deve ser maior que zero");
+        }
+    }
+
+    // A quantidade nunca fica abaixo da reservada, que só as operações de estoque alteram. A peça é travada como
+    // nelas, e a linha lida com FOR UPDATE, para que nenhuma reserva passe entre a verificação e a escrita.
+    private void validarNovaQuantidade(Long id, int quantidade) throws SQLException {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("A quantidade não pode ser negativa");
+        }
+        TravasEstoque.travarAteFimDaTransacao(id);
+        OptionalInt reservada = this.dao.travarReservada(id, TransactionManager.current());
+        if (reservada.isPresent() && quantidade < reservada.getAsInt()) {
+            throw new EstoqueInsuficienteException("A peça " + id + " tem " + reservada.getAsInt()
+                    + " unidade(s) reservada(s): a quantidade não pode ser menor");
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package br.com.fiap.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Associação compacta de chaves de texto a IDs, consultada por prefixo.
+ *
+ * <p>A base é um conjunto ordenado de pares (chave, ID) guardado em três arrays: os bytes de todas as chaves
+ * concatenados, o fim de cada chave e o ID correspondente. Além dos bytes da chave, cada par ocupa 12 bytes, sem
+ * objetos por entrada. Uma consulta localiza a primeira chave com o prefixo por busca binária e percorre as seguintes
+ * até atingir o limite.</p>
+ *
+ * <p>Alterações não reescrevem a base: os IDs alterados ou excluídos passam a ser ignorados nela, e as chaves novas
+ * vão para um conjunto ordenado auxiliar. Quando o auxiliar cresce além de uma fração da base, os dois são
+ * reunidos em uma nova base. Instâncias não são thread-safe.</p>
+ */
+final class PrefixoIndex {
+
+    // Tamanho mínimo do conjunto auxiliar antes de reconstruir a base.
+    private static final int MIN_PENDENTES = 1_024;
+
+    private byte[] chaves = new byte[0];
+    private int[] fins = new int[0];
+    private long[] ids = new long[0];
+
+    // IDs cujos pares na base não valem mais.
+    private final Set<Long> substituidos = new HashSet<>();
+    private final NavigableSet<Par> adicionados = new TreeSet<>();
+    private final Map<Long, List<String>> chavesAdicionadas = new HashMap<>();
+
+    /**
+     * Monta um índice a partir de todos os pares de uma vez.
+     *
+     * @param pares As chaves de cada ID, já normalizadas.
+     * @return O índice.
+     */
+    static PrefixoIndex construir(Map<Long, ? extends Collection<String>> pares) {
+        List<Par> todos = new ArrayList<>();
+        pares.forEach((id, chaves) -> chaves.forEach(chave -> todos.add(new Par(chave, id))));
+        PrefixoIndex indice = new PrefixoIndex();
+        indice.reconstruir(todos);
+        return indice;
+    }
+
+    /**
+     * Substitui as chaves de um ID.
+     *
+     * @param id     O ID.
+     * @param chaves As novas chaves, já normalizadas; vazio equivale a remover o ID.
+     */
+    void definir(long id, Collection<String> chaves) {
+        remover(id);
+        if (chaves.isEmpty()) {
+            return;
+        }
+        List<String> novas = new ArrayList<>(chaves);
+        for (String chave : novas) {
+            adicionados.add(new Par(chave, id));
+        }
+        chavesAdicionadas.put(id, novas);
+        if (adicionados.size() >= Math.max(MIN_PENDENTES, ids.length / 8)) {
+            List<Par> todos = new ArrayList<>(ids.length + adicionados.size());
+            for (int i = 0; i < ids.length; i++) {
+                if (!substituidos.contains(ids[i])) {
+                    todos.add(new Par(chave(i), ids[i]));
+                }
+            }
+            todos.addAll(adicionados);
+            reconstruir(todos);
+        }
+    }
+
+    /**
+     * Remove todas as chaves de um ID.
+     *
+     * @param id O ID.
+     */
+    void remover(long id) {
+        substituidos.add(id);
+        List<String> anteriores = chavesAdicionadas.remove(id);
+        if (anteriores != null) {
+            for (String chave : anteriores) {
+                adicionados.remove(new Par(chave, id));
+            }
+        }
+    }
+
+    /**
+     * Busca os IDs com alguma chave iniciada pelo prefixo.
+     *
+     * @param prefixo O prefixo, já normalizado.
+     * @param limite  A quantidade máxima de IDs.
+     * @return Os IDs encontrados, sem repetição, em ordem de chave.
+     */
+    Set<Long> buscar(String prefixo, int limite) {
+        Set<Long> encontrados = new LinkedHashSet<>();
+        byte[] alvo = prefixo.getBytes(StandardCharsets.UTF_8);
+        for (int i = primeiraChave(alvo); i < ids.length && encontrados.size() < limite && comecaCom(i, alvo); i++) {
+            if (!substituidos.contains(ids[i])) {
+                encontrados.add(ids[i]);
+            }
+        }
+        for (Par par : adicionados.tailSet(new Par(prefixo, Long.MIN_VALUE), true)) {
+            if (encontrados.size() >= limite || !par.chave.startsWith(prefixo)) {
+                break;
+            }
+            encontrados.add(par.id);
+        }
+        return encontrados;
+    }
+
+    private void reconstruir(List<Par> pares) {
+        List<byte[]> bytes = new ArrayList<>(pares.size());
+        Integer[] ordem = new Integer[pares.size()];
+        long total = 0;
+        for (int i = 0; i < pares.size(); i++) {
+            byte[] chave = pares.get(i).chave.getBytes(StandardCharsets.UTF_8);
+            bytes.add(chave);
+            ordem[i] = i;
+            total += chave.length;
+        }
+        // A ordem da base é a dos bytes, a mesma usada na busca binária.
+        Arrays.sort(ordem, (a, b) -> {
+            int porChave = Arrays.compareUnsigned(bytes.get(a), bytes.get(b));
+            return porChave != 0 ? porChave : Long.compare(pares.get(a).id, pares.get(b).id);
+        });
+        byte[] novasChaves = new byte[Math.toIntExact(total)];
+        int[] novosFins = new int[pares.size()];
+        long[] novosIds = new long[pares.size()];
+        int fim = 0;
+        for (int i = 0; i < ordem.length; i++) {
+            byte[] chave = bytes.get(ordem[i]);
+            System.arraycopy(chave, 0, novasChaves, fim, chave.length);
+            fim += chave.length;
+            novosFins[i] = fim;
+            novosIds[i] = pares.get(ordem[i]).id;
+        }
+        chaves = novasChaves;
+        fins = novosFins;
+        ids = novosIds;
+        substituidos.clear();
+        adicionados.clear();
+        chavesAdicionadas.clear();
+    }
+
+    // Posição da primeira chave maior ou igual ao alvo.
+    private int primeiraChave(byte[] alvo) {
+        int baixo = 0;
+        int alto = ids.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            int inicio = meio == 0 ? 0 : fins[meio - 1];
+            if (Arrays.compareUnsigned(chaves, inicio, fins[meio], alvo, 0, alvo.length) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private boolean comecaCom(int i, byte[] prefixo) {
+        int inicio = i == 0 ? 0 : fins[i - 1];
+        return fins[i] - inicio >= prefixo.length
+                && Arrays.equals(chaves, inicio, inicio + prefixo.length, prefixo, 0, prefixo.length);
+    }
+
+    private String chave(int i) {
+        int inicio = i == 0 ? 0 : fins[i - 1];
+        return new String(chaves, inicio, fins[i] - inicio, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Par (chave, ID) do conjunto auxiliar.
+     */
+    private static final class Par implements Comparable<Par> {
+
+        private final String chave;
+        private final long id;
+
+        private Par(String chave, long id) {
+            this.chave = chave;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Par outro) {
+            int porChave = chave.compareTo(outro.chave);
+            return porChave != 0 ? porChave : Long.compare(id, outro.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Par && compareTo((Par) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return chave.hashCode() * 31 + Long.hashCode(id);
+        }
+    }
+}
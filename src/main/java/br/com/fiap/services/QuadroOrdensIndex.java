@@ -0,0 +1,301 @@
+package br.com.fiap.services;
+
+import br.com.fiap.dtos.QuadroDto;
+import br.com.fiap.dtos.QuadroEventoDto;
+import br.com.fiap.dtos.QuadroItemDto;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Índice em memória das ordens de serviço por status, oficina e funcionário, usado pelo quadro de ordens.
+ *
+ * <p>O índice é carregado do banco na primeira consulta e depois mantido pelas escritas confirmadas do
+ * {@link OrdemDeServicoServiceImpl}. Cada escrita move uma única ordem de uma célula para outra, em tempo
+ * constante, sem recontar o quadro. A carga e as atualizações são feitas sob o mesmo lock: uma escrita confirmada
+ * antes da carga já aparece na consulta ao banco, e uma confirmada durante a carga espera por ela e é aplicada
+ * em seguida.</p>
+ *
+ * <p>As atualizações chegam depois da confirmação de cada transação, em qualquer ordem: duas escritas na mesma ordem
+ * podem ter os seus ganchos executados na ordem inversa à das confirmações. Por isso cada posição guarda a versão
+ * ({@code nr_versao}) da linha que a gerou, e uma atualização com versão menor ou igual à guardada é descartada. As
+ * ordens excluídas ficam marcadas por um tempo, para que uma atualização atrasada não as traga de volta.</p>
+ *
+ * <p>Toda mudança também é repassada aos ouvintes registrados, fora do lock, para alimentar o feed do quadro.
+ * Cada mudança recebe, sob o lock, um número de sequência crescente, e o resumo informa o número da última mudança
+ * que ele já inclui; assim quem recebe o resumo e os eventos em qualquer ordem descarta os já contados.
+ * O índice pertence a esta instância da aplicação.</p>
+ */
+final class QuadroOrdensIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(QuadroOrdensIndex.class.getName());
+
+    private static final Object LOCK = new Object();
+
+    // Exclusões lembradas para descartar atualizações atrasadas.
+    private static final int MAX_EXCLUIDAS = 10_000;
+
+    // Acessados apenas sob LOCK.
+    private static final Map<Long, Posicao> POR_ID = new HashMap<>();
+    private static final Map<Posicao, Set<Long>> POR_POSICAO = new HashMap<>();
+    private static final Map<String, Integer> POR_STATUS = new HashMap<>();
+    // Ordens excluídas recentemente; os IDs não são reaproveitados, então basta lembrar as últimas.
+    private static final Set<Long> EXCLUIDAS = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_EXCLUIDAS;
+        }
+    });
+    private static boolean carregado;
+    private static long sequencia;
+
+    private static final List<Consumer<QuadroEventoDto>> OUVINTES = new CopyOnWriteArrayList<>();
+
+    private QuadroOrdensIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Monta o resumo do quadro.
+     *
+     * @param loader Carrega as ordens do banco, se o índice ainda não foi carregado.
+     * @return A quantidade de ordens por status e por status, oficina e funcionário, e a sequência da última
+     *         mudança incluída.
+     * @throws SQLException Se a carga falhar.
+     */
+    static QuadroDto resumo(Loader loader) throws SQLException {
+        List<QuadroItemDto> itens = new ArrayList<>();
+        Map<String, Integer> totais;
+        long incluida;
+        synchronized (LOCK) {
+            carregar(loader);
+            incluida = sequencia;
+            totais = new TreeMap<>(POR_STATUS);
+            for (Map.Entry<Posicao, Set<Long>> celula : POR_POSICAO.entrySet()) {
+                Posicao posicao = celula.getKey();
+                itens.add(new QuadroItemDto(posicao.status, posicao.idOficina, posicao.idFuncionario, celula.getValue().size()));
+            }
+        }
+        itens.sort(Comparator.comparing(QuadroItemDto::getStatus)
+                .thenComparing(QuadroItemDto::getIdOficina, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(QuadroItemDto::getIdFuncionario, Comparator.nullsLast(Comparator.naturalOrder())));
+        return new QuadroDto(totais, itens, incluida);
+    }
+
+    /**
+     * Lista uma página dos IDs das ordens que atendem aos filtros informados; filtros {@code null} não restringem.
+     *
+     * <p>Só os {@code limit} menores IDs acima do cursor são mantidos durante a varredura, então uma página pequena
+     * não copia nem ordena as células inteiras.</p>
+     *
+     * @param status        O status das ordens.
+     * @param idOficina     O ID da oficina.
+     * @param idFuncionario O ID do funcionário.
+     * @param afterId       O último ID da página anterior, ou {@code null} para a primeira página.
+     * @param limit         A quantidade máxima de IDs.
+     * @param loader        Carrega as ordens do banco, se o índice ainda não foi carregado.
+     * @return Os IDs encontrados, em ordem crescente.
+     * @throws SQLException Se a carga falhar.
+     */
+    static List<Long> ordens(String status, Long idOficina, Long idFuncionario, Long afterId, int limit, Loader loader)
+            throws SQLException {
+        // Heap dos menores IDs encontrados, com o maior deles no topo.
+        PriorityQueue<Long> menores = new PriorityQueue<>(Comparator.reverseOrder());
+        synchronized (LOCK) {
+            carregar(loader);
+            for (Map.Entry<Posicao, Set<Long>> celula : POR_POSICAO.entrySet()) {
+                Posicao posicao = celula.getKey();
+                if ((status == null || status.equalsIgnoreCase(posicao.status))
+                        && (idOficina == null || idOficina.equals(posicao.idOficina))
+                        && (idFuncionario == null || idFuncionario.equals(posicao.idFuncionario))) {
+                    for (Long id : celula.getValue()) {
+                        if (afterId != null && id <= afterId) {
+                            continue;
+                        }
+                        if (menores.size() < limit) {
+                            menores.add(id);
+                        } else if (id < menores.peek()) {
+                            menores.poll();
+                            menores.add(id);
+                        }
+                    }
+                }
+            }
+        }
+        List<Long> ids = new ArrayList<>(menores);
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * Registra a posição atual de uma ordem, movendo-a da célula anterior se ela já estiver no índice.
+     *
+     * <p>Uma atualização mais antiga que a posição registrada, ou de uma ordem já excluída, é descartada e não
+     * chega aos ouvintes.</p>
+     *
+     * @param idOs          O ID da ordem.
+     * @param versao        A versão da linha gravada.
+     * @param status        O status da ordem.
+     * @param idOficina     O ID da oficina do funcionário responsável.
+     * @param idFuncionario O ID do funcionário responsável.
+     */
+    static void aplicar(Long idOs, long versao, String status, Long idOficina, Long idFuncionario) {
+        Posicao destino = new Posicao(status, idOficina, idFuncionario, versao);
+        Posicao anterior;
+        long numero;
+        synchronized (LOCK) {
+            if (carregado) {
+                Posicao atual = POR_ID.get(idOs);
+                if (EXCLUIDAS.contains(idOs) || (atual != null && atual.versao >= versao)) {
+                    return;
+                }
+            }
+            anterior = carregado ? mover(idOs, destino) : null;
+            numero = ++sequencia;
+        }
+        notificar(new QuadroEventoDto(numero, idOs, anterior != null ? anterior.status : null, destino.status,
+                idOficina, idFuncionario));
+    }
+
+    /**
+     * Retira uma ordem do índice.
+     *
+     * @param idOs O ID da ordem.
+     */
+    static void remover(Long idOs) {
+        Posicao anterior;
+        long numero;
+        synchronized (LOCK) {
+            if (carregado) {
+                EXCLUIDAS.add(idOs);
+            }
+            anterior = carregado ? mover(idOs, null) : null;
+            numero = ++sequencia;
+        }
+        notificar(anterior != null
+                ? new QuadroEventoDto(numero, idOs, anterior.status, null, anterior.idOficina, anterior.idFuncionario)
+                : new QuadroEventoDto(numero, idOs, null, null, null, null));
+    }
+
+    /**
+     * Registra um ouvinte para as mudanças do quadro.
+     *
+     * @param ouvinte Recebe cada mudança, depois de aplicada ao índice.
+     */
+    static void observar(Consumer<QuadroEventoDto> ouvinte) {
+        OUVINTES.add(ouvinte);
+    }
+
+    // Carrega o índice uma única vez; chamado sob LOCK.
+    private static void carregar(Loader loader) throws SQLException {
+        if (carregado) {
+            return;
+        }
+        loader.load(QuadroOrdensIndex::mover);
+        carregado = true;
+    }
+
+    // Troca a célula de uma ordem; destino null retira a ordem. Chamado sob LOCK. Devolve a posição anterior.
+    private static Posicao mover(Long idOs, Posicao destino) {
+        Posicao anterior = destino != null ? POR_ID.put(idOs, destino) : POR_ID.remove(idOs);
+        if (anterior != null) {
+            Set<Long> ids = POR_POSICAO.get(anterior);
+            ids.remove(idOs);
+            if (ids.isEmpty()) {
+                POR_POSICAO.remove(anterior);
+            }
+            POR_STATUS.computeIfPresent(anterior.status, (status, total) -> total > 1 ? total - 1 : null);
+        }
+        if (destino != null) {
+            POR_POSICAO.computeIfAbsent(destino, k -> new LinkedHashSet<>()).add(idOs);
+            POR_STATUS.merge(destino.status, 1, Integer::sum);
+        }
+        return anterior;
+    }
+
+    private static void notificar(QuadroEventoDto evento) {
+        for (Consumer<QuadroEventoDto> ouvinte : OUVINTES) {
+            try {
+                ouvinte.accept(evento);
+            } catch (RuntimeException e) {
+                // Um ouvinte com problema não impede os demais nem a escrita já confirmada.
+                LOGGER.warning("Erro ao notificar mudança do quadro de ordens: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Busca no banco todas as ordens de serviço e entrega a posição de cada uma.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        void load(Destino destino) throws SQLException;
+    }
+
+    /**
+     * Recebe a posição de uma ordem durante a carga.
+     */
+    @FunctionalInterface
+    interface Destino {
+
+        void accept(Long idOs, Posicao posicao);
+    }
+
+    /**
+     * Célula do quadro: status, oficina e funcionário de uma ordem, com a versão da linha que a gerou.
+     *
+     * <p>A versão não faz parte da célula: ordens na mesma célula com versões diferentes são iguais para
+     * {@link #equals(Object)}.</p>
+     */
+    static final class Posicao {
+
+        // Célula das ordens gravadas sem status.
+        private static final String SEM_STATUS = "Indefinido";
+
+        private final String status;
+        private final Long idOficina;
+        private final Long idFuncionario;
+        private final long versao;
+
+        Posicao(String status, Long idOficina, Long idFuncionario, long versao) {
+            this.status = status != null ? status : SEM_STATUS;
+            this.idOficina = idOficina;
+            this.idFuncionario = idFuncionario;
+            this.versao = versao;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Posicao)) {
+                return false;
+            }
+            Posicao outra = (Posicao) o;
+            return Objects.equals(status, outra.status)
+                    && Objects.equals(idOficina, outra.idOficina)
+                    && Objects.equals(idFuncionario, outra.idFuncionario);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, idOficina, idFuncionario);
+        }
+    }
+}
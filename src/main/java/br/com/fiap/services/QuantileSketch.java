@@ -0,0 +1,94 @@
+package br.com.fiap.services;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumo de uma distribuição de valores não negativos que estima quantis com erro relativo limitado.
+ *
+ * <p>Cada valor positivo cai em um balde logarítmico {@code (γ^(i-1), γ^i]}, com
+ * {@code γ = (1 + PRECISAO) / (1 - PRECISAO)}; o quantil devolvido é o ponto do balde que fica a no máximo
+ * {@link #PRECISAO} de qualquer valor dele. Como o resumo guarda apenas a contagem de cada balde, dois resumos
+ * se combinam somando as contagens, e o resultado é o mesmo que se todos os valores tivessem sido adicionados
+ * a um só. O tamanho cresce com o logaritmo da faixa de valores, não com a quantidade.</p>
+ *
+ * <p>Instâncias não são thread-safe; as guardadas em cache não são mais alteradas.</p>
+ */
+final class QuantileSketch {
+
+    /**
+     * Erro relativo máximo dos quantis estimados. Configurável via {@code -Danalytics.sketch.precisao}.
+     */
+    static final double PRECISAO = Double.parseDouble(System.getProperty("analytics.sketch.precisao", "0.01"));
+
+    private static final double GAMMA = (1 + PRECISAO) / (1 - PRECISAO);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> baldes = new TreeMap<>();
+    private long zeros;
+    private long quantidade;
+
+    /**
+     * Adiciona um valor; valores negativos são ignorados.
+     *
+     * @param valor O valor.
+     */
+    void add(double valor) {
+        if (valor < 0) {
+            return;
+        }
+        if (valor == 0) {
+            zeros++;
+        } else {
+            baldes.merge((int) Math.ceil(Math.log(valor) / LOG_GAMMA), 1L, Long::sum);
+        }
+        quantidade++;
+    }
+
+    /**
+     * Soma a este resumo os valores de outro.
+     *
+     * @param outro O resumo a combinar, que não é alterado.
+     */
+    void merge(QuantileSketch outro) {
+        for (Map.Entry<Integer, Long> balde : outro.baldes.entrySet()) {
+            baldes.merge(balde.getKey(), balde.getValue(), Long::sum);
+        }
+        zeros += outro.zeros;
+        quantidade += outro.quantidade;
+    }
+
+    /**
+     * Estima o quantil informado.
+     *
+     * @param q O quantil, entre 0 e 1.
+     * @return O valor estimado, ou {@code 0} se o resumo estiver vazio.
+     */
+    double quantile(double q) {
+        if (quantidade == 0) {
+            return 0;
+        }
+        // Posição, a partir de zero, do valor procurado na lista ordenada de todos os valores.
+        long posicao = (long) Math.floor(q * (quantidade - 1));
+        long acumulado = zeros;
+        if (posicao < acumulado) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> balde : baldes.entrySet()) {
+            acumulado += balde.getValue();
+            if (posicao < acumulado) {
+                return 2 * Math.pow(GAMMA, balde.getKey()) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, baldes.lastKey()) / (GAMMA + 1);
+    }
+
+    /**
+     * Retorna a quantidade de valores adicionados.
+     *
+     * @return A quantidade de valores.
+     */
+    long quantidade() {
+        return quantidade;
+    }
+}
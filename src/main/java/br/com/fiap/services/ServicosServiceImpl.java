@@ -1,17 +1,21 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.ServicosDao;
 import br.com.fiap.dao.ServicosDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.ServicosNotFoundException;
 import br.com.fiap.exceptions.ServicosNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Servicos;
 import br.com.fiap.services.interfaces.ServicosService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade Servicos, utilizando ServicosDaoFactory.
@@ -36,20 +40,33 @@ public final class ServicosServiceImpl implements ServicosService {
     @Override
     public Servicos create(Servicos servico) throws UnsupportedServiceOperationException, SQLException, ServicosNotSavedException {
         if (servico.getIdServico() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                servico = this.dao.save(servico, connection);
-                connection.commit();
-                return servico;
-            } catch (SQLException | ServicosNotSavedException e) {
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_SERVICOS");
+            return this.dao.save(servico, TransactionManager.current());
         } else {
             throw new UnsupportedServiceOperationException("Serviço já possui um ID e não pode ser criado novamente.");
         }
     }
 
+    /**
+     * Cria vários registros de serviços em lote, na transação da requisição.
+     *
+     * @param servicos As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws ServicosNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Servicos> createAll(List<Servicos> servicos) throws UnsupportedServiceOperationException, SQLException, ServicosNotSavedException {
+        for (Servicos servico : servicos) {
+            if (servico.getIdServico() != null) {
+                throw new UnsupportedServiceOperationException("Serviço já possui um ID e não pode ser criado novamente.");
+            }
+        }
+        TableVersions.bumpAfterCommit("T_SERVICOS");
+        return this.dao.saveAll(servicos, TransactionManager.current());
+    }
+
     /**
      * Retorna uma lista de todos os serviços.
      *
@@ -60,6 +77,44 @@ public final class ServicosServiceImpl implements ServicosService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de serviços a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Servicos> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Servicos::getIdServico);
+    }
+
+    /**
+     * Busca um Servicos pelo ID.
+     *
+     * @param id O ID do Servicos.
+     * @return O Servicos encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Servicos> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Servicos} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Servicos> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
     /**
      * Atualiza um Serviço existente no banco de dados.
      *
@@ -70,15 +125,24 @@ public final class ServicosServiceImpl implements ServicosService {
      */
     @Override
     public Servicos update(Servicos servico) throws ServicosNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            servico = this.dao.update(servico, connection);
-            connection.commit();
-            return servico;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_SERVICOS");
+        return this.dao.update(servico, TransactionManager.current());
+    }
+
+    /**
+     * Altera apenas os campos informados de um Serviço existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Serviço.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Serviço com todos os campos, depois da alteração.
+     * @throws ServicosNotFoundException Se o Serviço não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Servicos patch(Long id, Map<String, Object> campos, Long versao) throws ServicosNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_SERVICOS");
+        return this.dao.patch(id, campos, versao, TransactionManager.current());
     }
 
     /**
@@ -90,13 +154,7 @@ public final class ServicosServiceImpl implements ServicosService {
      */
     @Override
     public void deleteById(Long id) throws ServicosNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_SERVICOS");
+        this.dao.deleteById(id, TransactionManager.current());
     }
 }
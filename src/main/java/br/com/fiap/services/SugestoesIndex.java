@@ -0,0 +1,263 @@
+package br.com.fiap.services;
+
+import br.com.fiap.models.Cliente;
+import br.com.fiap.models.Veiculo;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índices de sugestão do balcão: nome e CPF do cliente e placa do veículo, consultados por prefixo.
+ *
+ * <p>Os textos são normalizados por {@link Textos}. O CPF é indexado só pelos dígitos e a placa só pelas letras e
+ * dígitos, então "123.456" e "123456", ou "abc-1d23" e "ABC1D23", são equivalentes. O nome é indexado a partir de
+ * cada palavra, para que "silva" encontre "João da Silva" e "joao da s" continue encontrando o mesmo cliente.</p>
+ *
+ * <p>Cada índice é um {@link PrefixoIndex}. A carga e a manutenção seguem o {@link FalhasBuscaIndex}: carga em
+ * segundo plano ou na primeira consulta, escritas confirmadas aplicadas sob o lock de escrita e reaplicadas se
+ * chegarem durante a carga. O índice pertence a esta instância da aplicação.</p>
+ */
+final class SugestoesIndex {
+
+    // Tamanho máximo de uma chave de nome; o restante do nome não é usado nas sugestões.
+    private static final int MAX_CHAVE_NOME = 48;
+
+    private static final Pattern NAO_DIGITOS = Pattern.compile("\\D+");
+    private static final Pattern NAO_ALFANUMERICOS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern CPF_PARCIAL = Pattern.compile("[\\d.\\-\\s]+");
+
+    private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private static final Object CARGA = new Object();
+
+    // Acessados sob LOCK. Enquanto a carga roda, indices é null e pendentes guarda as escritas confirmadas.
+    private static Indices indices;
+    private static List<Consumer<Indices>> pendentes;
+
+    private SugestoesIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Carrega os índices, se ainda não estiverem carregados. Chamadas simultâneas aguardam a mesma carga.
+     *
+     * @param clientes Lê todos os clientes do banco.
+     * @param veiculos Lê todos os veículos do banco.
+     * @throws SQLException Se a leitura falhar.
+     */
+    static void carregar(Loader<Cliente> clientes, Loader<Veiculo> veiculos) throws SQLException {
+        if (carregado()) {
+            return;
+        }
+        synchronized (CARGA) {
+            if (carregado()) {
+                return;
+            }
+            LOCK.writeLock().lock();
+            try {
+                pendentes = new ArrayList<>();
+            } finally {
+                LOCK.writeLock().unlock();
+            }
+            Indices novos = null;
+            try {
+                novos = ler(clientes, veiculos);
+            } finally {
+                LOCK.writeLock().lock();
+                try {
+                    if (novos != null) {
+                        for (Consumer<Indices> escrita : pendentes) {
+                            escrita.accept(novos);
+                        }
+                        indices = novos;
+                    }
+                    pendentes = null;
+                } finally {
+                    LOCK.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca clientes e veículos cujo CPF, nome ou placa começa com o texto digitado.
+     *
+     * @param consulta O texto digitado.
+     * @param limite   A quantidade máxima de IDs de cada tipo.
+     * @param clientes Lê todos os clientes do banco, se os índices ainda não estiverem carregados.
+     * @param veiculos Lê todos os veículos do banco, se os índices ainda não estiverem carregados.
+     * @return Os IDs encontrados, em ordem de chave.
+     * @throws SQLException Se a carga dos índices falhar.
+     */
+    static Sugestoes buscar(String consulta, int limite, Loader<Cliente> clientes, Loader<Veiculo> veiculos) throws SQLException {
+        carregar(clientes, veiculos);
+        String cpf = CPF_PARCIAL.matcher(consulta).matches() ? chaveCpf(consulta) : "";
+        String placa = chavePlaca(consulta);
+        String nome = String.join(" ", Textos.palavras(consulta));
+        LOCK.readLock().lock();
+        try {
+            return new Sugestoes(
+                    cpf.isEmpty() ? Set.of() : indices.cpfs.buscar(cpf, limite),
+                    nome.isEmpty() ? Set.of() : indices.nomes.buscar(nome, limite),
+                    placa.isEmpty() ? Set.of() : indices.placas.buscar(placa, limite));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Atualiza as chaves de um cliente criado ou alterado.
+     *
+     * @param cliente O cliente gravado.
+     */
+    static void definirCliente(Cliente cliente) {
+        long id = cliente.getIdCliente();
+        List<String> nomes = chavesNome(cliente.getNome());
+        List<String> cpfs = listaDe(chaveCpf(cliente.getCpf()));
+        alterar(indices -> {
+            indices.nomes.definir(id, nomes);
+            indices.cpfs.definir(id, cpfs);
+        });
+    }
+
+    /**
+     * Retira um cliente das sugestões.
+     *
+     * @param idCliente O ID do cliente.
+     */
+    static void removerCliente(Long idCliente) {
+        alterar(indices -> {
+            indices.nomes.remover(idCliente);
+            indices.cpfs.remover(idCliente);
+        });
+    }
+
+    /**
+     * Atualiza a placa de um veículo criado ou alterado.
+     *
+     * @param veiculo O veículo gravado.
+     */
+    static void definirVeiculo(Veiculo veiculo) {
+        long id = veiculo.getIdVeiculo();
+        List<String> placas = listaDe(chavePlaca(veiculo.getPlaca()));
+        alterar(indices -> indices.placas.definir(id, placas));
+    }
+
+    /**
+     * Retira um veículo das sugestões.
+     *
+     * @param idVeiculo O ID do veículo.
+     */
+    static void removerVeiculo(Long idVeiculo) {
+        alterar(indices -> indices.placas.remover(idVeiculo));
+    }
+
+    private static Indices ler(Loader<Cliente> clientes, Loader<Veiculo> veiculos) throws SQLException {
+        Map<Long, List<String>> nomes = new HashMap<>();
+        Map<Long, List<String>> cpfs = new HashMap<>();
+        Map<Long, List<String>> placas = new HashMap<>();
+        try (Stream<Cliente> todos = clientes.load()) {
+            todos.forEach(cliente -> {
+                nomes.put(cliente.getIdCliente(), chavesNome(cliente.getNome()));
+                cpfs.put(cliente.getIdCliente(), listaDe(chaveCpf(cliente.getCpf())));
+            });
+        }
+        try (Stream<Veiculo> todos = veiculos.load()) {
+            todos.forEach(veiculo -> placas.put(veiculo.getIdVeiculo(), listaDe(chavePlaca(veiculo.getPlaca()))));
+        }
+        return new Indices(PrefixoIndex.construir(nomes), PrefixoIndex.construir(cpfs), PrefixoIndex.construir(placas));
+    }
+
+    // Uma chave por palavra do nome: da palavra até o fim do nome.
+    private static List<String> chavesNome(String nome) {
+        List<String> palavras = Textos.palavras(nome);
+        List<String> chaves = new ArrayList<>(palavras.size());
+        for (int i = 0; i < palavras.size(); i++) {
+            String chave = String.join(" ", palavras.subList(i, palavras.size()));
+            chaves.add(chave.length() > MAX_CHAVE_NOME ? chave.substring(0, MAX_CHAVE_NOME) : chave);
+        }
+        return chaves;
+    }
+
+    private static String chaveCpf(String cpf) {
+        return cpf == null ? "" : NAO_DIGITOS.matcher(cpf).replaceAll("");
+    }
+
+    private static String chavePlaca(String placa) {
+        return NAO_ALFANUMERICOS.matcher(Textos.dobrar(placa)).replaceAll("");
+    }
+
+    private static List<String> listaDe(String chave) {
+        return chave.isEmpty() ? List.of() : List.of(chave);
+    }
+
+    private static void alterar(Consumer<Indices> alteracao) {
+        LOCK.writeLock().lock();
+        try {
+            if (indices != null) {
+                alteracao.accept(indices);
+            } else if (pendentes != null) {
+                pendentes.add(alteracao);
+            }
+            // Sem índices nem carga em andamento, a próxima carga já lê a alteração do banco.
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    private static boolean carregado() {
+        LOCK.readLock().lock();
+        try {
+            return indices != null;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lê todos os registros de uma tabela do banco; o {@link Stream} é fechado pelo índice.
+     *
+     * @param <T> O tipo dos registros.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+
+        Stream<T> load() throws SQLException;
+    }
+
+    /**
+     * IDs encontrados por uma consulta: clientes pelo CPF e pelo nome, e veículos pela placa.
+     */
+    static final class Sugestoes {
+
+        final Set<Long> clientesPorCpf;
+        final Set<Long> clientesPorNome;
+        final Set<Long> veiculosPorPlaca;
+
+        private Sugestoes(Set<Long> clientesPorCpf, Set<Long> clientesPorNome, Set<Long> veiculosPorPlaca) {
+            this.clientesPorCpf = clientesPorCpf;
+            this.clientesPorNome = clientesPorNome;
+            this.veiculosPorPlaca = veiculosPorPlaca;
+        }
+    }
+
+    private static final class Indices {
+
+        private final PrefixoIndex nomes;
+        private final PrefixoIndex cpfs;
+        private final PrefixoIndex placas;
+
+        private Indices(PrefixoIndex nomes, PrefixoIndex cpfs, PrefixoIndex placas) {
+            this.nomes = nomes;
+            this.cpfs = cpfs;
+            this.placas = placas;
+        }
+    }
+}
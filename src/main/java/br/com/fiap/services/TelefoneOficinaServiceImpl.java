@@ -1,16 +1,20 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.TelefoneDao;
 import br.com.fiap.dao.TelefoneOficinaDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.TelefoneNotFoundException;
 import br.com.fiap.exceptions.TelefoneNotSavedException;
 import br.com.fiap.models.Telefone;
 import br.com.fiap.services.interfaces.TelefoneService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade TelefoneOficina, utilizando TelefoneOficinaDaoFactory.
@@ -35,15 +39,8 @@ public final class TelefoneOficinaServiceImpl implements TelefoneService {
     @Override
     public Telefone create(Telefone telefone) throws SQLException, TelefoneNotSavedException {
         if (telefone.getIdTelefone() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                telefone = this.dao.save(telefone, connection);
-                connection.commit();
-                return telefone;
-            } catch (SQLException | TelefoneNotSavedException e) {
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_TELEFONE_OFICINA");
+            return this.dao.save(telefone, TransactionManager.current());
         } else {
             throw new UnsupportedOperationException("Telefone já possui um ID, operação não permitida.");
         }
@@ -59,6 +56,56 @@ public final class TelefoneOficinaServiceImpl implements TelefoneService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de telefones de oficinas a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Telefone> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Telefone::getIdTelefone);
+    }
+
+    /**
+     * Busca um TelefoneOficina pelo ID.
+     *
+     * @param id O ID do TelefoneOficina.
+     * @return O TelefoneOficina encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Telefone> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Telefone> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Busca os telefones de uma oficina.
+     *
+     * @param oficinaId O ID da oficina.
+     * @return As instâncias de {@link Telefone} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Telefone> findByReferenciaId(Long oficinaId) throws SQLException {
+        return this.dao.findByReferenciaId(oficinaId);
+    }
+
     /**
      * Atualiza um TelefoneOficina existente no banco de dados.
      *
@@ -69,15 +116,24 @@ public final class TelefoneOficinaServiceImpl implements TelefoneService {
      */
     @Override
     public Telefone update(Telefone telefone) throws TelefoneNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            telefone = this.dao.update(telefone, connection);
-            connection.commit();
-            return telefone;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_TELEFONE_OFICINA");
+        return this.dao.update(telefone, TransactionManager.current());
+    }
+
+    /**
+     * Altera apenas os campos informados de um TelefoneOficina existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do TelefoneOficina.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O TelefoneOficina com todos os campos, depois da alteração.
+     * @throws TelefoneNotFoundException Se o Telefone não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Telefone patch(Long id, Map<String, Object> campos, Long versao) throws TelefoneNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_TELEFONE_OFICINA");
+        return this.dao.patch(id, campos, versao, TransactionManager.current());
     }
 
     /**
@@ -89,13 +145,7 @@ public final class TelefoneOficinaServiceImpl implements TelefoneService {
      */
     @Override
     public void deleteById(Long id) throws TelefoneNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_TELEFONE_OFICINA");
+        this.dao.deleteById(id, TransactionManager.current());
     }
 }
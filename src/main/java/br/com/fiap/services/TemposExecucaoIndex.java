@@ -0,0 +1,188 @@
+package br.com.fiap.services;
+
+import br.com.fiap.config.TransactionManager;
+import br.com.fiap.dtos.PercentisDto;
+import br.com.fiap.dtos.TempoExecucaoDto;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Percentis do tempo de execução das ordens de serviço, por oficina, funcionário e tipo de serviço.
+ *
+ * <p>Os tempos de cada dia de conclusão são resumidos em um {@link QuantileSketch} por grupo. Os resumos dos dias
+ * já encerrados ficam em cache, e um relatório sobre um período combina os resumos dos seus dias; só os dias
+ * ausentes do cache são lidos do banco, em uma consulta por trecho contínuo. O dia corrente é sempre recalculado.</p>
+ *
+ * <p>Cada dia tem uma versão, incrementada quando uma escrita confirmada altera uma ordem concluída naquele dia;
+ * a versão faz parte da chave do cache, então o resumo antigo deixa de ser usado sem afetar os outros dias.
+ * Mudanças no tipo de um serviço ou na oficina de um orçamento só aparecem quando o resumo expira.</p>
+ */
+final class TemposExecucaoIndex {
+
+    // Dimensão com todas as ordens do período.
+    private static final String GERAL = "geral";
+
+    // Dimensões de agrupamento aceitas, além de GERAL.
+    private static final Set<String> DIMENSOES = Set.of("oficina", "funcionario", "servico");
+
+    private static final Cache<String, Map<String, QuantileSketch>> CACHE_DIAS = CacheFactory.create("ordem.temposPorDia", 400, 86_400);
+
+    private static final ConcurrentMap<LocalDate, AtomicLong> VERSOES = new ConcurrentHashMap<>();
+
+    private TemposExecucaoIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Calcula p50, p90 e p99 do tempo de execução das ordens concluídas no período.
+     *
+     * @param de       O primeiro dia do período.
+     * @param ate      O último dia do período (inclusivo).
+     * @param dimensao A dimensão de agrupamento, ou {@code null} para todas.
+     * @param loader   Lê do banco os tempos dos dias ausentes do cache.
+     * @return Os percentis de cada grupo, começando pelo geral; sem linhas se não houver ordens concluídas.
+     * @throws IllegalArgumentException Se a dimensão não for reconhecida.
+     * @throws SQLException Se a leitura de algum dia falhar.
+     */
+    static List<PercentisDto> percentis(LocalDate de, LocalDate ate, String dimensao, Loader loader) throws SQLException {
+        if (dimensao != null && !DIMENSOES.contains(dimensao)) {
+            throw new IllegalArgumentException("Dimensão desconhecida: " + dimensao);
+        }
+        Map<String, QuantileSketch> total = new TreeMap<>();
+        LocalDate hoje = LocalDate.now();
+        LocalDate faltante = null;
+        for (LocalDate dia = de; !dia.isAfter(ate); dia = dia.plusDays(1)) {
+            Map<String, QuantileSketch> emCache = dia.isBefore(hoje) ? CACHE_DIAS.getIfPresent(chave(dia)) : null;
+            if (emCache == null) {
+                faltante = faltante == null ? dia : faltante;
+                continue;
+            }
+            if (faltante != null) {
+                carregar(faltante, dia, hoje, loader, total);
+                faltante = null;
+            }
+            combinar(total, emCache);
+        }
+        if (faltante != null) {
+            carregar(faltante, ate.plusDays(1), hoje, loader, total);
+        }
+
+        List<PercentisDto> percentis = new ArrayList<>();
+        QuantileSketch geral = total.remove(GERAL);
+        if (geral != null && dimensao == null) {
+            percentis.add(percentisDe(GERAL, null, geral));
+        }
+        for (Map.Entry<String, QuantileSketch> grupo : total.entrySet()) {
+            String[] partes = grupo.getKey().split(":", 2);
+            if (dimensao == null || dimensao.equals(partes[0])) {
+                percentis.add(percentisDe(partes[0], partes[1], grupo.getValue()));
+            }
+        }
+        return percentis;
+    }
+
+    /**
+     * Descarta, após a confirmação da transação atual, os resumos dos dias de conclusão informados.
+     *
+     * @param datas As datas de conclusão das ordens alteradas; nulas são ignoradas.
+     */
+    static void invalidarAfterCommit(Date... datas) {
+        for (Date data : datas) {
+            if (data != null) {
+                LocalDate dia = data.toLocalDate();
+                TransactionManager.afterCommit(() -> VERSOES.computeIfAbsent(dia, d -> new AtomicLong()).incrementAndGet());
+            }
+        }
+    }
+
+    // Lê os dias [de, ate), soma-os ao total e guarda em cache os já encerrados.
+    private static void carregar(LocalDate de, LocalDate ate, LocalDate hoje, Loader loader,
+                                 Map<String, QuantileSketch> total) throws SQLException {
+        // As chaves são tomadas antes da leitura: uma escrita confirmada durante a leitura troca a versão do dia,
+        // e o resumo possivelmente desatualizado fica guardado sob uma chave que não será mais consultada.
+        Map<LocalDate, String> chaves = new HashMap<>();
+        for (LocalDate dia = de; dia.isBefore(ate); dia = dia.plusDays(1)) {
+            chaves.put(dia, chave(dia));
+        }
+        Map<LocalDate, Map<String, QuantileSketch>> porDia = new HashMap<>();
+        try (Stream<TempoExecucaoDto> tempos = loader.load(Date.valueOf(de), Date.valueOf(ate))) {
+            resumir(tempos.iterator(), porDia);
+        }
+        for (Map.Entry<LocalDate, String> dia : chaves.entrySet()) {
+            Map<String, QuantileSketch> resumo = porDia.getOrDefault(dia.getKey(), Map.of());
+            if (dia.getKey().isBefore(hoje)) {
+                CACHE_DIAS.put(dia.getValue(), resumo);
+            }
+            combinar(total, resumo);
+        }
+    }
+
+    // Distribui os tempos lidos pelos resumos de cada dia. As linhas de uma mesma ordem vêm juntas, uma por serviço:
+    // a ordem conta uma vez no geral, na oficina e no funcionário, e uma vez em cada tipo de serviço distinto.
+    private static void resumir(Iterator<TempoExecucaoDto> tempos, Map<LocalDate, Map<String, QuantileSketch>> porDia) {
+        Long idAtual = null;
+        Set<String> tipos = new HashSet<>();
+        while (tempos.hasNext()) {
+            TempoExecucaoDto tempo = tempos.next();
+            Map<String, QuantileSketch> resumo = porDia.computeIfAbsent(tempo.getDataFim().toLocalDate(), d -> new HashMap<>());
+            if (!tempo.getIdOs().equals(idAtual)) {
+                idAtual = tempo.getIdOs();
+                tipos.clear();
+                adicionar(resumo, GERAL, tempo.getMinutos());
+                adicionar(resumo, "oficina:" + tempo.getIdOficina(), tempo.getMinutos());
+                adicionar(resumo, "funcionario:" + tempo.getIdFuncionario(), tempo.getMinutos());
+            }
+            if (tempo.getTipoServico() != null && tipos.add(tempo.getTipoServico())) {
+                adicionar(resumo, "servico:" + tempo.getTipoServico(), tempo.getMinutos());
+            }
+        }
+    }
+
+    private static void adicionar(Map<String, QuantileSketch> resumo, String grupo, long minutos) {
+        resumo.computeIfAbsent(grupo, g -> new QuantileSketch()).add(minutos);
+    }
+
+    // Soma os resumos de um dia ao total, sem alterar os do dia, que podem estar em cache.
+    private static void combinar(Map<String, QuantileSketch> total, Map<String, QuantileSketch> resumo) {
+        for (Map.Entry<String, QuantileSketch> grupo : resumo.entrySet()) {
+            total.computeIfAbsent(grupo.getKey(), g -> new QuantileSketch()).merge(grupo.getValue());
+        }
+    }
+
+    private static PercentisDto percentisDe(String dimensao, String chave, QuantileSketch sketch) {
+        return new PercentisDto(dimensao, chave, sketch.quantidade(),
+                arredondar(sketch.quantile(0.50)), arredondar(sketch.quantile(0.90)), arredondar(sketch.quantile(0.99)));
+    }
+
+    private static double arredondar(double minutos) {
+        return Math.round(minutos * 10) / 10.0;
+    }
+
+    private static String chave(LocalDate dia) {
+        AtomicLong versao = VERSOES.get(dia);
+        return dia + "#" + (versao == null ? 0 : versao.get());
+    }
+
+    /**
+     * Lê do banco os tempos de execução das ordens concluídas no intervalo {@code [de, ate)}.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        Stream<TempoExecucaoDto> load(Date de, Date ate) throws SQLException;
+    }
+}
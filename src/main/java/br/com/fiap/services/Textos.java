@@ -0,0 +1,71 @@
+package br.com.fiap.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de textos para as buscas em memória.
+ *
+ * <p>Os textos são comparados sem acentos e sem diferença entre maiúsculas e minúsculas, então "Pastilha",
+ * "pastilha" e "PASTILHA" são o mesmo termo, e "oleo" encontra "Óleo". A mesma normalização é aplicada
+ * aos dados indexados e às consultas.</p>
+ */
+final class Textos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    // Palavras frequentes demais para distinguir um texto de outro.
+    private static final Set<String> IGNORADAS = Set.of(
+            "a", "o", "as", "os", "e", "ao", "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas",
+            "um", "uma", "com", "por", "para", "que", "se");
+
+    private Textos() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Remove acentos e converte para minúsculas.
+     *
+     * @param texto O texto, ou {@code null}.
+     * @return O texto normalizado; vazio se {@code texto} for {@code null}.
+     */
+    static String dobrar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide um texto normalizado em termos, descartando pontuação e palavras muito frequentes.
+     *
+     * @param texto O texto, ou {@code null}.
+     * @return Os termos, na ordem em que aparecem, com repetições.
+     */
+    static List<String> termos(String texto) {
+        List<String> termos = palavras(texto);
+        termos.removeIf(IGNORADAS::contains);
+        return termos;
+    }
+
+    /**
+     * Divide um texto normalizado em palavras, descartando apenas a pontuação.
+     *
+     * @param texto O texto, ou {@code null}.
+     * @return As palavras, na ordem em que aparecem, com repetições.
+     */
+    static List<String> palavras(String texto) {
+        List<String> palavras = new ArrayList<>();
+        for (String palavra : SEPARADORES.split(dobrar(texto))) {
+            if (!palavra.isEmpty()) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.fiap.services;
+
+import br.com.fiap.config.TransactionManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Travas em memória que enfileiram as operações de estoque de uma mesma peça antes de chegarem ao banco.
+ *
+ * <p>O UPDATE de estoque mantém o lock da linha até o fim da transação. Sem estas travas, requisições
+ * simultâneas sobre uma peça muito disputada ficariam todas bloqueadas no banco, cada uma segurando uma conexão
+ * do pool. Com elas, a requisição espera aqui antes de emprestar a conexão e só segue quando a anterior termina.</p>
+ *
+ * <p>As peças são distribuídas por um número fixo de travas, então duas peças podem compartilhar a mesma.
+ * A trava é apenas uma fila: a correção vem do UPDATE condicional. Se a espera passar de
+ * {@link #ESPERA_MAXIMA_MS}, a operação segue sem a trava e o banco decide, o que também evita que duas
+ * transações que travam peças em ordens diferentes esperem uma pela outra para sempre. As travas pertencem a esta
+ * instância da aplicação.</p>
+ */
+final class TravasEstoque {
+
+    // Potência de dois, para que o índice da trava seja um AND com a máscara.
+    private static final int QUANTIDADE = 64;
+
+    // Espera máxima pela trava antes de seguir direto para o banco.
+    private static final long ESPERA_MAXIMA_MS = 2_000;
+
+    private static final ReentrantLock[] TRAVAS = new ReentrantLock[QUANTIDADE];
+
+    static {
+        for (int i = 0; i < QUANTIDADE; i++) {
+            TRAVAS[i] = new ReentrantLock();
+        }
+    }
+
+    private TravasEstoque() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Obtém a trava da peça até o fim da transação atual, confirmada ou revertida.
+     *
+     * <p>Deve ser chamado antes da primeira instrução da transação sobre a peça. A mesma transação pode
+     * chamá-lo de novo para a mesma peça.</p>
+     *
+     * @param idPeca O ID da peça.
+     */
+    static void travarAteFimDaTransacao(long idPeca) {
+        ReentrantLock trava = TRAVAS[indice(idPeca)];
+        boolean obtida;
+        try {
+            obtida = trava.tryLock(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (obtida) {
+            // O desfecho da transação é tratado pela mesma thread da requisição, dona da trava.
+            TransactionManager.afterCommit(trava::unlock);
+            TransactionManager.afterRollback(trava::unlock);
+        }
+    }
+
+    private static int indice(long idPeca) {
+        // Espalha IDs sequenciais, que de outra forma ocupariam travas vizinhas em sequência.
+        return (int) ((idPeca * 0x9E3779B97F4A7C15L) >>> 32) & (QUANTIDADE - 1);
+    }
+}
@@ -1,17 +1,21 @@
 package br.com.fiap.services;
 
-import br.com.fiap.config.DatabaseConnectionFactory;
+import br.com.fiap.config.TableVersions;
+import br.com.fiap.config.TransactionManager;
 import br.com.fiap.dao.interfaces.VeiculoDao;
 import br.com.fiap.dao.VeiculoDaoFactory;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.VeiculoNotFoundException;
 import br.com.fiap.exceptions.VeiculoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
 import br.com.fiap.models.Veiculo;
 import br.com.fiap.services.interfaces.VeiculoService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementação do serviço para a entidade Veiculo, utilizando VeiculoDaoFactory.
@@ -36,16 +40,10 @@ public final class VeiculoServiceImpl implements VeiculoService {
     @Override
     public Veiculo create(Veiculo veiculo) throws UnsupportedServiceOperationException, SQLException, VeiculoNotSavedException {
         if (veiculo.getIdVeiculo() == null) {
-            Connection connection = DatabaseConnectionFactory.create().get();
-            try {
-                veiculo = this.dao.save(veiculo, connection);
-                connection.commit();
-                return veiculo;
-            } catch (SQLException | VeiculoNotSavedException e) {
-                // Reverte a transação em caso de erro.
-                connection.rollback();
-                throw e;
-            }
+            TableVersions.bumpAfterCommit("T_VEICULO");
+            Veiculo saved = this.dao.save(veiculo, TransactionManager.current());
+            TransactionManager.afterCommit(() -> SugestoesIndex.definirVeiculo(saved));
+            return saved;
         } else {
             // Lança exceção se o Veiculo já tiver um ID, indicando que a operação não é suportada.
             throw new UnsupportedServiceOperationException("Veículo já possui um ID e não pode ser criado novamente.");
@@ -62,6 +60,56 @@ public final class VeiculoServiceImpl implements VeiculoService {
         return this.dao.findAll();
     }
 
+    /**
+     * Retorna uma página de veículos a partir do cursor informado.
+     *
+     * <p>Busca uma linha além do limite apenas para saber se existe uma próxima página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    @Override
+    public PageDto<Veiculo> page(Long afterId, int limit) {
+        return PageDto.of(this.dao.page(afterId, limit + 1), limit, Veiculo::getIdVeiculo);
+    }
+
+    /**
+     * Busca um Veiculo pelo ID.
+     *
+     * @param id O ID do Veiculo.
+     * @return O Veiculo encontrado, ou vazio se não existir.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Optional<Veiculo> findById(Long id) throws SQLException {
+        return this.dao.findById(id);
+    }
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return As instâncias de {@link Veiculo} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Veiculo> findAllByIds(Collection<Long> ids) throws SQLException {
+        return this.dao.findAllByIds(ids);
+    }
+
+    /**
+     * Busca os veículos de um cliente.
+     *
+     * @param clienteId O ID do cliente.
+     * @return As instâncias de {@link Veiculo} encontradas.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public List<Veiculo> findByClienteId(Long clienteId) throws SQLException {
+        return this.dao.findByClienteId(clienteId);
+    }
+
     /**
      * Atualiza um Veiculo existente no banco de dados.
      *
@@ -72,15 +120,28 @@ public final class VeiculoServiceImpl implements VeiculoService {
      */
     @Override
     public Veiculo update(Veiculo veiculo) throws VeiculoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            veiculo = this.dao.update(veiculo, connection);
-            connection.commit();
-            return veiculo;
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_VEICULO");
+        Veiculo updated = this.dao.update(veiculo, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.definirVeiculo(updated));
+        return updated;
+    }
+
+    /**
+     * Altera apenas os campos informados de um Veiculo existente, com os mesmos efeitos da atualização completa.
+     *
+     * @param id O ID do Veiculo.
+     * @param campos Os campos alterados; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O Veiculo com todos os campos, depois da alteração.
+     * @throws VeiculoNotFoundException Se o Veiculo não for encontrado.
+     * @throws SQLException Em caso de erro de SQL.
+     */
+    @Override
+    public Veiculo patch(Long id, Map<String, Object> campos, Long versao) throws VeiculoNotFoundException, SQLException {
+        TableVersions.bumpAfterCommit("T_VEICULO");
+        Veiculo updated = this.dao.patch(id, campos, versao, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.definirVeiculo(updated));
+        return updated;
     }
 
     /**
@@ -92,13 +153,8 @@ public final class VeiculoServiceImpl implements VeiculoService {
      */
     @Override
     public void deleteById(Long id) throws VeiculoNotFoundException, SQLException {
-        Connection connection = DatabaseConnectionFactory.create().get();
-        try {
-            this.dao.deleteById(id, connection);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        }
+        TableVersions.bumpAfterCommit("T_VEICULO");
+        this.dao.deleteById(id, TransactionManager.current());
+        TransactionManager.afterCommit(() -> SugestoesIndex.removerVeiculo(id));
     }
 }
@@ -1,12 +1,21 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.SlotDto;
+import br.com.fiap.exceptions.AgendamentoConflitoException;
 import br.com.fiap.exceptions.AgendamentoNotFoundException;
 import br.com.fiap.exceptions.AgendamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Agendamento;
 
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Agendamento.
@@ -22,9 +31,10 @@ public interface AgendamentoService {
      * @param agendamento A instância de Agendamento a ser criada.
      * @return O Agendamento criado com o ‘ID’ gerado.
      * @throws AgendamentoNotSavedException Se o agendamento não puder ser salvo.
+     * @throws AgendamentoConflitoException Se o horário se sobrepuser a outro agendamento da oficina.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
-    Agendamento create(Agendamento agendamento) throws UnsupportedServiceOperationException, SQLException, AgendamentoNotSavedException;
+    Agendamento create(Agendamento agendamento) throws UnsupportedServiceOperationException, SQLException, AgendamentoNotSavedException, AgendamentoConflitoException;
 
     /**
      * Retorna uma lista de todos os agendamentos.
@@ -33,15 +43,78 @@ public interface AgendamentoService {
      */
     List<Agendamento> findAll();
 
+    /**
+     * Retorna uma página de agendamentos a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Agendamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Agendamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Agendamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Lista os horários livres de uma oficina no intervalo informado.
+     *
+     * @param idOficina O ID da oficina.
+     * @param de        O início do intervalo.
+     * @param ate       O fim do intervalo (exclusivo).
+     * @return Os horários livres, em ordem cronológica.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<SlotDto> findSlotsLivres(Long idOficina, LocalDateTime de, LocalDateTime ate) throws SQLException;
+
+    /**
+     * Percorre todos os agendamentos sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link Agendamento}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Stream<Agendamento> streamAll() throws SQLException;
+
     /**
      * Atualiza os dados de um agendamento existente no sistema.
      *
      * @param agendamento A instância de Agendamento com os dados atualizados.
      * @return O Agendamento atualizado.
      * @throws AgendamentoNotFoundException Se o agendamento não for encontrado.
+     * @throws AgendamentoConflitoException Se o novo horário se sobrepuser a outro agendamento da oficina.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Agendamento update(Agendamento agendamento) throws AgendamentoNotFoundException, AgendamentoConflitoException, SQLException;
+
+    /**
+     * Altera apenas os campos informados de um registro de Agendamento, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code AgendamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws AgendamentoNotFoundException Se o agendamento não for encontrado.
+     * @throws AgendamentoConflitoException Se o novo horário se sobrepuser a outro agendamento da oficina.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
-    Agendamento update(Agendamento agendamento) throws AgendamentoNotFoundException, SQLException;
+    Agendamento patch(Long id, Map<String, Object> campos, Long versao) throws AgendamentoNotFoundException, AgendamentoConflitoException, SQLException;
 
     /**
      * Exclui um agendamento do sistema pelo seu ID.
@@ -1,12 +1,19 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.ClienteCompletoDto;
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.SugestaoDto;
 import br.com.fiap.exceptions.ClienteNotFoundException;
 import br.com.fiap.exceptions.ClienteNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Cliente;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Cliente.
@@ -33,16 +40,79 @@ public interface ClienteService {
      */
     List<Cliente> findAll();
 
+    /**
+     * Retorna uma página de clientes a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Cliente> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Cliente> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Cliente> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca um cliente com seus telefones, endereços e veículos.
+     *
+     * @param id O ID do cliente.
+     * @return O cliente com os registros associados, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<ClienteCompletoDto> findCompletoById(Long id) throws SQLException;
+
+    /**
+     * Retorna uma página de clientes, cada um com seus telefones, endereços e veículos.
+     *
+     * <p>O número de consultas é fixo, qualquer que seja o tamanho da página.</p>
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de clientes na página.
+     * @return A página e o cursor da próxima página.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    PageDto<ClienteCompletoDto> pageCompleto(Long afterId, int limit) throws SQLException;
+
     /**
      * Atualiza os dados de um cliente existente no sistema.
      *
      * @param cliente A instância de Cliente com os dados atualizados.
      * @return O Cliente atualizado.
      * @throws ClienteNotFoundException Se o cliente não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Cliente update(Cliente cliente) throws ClienteNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Cliente, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code ClienteDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws ClienteNotFoundException Se o cliente não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Cliente patch(Long id, Map<String, Object> campos, Long versao) throws ClienteNotFoundException, SQLException;
+
     /**
      * Exclui um cliente do sistema pelo seu ID.
      *
@@ -51,4 +121,24 @@ public interface ClienteService {
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     void deleteById(Long id) throws ClienteNotFoundException, SQLException;
+
+    /**
+     * Sugere clientes pelo prefixo do CPF ou do nome e veículos pelo prefixo da placa.
+     *
+     * <p>A busca ignora acentos, maiúsculas e a pontuação do CPF e da placa. No nome, o texto pode começar
+     * em qualquer palavra.</p>
+     *
+     * @param consulta O texto digitado.
+     * @param limit    A quantidade máxima de sugestões.
+     * @return As sugestões encontradas.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<SugestaoDto> suggest(String consulta, int limit) throws SQLException;
+
+    /**
+     * Carrega os índices de sugestão, se ainda não estiverem carregados.
+     *
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    void prepararSugestoes() throws SQLException;
 }
@@ -1,11 +1,16 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.EnderecoNotFoundException;
 import br.com.fiap.exceptions.EnderecoNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Endereco;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Endereco.
@@ -32,16 +37,67 @@ public interface EnderecoService {
      */
     List<Endereco> findAll();
 
+    /**
+     * Retorna uma página de registros a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Endereco> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Endereco> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Endereco> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca os endereços de um cliente ou de uma oficina, conforme a implementação.
+     *
+     * @param referenciaId O ID do cliente ou da oficina.
+     * @return Os registros encontrados; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Endereco> findByReferenciaId(Long referenciaId) throws SQLException;
+
     /**
      * Atualiza os dados de um endereço existente no sistema.
      *
      * @param endereco A instância de Endereco com os dados atualizados.
      * @return O Endereco atualizado.
      * @throws EnderecoNotFoundException Se o endereço não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Endereco update(Endereco endereco) throws EnderecoNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Endereco, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code EnderecoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws EnderecoNotFoundException Se o endereço não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Endereco patch(Long id, Map<String, Object> campos, Long versao) throws EnderecoNotFoundException, SQLException;
+
     /**
      * Exclui um endereço do sistema pelo seu ID.
      *
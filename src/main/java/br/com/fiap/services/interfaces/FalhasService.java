@@ -1,12 +1,19 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.BuscaDto;
+import br.com.fiap.dtos.FalhaEncontradaDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.FalhasNotFoundException;
 import br.com.fiap.exceptions.FalhasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Falhas;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Falhas.
@@ -26,6 +33,17 @@ public interface FalhasService {
      */
     Falhas create(Falhas falha) throws UnsupportedServiceOperationException, SQLException, FalhasNotSavedException;
 
+    /**
+     * Cria vários registros de falhas de uma vez, na mesma transação.
+     *
+     * @param falhas As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws FalhasNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Falhas> createAll(List<Falhas> falhas) throws UnsupportedServiceOperationException, SQLException, FalhasNotSavedException;
+
     /**
      * Retorna uma lista de todas as falhas.
      *
@@ -33,16 +51,58 @@ public interface FalhasService {
      */
     List<Falhas> findAll();
 
+    /**
+     * Retorna uma página de falhas a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Falhas> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Falhas> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Falhas> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Atualiza os dados de uma falha existente no sistema.
      *
      * @param falha A instância de Falhas com os dados atualizados.
      * @return A Falha atualizada.
      * @throws FalhasNotFoundException Se a falha não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Falhas update(Falhas falha) throws FalhasNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Falhas, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code FalhasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws FalhasNotFoundException Se a falha não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Falhas patch(Long id, Map<String, Object> campos, Long versao) throws FalhasNotFoundException, SQLException;
+
     /**
      * Exclui uma falha do sistema pelo seu ID.
      *
@@ -51,4 +111,27 @@ public interface FalhasService {
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     void deleteById(Long id) throws FalhasNotFoundException, SQLException;
+
+    /**
+     * Busca falhas pelo texto da descrição e da solução, em ordem de relevância.
+     *
+     * <p>A busca ignora acentos e maiúsculas, exige todos os termos informados e trata o último como prefixo.</p>
+     *
+     * @param consulta  O texto digitado.
+     * @param gravidade Filtra pela gravidade; {@code null} para todas.
+     * @param idVeiculo Filtra pelo veículo; {@code null} para todos.
+     * @param offset    A posição do primeiro resultado da página.
+     * @param limit     A quantidade máxima de resultados da página.
+     * @return A página de resultados.
+     * @throws IllegalArgumentException Se a página ultrapassar o limite de resultados navegáveis.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    BuscaDto<FalhaEncontradaDto> search(String consulta, String gravidade, Long idVeiculo, int offset, int limit) throws SQLException;
+
+    /**
+     * Carrega o índice de busca, se ainda não estiver carregado.
+     *
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    void prepararBusca() throws SQLException;
 }
@@ -1,12 +1,17 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.OficinaNotFoundException;
 import br.com.fiap.exceptions.OficinaNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Oficina;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Oficina.
@@ -33,16 +38,58 @@ public interface OficinaService {
      */
     List<Oficina> findAll();
 
+    /**
+     * Retorna uma página de oficinas a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Oficina> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Oficina> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Oficina> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Atualiza os dados de uma oficina existente no sistema.
      *
      * @param oficina A instância de Oficina com os dados atualizados.
      * @return A Oficina atualizada.
      * @throws OficinaNotFoundException Se a oficina não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Oficina update(Oficina oficina) throws OficinaNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Oficina, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OficinaDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws OficinaNotFoundException Se a oficina não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Oficina patch(Long id, Map<String, Object> campos, Long versao) throws OficinaNotFoundException, SQLException;
+
     /**
      * Exclui uma oficina do sistema pelo seu ID.
      *
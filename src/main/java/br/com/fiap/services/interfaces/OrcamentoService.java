@@ -1,12 +1,18 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.OrcamentoTotaisDto;
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.OrcamentoNotFoundException;
 import br.com.fiap.exceptions.OrcamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Orcamento;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Orcamento.
@@ -33,16 +39,67 @@ public interface OrcamentoService {
      */
     List<Orcamento> findAll();
 
+    /**
+     * Retorna uma página de orçamentos a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Orcamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Orcamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Orcamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Calcula os totais de um orçamento a partir dos serviços e das peças cadastrados.
+     *
+     * @param idOrcamento O ID do orçamento.
+     * @return Os totais por serviço e do orçamento, ou vazio se o orçamento não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<OrcamentoTotaisDto> findTotais(Long idOrcamento) throws SQLException;
+
     /**
      * Atualiza os dados de um orçamento existente no sistema.
      *
      * @param orcamento A instância de Orcamento com os dados atualizados.
      * @return O Orcamento atualizado.
      * @throws OrcamentoNotFoundException Se o orçamento não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Orcamento update(Orcamento orcamento) throws OrcamentoNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Orcamento, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OrcamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws OrcamentoNotFoundException Se o orçamento não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Orcamento patch(Long id, Map<String, Object> campos, Long versao) throws OrcamentoNotFoundException, SQLException;
+
     /**
      * Exclui um orçamento do sistema pelo seu ID.
      *
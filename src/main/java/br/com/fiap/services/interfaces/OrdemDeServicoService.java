@@ -1,12 +1,23 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.dtos.PercentisDto;
+import br.com.fiap.dtos.QuadroDto;
+import br.com.fiap.dtos.QuadroEventoDto;
 import br.com.fiap.exceptions.OrdemDeServicoNotFoundException;
 import br.com.fiap.exceptions.OrdemDeServicoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.OrdemDeServico;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interface para operações de serviço relacionadas à entidade OrdemDeServico.
@@ -33,16 +44,66 @@ public interface OrdemDeServicoService {
      */
     List<OrdemDeServico> findAll();
 
+    /**
+     * Retorna uma página de ordens de serviço a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<OrdemDeServico> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<OrdemDeServico> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<OrdemDeServico> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todas as ordens de serviço sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link OrdemDeServico}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Stream<OrdemDeServico> streamAll() throws SQLException;
+
     /**
      * Atualiza os dados de uma ordem de serviço existente no sistema.
      *
      * @param ordem A instância de OrdemDeServico com os dados atualizados.
      * @return A OrdemDeServico atualizada.
      * @throws OrdemDeServicoNotFoundException Se a ordem de serviço não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     OrdemDeServico update(OrdemDeServico ordem) throws OrdemDeServicoNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de OrdemDeServico, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code OrdemDeServicoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws OrdemDeServicoNotFoundException Se a ordem de serviço não for encontrada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    OrdemDeServico patch(Long id, Map<String, Object> campos, Long versao) throws OrdemDeServicoNotFoundException, SQLException;
+
     /**
      * Exclui uma ordem de serviço do sistema pelo seu ID.
      *
@@ -51,4 +112,56 @@ public interface OrdemDeServicoService {
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     void deleteById(Long id) throws OrdemDeServicoNotFoundException, SQLException;
+
+    /**
+     * Finaliza uma ordem de serviço aberta, registrando a data e a hora de término.
+     *
+     * @param id O ID da ordem de serviço.
+     * @return A OrdemDeServico finalizada.
+     * @throws OrdemDeServicoNotFoundException Se a ordem de serviço não for encontrada.
+     * @throws IllegalStateException Se a ordem de serviço não estiver aberta.
+     * @throws VersaoConflitanteException Se a ordem de serviço for alterada entre a leitura e a finalização.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    OrdemDeServico finalizar(Long id) throws OrdemDeServicoNotFoundException, SQLException;
+
+    /**
+     * Monta o resumo do quadro de ordens de serviço.
+     *
+     * @return A quantidade de ordens por status e por status, oficina e funcionário.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    QuadroDto findQuadro() throws SQLException;
+
+    /**
+     * Lista uma página das ordens de uma célula do quadro; filtros {@code null} não restringem.
+     *
+     * @param status        O status das ordens.
+     * @param idOficina     O ID da oficina.
+     * @param idFuncionario O ID do funcionário.
+     * @param afterId       O último ID da página anterior, ou {@code null} para a primeira página.
+     * @param limit         A quantidade máxima de IDs na página.
+     * @return A página de IDs, em ordem crescente, e o cursor da próxima página.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    PageDto<Long> findIdsNoQuadro(String status, Long idOficina, Long idFuncionario, Long afterId, int limit) throws SQLException;
+
+    /**
+     * Registra um ouvinte para as mudanças confirmadas do quadro.
+     *
+     * @param ouvinte Recebe cada mudança depois que ela é confirmada.
+     */
+    void observarQuadro(Consumer<QuadroEventoDto> ouvinte);
+
+    /**
+     * Calcula os percentis do tempo de execução das ordens concluídas no período.
+     *
+     * @param de       O primeiro dia do período.
+     * @param ate      O último dia do período (inclusivo).
+     * @param dimensao A dimensão de agrupamento (oficina, funcionario ou servico), ou {@code null} para todas.
+     * @return p50, p90 e p99 de cada grupo, em minutos.
+     * @throws IllegalArgumentException Se a dimensão não for reconhecida.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<PercentisDto> findPercentisTempoExecucao(LocalDate de, LocalDate ate, String dimensao) throws SQLException;
 }
@@ -1,12 +1,17 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.PagamentoNotFoundException;
 import br.com.fiap.exceptions.PagamentoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pagamento;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Pagamento.
@@ -33,16 +38,58 @@ public interface PagamentoService {
      */
     List<Pagamento> findAll();
 
+    /**
+     * Retorna uma página de pagamentos a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Pagamento> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Pagamento> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Pagamento> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Atualiza os dados de um pagamento existente no sistema.
      *
      * @param pagamento A instância de Pagamento com os dados atualizados.
      * @return O Pagamento atualizado.
      * @throws PagamentoNotFoundException Se o pagamento não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Pagamento update(Pagamento pagamento) throws PagamentoNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Pagamento, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code PagamentoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws PagamentoNotFoundException Se o pagamento não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Pagamento patch(Long id, Map<String, Object> campos, Long versao) throws PagamentoNotFoundException, SQLException;
+
     /**
      * Exclui um pagamento do sistema pelo seu ID.
      *
@@ -1,12 +1,19 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
+import br.com.fiap.exceptions.EstoqueInsuficienteException;
 import br.com.fiap.exceptions.PecasNotFoundException;
 import br.com.fiap.exceptions.PecasNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Pecas;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Pecas.
@@ -26,6 +33,17 @@ public interface PecasService {
      */
     Pecas create(Pecas peca) throws UnsupportedServiceOperationException, SQLException, PecasNotSavedException;
 
+    /**
+     * Cria vários registros de peças de uma vez, na mesma transação.
+     *
+     * @param pecas As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws PecasNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Pecas> createAll(List<Pecas> pecas) throws UnsupportedServiceOperationException, SQLException, PecasNotSavedException;
+
     /**
      * Retorna uma lista de todas as peças.
      *
@@ -33,16 +51,68 @@ public interface PecasService {
      */
     List<Pecas> findAll();
 
+    /**
+     * Retorna uma página de peças a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Pecas> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Pecas> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Pecas> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Percorre todas as peças sem carregá-las em memória.
+     *
+     * @return As instâncias de {@link Pecas}; o {@link Stream} deve ser fechado pelo chamador.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Stream<Pecas> streamAll() throws SQLException;
+
     /**
      * Atualiza os dados de uma peça existente no sistema.
      *
      * @param peca A instância de Pecas com os dados atualizados.
      * @return A Peça atualizada.
      * @throws PecasNotFoundException Se a peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a nova quantidade for menor que a quantidade reservada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Pecas update(Pecas peca) throws PecasNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Pecas, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code PecasDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws PecasNotFoundException Se a peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a nova quantidade for menor que a quantidade reservada.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Pecas patch(Long id, Map<String, Object> campos, Long versao) throws PecasNotFoundException, SQLException;
+
     /**
      * Exclui uma peça do sistema pelo seu ID.
      *
@@ -51,4 +121,43 @@ public interface PecasService {
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     void deleteById(Long id) throws PecasNotFoundException, SQLException;
+
+    /**
+     * Reserva unidades livres de uma peça; a reserva vale quando a transação for confirmada.
+     *
+     * <p>As operações de estoque alteram a quantidade de forma atômica no banco, sem ler e regravar a peça,
+     * então reservas simultâneas da mesma peça nunca se perdem.</p>
+     *
+     * @param id         O ID da peça.
+     * @param quantidade A quantidade a reservar.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se não houver unidades livres suficientes.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    void reserve(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException;
+
+    /**
+     * Libera unidades reservadas de uma peça, devolvendo-as ao estoque livre.
+     *
+     * @param id         O ID da peça.
+     * @param quantidade A quantidade a liberar.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a quantidade reservada for menor.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    void release(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException;
+
+    /**
+     * Consome unidades reservadas de uma peça, baixando-as do estoque.
+     *
+     * @param id         O ID da peça.
+     * @param quantidade A quantidade a consumir.
+     * @throws IllegalArgumentException Se a quantidade não for positiva.
+     * @throws PecasNotFoundException Se a peça não for encontrada.
+     * @throws EstoqueInsuficienteException Se a quantidade reservada for menor.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    void consume(Long id, int quantidade) throws PecasNotFoundException, EstoqueInsuficienteException, SQLException;
 }
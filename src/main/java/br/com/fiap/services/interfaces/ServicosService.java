@@ -1,12 +1,17 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.ServicosNotFoundException;
 import br.com.fiap.exceptions.ServicosNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Servicos;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Servicos.
@@ -26,6 +31,17 @@ public interface ServicosService {
      */
     Servicos create(Servicos servico) throws UnsupportedServiceOperationException, SQLException, ServicosNotSavedException;
 
+    /**
+     * Cria vários registros de serviços de uma vez, na mesma transação.
+     *
+     * @param servicos As instâncias a serem criadas, sem ID.
+     * @return As instâncias criadas com os IDs gerados.
+     * @throws UnsupportedServiceOperationException Se alguma instância já possuir ID.
+     * @throws ServicosNotSavedException Se algum registro não puder ser salvo.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Servicos> createAll(List<Servicos> servicos) throws UnsupportedServiceOperationException, SQLException, ServicosNotSavedException;
+
     /**
      * Retorna uma lista de todos os serviços.
      *
@@ -33,16 +49,58 @@ public interface ServicosService {
      */
     List<Servicos> findAll();
 
+    /**
+     * Retorna uma página de serviços a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Servicos> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Servicos> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Servicos> findAllByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Atualiza os dados de um serviço existente no sistema.
      *
      * @param servico A instância de Servicos com os dados atualizados.
      * @return O Servico atualizado.
      * @throws ServicosNotFoundException Se o serviço não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Servicos update(Servicos servico) throws ServicosNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Servicos, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code ServicosDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws ServicosNotFoundException Se o serviço não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Servicos patch(Long id, Map<String, Object> campos, Long versao) throws ServicosNotFoundException, SQLException;
+
     /**
      * Exclui um serviço do sistema pelo seu ID.
      *
@@ -1,11 +1,16 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.TelefoneNotFoundException;
 import br.com.fiap.exceptions.TelefoneNotSavedException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Telefone;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Telefone.
@@ -32,16 +37,67 @@ public interface TelefoneService {
      */
     List<Telefone> findAll();
 
+    /**
+     * Retorna uma página de registros a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Telefone> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Telefone> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Telefone> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca os telefones de um cliente ou de uma oficina, conforme a implementação.
+     *
+     * @param referenciaId O ID do cliente ou da oficina.
+     * @return Os registros encontrados; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Telefone> findByReferenciaId(Long referenciaId) throws SQLException;
+
     /**
      * Atualiza os dados de um telefone existente no sistema.
      *
      * @param telefone A instância de Telefone com os dados atualizados.
      * @return O Telefone atualizado.
      * @throws TelefoneNotFoundException Se o telefone não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Telefone update(Telefone telefone) throws TelefoneNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Telefone, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code TelefoneDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws TelefoneNotFoundException Se o telefone não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Telefone patch(Long id, Map<String, Object> campos, Long versao) throws TelefoneNotFoundException, SQLException;
+
     /**
      * Exclui um telefone do sistema pelo seu ID.
      *
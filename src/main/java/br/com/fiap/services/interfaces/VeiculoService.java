@@ -1,12 +1,17 @@
 package br.com.fiap.services.interfaces;
 
+import br.com.fiap.dtos.PageDto;
 import br.com.fiap.exceptions.VeiculoNotFoundException;
 import br.com.fiap.exceptions.VeiculoNotSavedException;
 import br.com.fiap.exceptions.UnsupportedServiceOperationException;
+import br.com.fiap.exceptions.VersaoConflitanteException;
 import br.com.fiap.models.Veiculo;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface para operações de serviço relacionadas à entidade Veiculo.
@@ -33,16 +38,67 @@ public interface VeiculoService {
      */
     List<Veiculo> findAll();
 
+    /**
+     * Retorna uma página de veículos a partir do cursor informado.
+     *
+     * @param afterId O ID do último registro da página anterior, ou {@code null} para a primeira página.
+     * @param limit   A quantidade máxima de registros na página.
+     * @return A página e o cursor da próxima página.
+     */
+    PageDto<Veiculo> page(Long afterId, int limit);
+
+    /**
+     * Busca um registro pelo ID.
+     *
+     * @param id O ID do registro.
+     * @return O registro encontrado, ou vazio se não existir.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Optional<Veiculo> findById(Long id) throws SQLException;
+
+    /**
+     * Busca os registros com os IDs informados.
+     *
+     * @param ids Os IDs dos registros.
+     * @return Os registros encontrados; IDs inexistentes são ignorados.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Veiculo> findAllByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca os veículos de um cliente.
+     *
+     * @param clienteId O ID do cliente.
+     * @return Os registros encontrados; vazia se não houver nenhum.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    List<Veiculo> findByClienteId(Long clienteId) throws SQLException;
+
     /**
      * Atualiza os dados de um veículo existente no sistema.
      *
      * @param veiculo A instância de Veiculo com os dados atualizados.
      * @return O Veiculo atualizado.
      * @throws VeiculoNotFoundException Se o veículo não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
      * @throws SQLException Se ocorrer um erro de SQL.
      */
     Veiculo update(Veiculo veiculo) throws VeiculoNotFoundException, SQLException;
 
+    /**
+     * Altera apenas os campos informados de um registro de Veiculo, mantendo os demais (JSON Merge Patch).
+     *
+     * @param id O ID do registro.
+     * @param campos Os campos alterados, com os nomes do {@code VeiculoDto}; um campo {@code null} é apagado.
+     * @param versao A versão esperada, ou {@code null} para não verificar.
+     * @return O registro com todos os campos, depois da alteração.
+     * @throws IllegalArgumentException Se um campo não puder ser alterado ou tiver um valor do tipo errado.
+     * @throws VeiculoNotFoundException Se o veículo não for encontrado.
+     * @throws VersaoConflitanteException Se o registro tiver sido alterado depois da versão esperada.
+     * @throws SQLException Se ocorrer um erro de SQL.
+     */
+    Veiculo patch(Long id, Map<String, Object> campos, Long versao) throws VeiculoNotFoundException, SQLException;
+
     /**
      * Exclui um veículo do sistema pelo seu ID.
      *
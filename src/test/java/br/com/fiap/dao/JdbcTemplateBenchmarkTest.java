@@ -0,0 +1,144 @@
+package br.com.fiap.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Mede a vazão das inserções com ID gerado: o bloco PL/SQL com {@code RETURNING ... INTO ?} usado antes,
+ * {@link JdbcTemplate#insertReturningId} linha a linha e {@link JdbcTemplate#insertBatchReturningIds} em lote.
+ *
+ * <p>Precisa de um Oracle: só roda com {@code -Ddb.url} (e {@code -Ddb.user}, {@code -Ddb.password}) e é ignorado
+ * sem ele. Insere em uma tabela criada para o teste e removida ao final; as inserções são revertidas.
+ * {@code -Ddb.bench.linhas} define quantas linhas cada forma insere.</p>
+ */
+class JdbcTemplateBenchmarkTest {
+
+    private static final int LINHAS = Integer.getInteger("db.bench.linhas", 1_000);
+    private static final String TABELA = "T_BENCH_INSERT_" + Long.toString(System.nanoTime() % 1_000_000_000L, 36).toUpperCase();
+    private static final String INSERT = "INSERT INTO " + TABELA + "(nm_marca, qt_quantidade, vl_valor) VALUES(?, ?, ?)";
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void conectar() throws SQLException {
+        String url = System.getProperty("db.url");
+        assumeTrue(url != null && !url.isBlank(), "sem -Ddb.url: benchmark de inserção ignorado");
+        connection = DriverManager.getConnection(url, System.getProperty("db.user"), System.getProperty("db.password"));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + TABELA + " (id_bench NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY, "
+                    + "nm_marca VARCHAR2(50) NOT NULL, qt_quantidade NUMBER NOT NULL, vl_valor NUMBER(10, 2) NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @AfterAll
+    static void desconectar() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            connection.rollback();
+            stmt.execute("DROP TABLE " + TABELA + " PURGE");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void compararInsercoesComIdGerado() throws SQLException {
+        // Uma rodada de aquecimento para cada forma, para que as medidas não incluam a primeira análise do SQL.
+        inserirComBlocoPlsql(LINHAS / 10);
+        inserirLinhaALinha(LINHAS / 10);
+        inserirEmLote(LINHAS / 10);
+        connection.rollback();
+
+        long[] plsql = medir("bloco PL/SQL", () -> inserirComBlocoPlsql(LINHAS));
+        long[] linhaALinha = medir("insertReturningId", () -> inserirLinhaALinha(LINHAS));
+        long[] lote = medir("insertBatchReturningIds", () -> inserirEmLote(LINHAS));
+
+        conferir(plsql);
+        conferir(linhaALinha);
+        conferir(lote);
+    }
+
+    private static long[] medir(String forma, Insercao insercao) throws SQLException {
+        long inicio = System.nanoTime();
+        long[] ids = insercao.inserir();
+        long duracao = System.nanoTime() - inicio;
+        connection.rollback();
+        System.out.printf("%s: %d linhas em %d ms (%.0f linhas/s)%n", forma, ids.length,
+                TimeUnit.NANOSECONDS.toMillis(duracao), ids.length / (duracao / 1e9));
+        return ids;
+    }
+
+    // A forma anterior à troca por getGeneratedKeys(), mantida aqui apenas como referência da medida.
+    private static long[] inserirComBlocoPlsql(int linhas) throws SQLException {
+        long[] ids = new long[linhas];
+        String sql = "BEGIN " + INSERT + " RETURNING id_bench INTO ?; END;";
+        for (int i = 0; i < linhas; i++) {
+            try (CallableStatement call = connection.prepareCall(sql)) {
+                vincular(call, i);
+                call.registerOutParameter(4, Types.NUMERIC);
+                call.executeUpdate();
+                ids[i] = call.getLong(4);
+            }
+        }
+        return ids;
+    }
+
+    private static long[] inserirLinhaALinha(int linhas) throws SQLException {
+        long[] ids = new long[linhas];
+        for (int i = 0; i < linhas; i++) {
+            final int linha = i;
+            ids[i] = JdbcTemplate.insertReturningId(connection, INSERT, "id_bench", stmt -> vincular(stmt, linha));
+        }
+        return ids;
+    }
+
+    private static long[] inserirEmLote(int linhas) throws SQLException {
+        List<Integer> itens = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            itens.add(i);
+        }
+        return JdbcTemplate.insertBatchReturningIds(connection, INSERT, "id_bench", itens, JdbcTemplateBenchmarkTest::vincular);
+    }
+
+    private static void vincular(PreparedStatement stmt, int linha) throws SQLException {
+        stmt.setString(1, "Marca " + linha);
+        stmt.setInt(2, linha % 100);
+        stmt.setDouble(3, 10 + linha % 1_000);
+    }
+
+    private static void conferir(long[] ids) {
+        assertEquals(LINHAS, ids.length);
+        Set<Long> distintos = new HashSet<>();
+        for (long id : ids) {
+            assertTrue(id > 0, "todo ID gerado deve ser devolvido");
+            distintos.add(id);
+        }
+        assertEquals(LINHAS, distintos.size(), "os IDs gerados devem ser distintos");
+    }
+
+    @FunctionalInterface
+    private interface Insercao {
+        long[] inserir() throws SQLException;
+    }
+}
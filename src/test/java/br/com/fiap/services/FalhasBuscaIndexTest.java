@@ -0,0 +1,108 @@
+package br.com.fiap.services;
+
+import br.com.fiap.models.Falhas;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do {@link FalhasBuscaIndex}: buscas depois de alterações e exclusões que compactam o índice.
+ *
+ * <p>O índice é estático e compartilhado pelos testes, então cada teste usa os seus próprios IDs e termos.</p>
+ */
+class FalhasBuscaIndexTest {
+
+    private static final FalhasBuscaIndex.Loader VAZIO = Stream::empty;
+
+    @BeforeAll
+    static void carregar() throws SQLException {
+        FalhasBuscaIndex.carregar(VAZIO);
+    }
+
+    @Test
+    void compactacaoMantemAsFalhasVivasAposAlteracoesEExclusoes() throws SQLException {
+        // 2000 falhas; 600 alteradas e 1200 excluídas, o que passa do limite de compactação no meio das exclusões.
+        for (long id = 1; id <= 2_000; id++) {
+            FalhasBuscaIndex.indexar(List.of(falha(id, "ruido freio f" + id, "trocar pastilha")));
+        }
+        for (long id = 1; id <= 600; id++) {
+            FalhasBuscaIndex.indexar(List.of(falha(id, "ruido embreagem f" + id, "regular pedal")));
+        }
+        for (long id = 801; id <= 2_000; id++) {
+            FalhasBuscaIndex.remover(id);
+        }
+
+        assertEquals(ids(601, 800), buscar("freio "));
+        assertEquals(ids(1, 600), buscar("embreagem "));
+        // Dois termos: a lista mais curta conduz e a outra é conferida por busca binária, que depende da ordem.
+        assertEquals(ids(601, 800), buscar("ruido freio "));
+        assertEquals(ids(1, 600), buscar("ruido pedal "));
+        assertEquals(Set.of(700L), buscar("f700 "));
+        assertEquals(Set.of(300L), buscar("f300 embreagem "));
+        assertTrue(buscar("f300 freio ").isEmpty());
+        assertTrue(buscar("f1500 ").isEmpty());
+    }
+
+    @Test
+    void indiceCompactadoContinuaAceitandoEscritas() throws SQLException {
+        for (long id = 10_001; id <= 14_000; id++) {
+            FalhasBuscaIndex.indexar(List.of(falha(id, "vazamento oleo", "apertar carter")));
+        }
+        for (long id = 10_001; id <= 13_500; id++) {
+            FalhasBuscaIndex.remover(id);
+        }
+
+        FalhasBuscaIndex.indexar(List.of(falha(20_000L, "vazamento oleo motor", "trocar junta")));
+        FalhasBuscaIndex.indexar(List.of(falha(13_600L, "vazamento radiador", "trocar mangueira")));
+        FalhasBuscaIndex.remover(13_700L);
+
+        Set<Long> esperados = ids(13_501, 14_000);
+        esperados.add(20_000L);
+        esperados.remove(13_600L);
+        esperados.remove(13_700L);
+        assertEquals(esperados, buscar("vazamento oleo "));
+        assertEquals(Set.of(13_600L), buscar("radiador "));
+    }
+
+    @Test
+    void prefixoEFiltrosConsideramApenasAVersaoAtual() throws SQLException {
+        for (long id = 30_001; id <= 30_010; id++) {
+            FalhasBuscaIndex.indexar(List.of(falha(id, "superaquecimento", "verificar termostato")));
+        }
+        FalhasBuscaIndex.indexar(List.of(new Falhas(30_001L, "superaquecimento", "verificar termostato", 1L, 99L, "Crítica")));
+
+        assertEquals(ids(30_001, 30_010), buscar("superaquec"));
+        FalhasBuscaIndex.Resultado criticas = FalhasBuscaIndex.buscar("superaquecimento", "critica", null, 0, 100, VAZIO);
+        assertEquals(List.of(30_001L), criticas.ids);
+        FalhasBuscaIndex.Resultado doVeiculo = FalhasBuscaIndex.buscar("termostato", null, 99L, 0, 100, VAZIO);
+        assertEquals(List.of(30_001L), doVeiculo.ids);
+    }
+
+    private static Falhas falha(Long id, String descricao, String solucao) {
+        return new Falhas(id, descricao, solucao, 1L, 1L, "Alta");
+    }
+
+    private static Set<Long> buscar(String consulta) throws SQLException {
+        FalhasBuscaIndex.Resultado resultado = FalhasBuscaIndex.buscar(consulta, null, null, 0,
+                FalhasBuscaIndex.MAX_RESULTADOS, VAZIO);
+        Set<Long> encontrados = new HashSet<>(resultado.ids);
+        assertEquals(resultado.total, encontrados.size());
+        return encontrados;
+    }
+
+    private static Set<Long> ids(long de, long ate) {
+        Set<Long> ids = new HashSet<>();
+        LongStream.rangeClosed(de, ate).forEach(ids::add);
+        return ids;
+    }
+}
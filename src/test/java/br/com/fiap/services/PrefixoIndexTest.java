@@ -0,0 +1,98 @@
+package br.com.fiap.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do {@link PrefixoIndex}: buscas que combinam a base e o conjunto auxiliar, antes e depois da reconstrução.
+ */
+class PrefixoIndexTest {
+
+    // Acima do mínimo de pendentes do índice, para forçar a reconstrução da base.
+    private static final int MUITOS = 2_000;
+
+    @Test
+    void buscaReuneABaseEOsParesAdicionados() {
+        PrefixoIndex indice = PrefixoIndex.construir(Map.of(
+                1L, List.of("maria silva"),
+                2L, List.of("mario souza"),
+                3L, List.of("joao lima")));
+
+        indice.definir(4L, List.of("marina costa"));
+        indice.definir(5L, List.of("joana reis"));
+
+        assertEquals(Set.of(1L, 2L, 4L), indice.buscar("mar", 10));
+        assertEquals(Set.of(3L, 5L), indice.buscar("jo", 10));
+        assertEquals(Set.of(4L), indice.buscar("marin", 10));
+        assertTrue(indice.buscar("pedro", 10).isEmpty());
+    }
+
+    @Test
+    void chavesSubstituidasOuRemovidasDeixamDeSerEncontradas() {
+        PrefixoIndex indice = PrefixoIndex.construir(Map.of(
+                1L, List.of("maria silva", "12345678900"),
+                2L, List.of("mario souza")));
+
+        // ID da base com chaves novas: a base passa a ignorá-lo e as chaves novas ficam no auxiliar.
+        indice.definir(1L, List.of("maria santos"));
+        indice.definir(3L, List.of("marcos alves"));
+        // ID do auxiliar substituído e depois removido.
+        indice.definir(3L, List.of("marcelo alves"));
+        indice.remover(2L);
+
+        assertEquals(Set.of(1L, 3L), indice.buscar("mar", 10));
+        assertEquals(Set.of(1L), indice.buscar("maria s", 10));
+        assertTrue(indice.buscar("maria silva", 10).isEmpty());
+        assertTrue(indice.buscar("123", 10).isEmpty());
+        assertTrue(indice.buscar("marcos", 10).isEmpty());
+        assertEquals(Set.of(3L), indice.buscar("marcelo", 10));
+
+        indice.definir(3L, List.of());
+        assertTrue(indice.buscar("marcelo", 10).isEmpty());
+    }
+
+    @Test
+    void limiteValeParaABaseEOAuxiliarJuntos() {
+        PrefixoIndex indice = PrefixoIndex.construir(Map.of(
+                1L, List.of("abc1"),
+                2L, List.of("abc2"),
+                3L, List.of("abc3")));
+        indice.definir(4L, List.of("abc4"));
+        indice.definir(5L, List.of("abc5"));
+
+        assertEquals(2, indice.buscar("abc", 2).size());
+        assertEquals(4, indice.buscar("abc", 4).size());
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), indice.buscar("abc", 10));
+    }
+
+    @Test
+    void reconstrucaoPreservaAsAlteracoesAnteriores() {
+        PrefixoIndex indice = PrefixoIndex.construir(Map.of(
+                1L, List.of("abc1234"),
+                2L, List.of("xyz9876")));
+        indice.definir(1L, List.of("def5678"));
+        indice.remover(2L);
+
+        Set<Long> esperados = new HashSet<>();
+        for (long id = 100; id < 100 + MUITOS; id++) {
+            indice.definir(id, List.of("placa" + id));
+            esperados.add(id);
+        }
+        // Alterações depois da reconstrução voltam a usar o auxiliar sobre a nova base.
+        indice.definir(100L, List.of("outra100"));
+        esperados.remove(100L);
+
+        assertEquals(esperados, indice.buscar("placa", MUITOS * 2));
+        assertEquals(Set.of(100L), indice.buscar("outra", 10));
+        assertEquals(Set.of(1L), indice.buscar("def", 10));
+        assertTrue(indice.buscar("abc", 10).isEmpty());
+        assertTrue(indice.buscar("xyz", 10).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.fiap.services;
+
+import br.com.fiap.dtos.QuadroDto;
+import br.com.fiap.dtos.QuadroEventoDto;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do {@link QuadroOrdensIndex}: atualizações da mesma ordem aplicadas fora da ordem de confirmação e a
+ * sequência que separa os eventos já incluídos no resumo.
+ *
+ * <p>O índice é estático e compartilhado pelos testes, então cada teste usa os seus próprios IDs e status.</p>
+ */
+class QuadroOrdensIndexTest {
+
+    private static final QuadroOrdensIndex.Loader VAZIO = destino -> { };
+
+    private static final List<QuadroEventoDto> EVENTOS = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void carregar() throws SQLException {
+        QuadroOrdensIndex.resumo(VAZIO);
+        QuadroOrdensIndex.observar(EVENTOS::add);
+    }
+
+    @Test
+    void atualizacaoAtrasadaNaoSobrescreveAVersaoMaisNova() throws SQLException {
+        QuadroOrdensIndex.aplicar(101L, 0, "Aberta-101", 1L, 10L);
+        // T1 grava a versão 1 e T2 a versão 2, mas o gancho de T2 roda primeiro.
+        QuadroOrdensIndex.aplicar(101L, 2, "Concluída-101", 1L, 10L);
+        int eventosAntes = eventos(101L);
+        QuadroOrdensIndex.aplicar(101L, 1, "Em andamento-101", 1L, 10L);
+
+        assertEquals(List.of(101L), ordens("Concluída-101"));
+        assertTrue(ordens("Em andamento-101").isEmpty());
+        assertEquals(eventosAntes, eventos(101L), "a atualização descartada não deve chegar ao feed");
+    }
+
+    @Test
+    void atualizacaoRepetidaEDescartada() throws SQLException {
+        QuadroOrdensIndex.aplicar(201L, 3, "Aberta-201", 1L, 10L);
+        int eventosAntes = eventos(201L);
+        QuadroOrdensIndex.aplicar(201L, 3, "Aberta-201", 1L, 10L);
+
+        assertEquals(List.of(201L), ordens("Aberta-201"));
+        assertEquals(eventosAntes, eventos(201L));
+    }
+
+    @Test
+    void atualizacaoAtrasadaNaoTrazDeVoltaUmaOrdemExcluida() throws SQLException {
+        QuadroOrdensIndex.aplicar(301L, 0, "Aberta-301", 1L, 10L);
+        QuadroOrdensIndex.remover(301L);
+        QuadroOrdensIndex.aplicar(301L, 1, "Em andamento-301", 1L, 10L);
+
+        assertTrue(ordens("Aberta-301").isEmpty());
+        assertTrue(ordens("Em andamento-301").isEmpty());
+    }
+
+    @Test
+    void versoesCrescentesMovemAOrdemEntreCelulas() throws SQLException {
+        QuadroOrdensIndex.aplicar(401L, 0, "Aberta-401", 1L, 10L);
+        QuadroOrdensIndex.aplicar(401L, 1, "Em andamento-401", 2L, 20L);
+
+        assertTrue(ordens("Aberta-401").isEmpty());
+        assertEquals(List.of(401L), QuadroOrdensIndex.ordens("Em andamento-401", 2L, 20L, null, 10, VAZIO));
+    }
+
+    @Test
+    void resumoInformaAUltimaMudancaQueJaInclui() throws SQLException {
+        QuadroOrdensIndex.aplicar(501L, 0, "Aberta-501", 1L, 10L);
+        QuadroDto quadro = QuadroOrdensIndex.resumo(VAZIO);
+        QuadroOrdensIndex.aplicar(501L, 1, "Concluída-501", 1L, 10L);
+
+        List<QuadroEventoDto> daOrdem = EVENTOS.stream().filter(evento -> evento.getIdOs() == 501L).toList();
+        assertEquals(2, daOrdem.size());
+        // O primeiro evento já está no resumo; só o segundo deve ser aplicado sobre ele.
+        assertTrue(daOrdem.get(0).getSequencia() <= quadro.getSequencia());
+        assertTrue(daOrdem.get(1).getSequencia() > quadro.getSequencia());
+        assertEquals(1, quadro.getTotaisPorStatus().get("Aberta-501"));
+    }
+
+    private static List<Long> ordens(String status) throws SQLException {
+        return QuadroOrdensIndex.ordens(status, null, null, null, 10, VAZIO);
+    }
+
+    private static int eventos(Long idOs) {
+        return (int) EVENTOS.stream().filter(evento -> idOs.equals(evento.getIdOs())).count();
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.fiap.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do {@link QuantileSketch}: combinação de resumos e erro relativo dos quantis.
+ */
+class QuantileSketchTest {
+
+    private static final double[] QUANTIS = {0, 0.01, 0.25, 0.5, 0.9, 0.99, 1};
+
+    @Test
+    void combinarResumosEquivaleAAdicionarTodosOsValoresAUmSo() {
+        Random random = new Random(42);
+        QuantileSketch unico = new QuantileSketch();
+        QuantileSketch[] partes = {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()};
+        for (int i = 0; i < 10_000; i++) {
+            // Inclui zeros e uma cauda longa, como os tempos de execução reais.
+            double valor = i % 50 == 0 ? 0 : Math.exp(random.nextGaussian() * 2 + 4);
+            unico.add(valor);
+            partes[random.nextInt(partes.length)].add(valor);
+        }
+
+        QuantileSketch combinado = new QuantileSketch();
+        for (QuantileSketch parte : partes) {
+            combinado.merge(parte);
+        }
+
+        assertEquals(unico.quantidade(), combinado.quantidade());
+        for (double q : QUANTIS) {
+            assertEquals(unico.quantile(q), combinado.quantile(q), "quantil " + q);
+        }
+    }
+
+    @Test
+    void combinarNaoAlteraOResumoInformado() {
+        QuantileSketch a = new QuantileSketch();
+        QuantileSketch b = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            a.add(i);
+            b.add(i * 1_000);
+        }
+        double medianaAntes = b.quantile(0.5);
+
+        a.merge(b);
+
+        assertEquals(100, b.quantidade());
+        assertEquals(medianaAntes, b.quantile(0.5));
+        assertEquals(200, a.quantidade());
+    }
+
+    @Test
+    void combinarComResumoVazioNaoMudaOsQuantis() {
+        QuantileSketch resumo = new QuantileSketch();
+        for (int i = 1; i <= 1_000; i++) {
+            resumo.add(i);
+        }
+        double[] antes = new double[QUANTIS.length];
+        for (int i = 0; i < QUANTIS.length; i++) {
+            antes[i] = resumo.quantile(QUANTIS[i]);
+        }
+
+        resumo.merge(new QuantileSketch());
+
+        assertEquals(1_000, resumo.quantidade());
+        for (int i = 0; i < QUANTIS.length; i++) {
+            assertEquals(antes[i], resumo.quantile(QUANTIS[i]));
+        }
+    }
+
+    @Test
+    void quantisFicamDentroDoErroRelativo() {
+        QuantileSketch resumo = new QuantileSketch();
+        for (int i = 1; i <= 10_000; i++) {
+            resumo.add(i);
+        }
+        for (double q : QUANTIS) {
+            // O valor exato na mesma posição usada pelo resumo.
+            double exato = Math.floor(q * 9_999) + 1;
+            double estimado = resumo.quantile(q);
+            assertTrue(Math.abs(estimado - exato) <= QuantileSketch.PRECISAO * exato + 1e-9,
+                    "quantil " + q + ": estimado " + estimado + ", exato " + exato);
+        }
+    }
+
+    @Test
+    void resumoVazioEZerosDevolvemZero() {
+        assertEquals(0, new QuantileSketch().quantile(0.5));
+
+        QuantileSketch zeros = new QuantileSketch();
+        zeros.add(0);
+        zeros.add(0);
+        zeros.add(-5);
+        assertEquals(2, zeros.quantidade());
+        assertEquals(0, zeros.quantile(0.99));
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.fiap.services;
+
+import br.com.fiap.config.TransactionManager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes de contenção das {@link TravasEstoque}: várias threads reservando a mesma peça, com e sem as travas.
+ *
+ * <p>O banco é simulado por um semáforo no lugar do pool de conexões e por uma trava no lugar do lock da linha,
+ * mantido até o fim da transação como no UPDATE de estoque. Cada cenário informa a vazão, a espera média pela
+ * conexão e o maior número de conexões tomadas ao mesmo tempo pelas reservas da peça.</p>
+ */
+class TravasEstoqueTest {
+
+    private static final int THREADS = 16;
+    private static final int RESERVAS_POR_THREAD = 20;
+    private static final int CONEXOES = 4;
+
+    // Tempo da transação depois do UPDATE, com o lock da linha tomado.
+    private static final long TRANSACAO_MS = 1;
+
+    @Test
+    void comTravasAsReservasDaPecaOcupamUmaConexaoPorVez() throws Exception {
+        Resultado resultado = executar(1L, true);
+
+        assertEquals(THREADS * RESERVAS_POR_THREAD, resultado.reservas);
+        assertEquals(1, resultado.conexoesMaximas, "quem espera pela peça não deve segurar uma conexão");
+    }
+
+    @Test
+    void semTravasAsReservasDaPecaTomamOPool() throws Exception {
+        Resultado resultado = executar(2L, false);
+
+        assertEquals(THREADS * RESERVAS_POR_THREAD, resultado.reservas);
+        assertTrue(resultado.conexoesMaximas > 1, "sem as travas, as reservas esperam o lock da linha com a conexão");
+    }
+
+    private static Resultado executar(long idPeca, boolean comTravas) throws Exception {
+        Banco banco = new Banco();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(() -> {
+                for (int i = 0; i < RESERVAS_POR_THREAD; i++) {
+                    TransactionManager.begin();
+                    try {
+                        if (comTravas) {
+                            TravasEstoque.travarAteFimDaTransacao(idPeca);
+                        }
+                        banco.reservar();
+                    } finally {
+                        banco.encerrar();
+                        TransactionManager.commit();
+                    }
+                }
+                return null;
+            });
+        }
+        long inicio = System.nanoTime();
+        try {
+            for (Future<Void> tarefa : executor.invokeAll(tarefas)) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        long duracao = System.nanoTime() - inicio;
+
+        Resultado resultado = new Resultado(banco.reservas.get(), banco.conexoesMaximas.get());
+        System.out.printf("travas=%s: %d reservas em %d ms (%.0f/s), espera média pela conexão %.2f ms, "
+                        + "até %d conexões tomadas%n",
+                comTravas, resultado.reservas, TimeUnit.NANOSECONDS.toMillis(duracao),
+                resultado.reservas / (duracao / 1e9), banco.esperaConexaoNanos.get() / 1e6 / resultado.reservas,
+                resultado.conexoesMaximas);
+        return resultado;
+    }
+
+    /**
+     * Pool de conexões e lock da linha da peça; cada thread mantém no máximo uma transação aberta.
+     */
+    private static final class Banco {
+
+        private final Semaphore pool = new Semaphore(CONEXOES);
+        private final ReentrantLock linha = new ReentrantLock();
+        private final AtomicInteger conexoesTomadas = new AtomicInteger();
+        private final AtomicInteger conexoesMaximas = new AtomicInteger();
+        private final AtomicLong esperaConexaoNanos = new AtomicLong();
+        private final AtomicInteger reservas = new AtomicInteger();
+        private final ThreadLocal<Boolean> aberta = ThreadLocal.withInitial(() -> false);
+
+        // Empresta a conexão e executa o UPDATE, que espera pelo lock da linha.
+        void reservar() throws InterruptedException {
+            long inicio = System.nanoTime();
+            pool.acquire();
+            esperaConexaoNanos.addAndGet(System.nanoTime() - inicio);
+            aberta.set(true);
+            conexoesMaximas.accumulateAndGet(conexoesTomadas.incrementAndGet(), Math::max);
+            linha.lock();
+            reservas.incrementAndGet();
+            Thread.sleep(TRANSACAO_MS);
+        }
+
+        // Confirma: solta o lock da linha e devolve a conexão, antes das ações pós-transação.
+        void encerrar() {
+            if (aberta.get()) {
+                aberta.set(false);
+                linha.unlock();
+                conexoesTomadas.decrementAndGet();
+                pool.release();
+            }
+        }
+    }
+
+    private static final class Resultado {
+
+        private final int reservas;
+        private final int conexoesMaximas;
+
+        private Resultado(int reservas, int conexoesMaximas) {
+            this.reservas = reservas;
+            this.conexoesMaximas = conexoesMaximas;
+        }
+    }
+}